@@ -0,0 +1,34 @@
+#!/bin/bash
+
+numberOfRuns=10000000
+neighbourPeakScalingFactor=2.0
+acceptanceProbabilityScalingFactor=1.0
+temperatureScalingFactor=100.0
+temperatureDivisor=20000
+islands=4
+migrationInterval=100000
+timeoutSeconds=600
+
+# each execution needs an empty directory, so that no state of a previous execution is taken up
+islandDirectory="logs/islands-$(date +%Y%m%d-%H%M%S)"
+jar=target/SchwarzschildSimulatedAnnealing-1.0-SNAPSHOT-shaded.jar
+
+mvn clean package
+mkdir -p "$islandDirectory"
+
+for ((islandId = 0; islandId < islands; islandId++))
+do
+    java --add-modules jdk.incubator.vector -DlogSuffix="island-${islandId}" -jar "$jar" \
+        numberOfRuns "$numberOfRuns" \
+        neighbourPeakScalingFactor "$neighbourPeakScalingFactor" \
+        acceptanceProbabilityScalingFactor "$acceptanceProbabilityScalingFactor" \
+        temperatureScalingFactor "$temperatureScalingFactor" \
+        temperatureDivisor "$temperatureDivisor" \
+        mode island \
+        islandDirectory "$islandDirectory" \
+        islandId "$islandId" \
+        migrationInterval "$migrationInterval" < /dev/null &
+done
+
+java -DlogSuffix="islands" -cp "$jar" ianmarshall.IslandCoordinator "$islandDirectory" "$islands" "$timeoutSeconds"
+wait
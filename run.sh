@@ -11,9 +11,10 @@ logSuffix="${numberOfRuns}-${neighbourPeakScalingFactor}-${acceptanceProbability
 
 mvn clean package
 
-java -DlogSuffix="$logSuffix" -jar target/SchwarzschildSimulatedAnnealing-1.0-SNAPSHOT-shaded.jar \
+java --add-modules jdk.incubator.vector -DlogSuffix="$logSuffix" -jar target/SchwarzschildSimulatedAnnealing-1.0-SNAPSHOT-shaded.jar \
     numberOfRuns "$numberOfRuns" \
     neighbourPeakScalingFactor "$neighbourPeakScalingFactor" \
     acceptanceProbabilityScalingFactor "$acceptanceProbabilityScalingFactor" \
     temperatureScalingFactor "$temperatureScalingFactor" \
-    temperatureDivisor "$temperatureDivisor"
+    temperatureDivisor "$temperatureDivisor" \
+    moveJournal "logs/SchwarzschildSimulatedAnnealing-${logSuffix}.journal"
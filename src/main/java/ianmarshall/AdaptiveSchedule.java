@@ -0,0 +1,85 @@
+package ianmarshall;
+
+/**
+ * An adaptive annealing schedule, which adjusts the temperature to obtain a target rate of acceptance of moves.
+ * <br/>
+ * The temperature starts at the temperature scaling factor. After each window of runs, it is multiplied by
+ * exp(g * (target rate - observed rate)), so that it rises if too few moves were accepted and falls if too many were.
+ * The target rate falls linearly from its initial value at the first run to zero at the last run, so that the runs
+ * become a descent towards the nearest minimum of energy.
+ */
+public class AdaptiveSchedule implements AnnealingSchedule
+{
+	// The number of runs over which the rate of acceptance is observed
+	static final int N_WINDOW_RUNS = 1000;
+
+	// The gain g of the adjustment of the temperature
+	private static final double DBL_GAIN = 4.0;
+
+	// The minimum temperature, relative to the initial temperature, so that it can always rise again
+	private static final double DBL_MIN_RELATIVE_TEMPERATURE = 1.0E-12;
+
+	private double m_dblTemperatureScalingFactor = 0.0;
+	private double m_dblTargetAcceptanceRate = 0.0;
+	private double m_dblTemperature = 0.0;
+	private int m_nRuns = 0;
+	private int m_nWindowRuns = 0;
+	private int m_nWindowAcceptances = 0;
+
+	/**
+	 * The constructor.
+	 * @param dblTemperatureScalingFactor
+	 *   The initial temperature.
+	 * @param dblTargetAcceptanceRate
+	 *   The target rate of acceptance of moves at the first run, between 0 and 1.
+	 */
+	public AdaptiveSchedule(double dblTemperatureScalingFactor, double dblTargetAcceptanceRate)
+	{
+		m_dblTemperatureScalingFactor = dblTemperatureScalingFactor;
+		m_dblTargetAcceptanceRate = dblTargetAcceptanceRate;
+		m_dblTemperature = dblTemperatureScalingFactor;
+	}
+
+	@Override
+	public double temperature(int nRun, int nRuns)
+	{
+		m_nRuns = nRuns;
+		return m_dblTemperature;
+	}
+
+	@Override
+	public void record(int nRun, boolean bAccepted, double dblEnergy)
+	{
+		m_nWindowRuns++;
+
+		if (bAccepted)
+			m_nWindowAcceptances++;
+
+		if (m_nWindowRuns >= N_WINDOW_RUNS)
+		{
+			double dblObservedRate = (double)m_nWindowAcceptances / m_nWindowRuns;
+			double dblTargetRate = m_dblTargetAcceptanceRate * Math.max(0.0, 1.0 - ((double)nRun / m_nRuns));
+
+			m_dblTemperature *= Math.exp(DBL_GAIN * (dblTargetRate - dblObservedRate));
+			m_dblTemperature = Math.max(m_dblTemperature, m_dblTemperatureScalingFactor * DBL_MIN_RELATIVE_TEMPERATURE);
+
+			m_nWindowRuns = 0;
+			m_nWindowAcceptances = 0;
+		}
+	}
+
+	@Override
+	public double[] getState()
+	{
+		return new double[] {m_dblTemperature, m_nRuns, m_nWindowRuns, m_nWindowAcceptances};
+	}
+
+	@Override
+	public void setState(double[] adblState)
+	{
+		m_dblTemperature = adblState[0];
+		m_nRuns = (int)adblState[1];
+		m_nWindowRuns = (int)adblState[2];
+		m_nWindowAcceptances = (int)adblState[3];
+	}
+}
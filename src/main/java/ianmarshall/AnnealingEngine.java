@@ -0,0 +1,79 @@
+package ianmarshall;
+
+import ianmarshall.SnapshotPublisher.Snapshot;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A processor of the simulated annealing runs, which is executed on its own thread by the {@link Supervisor}, and can
+ * be paused in place, resumed and stopped.
+ */
+public interface AnnealingEngine extends Runnable
+{
+	/**
+	 * Request that the runs stop as soon as possible, even if they are paused. This may be called from any thread.
+	 */
+	void stopExecution();
+
+	/**
+	 * Request that the runs pause between runs, keeping all their state, until they are resumed or stopped. This may
+	 * be called from any thread.
+	 * @see PauseControl
+	 */
+	void pauseExecution();
+
+	/**
+	 * Resume the runs where they paused. This may be called from any thread.
+	 */
+	void resumeExecution();
+
+	/**
+	 * @return
+	 *   Whether the runs are paused.
+	 */
+	boolean getPaused();
+
+	/**
+	 * @return
+	 *   Whether the runs have stopped, whether all processing has been completed or not.
+	 */
+	boolean getStopped();
+
+	/**
+	 * @return
+	 *   The result of the runs, or <code>null</code> if they have not stopped.
+	 */
+	WorkerResult getWorkerResult();
+
+	/**
+	 * @return
+	 *   A future which is completed with the result as soon as the runs stop, whether all processing has been completed,
+	 *   the runs were stopped, or they failed.
+	 */
+	CompletableFuture<WorkerResult> getCompletion();
+
+	/**
+	 * Read a consistent copy of the state of the runs while they continue, without pausing them. This may be called
+	 * from any thread. The snapshot is refreshed every snapshot interval whether or not it is read, so it is at most one
+	 * interval old.
+	 * @return
+	 *   The latest snapshot of the current state of the runs, or where several replicas or workers execute them, of
+	 *   the one whose current energy is lowest, or <code>null</code> if the runs have not started.
+	 * @see SnapshotPublisher
+	 */
+	Snapshot getSnapshot();
+
+	/**
+	 * @return
+	 *   The counters of the progress of the runs, which may be read from any thread while the runs continue.
+	 * @see MetricsEndpoint
+	 */
+	RunMetricsMBean getRunMetrics();
+
+	/**
+	 * @return
+	 *   The handler which records an exception or error thrown by the runs in the result.
+	 */
+	UncaughtExceptionHandler getUncaughtExceptionHandler();
+}
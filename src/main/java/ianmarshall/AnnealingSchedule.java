@@ -0,0 +1,132 @@
+package ianmarshall;
+
+/**
+ * The annealing schedule of the simulated annealing, which gives the temperature of each run.
+ * <br/>
+ * A schedule may adapt to the progress of the runs, of which it is told by {@link #record(int, boolean, double)}
+ * after each run. The schedules are:
+ * <ul>
+ *   <li>{@link QuarticSchedule}, the original schedule, which falls to zero;</li>
+ *   <li>{@link ExponentialSchedule}, which falls by a constant factor per run;</li>
+ *   <li>{@link LogarithmicSchedule}, which falls with the logarithm of the run number;</li>
+ *   <li>{@link AdaptiveSchedule}, which adjusts the temperature to obtain a target rate of acceptance;</li>
+ *   <li>{@link ReheatSchedule}, which falls exponentially, and is raised again when the energy stagnates.</li>
+ * </ul>
+ */
+public interface AnnealingSchedule
+{
+	public enum Type
+	{
+		QUARTIC("quartic"), EXPONENTIAL("exponential"), LOGARITHMIC("logarithmic"), ADAPTIVE("adaptive"),
+		REHEAT("reheat");
+
+		private String m_sValue = "";
+
+		Type(String sValue)
+		{
+			m_sValue = sValue;
+		}
+
+		public String value()
+		{
+			return m_sValue;
+		}
+
+		/**
+		 * @param sValue
+		 *   The value of a schedule type, in any case.
+		 * @return
+		 *   The schedule type, or <code>null</code> if there is none of the value supplied.
+		 */
+		public static Type parse(String sValue)
+		{
+			Type tResult = null;
+
+			for (Type t: values())
+				if (t.value().equalsIgnoreCase(sValue))
+					tResult = t;
+
+			return tResult;
+		}
+	}
+
+	/**
+	 * Calculate the simulated annealing temperature.
+	 * @param nRun
+	 *   The <code>1</code>-based run number.
+	 * @param nRuns
+	 *   The total number of runs.
+	 * @return
+	 *   The simulated annealing temperature, which is not negative.
+	 */
+	double temperature(int nRun, int nRuns);
+
+	/**
+	 * Record the outcome of a run, after its temperature was calculated. By default this does nothing.
+	 * @param nRun
+	 *   The <code>1</code>-based run number.
+	 * @param bAccepted
+	 *   Whether the run's move was accepted.
+	 * @param dblEnergy
+	 *   The current energy after the run.
+	 */
+	default void record(int nRun, boolean bAccepted, double dblEnergy)
+	{
+	}
+
+	/**
+	 * @return
+	 *   The state which the schedule has accumulated from the outcomes of the runs, so that it can be checkpointed. By
+	 *   default there is none.
+	 */
+	default double[] getState()
+	{
+		return new double[0];
+	}
+
+	/**
+	 * Restore the state which the schedule had accumulated, as returned by {@link #getState()}. By default this does
+	 * nothing.
+	 * @param adblState
+	 *   The state.
+	 */
+	default void setState(double[] adblState)
+	{
+	}
+
+	/**
+	 * Create the annealing schedule selected by the start parameters.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @return
+	 *   The annealing schedule.
+	 */
+	static AnnealingSchedule create(StartParameters spStartParameters)
+	{
+		AnnealingSchedule asResult = null;
+		double dblScalingFactor = spStartParameters.getTemperatureScalingFactor();
+		double dblDivisor = spStartParameters.getTemperatureDivisor();
+
+		switch (spStartParameters.getSchedule())
+		{
+			case EXPONENTIAL:
+				asResult = new ExponentialSchedule(dblScalingFactor, dblDivisor);
+				break;
+			case LOGARITHMIC:
+				asResult = new LogarithmicSchedule(dblScalingFactor, dblDivisor);
+				break;
+			case ADAPTIVE:
+				asResult = new AdaptiveSchedule(dblScalingFactor, spStartParameters.getTargetAcceptanceRate());
+				break;
+			case REHEAT:
+				asResult = new ReheatSchedule(dblScalingFactor, dblDivisor, spStartParameters.getStagnationRuns());
+				break;
+			case QUARTIC:
+			default:
+				asResult = new QuarticSchedule(dblScalingFactor, dblDivisor);
+				break;
+		}
+
+		return asResult;
+	}
+}
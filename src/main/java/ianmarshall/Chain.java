@@ -0,0 +1,236 @@
+package ianmarshall;
+
+import ianmarshall.SimulatedAnnealing.EnergyMode;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is a single Markov chain of the simulated annealing: a grid of metric tensor values with its current
+ * energy, which is changed one run at a time by a move that is accepted or undone.
+ * <br/>
+ * The temperature of each run is supplied by the caller, so the same chain serves a worker following an annealing
+ * schedule, and a replica of parallel tempering at a fixed temperature.
+ */
+public class Chain
+{
+	// The relative difference between the incrementally and fully calculated energy above which a warning is logged
+	private static final double DBL_ENERGY_DRIFT_TOLERANCE = 1.0E-9;
+
+	private static final Logger logger = LoggerFactory.getLogger(Chain.class);
+
+	private SimulatedAnnealing m_saSimulatedAnnealing = null;
+	private RandomStream m_rsRandom = null;
+	private EnergyMode m_emEnergyMode = EnergyMode.INCREMENTAL;
+	private MetricGrid m_mgG = null;
+	private double m_dblEnergy = Double.NaN;
+	private Move m_mvMove = new Move();
+
+	// The proposal of the latest run, until it is accepted or undone
+	private double m_dblEnergyProposed = Double.NaN;
+	private double m_dblRandomProposed = 0.0;
+
+	/**
+	 * The constructor.
+	 * @param saSimulatedAnnealing
+	 *   The simulated annealing functions, which generate candidates from the random number stream below.
+	 * @param rsRandom
+	 *   The random number stream of the chain, which is not shared with other threads.
+	 * @param emEnergyMode
+	 *   Whether the energy of a candidate is calculated fully or incrementally.
+	 */
+	public Chain(SimulatedAnnealing saSimulatedAnnealing, RandomStream rsRandom, EnergyMode emEnergyMode)
+	{
+		m_saSimulatedAnnealing = saSimulatedAnnealing;
+		m_rsRandom = rsRandom;
+		m_emEnergyMode = emEnergyMode;
+	}
+
+	/**
+	 * Set the metric tensor values of the chain, and calculate their energy.
+	 * @param mgG
+	 *   The metric tensor values, which will be changed in place by the runs.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 */
+	public void setMetricGrid(MetricGrid mgG, int nRun)
+	{
+		m_mgG = mgG;
+		m_dblEnergy = m_saSimulatedAnnealing.energy(m_mgG, nRun);
+	}
+
+	/**
+	 * Execute a run: make a candidate move, and accept it or undo it.
+	 * @param nRun
+	 *   The <code>1</code>-based run number. The random numbers of a run depend only on it and the stream's seed.
+	 * @param dblTemperature
+	 *   The simulated annealing temperature of the run.
+	 * @return
+	 *   Whether the move was accepted.
+	 */
+	public boolean step(int nRun, double dblTemperature)
+	{
+		propose(nRun);
+		return decide(dblTemperature);
+	}
+
+	/**
+	 * Make the candidate move of a run and calculate its energy, without accepting it or undoing it. The run's random
+	 * numbers do not depend on the temperature, so a proposal can be made before the temperature is known.
+	 * @param nRun
+	 *   The <code>1</code>-based run number. The random numbers of a run depend only on it and the stream's seed.
+	 */
+	public void propose(int nRun)
+	{
+		m_rsRandom.startBlock(nRun);
+
+		// The candidate replaces the current tensor values in place, and is undone if it is rejected
+		m_saSimulatedAnnealing.neighbour(m_mgG, m_mvMove);
+		double dblEnergyNew;
+
+		if (m_emEnergyMode == EnergyMode.INCREMENTAL)
+		{
+			// Only the derivatives and energy terms within the move's stencil can have changed
+			int nIndexFrom = m_mvMove.getStencilFrom();
+			int nIndexTo = m_mvMove.getStencilTo(m_mgG.size());
+			dblEnergyNew = m_dblEnergy + m_saSimulatedAnnealing.energyChange(m_mgG, nIndexFrom, nIndexTo, nRun);
+		}
+		else
+			dblEnergyNew = m_saSimulatedAnnealing.energy(m_mgG, nRun);
+
+		m_dblEnergyProposed = dblEnergyNew;
+		m_dblRandomProposed = m_rsRandom.nextDouble();
+	}
+
+	/**
+	 * Accept the candidate move of the latest proposal, or undo it.
+	 * @param dblTemperature
+	 *   The simulated annealing temperature of the run.
+	 * @return
+	 *   Whether the move was accepted.
+	 */
+	public boolean decide(double dblTemperature)
+	{
+		double dblProbability =
+		 m_saSimulatedAnnealing.acceptanceProbability(m_dblEnergy, m_dblEnergyProposed, dblTemperature);
+		boolean bAcceptMove = m_dblRandomProposed < dblProbability;
+
+		if (bAcceptMove)
+			m_dblEnergy = m_dblEnergyProposed;
+		else
+			m_mvMove.undo(m_mgG);
+
+		return bAcceptMove;
+	}
+
+	/**
+	 * Undo the candidate move of the latest proposal, without deciding whether to accept it.
+	 */
+	public void discard()
+	{
+		m_mvMove.undo(m_mgG);
+	}
+
+	/**
+	 * Apply the move just accepted by another chain in the same state as this one, by copying the values, derivatives
+	 * and energy terms within the move's stencil, so that this chain is in the same state again.
+	 * @param chSource
+	 *   The chain which accepted the move.
+	 */
+	public void follow(Chain chSource)
+	{
+		Move mv = chSource.m_mvMove;
+		m_mgG.copyFrom(chSource.m_mgG, mv.getStencilFrom(), mv.getStencilTo(m_mgG.size()));
+		m_dblEnergy = chSource.m_dblEnergy;
+	}
+
+	/**
+	 * Recalculate the current energy over all radius values, in order to bound the drift of the incrementally
+	 * calculated energy due to rounding, and log a warning if the drift is larger than expected.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 * @return
+	 *   The absolute difference between the incrementally and fully calculated energy.
+	 */
+	public double checkEnergy(int nRun)
+	{
+		double dblEnergy = m_saSimulatedAnnealing.energy(m_mgG, nRun);
+		double dblDrift = Math.abs(m_dblEnergy - dblEnergy);
+
+		if (dblDrift > DBL_ENERGY_DRIFT_TOLERANCE * Math.max(1.0, Math.abs(dblEnergy)))
+			logger.warn(String.format("Run number %s: the incrementally calculated energy %f differs from"
+			 + " the fully calculated energy %f by %g.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(nRun), m_dblEnergy, dblEnergy, dblDrift));
+
+		m_dblEnergy = dblEnergy;
+		return dblDrift;
+	}
+
+	/**
+	 * Add the change of energy due to moves made to the chain's metric tensor values by others, such as the windows of
+	 * a {@link CheckerboardSweep}.
+	 * @param dblEnergyChange
+	 *   The change of energy.
+	 */
+	public void changeEnergy(double dblEnergyChange)
+	{
+		m_dblEnergy += dblEnergyChange;
+	}
+
+	/**
+	 * Set the metric tensor values and energy, such as those of a checkpoint, without recalculating either.
+	 * @param mgG
+	 *   The metric tensor values, whose derivatives and energy terms have been calculated.
+	 * @param dblEnergy
+	 *   The energy of the values.
+	 */
+	public void restore(MetricGrid mgG, double dblEnergy)
+	{
+		m_mgG = mgG;
+		m_dblEnergy = dblEnergy;
+	}
+
+	/**
+	 * Exchange the metric tensor values and energy of this chain with those of another.
+	 * @param chOther
+	 *   The other chain.
+	 */
+	public void exchange(Chain chOther)
+	{
+		MetricGrid mgG = m_mgG;
+		m_mgG = chOther.m_mgG;
+		chOther.m_mgG = mgG;
+
+		double dblEnergy = m_dblEnergy;
+		m_dblEnergy = chOther.m_dblEnergy;
+		chOther.m_dblEnergy = dblEnergy;
+	}
+
+	public MetricGrid getMetricGrid()
+	{
+		return m_mgG;
+	}
+
+	/**
+	 * @return
+	 *   The current energy, or <code>NaN</code> if the metric tensor values have not been set.
+	 */
+	public double getEnergy()
+	{
+		return m_dblEnergy;
+	}
+
+	/**
+	 * @return
+	 *   The move of the latest run.
+	 */
+	public Move getMove()
+	{
+		return m_mvMove;
+	}
+
+	public SimulatedAnnealing getSimulatedAnnealing()
+	{
+		return m_saSimulatedAnnealing;
+	}
+}
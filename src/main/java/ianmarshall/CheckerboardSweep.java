@@ -0,0 +1,439 @@
+package ianmarshall;
+
+import ianmarshall.SimulatedAnnealing.EnergyMode;
+import ianmarshall.SnapshotPublisher.Snapshot;
+import ianmarshall.WorkerResult.Reason;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class executes the runs as checkerboard sweeps: the radial grid is split into windows of consecutive radius
+ * values, and the "red" (even) windows are annealed concurrently on a fork/join pool, then the "black" (odd) ones.
+ * <br/>
+ * A candidate move's bump only changes the metric component values within a few radius values of its centre, and
+ * the derivatives and energy terms within one more. The centres of the moves of a window are kept at least a halo
+ * margin away from its ends, so that everything a move reads or writes lies within its window. The windows of one
+ * colour are therefore independent, and are annealed by Metropolis moves of their own, with their changes of energy
+ * summed in window order. The window boundaries are shifted by a random offset for each sweep, so that every radius
+ * value can be the centre of a move.
+ * <br/>
+ * Each window has its own random number stream split from the seed, and draws the numbers of each half-sweep from a
+ * block of its own, so the same seed always gives the same result, whatever the scheduling of the threads.
+ */
+public class CheckerboardSweep implements AnnealingEngine
+{
+	/**
+	 * A window's annealing task, which is reused from one half-sweep to the next.
+	 */
+	private static class Lane extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private RandomStream m_rsRandom = null;
+		private SimulatedAnnealing m_saSimulatedAnnealing = null;
+		private Move m_mvMove = new Move();
+		private boolean[] m_abAccepted = null;
+		private int m_nCentreFrom = 0;
+		private int m_nCentreTo = 0;
+		private int m_nMoves = 0;
+		private double m_dblEnergyChange = 0.0;
+
+		// The parameters of the current half-sweep
+		private MetricGrid m_mgG = null;
+		private long m_lBlock = 0L;
+		private int m_nRun = 0;
+		private double m_dblTemperature = 0.0;
+
+		private Lane(StartParameters spStartParameters, RandomStream rsRandom, int nMovesMax)
+		{
+			m_rsRandom = rsRandom;
+			m_saSimulatedAnnealing = new SimulatedAnnealing(spStartParameters, rsRandom);
+			m_abAccepted = new boolean[nMovesMax];
+		}
+
+		/**
+		 * Anneal the window by Metropolis moves centred within it, on the grid shared with the other windows.
+		 */
+		@Override
+		protected void compute()
+		{
+			int nSize = m_mgG.size();
+			m_rsRandom.startBlock(m_lBlock);
+			m_dblEnergyChange = 0.0;
+
+			for (int m = 0; m < m_nMoves; m++)
+			{
+				m_saSimulatedAnnealing.neighbour(m_mgG, m_mvMove, m_nCentreFrom, m_nCentreTo);
+				double dblEnergyChange = m_saSimulatedAnnealing.energyChange(m_mgG, m_mvMove.getStencilFrom(),
+				 m_mvMove.getStencilTo(nSize), m_nRun);
+
+				// Only the change of energy matters, which is the same whatever the energy of the rest of the grid
+				double dblProbability =
+				 m_saSimulatedAnnealing.acceptanceProbability(0.0, dblEnergyChange, m_dblTemperature);
+				m_abAccepted[m] = m_rsRandom.nextDouble() < dblProbability;
+
+				if (m_abAccepted[m])
+					m_dblEnergyChange += dblEnergyChange;
+				else
+					m_mvMove.undo(m_mgG);
+			}
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(CheckerboardSweep.class);
+
+	// The identifier of the random number stream of the window offsets, split from the seed like those of the windows
+	private static final long L_OFFSET_STREAM_ID = -1L;
+
+	// The halo margin: a move's bump, one more radius value for its derivatives, and one more for their stencils
+	private static final int N_HALO = Move.halfWidth(SimulatedAnnealing.DBL_NEIGHBOUR_STANDARD_DEVIATION) + 2;
+
+	private int m_nRun = 0;
+	private int m_nRuns = 0;
+	private int m_nSweep = 0;
+	private int m_nWindowWidth = 0;
+	private int m_nSweepMoves = 0;
+	private int m_nTelemetryIntervalRuns = 0;
+	private int m_nEnergyCheckInterval = 0;
+	private double m_dblTemperature = Double.NaN;
+
+	private StartParameters m_spStartParameters = null;
+	private SimulatedAnnealing m_saSimulatedAnnealing = null;
+	private Chain m_chChain = null;
+	private RandomStream m_rsSeed = null;
+	private RandomStream m_rsOffsetRandom = null;
+	private List<Lane> m_liLanes = new ArrayList<>();
+	private long m_lAcceptances = 0L;
+	private double m_dblEnergyDriftMax = 0.0;
+
+	private volatile boolean m_bStopping = false;
+	private volatile boolean m_bStopped = false;
+	private volatile WorkerResult m_WorkerResult = null;
+	private PauseControl m_pcPauseControl = new PauseControl();
+	private CompletableFuture<WorkerResult> m_cfCompletion = new CompletableFuture<>();
+	private SnapshotPublisher m_snpSnapshotPublisher = null;
+	private RunMetrics m_rmMetrics = null;
+
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 */
+	public CheckerboardSweep(StartParameters spStartParameters)
+	{
+		m_spStartParameters = spStartParameters;
+		m_nRuns = spStartParameters.getNumberOfRuns();
+		m_nWindowWidth = spStartParameters.getWindowWidth();
+		m_nSweepMoves = spStartParameters.getSweepMoves();
+		m_nTelemetryIntervalRuns = spStartParameters.getTelemetryIntervalRuns();
+		m_nEnergyCheckInterval = spStartParameters.getEnergyCheckInterval();
+
+		m_rsSeed = new RandomStream(spStartParameters.getSeed());
+		m_rsOffsetRandom = m_rsSeed.split(L_OFFSET_STREAM_ID);
+
+		// The chain only holds the grid and its energy, since the moves are made by the windows
+		m_saSimulatedAnnealing = new SimulatedAnnealing(spStartParameters, m_rsSeed);
+		m_chChain = new Chain(m_saSimulatedAnnealing, m_rsSeed, EnergyMode.INCREMENTAL);
+		m_snpSnapshotPublisher = new SnapshotPublisher(spStartParameters.getSnapshotInterval());
+		m_rmMetrics = new RunMetrics(m_nRuns, m_nRun);
+	}
+
+	/**
+	 * @return
+	 *   The narrowest window in which a move can be centred: twice the halo margin, plus one.
+	 */
+	static int minimumWindowWidth()
+	{
+		return (2 * N_HALO) + 1;
+	}
+
+	@Override
+	public void stopExecution()
+	{
+		m_bStopping = true;
+		m_pcPauseControl.wake();
+		logger.info(String.format("Stopping run number %s...", SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)));
+	}
+
+	@Override
+	public void pauseExecution()
+	{
+		m_pcPauseControl.pause();
+	}
+
+	@Override
+	public void resumeExecution()
+	{
+		m_pcPauseControl.resume();
+	}
+
+	@Override
+	public boolean getPaused()
+	{
+		return m_pcPauseControl.getPaused();
+	}
+
+	@Override
+	public boolean getStopped()
+	{
+		return m_bStopped;
+	}
+
+	@Override
+	public WorkerResult getWorkerResult()
+	{
+		return m_WorkerResult;
+	}
+
+	@Override
+	public CompletableFuture<WorkerResult> getCompletion()
+	{
+		return m_cfCompletion;
+	}
+
+	@Override
+	public Snapshot getSnapshot()
+	{
+		return m_snpSnapshotPublisher.read();
+	}
+
+	@Override
+	public RunMetricsMBean getRunMetrics()
+	{
+		return m_rmMetrics;
+	}
+
+	@Override
+	public UncaughtExceptionHandler getUncaughtExceptionHandler()
+	{
+		return (t, th) ->
+		{
+			m_WorkerResult = new WorkerResult(Reason.FAILED, th, m_nRun, m_chChain.getMetricGrid(), m_chChain.getEnergy());
+			m_bStopped = true;
+			m_cfCompletion.complete(m_WorkerResult);
+		};
+	}
+
+	@Override
+	public void run()
+	{
+		m_bStopping = false;
+		m_bStopped = false;
+		m_WorkerResult = null;
+
+		if (m_chChain.getMetricGrid() == null)
+			m_chChain.setMetricGrid(Worker.initialiseMetricTensors(m_spStartParameters), m_nRun + 1);
+
+		m_snpSnapshotPublisher.publish(m_nRun, m_chChain.getEnergy(), m_chChain.getMetricGrid());
+
+		logger.info(String.format("Checkerboard sweeps of windows of %d radius values, with halo margins of %d, and %d"
+		 + " moves per window per half-sweep.", m_nWindowWidth, N_HALO, m_nSweepMoves));
+
+		ForkJoinPool fjpPool = new ForkJoinPool();
+
+		try
+		{
+			while ((!m_bStopping) && (m_nRun < m_nRuns))
+			{
+				int nRunFrom = m_nRun + 1;
+				int nOffset = nextOffset();
+
+				halfSweep(fjpPool, nOffset, 0);
+
+				if (m_nRun < m_nRuns)
+					halfSweep(fjpPool, nOffset, 1);
+
+				m_nSweep++;
+
+				// The windows' changes of energy are always calculated incrementally, whatever the energy mode
+				if ((nRunFrom - 1) / m_nEnergyCheckInterval != m_nRun / m_nEnergyCheckInterval)
+					checkEnergy();
+
+				if ((m_nTelemetryIntervalRuns > 0)
+				 && ((nRunFrom - 1) / m_nTelemetryIntervalRuns != m_nRun / m_nTelemetryIntervalRuns))
+					logProgress();
+
+				if (m_snpSnapshotPublisher.due(m_nRun))
+					m_snpSnapshotPublisher.publish(m_nRun, m_chChain.getEnergy(), m_chChain.getMetricGrid());
+
+				updateMetrics();
+
+				// A pause parks the thread here, between sweeps, while the metric tensor values are kept
+				m_pcPauseControl.park(m_nRun, () -> m_bStopping);
+			}
+		}
+		finally
+		{
+			fjpPool.shutdown();
+		}
+
+		// The result's energy is calculated fully, without the drift of the summed changes of energy
+		checkEnergy();
+
+		// The progress was logged after the last sweep if it ended a telemetry interval
+		if ((m_nTelemetryIntervalRuns <= 0) || ((m_nRun % m_nTelemetryIntervalRuns) != 0))
+			logProgress();
+
+		m_snpSnapshotPublisher.publish(m_nRun, m_chChain.getEnergy(), m_chChain.getMetricGrid());
+		updateMetrics();
+		Worker.reportFinalTensorValues(m_chChain.getMetricGrid());
+
+		Reason rReason;
+
+		if (m_nRun >= m_nRuns)
+		{
+			rReason = Reason.COMPLETED;
+			logger.info("All processing has been completed.");
+		}
+		else
+		{
+			rReason = Reason.STOPPED;
+			logger.info("Stopped before all processing completed.");
+		}
+
+		m_WorkerResult = new WorkerResult(rReason, null, m_nRun, m_chChain.getMetricGrid(), m_chChain.getEnergy());
+		m_bStopped = true;
+		m_cfCompletion.complete(m_WorkerResult);
+	}
+
+	/**
+	 * @return
+	 *   The offset of the window boundaries of the next sweep.
+	 */
+	private int nextOffset()
+	{
+		m_rsOffsetRandom.startBlock(m_nSweep);
+		return m_rsOffsetRandom.nextInt(m_nWindowWidth);
+	}
+
+	/**
+	 * Anneal the windows of one colour concurrently.
+	 * @param fjpPool
+	 *   The pool.
+	 * @param nOffset
+	 *   The offset of the window boundaries of the sweep: the windows start at zero, and at this offset plus each
+	 *   multiple of the window width.
+	 * @param nColour
+	 *   <code>0</code> for the even windows, and <code>1</code> for the odd ones.
+	 */
+	private void halfSweep(ForkJoinPool fjpPool, int nOffset, int nColour)
+	{
+		MetricGrid mgG = m_chChain.getMetricGrid();
+		int nSize = mgG.size();
+		List<Lane> liLanes = new ArrayList<>();
+		int nWindow = 0;
+
+		for (int nStart = 0; nStart < nSize; nWindow++)
+		{
+			int nEnd = Math.min(nSize, nWindow == 0 && nOffset > 0 ? nOffset : nStart + m_nWindowWidth) - 1;
+
+			// The grid's ends are not next to another window, so need no halo margin
+			int nCentreFrom = nStart == 0 ? 0 : nStart + N_HALO;
+			int nCentreTo = nEnd == nSize - 1 ? nEnd : nEnd - N_HALO;
+
+			if (((nWindow % 2) == nColour) && (nCentreFrom <= nCentreTo))
+			{
+				if (m_liLanes.size() <= liLanes.size())
+					m_liLanes.add(new Lane(m_spStartParameters, m_rsSeed.split(m_liLanes.size()), m_nSweepMoves));
+
+				Lane lane = m_liLanes.get(liLanes.size());
+				lane.m_nCentreFrom = nCentreFrom;
+				lane.m_nCentreTo = nCentreTo;
+				liLanes.add(lane);
+			}
+
+			nStart = nEnd + 1;
+		}
+
+		// The moves of the last half-sweep are shared out so that the number of runs is not exceeded
+		int nMoves = (int)Math.min((long)m_nSweepMoves * liLanes.size(), m_nRuns - m_nRun);
+
+		for (int k = 0; k < liLanes.size(); k++)
+			liLanes.get(k).m_nMoves = (nMoves / liLanes.size()) + (k < (nMoves % liLanes.size()) ? 1 : 0);
+
+		m_dblTemperature = m_saSimulatedAnnealing.temperature(m_nRun + 1, m_nRuns);
+
+		for (Lane lane: liLanes)
+		{
+			lane.reinitialize();
+			lane.m_mgG = mgG;
+			lane.m_lBlock = (2L * m_nSweep) + nColour;
+			lane.m_nRun = m_nRun + 1;
+			lane.m_dblTemperature = m_dblTemperature;
+			fjpPool.execute(lane);
+		}
+
+		for (Lane lane: liLanes)
+			lane.join();
+
+		// The outcomes are recorded in window order, as though the windows had been annealed one after another
+		for (Lane lane: liLanes)
+		{
+			m_chChain.changeEnergy(lane.m_dblEnergyChange);
+
+			for (int m = 0; m < lane.m_nMoves; m++)
+			{
+				m_nRun++;
+				m_saSimulatedAnnealing.record(m_nRun, lane.m_abAccepted[m], m_chChain.getEnergy());
+
+				if (lane.m_abAccepted[m])
+					m_lAcceptances++;
+			}
+		}
+	}
+
+	private void checkEnergy()
+	{
+		m_dblEnergyDriftMax = Math.max(m_dblEnergyDriftMax, m_chChain.checkEnergy(m_nRun));
+	}
+
+	/**
+	 * Update the counters of the progress of the runs, each move of which is a run. This is called between sweeps.
+	 */
+	private void updateMetrics()
+	{
+		double dblEnergy = m_chChain.getEnergy();
+		m_rmMetrics.update(m_nRun, m_lAcceptances, m_nRun - m_lAcceptances, dblEnergy,
+		 Math.min(m_rmMetrics.getBestEnergy(), dblEnergy), m_dblTemperature);
+	}
+
+	private void logProgress()
+	{
+		logger.info(String.format("Run number %s: sweep %s, temperature %g, energy %f, acceptance rate %.4f.",
+		 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), SchwarzschildSimulatedAnnealing.formatInteger(m_nSweep),
+		 m_dblTemperature, m_chChain.getEnergy(),
+		 m_nRun > 0 ? (double)m_lAcceptances / m_nRun : 0.0));
+	}
+
+	public int getRun()
+	{
+		return m_nRun;
+	}
+
+	/**
+	 * @return
+	 *   The number of accepted moves.
+	 */
+	public long getAcceptances()
+	{
+		return m_lAcceptances;
+	}
+
+	/**
+	 * @return
+	 *   The largest absolute difference found between the sum of the windows' changes of energy and the fully
+	 *   calculated energy, which is only due to rounding if the windows are independent.
+	 */
+	public double getEnergyDriftMax()
+	{
+		return m_dblEnergyDriftMax;
+	}
+}
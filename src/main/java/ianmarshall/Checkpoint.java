@@ -0,0 +1,280 @@
+package ianmarshall;
+
+import ianmarshall.AnnealingSchedule.Type;
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * This class is a checkpoint of the state of a worker's runs, from which they can be resumed after the process has
+ * died, continuing exactly as if they had not been interrupted.
+ * <br/>
+ * A checkpoint contains the run number, the incrementally calculated energy, the position of the random number
+ * stream, the type and state of the annealing schedule, the state of the convergence monitor, and the radius and
+ * metric component values with their derivatives and energy terms, so that nothing is recalculated when the runs are
+ * resumed. It ends with a CRC-32 checksum of its contents.
+ * <br/>
+ * A checkpoint is written through a memory-mapped temporary file, which is forced to the storage device and then
+ * renamed over the previous checkpoint atomically, so that a crash while it is written leaves the previous checkpoint
+ * intact.
+ */
+public class Checkpoint
+{
+	private static final int N_MAGIC = 0x53534350;    // "SSCP"
+	private static final int N_VERSION = 2;
+	private static final int N_ARRAYS = 8;
+
+	// The magic number, version, run number, grid size, schedule type and lengths of the two states, then the energy
+	// and the stream
+	private static final int N_HEADER_LENGTH = (7 * Integer.BYTES) + Double.BYTES + (2 * Long.BYTES);
+
+	private int m_nRun = 0;
+	private double m_dblEnergy = Double.NaN;
+	private long m_lRandomKey = 0L;
+	private long m_lRandomCounter = 0L;
+	private Type m_tSchedule = null;
+	private double[] m_adblScheduleState = null;
+	private double[] m_adblMonitorState = null;
+	private MetricGrid m_mgG = null;
+
+	/**
+	 * The constructor.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param dblEnergy
+	 *   The current energy, as calculated incrementally.
+	 * @param lRandomKey
+	 *   The key of the random number stream.
+	 * @param lRandomCounter
+	 *   The position of the random number stream.
+	 * @param tSchedule
+	 *   The type of the annealing schedule.
+	 * @param adblScheduleState
+	 *   The state of the annealing schedule.
+	 * @param adblMonitorState
+	 *   The state of the convergence monitor.
+	 * @param mgG
+	 *   The metric tensor values, with their derivatives and energy terms, which are not copied.
+	 */
+	public Checkpoint(int nRun, double dblEnergy, long lRandomKey, long lRandomCounter, Type tSchedule,
+	 double[] adblScheduleState, double[] adblMonitorState, MetricGrid mgG)
+	{
+		m_nRun = nRun;
+		m_dblEnergy = dblEnergy;
+		m_lRandomKey = lRandomKey;
+		m_lRandomCounter = lRandomCounter;
+		m_tSchedule = tSchedule;
+		m_adblScheduleState = adblScheduleState;
+		m_adblMonitorState = adblMonitorState;
+		m_mgG = mgG;
+	}
+
+	public int getRun()
+	{
+		return m_nRun;
+	}
+
+	public double getEnergy()
+	{
+		return m_dblEnergy;
+	}
+
+	public long getRandomKey()
+	{
+		return m_lRandomKey;
+	}
+
+	public long getRandomCounter()
+	{
+		return m_lRandomCounter;
+	}
+
+	public Type getSchedule()
+	{
+		return m_tSchedule;
+	}
+
+	public double[] getScheduleState()
+	{
+		return m_adblScheduleState;
+	}
+
+	public double[] getMonitorState()
+	{
+		return m_adblMonitorState;
+	}
+
+	public MetricGrid getMetricGrid()
+	{
+		return m_mgG;
+	}
+
+	/**
+	 * Write a checkpoint to a file, replacing any previous checkpoint only once it has been written completely.
+	 * @param pPath
+	 *   The path of the file.
+	 * @param ck
+	 *   The checkpoint.
+	 * @throws IOException
+	 *   If the file cannot be written.
+	 */
+	static void write(Path pPath, Checkpoint ck) throws IOException
+	{
+		MetricGrid mgG = ck.getMetricGrid();
+		int nSize = mgG.size();
+		int nLength = N_HEADER_LENGTH + ((ck.m_adblScheduleState.length + ck.m_adblMonitorState.length
+		 + (N_ARRAYS * nSize)) * Double.BYTES) + Long.BYTES;
+		Path pTemporary = pPath.resolveSibling(pPath.getFileName() + ".tmp");
+
+		try (FileChannel fcChannel = FileChannel.open(pTemporary, StandardOpenOption.CREATE,
+		 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE))
+		{
+			MappedByteBuffer mbbBuffer = fcChannel.map(MapMode.READ_WRITE, 0L, nLength);
+
+			mbbBuffer
+			 .putInt(N_MAGIC)
+			 .putInt(N_VERSION)
+			 .putInt(ck.getRun())
+			 .putInt(nSize)
+			 .putInt(ck.getSchedule().ordinal())
+			 .putInt(ck.m_adblScheduleState.length)
+			 .putInt(ck.m_adblMonitorState.length)
+			 .putDouble(ck.getEnergy())
+			 .putLong(ck.getRandomKey())
+			 .putLong(ck.getRandomCounter());
+
+			for (double dbl: ck.m_adblScheduleState)
+				mbbBuffer.putDouble(dbl);
+
+			for (double dbl: ck.m_adblMonitorState)
+				mbbBuffer.putDouble(dbl);
+
+			// A view of the buffer does not move its position, so that is moved past each array
+			for (double[] adbl: arrays(mgG))
+			{
+				mbbBuffer.asDoubleBuffer().put(adbl);
+				mbbBuffer.position(mbbBuffer.position() + (adbl.length * Double.BYTES));
+			}
+
+			mbbBuffer.putLong(checksum(mbbBuffer, nLength - Long.BYTES));
+			mbbBuffer.force();
+		}
+
+		Files.move(pTemporary, pPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param pPath
+	 *   The path of a checkpoint file.
+	 * @return
+	 *   The checkpoint.
+	 * @throws IOException
+	 *   If the file cannot be read, is not a checkpoint, or is damaged.
+	 */
+	static Checkpoint read(Path pPath) throws IOException
+	{
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			long lLength = fcChannel.size();
+
+			if ((lLength < N_HEADER_LENGTH + Long.BYTES) || (lLength > Integer.MAX_VALUE))
+				throw new IOException(String.format("The file \"%s\" is not a checkpoint.", pPath));
+
+			int nLength = (int)lLength;
+			MappedByteBuffer mbbBuffer = fcChannel.map(MapMode.READ_ONLY, 0L, nLength);
+
+			if ((mbbBuffer.getInt() != N_MAGIC) || (mbbBuffer.getInt() != N_VERSION))
+				throw new IOException(String.format("The file \"%s\" is not a checkpoint of version %d.", pPath,
+				 N_VERSION));
+
+			if (mbbBuffer.getLong(nLength - Long.BYTES) != checksum(mbbBuffer, nLength - Long.BYTES))
+				throw new IOException(String.format("The checkpoint \"%s\" is damaged.", pPath));
+
+			int nRun = mbbBuffer.getInt();
+			int nSize = mbbBuffer.getInt();
+			int nSchedule = mbbBuffer.getInt();
+			double[] adblScheduleState = new double[mbbBuffer.getInt()];
+			double[] adblMonitorState = new double[mbbBuffer.getInt()];
+			double dblEnergy = mbbBuffer.getDouble();
+			long lRandomKey = mbbBuffer.getLong();
+			long lRandomCounter = mbbBuffer.getLong();
+
+			if ((nSchedule < 0) || (nSchedule >= Type.values().length))
+				throw new IOException(String.format("The checkpoint \"%s\" has an unknown annealing schedule.", pPath));
+
+			if (nLength != N_HEADER_LENGTH + ((adblScheduleState.length + adblMonitorState.length + (N_ARRAYS * nSize))
+			 * Double.BYTES) + Long.BYTES)
+				throw new IOException(String.format("The checkpoint \"%s\" has an incorrect length.", pPath));
+
+			mbbBuffer.asDoubleBuffer().get(adblScheduleState);
+			mbbBuffer.position(mbbBuffer.position() + (adblScheduleState.length * Double.BYTES));
+			mbbBuffer.asDoubleBuffer().get(adblMonitorState);
+			mbbBuffer.position(mbbBuffer.position() + (adblMonitorState.length * Double.BYTES));
+
+			double[] adblR = new double[nSize];
+			mbbBuffer.asDoubleBuffer().get(adblR);
+			mbbBuffer.position(mbbBuffer.position() + (nSize * Double.BYTES));
+			MetricGrid mgG = new MetricGrid(adblR, new double[nSize], new double[nSize]);
+			double[][] aadbl = arrays(mgG);
+
+			for (int i = 1; i < N_ARRAYS; i++)
+			{
+				mbbBuffer.asDoubleBuffer().get(aadbl[i]);
+				mbbBuffer.position(mbbBuffer.position() + (nSize * Double.BYTES));
+			}
+
+			return new Checkpoint(nRun, dblEnergy, lRandomKey, lRandomCounter, Type.values()[nSchedule],
+			 adblScheduleState, adblMonitorState, mgG);
+		}
+	}
+
+	/**
+	 * @param pPath
+	 *   The path of a file.
+	 * @return
+	 *   Whether the file starts as a checkpoint does, whether or not it is damaged.
+	 * @throws IOException
+	 *   If the file cannot be read.
+	 */
+	static boolean isCheckpoint(Path pPath) throws IOException
+	{
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			ByteBuffer bbMagic = ByteBuffer.allocate(Integer.BYTES);
+			return (fcChannel.read(bbMagic, 0L) == Integer.BYTES) && (bbMagic.getInt(0) == N_MAGIC);
+		}
+	}
+
+	/**
+	 * @return
+	 *   The backing arrays of the radius values, the metric component values, their derivatives and the energy terms,
+	 *   in the order in which they are written.
+	 */
+	private static double[][] arrays(MetricGrid mgG)
+	{
+		return new double[][] {mgG.getRValues(),
+		 mgG.getValues(None, MetricComponent.A),   mgG.getValues(None, MetricComponent.B),
+		 mgG.getValues(First, MetricComponent.A),  mgG.getValues(First, MetricComponent.B),
+		 mgG.getValues(Second, MetricComponent.A), mgG.getValues(Second, MetricComponent.B),
+		 mgG.getEnergyTerms()};
+	}
+
+	private static long checksum(MappedByteBuffer mbbBuffer, int nLength)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(mbbBuffer.duplicate().position(0).limit(nLength));
+		return crc.getValue();
+	}
+}
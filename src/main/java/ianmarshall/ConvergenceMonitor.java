@@ -0,0 +1,121 @@
+package ianmarshall;
+
+import ianmarshall.WorkerResult.Reason;
+
+/**
+ * This class decides whether the runs of a worker can end before the number of runs requested, because the energy
+ * can no longer usefully improve. There are three criteria, each of which is optional:
+ * <ul>
+ *   <li>the lowest energy within a window of runs differs from that within the previous window by no more than a given
+ *   fraction, so that the energy has settled;</li>
+ *   <li>the current energy has reached a given target;</li>
+ *   <li>the rate of acceptance of moves over a window of runs has fallen below a given floor.</li>
+ * </ul>
+ */
+public class ConvergenceMonitor
+{
+	private int m_nWindowRuns = 0;
+	private double m_dblTolerance = 0.0;
+	private double m_dblEnergyTarget = Double.NaN;
+	private double m_dblAcceptanceRateFloor = 0.0;
+
+	private double m_dblWindowBestEnergy = Double.POSITIVE_INFINITY;
+	private double m_dblPreviousWindowBestEnergy = Double.NaN;
+	private int m_nRunWindowStart = 0;
+	private int m_nWindowAcceptances = 0;
+
+	/**
+	 * The constructor.
+	 * @param nWindowRuns
+	 *   The number of runs of each window, or <code>0</code> not to check the improvement or the rate of acceptance.
+	 * @param dblTolerance
+	 *   The fraction of the lowest energy within a window by which that within the next window must differ for the runs
+	 *   to continue.
+	 * @param dblEnergyTarget
+	 *   The energy at or below which the runs end, or <code>NaN</code> if there is no target.
+	 * @param dblAcceptanceRateFloor
+	 *   The rate of acceptance over a window below which the runs end, or <code>0</code> if there is no floor.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 */
+	public ConvergenceMonitor(int nWindowRuns, double dblTolerance, double dblEnergyTarget,
+	 double dblAcceptanceRateFloor, int nRun)
+	{
+		m_nWindowRuns = nWindowRuns;
+		m_dblTolerance = dblTolerance;
+		m_dblEnergyTarget = dblEnergyTarget;
+		m_dblAcceptanceRateFloor = dblAcceptanceRateFloor;
+		m_nRunWindowStart = nRun;
+	}
+
+	public ConvergenceMonitor(StartParameters spStartParameters, int nRun)
+	{
+		this(spStartParameters.getConvergenceWindow(), spStartParameters.getConvergenceTolerance(),
+		 spStartParameters.getEnergyTarget(), spStartParameters.getAcceptanceRateFloor(), nRun);
+	}
+
+	/**
+	 * Record the outcome of a run, and decide whether the runs should end.
+	 * @param nRun
+	 *   The run number.
+	 * @param bAccepted
+	 *   Whether the run's move was accepted.
+	 * @param dblEnergy
+	 *   The current energy after the run.
+	 * @return
+	 *   The reason for which the runs should end, or <code>null</code> if they should continue.
+	 */
+	public Reason check(int nRun, boolean bAccepted, double dblEnergy)
+	{
+		Reason rResult = null;
+
+		if (bAccepted)
+			m_nWindowAcceptances++;
+
+		if (dblEnergy < m_dblWindowBestEnergy)
+			m_dblWindowBestEnergy = dblEnergy;
+
+		if (dblEnergy <= m_dblEnergyTarget)
+			rResult = Reason.ENERGY_TARGET;
+		else if ((m_nWindowRuns > 0) && (nRun - m_nRunWindowStart >= m_nWindowRuns))
+		{
+			double dblChange = Math.abs(m_dblPreviousWindowBestEnergy - m_dblWindowBestEnergy);
+			double dblAcceptanceRate = (double)m_nWindowAcceptances / (nRun - m_nRunWindowStart);
+
+			// The first window has no previous window with which to compare, so the change is NaN
+			if (dblChange <= m_dblTolerance * Math.abs(m_dblPreviousWindowBestEnergy))
+				rResult = Reason.CONVERGED;
+			else if (dblAcceptanceRate < m_dblAcceptanceRateFloor)
+				rResult = Reason.ACCEPTANCE_RATE_FLOOR;
+
+			m_dblPreviousWindowBestEnergy = m_dblWindowBestEnergy;
+			m_dblWindowBestEnergy = Double.POSITIVE_INFINITY;
+			m_nRunWindowStart = nRun;
+			m_nWindowAcceptances = 0;
+		}
+
+		return rResult;
+	}
+
+	/**
+	 * @return
+	 *   The state of the current window, so that it can be checkpointed.
+	 */
+	public double[] getState()
+	{
+		return new double[] {m_dblWindowBestEnergy, m_dblPreviousWindowBestEnergy, m_nRunWindowStart,
+		 m_nWindowAcceptances};
+	}
+
+	/**
+	 * @param adblState
+	 *   The state of the current window, as returned by {@link #getState()}.
+	 */
+	public void setState(double[] adblState)
+	{
+		m_dblWindowBestEnergy = adblState[0];
+		m_dblPreviousWindowBestEnergy = adblState[1];
+		m_nRunWindowStart = (int)adblState[2];
+		m_nWindowAcceptances = (int)adblState[3];
+	}
+}
@@ -0,0 +1,202 @@
+package ianmarshall;
+
+import static ianmarshall.MetricComponents.MetricComponent.A;
+import static ianmarshall.MetricComponents.MetricComponent.B;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An implementation of the calculation of the energy of a grid, together with its derivatives and energy terms.
+ * <br/>
+ * The scalar implementation is {@link EnergyKernel}. The vectorised implementation, <code>VectorEnergyKernel</code>,
+ * uses the incubating Vector API, so it is only available when the JVM is started with
+ * <code>--add-modules jdk.incubator.vector</code>; otherwise the scalar implementation is used instead.
+ */
+public interface EnergyEvaluator
+{
+	public enum Implementation
+	{
+		SCALAR("scalar"), VECTOR("vector");
+
+		private String m_sValue = "";
+
+		Implementation(String sValue)
+		{
+			m_sValue = sValue;
+		}
+
+		public String value()
+		{
+			return m_sValue;
+		}
+
+		/**
+		 * @param sValue
+		 *   The value of an implementation, in any case.
+		 * @return
+		 *   The implementation, or <code>null</code> if there is none of the value supplied.
+		 */
+		public static Implementation parse(String sValue)
+		{
+			Implementation imResult = null;
+
+			for (Implementation im: values())
+				if (im.value().equalsIgnoreCase(sValue))
+					imResult = im;
+
+			return imResult;
+		}
+	}
+
+	// The relative difference between the energies of the implementations above which the self-check fails
+	static final double DBL_SELF_CHECK_TOLERANCE = 1.0E-10;
+
+	/**
+	 * Calculate the derivatives and the energy terms of all radius values, storing them in the grid.
+	 * @param mgG
+	 *   The metric tensor values. The grid must contain at least 3 radius values.
+	 * @return
+	 *   The energy of the grid.
+	 */
+	double energy(MetricGrid mgG);
+
+	/**
+	 * Recalculate the derivatives and the energy terms of a range of radius values, storing them in the grid.
+	 * @param mgG
+	 *   The metric tensor values. The grid must contain at least 3 radius values, and its energy terms must be those
+	 *   of the metric tensor values before they were changed.
+	 * @param nIndexFrom
+	 *   The lowest index of the radius values to be recalculated.
+	 * @param nIndexTo
+	 *   The highest index of the radius values to be recalculated.
+	 * @return
+	 *   The change of energy of the grid.
+	 */
+	double energyChange(MetricGrid mgG, int nIndexFrom, int nIndexTo);
+
+	/**
+	 * The vectorised evaluator, which is loaded and self-checked once per process, when it is first requested, so that
+	 * the many workers of an ensemble, parallel tempering or checkerboard sweeps share the outcome, which is logged
+	 * once. The evaluator has no state of its own, so it is shared by them too.
+	 */
+	final class VectorHolder
+	{
+		// The vectorised evaluator, or null if it is not available or failed its self-check
+		static final EnergyEvaluator EE_VECTOR = load();
+
+		private VectorHolder()
+		{
+		}
+
+		private static EnergyEvaluator load()
+		{
+			Logger logger = LoggerFactory.getLogger(EnergyEvaluator.class);
+			EnergyEvaluator eeResult = null;
+			EnergyEvaluator eeVector = null;
+
+			try
+			{
+				eeVector = (EnergyEvaluator)Class.forName("ianmarshall.VectorEnergyKernel").getDeclaredConstructor()
+				 .newInstance();
+			}
+			catch (ReflectiveOperationException | LinkageError e)
+			{
+				logger.warn(String.format("The vectorised energy evaluator is not available, so the scalar one will be"
+				 + " used (start the JVM with \"--add-modules jdk.incubator.vector\" to enable it): %s", e.toString()));
+			}
+
+			if (eeVector != null)
+			{
+				String sError = selfCheck(eeVector, new EnergyKernel());
+
+				if (sError.isEmpty())
+				{
+					eeResult = eeVector;
+					logger.info(String.format("Using the vectorised energy evaluator: %s.", eeVector.toString()));
+				}
+				else
+					logger.warn(String.format("The vectorised energy evaluator failed its self-check, so the scalar one"
+					 + " will be used: %s", sError));
+			}
+
+			return eeResult;
+		}
+	}
+
+	/**
+	 * Create an energy evaluator of the implementation requested. A vectorised evaluator is only returned if the
+	 * Vector API is available and the evaluator passed a self-check against the scalar evaluator; otherwise the scalar
+	 * evaluator is returned. The check is made, and its outcome logged, only the first time one is requested.
+	 * @param imImplementation
+	 *   The implementation requested.
+	 * @return
+	 *   The energy evaluator.
+	 */
+	static EnergyEvaluator create(Implementation imImplementation)
+	{
+		EnergyEvaluator eeResult = null;
+
+		if (imImplementation == Implementation.VECTOR)
+			eeResult = VectorHolder.EE_VECTOR;
+
+		if (eeResult == null)
+			eeResult = new EnergyKernel();
+
+		return eeResult;
+	}
+
+	/**
+	 * Compare the energies, and energy changes, calculated by two evaluators for a perturbed Schwarzschild solution
+	 * on the default grid.
+	 * @param eeActual
+	 *   The evaluator to be checked.
+	 * @param eeExpected
+	 *   The evaluator to be checked against.
+	 * @return
+	 *   A description of the first difference found, or an empty string if there is none.
+	 */
+	static String selfCheck(EnergyEvaluator eeActual, EnergyEvaluator eeExpected)
+	{
+		GridGeometry ggGeometry = GridGeometry.logarithmic();
+		int nSize = ggGeometry.size();
+		double[] adblA = new double[nSize];
+		double[] adblB = new double[nSize];
+
+		for (int i = 0; i < nSize; i++)
+		{
+			double dblA = 1.0 - (1.0 / ggGeometry.getR(i));
+			adblA[i] = dblA * (1.0 + (0.01 * Math.sin(i)));
+			adblB[i] = (-1.0 / dblA) * (1.0 + (0.01 * Math.cos(i)));
+		}
+
+		MetricGrid mgExpected = new MetricGrid(ggGeometry, adblA, adblB);
+		MetricGrid mgActual = mgExpected.copy();
+		String sResult = compareEnergies("energy", eeExpected.energy(mgExpected), eeActual.energy(mgActual));
+
+		int[][] aanRanges = {{0, 16}, {nSize / 2, (nSize / 2) + 16}, {nSize - 17, nSize - 1}, {3, 4}};
+		for (int[] anRange: aanRanges)
+			if (sResult.isEmpty())
+			{
+				mgExpected.set(None, A, anRange[0], mgExpected.get(None, A, anRange[0]) * 1.01);
+				mgExpected.set(None, B, anRange[1], mgExpected.get(None, B, anRange[1]) * 0.99);
+				mgActual.copyFrom(mgExpected);
+				sResult = compareEnergies(String.format("energy change from index %d to %d", anRange[0], anRange[1]),
+				 eeExpected.energyChange(mgExpected, anRange[0], anRange[1]),
+				 eeActual.energyChange(mgActual, anRange[0], anRange[1]));
+			}
+
+		return sResult;
+	}
+
+	private static String compareEnergies(String sDescription, double dblExpected, double dblActual)
+	{
+		String sResult = "";
+
+		if (!(Math.abs(dblActual - dblExpected) <= DBL_SELF_CHECK_TOLERANCE * Math.max(1.0, Math.abs(dblExpected))))
+			sResult = String.format("the %s is %g instead of %g.", sDescription, dblActual, dblExpected);
+
+		return sResult;
+	}
+}
@@ -0,0 +1,130 @@
+package ianmarshall;
+
+import static ianmarshall.MetricComponents.MetricComponent.A;
+import static ianmarshall.MetricComponents.MetricComponent.B;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+/**
+ * This class calculates the energy of a grid of metric tensor values in a single pass over the radius values.
+ * <br/>
+ * For each radius value, the first and second derivatives of the metric components, the Ricci tensor values
+ * R00, R11 and R22, and the weighted sum of their squares are calculated together, without intermediate objects.
+ * The finite difference coefficients and integration weights are taken from the grid's {@link GridGeometry}, and the
+ * Ricci tensor expressions are those of {@link Worker#calculateRicciTensorValues(MetricGrid, int)}, divisions and
+ * all. The results agree with those of
+ * {@link Worker#calculateDifferentials(MetricGrid, int, int)} and
+ * {@link Worker#calculateRicciTensorValues(MetricGrid, int)} to within rounding.
+ */
+public class EnergyKernel implements EnergyEvaluator
+{
+	public EnergyKernel()
+	{
+	}
+
+	@Override
+	public double energy(MetricGrid mgG)
+	{
+		return evaluate(mgG, 0, mgG.size() - 1);
+	}
+
+	@Override
+	public double energyChange(MetricGrid mgG, int nIndexFrom, int nIndexTo)
+	{
+		double dblEnergyOld = 0.0;
+		double[] adblEnergyTerm = mgG.getEnergyTerms();
+
+		for (int i = nIndexFrom; i <= nIndexTo; i++)
+			dblEnergyOld += adblEnergyTerm[i];
+
+		double dblEnergyNew = evaluate(mgG, nIndexFrom, nIndexTo);
+		return dblEnergyNew - dblEnergyOld;
+	}
+
+	/**
+	 * Calculate the derivatives and the energy terms of a range of radius values, storing them in the grid.
+	 * @param mgG
+	 *   The metric tensor values. The grid must contain at least 3 radius values.
+	 * @param nIndexFrom
+	 *   The lowest index of the radius values to be calculated.
+	 * @param nIndexTo
+	 *   The highest index of the radius values to be calculated.
+	 * @return
+	 *   The sum of the energy terms calculated.
+	 */
+	static double evaluate(MetricGrid mgG, int nIndexFrom, int nIndexTo)
+	{
+		final GridGeometry ggGeometry = mgG.getGeometry();
+		final double[] adblR = ggGeometry.getRValues();
+		final int[] anStencilStart = ggGeometry.getStencilStarts();
+		final double[] adblInvDrNext = ggGeometry.getInvDrNext();
+		final double[] adblInvDrPrev = ggGeometry.getInvDrPrev();
+		final double[] adblSecondFactor = ggGeometry.getSecondFactors();
+		final double[] adblWeight = ggGeometry.getWeights();
+		final double[] adblA = mgG.getValues(None, A);
+		final double[] adblB = mgG.getValues(None, B);
+		final double[] adblFirstA = mgG.getValues(First, A);
+		final double[] adblFirstB = mgG.getValues(First, B);
+		final double[] adblSecondA = mgG.getValues(Second, A);
+		final double[] adblSecondB = mgG.getValues(Second, B);
+		final double[] adblEnergyTerm = mgG.getEnergyTerms();
+		double dblResult = 0.0;
+
+		for (int i = nIndexFrom; i <= nIndexTo; i++)
+		{
+			// The derivatives, from the three points of the stencil
+			final int N_START = anStencilStart[i];
+			double dblInvDrNext = adblInvDrNext[i];
+			double dblInvDrPrev = adblInvDrPrev[i];
+
+			double dblFirstDifferentialNextA = (adblA[N_START + 2] - adblA[N_START + 1]) * dblInvDrNext;
+			double dblFirstDifferentialPrevA = (adblA[N_START + 1] - adblA[N_START]) * dblInvDrPrev;
+			double dblFirstDifferentialNextB = (adblB[N_START + 2] - adblB[N_START + 1]) * dblInvDrNext;
+			double dblFirstDifferentialPrevB = (adblB[N_START + 1] - adblB[N_START]) * dblInvDrPrev;
+
+			double dAdR = 0.5 * (dblFirstDifferentialNextA + dblFirstDifferentialPrevA);
+			double dBdR = 0.5 * (dblFirstDifferentialNextB + dblFirstDifferentialPrevB);
+			double d2AdR2 = (dblFirstDifferentialNextA - dblFirstDifferentialPrevA) * adblSecondFactor[i];
+			double d2BdR2 = (dblFirstDifferentialNextB - dblFirstDifferentialPrevB) * adblSecondFactor[i];
+
+			adblFirstA[i] = dAdR;
+			adblFirstB[i] = dBdR;
+			adblSecondA[i] = d2AdR2;
+			adblSecondB[i] = d2BdR2;
+
+			// The Ricci tensor values
+			double dblR = adblR[i];
+			double dblA = adblA[i];
+			double dblB = adblB[i];
+
+			double dblR00 = ((1.0 / (dblB * dblR)) * dAdR)
+			 - ((1.0 / (4.0 * dblA * dblB)) * dAdR * dAdR)
+			 - ((1.0 / (4.0 * dblB * dblB)) * dAdR * dBdR)
+			 + ((1.0 / (2.0 * dblB)) * d2AdR2);
+
+			double dblR11 = -((1.0 / (dblB * dblR)) * dBdR)
+			 - ((1.0 / (4.0 * dblA * dblB)) * dAdR * dBdR)
+			 - ((1.0 / (4.0 * dblA * dblA)) * dAdR * dAdR)
+			 + ((1.0 / (2.0 * dblA)) * d2AdR2);
+
+			double dblR22 = -1.0 - (1.0 / dblB)
+			 - ((dblR / (2.0 * dblA * dblB)) * dAdR)
+			 + ((dblR / (2.0 * dblB * dblB)) * dBdR);
+
+			// The weight of the point is its share of the radius range
+			double dblSumOfSquaresOfRicciTensors = (dblR00 * dblR00) + (dblR11 * dblR11) + (dblR22 * dblR22);
+			double dblEnergyTerm = dblSumOfSquaresOfRicciTensors * adblWeight[i];
+			adblEnergyTerm[i] = dblEnergyTerm;
+			dblResult += dblEnergyTerm;
+		}
+
+		return dblResult;
+	}
+
+	@Override
+	public String toString()
+	{
+		return Implementation.SCALAR.value();
+	}
+}
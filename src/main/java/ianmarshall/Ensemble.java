@@ -0,0 +1,592 @@
+package ianmarshall;
+
+import ianmarshall.SnapshotPublisher.Snapshot;
+import ianmarshall.WorkerResult.Reason;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class executes the runs by an ensemble of independent workers on a fixed pool of threads, and selects the
+ * result of lowest energy.
+ * <br/>
+ * Each worker has its own random number stream split from the seed, and its own copy of the starting metric tensor
+ * values, so the workers share no state, and the same seed always gives the same results. The workers do not journal
+ * their moves, and do not log their final metric tensor values; those of the selected result are logged instead.
+ */
+public class Ensemble implements AnnealingEngine
+{
+	/**
+	 * The spread of the energies of the workers' results.
+	 */
+	public static class Spread
+	{
+		private int m_nCount = 0;
+		private double m_dblMinimum = Double.NaN;
+		private double m_dblMaximum = Double.NaN;
+		private double m_dblMean = Double.NaN;
+		private double m_dblStandardDeviation = Double.NaN;
+
+		/**
+		 * The constructor.
+		 * @param adblEnergies
+		 *   The energies, of which any that are <code>NaN</code> are ignored.
+		 */
+		public Spread(double[] adblEnergies)
+		{
+			double dblSum = 0.0;
+			double dblSumOfSquares = 0.0;
+
+			for (double dblEnergy: adblEnergies)
+				if (!Double.isNaN(dblEnergy))
+				{
+					m_dblMinimum = m_nCount == 0 ? dblEnergy : Math.min(m_dblMinimum, dblEnergy);
+					m_dblMaximum = m_nCount == 0 ? dblEnergy : Math.max(m_dblMaximum, dblEnergy);
+					dblSum += dblEnergy;
+					m_nCount++;
+				}
+
+			if (m_nCount > 0)
+			{
+				m_dblMean = dblSum / m_nCount;
+
+				for (double dblEnergy: adblEnergies)
+					if (!Double.isNaN(dblEnergy))
+						dblSumOfSquares += (dblEnergy - m_dblMean) * (dblEnergy - m_dblMean);
+
+				m_dblStandardDeviation = Math.sqrt(dblSumOfSquares / m_nCount);
+			}
+		}
+
+		public int getCount()
+		{
+			return m_nCount;
+		}
+
+		public double getMinimum()
+		{
+			return m_dblMinimum;
+		}
+
+		public double getMaximum()
+		{
+			return m_dblMaximum;
+		}
+
+		public double getMean()
+		{
+			return m_dblMean;
+		}
+
+		/**
+		 * @return
+		 *   The population standard deviation.
+		 */
+		public double getStandardDeviation()
+		{
+			return m_dblStandardDeviation;
+		}
+
+		@Override
+		public String toString()
+		{
+			return String.format("minimum %f, maximum %f, mean %f, standard deviation %g over %d workers",
+			 m_dblMinimum, m_dblMaximum, m_dblMean, m_dblStandardDeviation, m_nCount);
+		}
+	}
+
+	/**
+	 * The counters of the progress of all the workers' runs together, which are read from those of each worker when
+	 * they are requested. A worker waiting for a thread of the pool has executed none of its runs.
+	 */
+	private class Metrics implements RunMetricsMBean
+	{
+		private Metrics()
+		{
+		}
+
+		/**
+		 * @return
+		 *   The number of runs executed by all the workers.
+		 */
+		@Override
+		public int getRun()
+		{
+			int nResult = 0;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				nResult += rm.getRun();
+
+			return nResult;
+		}
+
+		/**
+		 * @return
+		 *   The number of runs to be executed by all the workers.
+		 */
+		@Override
+		public int getRuns()
+		{
+			return m_aWorkers.length * m_spStartParameters.getNumberOfRuns();
+		}
+
+		/**
+		 * @return
+		 *   The number of runs per second of all the workers.
+		 */
+		@Override
+		public double getRunsPerSecond()
+		{
+			double dblResult = Double.NaN;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				if (!Double.isNaN(rm.getRunsPerSecond()))
+					dblResult = (Double.isNaN(dblResult) ? 0.0 : dblResult) + rm.getRunsPerSecond();
+
+			return dblResult;
+		}
+
+		/**
+		 * @return
+		 *   The mean of the workers' acceptance rates.
+		 */
+		@Override
+		public double getAcceptanceRate()
+		{
+			double dblSum = 0.0;
+			int nCount = 0;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				if (!Double.isNaN(rm.getAcceptanceRate()))
+				{
+					dblSum += rm.getAcceptanceRate();
+					nCount++;
+				}
+
+			return nCount > 0 ? dblSum / nCount : Double.NaN;
+		}
+
+		@Override
+		public long getAcceptances()
+		{
+			long lResult = 0L;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				lResult += rm.getAcceptances();
+
+			return lResult;
+		}
+
+		@Override
+		public long getRejections()
+		{
+			long lResult = 0L;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				lResult += rm.getRejections();
+
+			return lResult;
+		}
+
+		/**
+		 * @return
+		 *   The current energy of the worker of lowest energy.
+		 */
+		@Override
+		public double getEnergy()
+		{
+			RunMetricsMBean rm = lowestEnergy();
+			return rm != null ? rm.getEnergy() : Double.NaN;
+		}
+
+		@Override
+		public double getBestEnergy()
+		{
+			double dblResult = Double.POSITIVE_INFINITY;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				dblResult = Math.min(dblResult, rm.getBestEnergy());
+
+			return dblResult;
+		}
+
+		/**
+		 * @return
+		 *   The current temperature of the worker of lowest energy.
+		 */
+		@Override
+		public double getTemperature()
+		{
+			RunMetricsMBean rm = lowestEnergy();
+			return rm != null ? rm.getTemperature() : Double.NaN;
+		}
+
+		@Override
+		public long getEtaSeconds()
+		{
+			double dblRunsPerSecond = getRunsPerSecond();
+			long lResult = -1L;
+
+			if (dblRunsPerSecond > 0.0)
+				lResult = (long)Math.ceil(Math.max(getRuns() - getRun(), 0) / dblRunsPerSecond);
+
+			return lResult;
+		}
+
+		@Override
+		public long getHeapUsedBytes()
+		{
+			return RunMetrics.heapUsage().getUsed();
+		}
+
+		@Override
+		public long getHeapMaxBytes()
+		{
+			return RunMetrics.heapUsage().getMax();
+		}
+
+		private List<RunMetricsMBean> workerMetrics()
+		{
+			List<RunMetricsMBean> liResult = new ArrayList<>(m_aWorkers.length);
+
+			for (Worker worker: m_aWorkers)
+				if (worker != null)
+					liResult.add(worker.getRunMetrics());
+
+			return liResult;
+		}
+
+		private RunMetricsMBean lowestEnergy()
+		{
+			RunMetricsMBean rmResult = null;
+
+			for (RunMetricsMBean rm: workerMetrics())
+				if ((!Double.isNaN(rm.getEnergy())) && ((rmResult == null) || (rm.getEnergy() < rmResult.getEnergy())))
+					rmResult = rm;
+
+			return rmResult;
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(Ensemble.class);
+
+	private Worker[] m_aWorkers = null;
+	private MetricGrid[] m_amgStart = null;
+	private int m_nThreads = 0;
+	private StartParameters m_spStartParameters = null;
+	private Spread m_sSpread = null;
+
+	private volatile boolean m_bStopping = false;
+	private volatile boolean m_bPausing = false;
+	private volatile boolean m_bStopped = false;
+	private volatile WorkerResult m_WorkerResult = null;
+	private CompletableFuture<WorkerResult> m_cfCompletion = new CompletableFuture<>();
+	private Metrics m_mMetrics = new Metrics();
+
+	/**
+	 * The constructor, for workers which all start from the initial metric tensor values.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 */
+	public Ensemble(StartParameters spStartParameters)
+	{
+		this(spStartParameters, new MetricGrid[spStartParameters.getReplicas()]);
+	}
+
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @param amgStart
+	 *   The starting metric tensor values of each worker, which are copied. The number of workers is the length of this
+	 *   array, and a <code>null</code> element means the worker starts from the initial values.
+	 */
+	public Ensemble(StartParameters spStartParameters, MetricGrid[] amgStart)
+	{
+		m_spStartParameters = spStartParameters;
+		m_amgStart = amgStart.clone();
+		m_aWorkers = new Worker[amgStart.length];
+		m_nThreads = Math.min(amgStart.length, Runtime.getRuntime().availableProcessors());
+	}
+
+	@Override
+	public void stopExecution()
+	{
+		m_bStopping = true;
+
+		for (Worker worker: m_aWorkers)
+			if (worker != null)
+				worker.stopExecution();
+	}
+
+	@Override
+	public void pauseExecution()
+	{
+		m_bPausing = true;
+
+		for (Worker worker: m_aWorkers)
+			if (worker != null)
+				worker.pauseExecution();
+	}
+
+	@Override
+	public void resumeExecution()
+	{
+		m_bPausing = false;
+
+		for (Worker worker: m_aWorkers)
+			if (worker != null)
+				worker.resumeExecution();
+	}
+
+	/**
+	 * @return
+	 *   Whether every worker is paused or has stopped. A worker waiting for a thread of the pool pauses after its first
+	 *   run.
+	 */
+	@Override
+	public boolean getPaused()
+	{
+		boolean bResult = m_bPausing && (m_aWorkers[m_aWorkers.length - 1] != null);
+
+		for (Worker worker: m_aWorkers)
+			bResult = bResult && (worker.getPaused() || worker.getStopped());
+
+		return bResult;
+	}
+
+	@Override
+	public boolean getStopped()
+	{
+		return m_bStopped;
+	}
+
+	@Override
+	public WorkerResult getWorkerResult()
+	{
+		return m_WorkerResult;
+	}
+
+	@Override
+	public CompletableFuture<WorkerResult> getCompletion()
+	{
+		return m_cfCompletion;
+	}
+
+	@Override
+	public RunMetricsMBean getRunMetrics()
+	{
+		return m_mMetrics;
+	}
+
+	/**
+	 * @return
+	 *   The latest snapshot of lowest energy among those of the workers, or <code>null</code> if no worker has started.
+	 */
+	@Override
+	public Snapshot getSnapshot()
+	{
+		Snapshot snResult = null;
+
+		for (Worker worker: m_aWorkers)
+			if (worker != null)
+			{
+				Snapshot sn = worker.getSnapshot();
+
+				if ((sn != null) && ((snResult == null) || (sn.getEnergy() < snResult.getEnergy())))
+					snResult = sn;
+			}
+
+		return snResult;
+	}
+
+	@Override
+	public UncaughtExceptionHandler getUncaughtExceptionHandler()
+	{
+		return (t, th) ->
+		{
+			m_WorkerResult = new WorkerResult(Reason.FAILED, th, 0, null, Double.NaN);
+			m_bStopped = true;
+			m_cfCompletion.complete(m_WorkerResult);
+		};
+	}
+
+	@Override
+	public void run()
+	{
+		m_bStopping = false;
+		m_bStopped = false;
+		m_WorkerResult = null;
+
+		if (m_aWorkers[0] == null)
+			createWorkers();
+
+		logger.info(String.format("Executing an ensemble of %d workers on %d threads.", m_aWorkers.length, m_nThreads));
+
+		ExecutorService esExecutor = Executors.newFixedThreadPool(m_nThreads);
+
+		try
+		{
+			List<Future<?>> liFutures = new ArrayList<>(m_aWorkers.length);
+
+			for (Worker worker: m_aWorkers)
+				if (worker.getWorkerResult() == null)
+					liFutures.add(esExecutor.submit(() -> runWorker(worker)));
+
+			// A pause or stop request may have arrived before the last workers were created
+			if (m_bPausing)
+				pauseExecution();
+
+			if (m_bStopping)
+				stopExecution();
+
+			for (Future<?> f: liFutures)
+				f.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			stopExecution();
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException("An ensemble worker failed.", e.getCause());
+		}
+		finally
+		{
+			esExecutor.shutdown();
+		}
+
+		m_WorkerResult = selectResult();
+		m_bStopped = true;
+		m_cfCompletion.complete(m_WorkerResult);
+	}
+
+	private void createWorkers()
+	{
+		MetricGrid mgInitial = null;
+		RandomStream rsSeed = new RandomStream(m_spStartParameters.getSeed());
+
+		for (int i = 0; i < m_aWorkers.length; i++)
+		{
+			MetricGrid mgG = m_amgStart[i];
+
+			if (mgG == null)
+			{
+				if (mgInitial == null)
+					mgInitial = Worker.initialiseMetricTensors(m_spStartParameters);
+
+				mgG = mgInitial;
+			}
+
+			m_aWorkers[i] = new Worker(m_spStartParameters, 0, mgG.copy(), null, rsSeed.split(i));
+			m_aWorkers[i].setReportTensorValues(false);
+		}
+	}
+
+	/**
+	 * Execute a worker on a thread of the pool, recording any exception or error thrown in its result.
+	 */
+	private static void runWorker(Worker worker)
+	{
+		try
+		{
+			worker.run();
+		}
+		catch (Throwable th)
+		{
+			worker.getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), th);
+		}
+	}
+
+	/**
+	 * Select the result of lowest energy, and log the spread of the energies.
+	 * @return
+	 *   The result of lowest energy, with the reason <code>STOPPED</code> if any worker was stopped before completing,
+	 *   or the first failure if every worker failed.
+	 */
+	private WorkerResult selectResult()
+	{
+		double[] adblEnergies = new double[m_aWorkers.length];
+		WorkerResult wrBest = null;
+		WorkerResult wrFailed = null;
+		boolean bStopped = false;
+		int nBest = -1;
+
+		for (int i = 0; i < m_aWorkers.length; i++)
+		{
+			WorkerResult wr = m_aWorkers[i].getWorkerResult();
+			adblEnergies[i] = Double.NaN;
+
+			if (wr.getReason() == Reason.FAILED)
+			{
+				logger.error(String.format("Ensemble worker %d failed at run number %s.", i,
+				 SchwarzschildSimulatedAnnealing.formatInteger(wr.getRun())), wr.getThrowable());
+
+				if (wrFailed == null)
+					wrFailed = wr;
+			}
+			else
+			{
+				adblEnergies[i] = wr.getEnergy();
+				bStopped = bStopped || (wr.getReason() == Reason.STOPPED);
+
+				// A worker stopped before its first run has no energy
+				if ((wrBest == null) || Double.isNaN(wrBest.getEnergy()) || (wr.getEnergy() < wrBest.getEnergy()))
+				{
+					wrBest = wr;
+					nBest = i;
+				}
+			}
+		}
+
+		m_sSpread = new Spread(adblEnergies);
+		WorkerResult wrResult;
+
+		if (wrBest == null)
+			wrResult = wrFailed;
+		else
+		{
+			logger.info(String.format("The ensemble's energies are: %s. The lowest is that of worker %d, which stopped"
+			 + " with the reason \"%s\".", m_sSpread.toString(), nBest, wrBest.getReason().value()));
+
+			Worker.reportFinalTensorValues(wrBest.getMetricGrid());
+			wrResult = bStopped ? new WorkerResult(Reason.STOPPED, null, wrBest.getRun(), wrBest.getMetricGrid(),
+			 wrBest.getEnergy()) : wrBest;
+		}
+
+		return wrResult;
+	}
+
+	/**
+	 * @return
+	 *   The result of each worker, or <code>null</code> for a worker which has not stopped.
+	 */
+	public WorkerResult[] getWorkerResults()
+	{
+		WorkerResult[] awrResult = new WorkerResult[m_aWorkers.length];
+
+		for (int i = 0; i < m_aWorkers.length; i++)
+			awrResult[i] = m_aWorkers[i] != null ? m_aWorkers[i].getWorkerResult() : null;
+
+		return awrResult;
+	}
+
+	/**
+	 * @return
+	 *   The spread of the energies of the workers' results, or <code>null</code> if the workers have not stopped.
+	 */
+	public Spread getSpread()
+	{
+		return m_sSpread;
+	}
+}
@@ -0,0 +1,23 @@
+package ianmarshall;
+
+/**
+ * An exponential annealing schedule: T = s * exp(-(n - 1) / d), where s is the temperature scaling factor and d is
+ * the temperature divisor, so the temperature falls by a factor of e every d runs but never reaches zero.
+ */
+public class ExponentialSchedule implements AnnealingSchedule
+{
+	private double m_dblTemperatureScalingFactor = 0.0;
+	private double m_dblTemperatureDivisor = 0.0;
+
+	public ExponentialSchedule(double dblTemperatureScalingFactor, double dblTemperatureDivisor)
+	{
+		m_dblTemperatureScalingFactor = dblTemperatureScalingFactor;
+		m_dblTemperatureDivisor = dblTemperatureDivisor;
+	}
+
+	@Override
+	public double temperature(int nRun, int nRuns)
+	{
+		return m_dblTemperatureScalingFactor * Math.exp(-(nRun - 1) / m_dblTemperatureDivisor);
+	}
+}
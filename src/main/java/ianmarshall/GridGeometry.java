@@ -0,0 +1,209 @@
+package ianmarshall;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class holds the radius values of a grid, and the finite difference and integration coefficients which depend
+ * on them only. It is immutable, so one instance is shared by all the grids, and all the workers, which use the same
+ * radius values.
+ * <br/>
+ * For each radius value <code>i</code>, the derivatives are calculated from the values at the three points starting at
+ * the stencil start: forward, central and backward differences for the first, internal and last points respectively.
+ * With <code>r0</code>, <code>r1</code> and <code>r2</code> the radius values of those points:
+ * <pre>
+ *   next difference  = (x2 - x1) * invDrNext,          invDrNext   = 1 / (r2 - r1)
+ *   prev difference  = (x1 - x0) * invDrPrev,          invDrPrev   = 1 / (r1 - r0)
+ *   dx/dR            = 0.5 * (next + prev)
+ *   d2x/dR2          = (next - prev) * secondFactor,   secondFactor = 2 / (r2 - r0)
+ * </pre>
+ * The integration weight of a radius value is its share of the radius range.
+ */
+public final class GridGeometry
+{
+	// The logarithmically-graduated radius values used by default
+	public static final double DBL_R_MIN = 1.01;
+	public static final double DBL_R_MAX = 100.0;
+	public static final double DBL_STEP_FACTOR_RADIUS = 1.014;
+
+	private static final Map<List<Double>, GridGeometry> s_mapLogarithmic = new ConcurrentHashMap<>();
+
+	private final double[] m_adblR;
+	private final int[] m_anStencilStart;
+	private final double[] m_adblInvDrNext;
+	private final double[] m_adblInvDrPrev;
+	private final double[] m_adblSecondFactor;
+	private final double[] m_adblWeight;
+
+	/**
+	 * The constructor.
+	 * @param adblR
+	 *   The radius values in ascending order, of which there must be at least 3. The array is used, not copied,
+	 *   and must not be changed afterwards.
+	 */
+	public GridGeometry(double[] adblR)
+	{
+		final int nSize = adblR.length;
+		final int N = nSize - 1;    // The maximum index value
+
+		if (nSize < 3)
+			throw new IllegalArgumentException(String.format(
+			 "A grid must have at least 3 radius values, but there are %d.", nSize));
+
+		m_adblR = adblR;
+		m_anStencilStart = new int[nSize];
+		m_adblInvDrNext = new double[nSize];
+		m_adblInvDrPrev = new double[nSize];
+		m_adblSecondFactor = new double[nSize];
+		m_adblWeight = new double[nSize];
+
+		for (int i = 0; i <= N; i++)
+		{
+			final int N_START;
+			if (i == 0)
+				N_START = i;        // Forward difference for the first point
+			else if (i < N)
+				N_START = i - 1;    // Central difference for the internal points
+			else
+				N_START = i - 2;    // Backward difference for the last point
+
+			m_anStencilStart[i] = N_START;
+			m_adblInvDrNext[i] = 1.0 / (adblR[N_START + 2] - adblR[N_START + 1]);
+			m_adblInvDrPrev[i] = 1.0 / (adblR[N_START + 1] - adblR[N_START]);
+			m_adblSecondFactor[i] = 2.0 / (adblR[N_START + 2] - adblR[N_START]);
+
+			final int nStart = i == 0 ? i : i - 1;
+			final int nFinish = ((i == 0) || (i == N)) ? nStart + 1 : nStart + 2;
+			m_adblWeight[i] = (adblR[nFinish] - adblR[nStart]) / (nFinish - nStart);
+		}
+	}
+
+	/**
+	 * Obtain the geometry of logarithmically-graduated radius values, for which the distance from a radius of 1 grows
+	 * by a constant factor from one radius value to the next. The geometry is made once for each set of parameters,
+	 * and shared thereafter.
+	 * @param dblRMin
+	 *   The first radius value, which must be greater than 1.
+	 * @param dblRMax
+	 *   The last radius value.
+	 * @param dblStepFactor
+	 *   The factor by which the distance from a radius of 1 grows, which must be greater than 1.
+	 * @return
+	 *   The geometry.
+	 */
+	public static GridGeometry logarithmic(double dblRMin, double dblRMax, double dblStepFactor)
+	{
+		List<Double> liKey = Arrays.asList(dblRMin, dblRMax, dblStepFactor);
+		return s_mapLogarithmic.computeIfAbsent(liKey,
+		 k -> new GridGeometry(logarithmicRadii(dblRMin, dblRMax, dblStepFactor)));
+	}
+
+	/**
+	 * @return
+	 *   The geometry of the default logarithmically-graduated radius values.
+	 */
+	public static GridGeometry logarithmic()
+	{
+		return logarithmic(DBL_R_MIN, DBL_R_MAX, DBL_STEP_FACTOR_RADIUS);
+	}
+
+	private static double[] logarithmicRadii(double dblRMin, double dblRMax, double dblStepFactor)
+	{
+		if ((dblRMin <= 1.0) || (dblRMax <= dblRMin) || (dblStepFactor <= 1.0))
+			throw new IllegalArgumentException(String.format(
+			 "Invalid logarithmic grid parameters: R min = %f, R max = %f, step factor = %f.",
+			 dblRMin, dblRMax, dblStepFactor));
+
+		double[] adblR = new double[16];
+		double dblR = dblRMin;
+		int i = 0;
+		boolean bLoop = true;
+		boolean bOneMoreLoop = false;
+
+		while (bLoop)
+		{
+			if (bOneMoreLoop)
+				bLoop = false;
+
+			if (i == adblR.length)
+				adblR = Arrays.copyOf(adblR, 2 * i);
+
+			adblR[i] = dblR;
+			double dblRNew = ((dblR  - 1.0) * dblStepFactor) + 1.0;
+
+			if (dblRNew < dblRMax)
+				dblR = dblRNew;
+			else if (dblR < dblRMax)
+			{
+				// We shall loop once more only, and then not rely on comparison precision
+				dblR = dblRMax;
+				bOneMoreLoop = true;
+			}
+			else
+				bLoop = false;
+
+			i++;
+		}
+
+		return Arrays.copyOf(adblR, i);
+	}
+
+	/**
+	 * @return
+	 *   The number of radius values.
+	 */
+	public int size()
+	{
+		return m_adblR.length;
+	}
+
+	public double getR(int nIndex)
+	{
+		return m_adblR[nIndex];
+	}
+
+	/**
+	 * @param nIndex
+	 *   The zero-based index of a radius value.
+	 * @return
+	 *   The integration weight of the radius value, which is its share of the radius range.
+	 */
+	public double getWeight(int nIndex)
+	{
+		return m_adblWeight[nIndex];
+	}
+
+	// The tables themselves, not copies, for use by calculation loops
+
+	double[] getRValues()
+	{
+		return m_adblR;
+	}
+
+	int[] getStencilStarts()
+	{
+		return m_anStencilStart;
+	}
+
+	double[] getInvDrNext()
+	{
+		return m_adblInvDrNext;
+	}
+
+	double[] getInvDrPrev()
+	{
+		return m_adblInvDrPrev;
+	}
+
+	double[] getSecondFactors()
+	{
+		return m_adblSecondFactor;
+	}
+
+	double[] getWeights()
+	{
+		return m_adblWeight;
+	}
+}
@@ -0,0 +1,328 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class exchanges the states of a worker which is one of several islands: processes executing their own runs,
+ * which share a directory.
+ * <br/>
+ * Every migration interval the island writes its current state to its own file in the directory, replacing the
+ * previous one atomically, and reads those of the other islands. If the lowest energy among them is lower than its
+ * own, the island continues from that state instead. An island never waits for another, and skips any file which
+ * cannot be read, so an island whose peers have died continues on its own.
+ * <br/>
+ * A state file contains the island's identifier, run number, reason for stopping if it has stopped, the time it was
+ * written, its energy, and its radius and metric component values.
+ */
+public class Island
+{
+	/**
+	 * The state of an island, as written to its file.
+	 */
+	public static class State
+	{
+		private int m_nIslandId = 0;
+		private int m_nRun = 0;
+		private Reason m_rReason = null;
+		private long m_lTimeMillis = 0L;
+		private double m_dblEnergy = Double.NaN;
+		private MetricGrid m_mgG = null;
+
+		/**
+		 * The constructor.
+		 * @param nIslandId
+		 *   The island's identifier.
+		 * @param nRun
+		 *   The number of runs executed.
+		 * @param rReason
+		 *   The reason for which the island's worker stopped, or <code>null</code> if it is running.
+		 * @param lTimeMillis
+		 *   The time at which the state was written, in milliseconds since the epoch.
+		 * @param dblEnergy
+		 *   The energy.
+		 * @param mgG
+		 *   The metric tensor values, which are not copied.
+		 */
+		public State(int nIslandId, int nRun, Reason rReason, long lTimeMillis, double dblEnergy, MetricGrid mgG)
+		{
+			m_nIslandId = nIslandId;
+			m_nRun = nRun;
+			m_rReason = rReason;
+			m_lTimeMillis = lTimeMillis;
+			m_dblEnergy = dblEnergy;
+			m_mgG = mgG;
+		}
+
+		public int getIslandId()
+		{
+			return m_nIslandId;
+		}
+
+		public int getRun()
+		{
+			return m_nRun;
+		}
+
+		/**
+		 * @return
+		 *   The reason for which the island's worker stopped, or <code>null</code> if it is running.
+		 */
+		public Reason getReason()
+		{
+			return m_rReason;
+		}
+
+		public long getTimeMillis()
+		{
+			return m_lTimeMillis;
+		}
+
+		public double getEnergy()
+		{
+			return m_dblEnergy;
+		}
+
+		/**
+		 * @return
+		 *   The metric tensor values, with their derivatives and energy terms not calculated if they were read.
+		 */
+		public MetricGrid getMetricGrid()
+		{
+			return m_mgG;
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(Island.class);
+
+	private static final int N_MAGIC = 0x53534953;    // "SSIS"
+	private static final int N_VERSION = 1;
+	private static final int N_HEADER_LENGTH = (5 * Integer.BYTES) + Long.BYTES + Double.BYTES;
+	private static final String S_FILE_PREFIX = "island-";
+	private static final String S_FILE_SUFFIX = ".state";
+
+	// The file of the global best state, written by the coordinator
+	static final String S_RESULT_FILE = "result" + S_FILE_SUFFIX;
+
+	private Path m_pDirectory = null;
+	private int m_nIslandId = 0;
+	private int m_nMigrationInterval = 0;
+	private int m_nExchanges = 0;
+	private int m_nMigrations = 0;
+
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 */
+	public Island(StartParameters spStartParameters)
+	{
+		m_pDirectory = Paths.get(spStartParameters.getIslandDirectory());
+		m_nIslandId = spStartParameters.getIslandId();
+		m_nMigrationInterval = spStartParameters.getMigrationInterval();
+	}
+
+	public int getMigrationInterval()
+	{
+		return m_nMigrationInterval;
+	}
+
+	/**
+	 * @return
+	 *   The number of exchanges, after each of which the island may have continued from another island's state.
+	 */
+	public int getExchanges()
+	{
+		return m_nExchanges;
+	}
+
+	/**
+	 * @return
+	 *   The number of times the island has continued from another island's state.
+	 */
+	public int getMigrations()
+	{
+		return m_nMigrations;
+	}
+
+	/**
+	 * Write the island's state, and read those of the other islands.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param mgG
+	 *   The island's metric tensor values.
+	 * @param dblEnergy
+	 *   The island's current energy.
+	 * @return
+	 *   The metric tensor values of lowest energy written by another island, if that is lower than the island's own
+	 *   energy, and otherwise <code>null</code>.
+	 */
+	public MetricGrid exchange(int nRun, MetricGrid mgG, double dblEnergy)
+	{
+		publish(nRun, null, mgG, dblEnergy);
+		m_nExchanges++;
+
+		State stBest = null;
+
+		for (State st: readStates(m_pDirectory))
+			if ((st.getIslandId() != m_nIslandId) && (st.getEnergy() < dblEnergy)
+			 && ((stBest == null) || (st.getEnergy() < stBest.getEnergy()))
+			 && Arrays.equals(st.getMetricGrid().getRValues(), mgG.getRValues()))
+				stBest = st;
+
+		MetricGrid mgResult = null;
+
+		if (stBest != null)
+		{
+			logger.info(String.format("Run number %s: island %d continues from the state of island %d at its run number"
+			 + " %s, of energy %f, which is lower than its own of %f.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(nRun), m_nIslandId, stBest.getIslandId(),
+			 SchwarzschildSimulatedAnnealing.formatInteger(stBest.getRun()), stBest.getEnergy(), dblEnergy));
+
+			mgResult = stBest.getMetricGrid();
+			m_nMigrations++;
+		}
+
+		return mgResult;
+	}
+
+	/**
+	 * Write the island's state, without reading those of the other islands. A failure to write it is logged, and the
+	 * island continues on its own.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param rReason
+	 *   The reason for which the island's worker stopped, or <code>null</code> if it is running.
+	 * @param mgG
+	 *   The island's metric tensor values.
+	 * @param dblEnergy
+	 *   The island's current energy.
+	 */
+	public void publish(int nRun, Reason rReason, MetricGrid mgG, double dblEnergy)
+	{
+		try
+		{
+			Files.createDirectories(m_pDirectory);
+			write(m_pDirectory.resolve(S_FILE_PREFIX + m_nIslandId + S_FILE_SUFFIX),
+			 new State(m_nIslandId, nRun, rReason, System.currentTimeMillis(), dblEnergy, mgG));
+		}
+		catch (IOException e)
+		{
+			logger.warn(String.format("Run number %s: island %d could not write its state to the directory \"%s\".",
+			 SchwarzschildSimulatedAnnealing.formatInteger(nRun), m_nIslandId, m_pDirectory), e);
+		}
+	}
+
+	/**
+	 * Write a state to a file, through a temporary file which then replaces it, so that a reader never sees a
+	 * partly written state.
+	 * @param pPath
+	 *   The path of the file.
+	 * @param st
+	 *   The state.
+	 * @throws IOException
+	 *   If the file cannot be written.
+	 */
+	static void write(Path pPath, State st) throws IOException
+	{
+		MetricGrid mgG = st.getMetricGrid();
+		int nSize = mgG.size();
+		ByteBuffer bbBuffer = ByteBuffer.allocate(N_HEADER_LENGTH + (3 * nSize * Double.BYTES));
+		int nReason = st.getReason() != null ? st.getReason().ordinal() : -1;
+
+		bbBuffer.putInt(N_MAGIC).putInt(N_VERSION).putInt(st.getIslandId()).putInt(st.getRun()).putInt(nReason)
+		 .putLong(st.getTimeMillis()).putDouble(st.getEnergy());
+		bbBuffer.asDoubleBuffer().put(mgG.getRValues()).put(mgG.getValues(None, MetricComponent.A))
+		 .put(mgG.getValues(None, MetricComponent.B));
+
+		Path pTemporary = pPath.resolveSibling(pPath.getFileName() + ".tmp");
+		Files.write(pTemporary, bbBuffer.array());
+		Files.move(pTemporary, pPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * @param pPath
+	 *   The path of a state file.
+	 * @return
+	 *   The state.
+	 * @throws IOException
+	 *   If the file cannot be read, or is not a state file.
+	 */
+	static State read(Path pPath) throws IOException
+	{
+		ByteBuffer bbBuffer = ByteBuffer.wrap(Files.readAllBytes(pPath));
+
+		if ((bbBuffer.remaining() < N_HEADER_LENGTH) || (bbBuffer.getInt() != N_MAGIC)
+		 || (bbBuffer.getInt() != N_VERSION))
+			throw new IOException(String.format("The file \"%s\" is not an island state of version %d.", pPath,
+			 N_VERSION));
+
+		int nIslandId = bbBuffer.getInt();
+		int nRun = bbBuffer.getInt();
+		int nReason = bbBuffer.getInt();
+		long lTimeMillis = bbBuffer.getLong();
+		double dblEnergy = bbBuffer.getDouble();
+		int nSize = bbBuffer.remaining() / (3 * Double.BYTES);
+
+		if ((nSize < 3) || (bbBuffer.remaining() != 3 * nSize * Double.BYTES))
+			throw new IOException(String.format("The island state \"%s\" has an incorrect length.", pPath));
+
+		// A reason of -1 means the island is still running
+		if ((nReason < -1) || (nReason >= Reason.values().length))
+			throw new IOException(String.format("The island state \"%s\" has an unknown reason %d.", pPath, nReason));
+
+		double[] adblR = new double[nSize];
+		double[] adblA = new double[nSize];
+		double[] adblB = new double[nSize];
+		bbBuffer.asDoubleBuffer().get(adblR).get(adblA).get(adblB);
+
+		Reason rReason = nReason >= 0 ? Reason.values()[nReason] : null;
+		return new State(nIslandId, nRun, rReason, lTimeMillis, dblEnergy, new MetricGrid(adblR, adblA, adblB));
+	}
+
+	/**
+	 * @param pDirectory
+	 *   The directory shared by the islands.
+	 * @return
+	 *   The states of the islands which can be read, in no particular order. Those which cannot be read are logged and
+	 *   skipped.
+	 */
+	static List<State> readStates(Path pDirectory)
+	{
+		List<State> liResult = new ArrayList<>();
+
+		try (DirectoryStream<Path> dsFiles = Files.newDirectoryStream(pDirectory, S_FILE_PREFIX + "*" + S_FILE_SUFFIX))
+		{
+			for (Path pFile: dsFiles)
+				try
+				{
+					liResult.add(read(pFile));
+				}
+				catch (IOException e)
+				{
+					logger.warn(String.format("The island state \"%s\" could not be read: %s", pFile, e.toString()));
+				}
+		}
+		catch (IOException e)
+		{
+			logger.warn(String.format("The island directory \"%s\" could not be read: %s", pDirectory, e.toString()));
+		}
+
+		return liResult;
+	}
+}
@@ -0,0 +1,187 @@
+package ianmarshall;
+
+import ianmarshall.Island.State;
+import ianmarshall.WorkerResult.Reason;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class tracks the global best state of the islands sharing a directory, until every island has completed its
+ * runs or has written nothing for longer than a timeout, in which case it is taken to have died. It then writes the
+ * global best state to the directory as the final result.
+ * <br/>
+ * The coordinator only reads the islands' state files, so the islands do not depend on it, and it can be started or
+ * restarted at any time.
+ */
+public class IslandCoordinator
+{
+	private static final Logger logger = LoggerFactory.getLogger(IslandCoordinator.class);
+
+	private Path m_pDirectory = null;
+	private int m_nIslands = 0;
+	private long m_lTimeoutMillis = 0L;
+	private long m_lPollMillis = 1000L;    // 1s
+
+	private State m_stBest = null;
+	private Map<Integer, State> m_mapLatest = new HashMap<>();
+	private Set<Integer> m_setDead = new HashSet<>();
+
+	/**
+	 * The constructor.
+	 * @param pDirectory
+	 *   The directory shared by the islands.
+	 * @param nIslands
+	 *   The number of islands, whose identifiers are <code>0</code> to <code>nIslands - 1</code>.
+	 * @param lTimeoutMillis
+	 *   The time in milliseconds after which an island which has not completed its runs and has written nothing is
+	 *   taken to have died.
+	 */
+	public IslandCoordinator(Path pDirectory, int nIslands, long lTimeoutMillis)
+	{
+		m_pDirectory = pDirectory;
+		m_nIslands = nIslands;
+		m_lTimeoutMillis = lTimeoutMillis;
+	}
+
+	/**
+	 * @param lPollMillis
+	 *   The time in milliseconds between readings of the islands' states. The default is one second.
+	 */
+	public void setPollMillis(long lPollMillis)
+	{
+		m_lPollMillis = lPollMillis;
+	}
+
+	/**
+	 * Track the islands' states until every island has completed its runs or died, and write the global best state.
+	 * @return
+	 *   The global best state as a result, whose reason is that of the island which reached it if every island
+	 *   completed its runs, and <code>STOPPED</code> otherwise, or a failure if no island wrote a state.
+	 * @throws IOException
+	 *   If the global best state cannot be written.
+	 * @throws InterruptedException
+	 *   If the thread is interrupted while waiting for the islands.
+	 */
+	public WorkerResult execute() throws IOException, InterruptedException
+	{
+		long lStartMillis = System.currentTimeMillis();
+		logger.info(String.format("Coordinating %d islands through the directory \"%s\".", m_nIslands, m_pDirectory));
+
+		while (!poll(System.currentTimeMillis() - lStartMillis))
+			Thread.sleep(m_lPollMillis);
+
+		WorkerResult wrResult;
+
+		if (m_stBest == null)
+			wrResult = new WorkerResult(Reason.FAILED, new IOException(String.format(
+			 "No island wrote its state to the directory \"%s\".", m_pDirectory)), 0, null, Double.NaN);
+		else
+		{
+			boolean bCompleted = m_setDead.isEmpty();
+			Reason rReason = bCompleted ? m_mapLatest.get(m_stBest.getIslandId()).getReason() : Reason.STOPPED;
+
+			Island.write(m_pDirectory.resolve(Island.S_RESULT_FILE), m_stBest);
+			logger.info(String.format("The global best state is that of island %d at its run number %s, with energy %f."
+			 + " %d of %d islands completed their runs. The state has been written to \"%s\".", m_stBest.getIslandId(),
+			 SchwarzschildSimulatedAnnealing.formatInteger(m_stBest.getRun()), m_stBest.getEnergy(),
+			 m_nIslands - m_setDead.size(), m_nIslands, m_pDirectory.resolve(Island.S_RESULT_FILE)));
+
+			Worker.reportFinalTensorValues(m_stBest.getMetricGrid());
+
+			// A run ended early by one island only applies to its own runs, so the reason is only that of the best
+			wrResult = new WorkerResult(bCompleted && (rReason != null) ? rReason : Reason.STOPPED, null,
+			 m_stBest.getRun(), m_stBest.getMetricGrid(), m_stBest.getEnergy());
+		}
+
+		return wrResult;
+	}
+
+	/**
+	 * Read the islands' states, tracking the global best, and find those which have died.
+	 * @param lElapsedMillis
+	 *   The time in milliseconds since the coordinator started.
+	 * @return
+	 *   Whether every island has completed its runs or died.
+	 */
+	boolean poll(long lElapsedMillis)
+	{
+		long lNowMillis = System.currentTimeMillis();
+
+		for (State st: Island.readStates(m_pDirectory))
+			if ((st.getIslandId() >= 0) && (st.getIslandId() < m_nIslands))
+			{
+				State stPrevious = m_mapLatest.put(st.getIslandId(), st);
+
+				if ((stPrevious == null) || (stPrevious.getTimeMillis() != st.getTimeMillis()))
+				{
+					m_setDead.remove(st.getIslandId());
+
+					if ((m_stBest == null) || (st.getEnergy() < m_stBest.getEnergy()))
+					{
+						m_stBest = st;
+						logger.info(String.format("A new global best energy of %f was reached by island %d at its run number"
+						 + " %s.", st.getEnergy(), st.getIslandId(), SchwarzschildSimulatedAnnealing.formatInteger(st.getRun())));
+					}
+				}
+			}
+
+		boolean bFinished = true;
+
+		for (int nIslandId = 0; nIslandId < m_nIslands; nIslandId++)
+		{
+			State st = m_mapLatest.get(nIslandId);
+			boolean bCompleted = (st != null) && (st.getReason() != null) && (st.getReason() != Reason.STOPPED)
+			 && (st.getReason() != Reason.FAILED);
+			long lSilentMillis = st != null ? lNowMillis - st.getTimeMillis() : lElapsedMillis;
+
+			if ((!bCompleted) && (lSilentMillis > m_lTimeoutMillis) && m_setDead.add(nIslandId))
+				logger.warn(String.format("Island %d has written nothing for %s ms, and is taken to have died.", nIslandId,
+				 SchwarzschildSimulatedAnnealing.formatInteger((int)Math.min(lSilentMillis, Integer.MAX_VALUE))));
+
+			bFinished = bFinished && (bCompleted || m_setDead.contains(nIslandId));
+		}
+
+		return bFinished;
+	}
+
+	/**
+	 * @return
+	 *   The global best state so far, or <code>null</code> if no island has written a state.
+	 */
+	public State getBest()
+	{
+		return m_stBest;
+	}
+
+	public static void main(String[] asArgs) throws IOException, InterruptedException
+	{
+		if (asArgs.length != 3)
+			logger.error(String.format("Usage: %s [island directory] [number of islands] [timeout seconds]",
+			 IslandCoordinator.class.getSimpleName()));
+		else
+		{
+			Path pDirectory = Paths.get(asArgs[0]);
+			Files.createDirectories(pDirectory);
+			IslandCoordinator icCoordinator = new IslandCoordinator(pDirectory, Integer.parseInt(asArgs[1]),
+			 1000L * Long.parseLong(asArgs[2]));
+			WorkerResult wrResult = icCoordinator.execute();
+
+			logger.info(String.format("Coordination has ended (%s). The latest run number of the global best state was %s,"
+			 + " with energy %f.", wrResult.getReason().value(), SchwarzschildSimulatedAnnealing.formatInteger(
+			 wrResult.getRun()), wrResult.getEnergy()));
+
+			if (wrResult.getThrowable() != null)
+				logger.error("The coordination failed.", wrResult.getThrowable());
+		}
+	}
+}
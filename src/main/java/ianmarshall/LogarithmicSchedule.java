@@ -0,0 +1,24 @@
+package ianmarshall;
+
+/**
+ * A logarithmic annealing schedule: T = s / (1 + ln(1 + (n - 1) / d)), where s is the temperature scaling factor and
+ * d is the temperature divisor. The temperature falls slowly, so that the runs are less likely to be trapped in a
+ * local minimum of energy.
+ */
+public class LogarithmicSchedule implements AnnealingSchedule
+{
+	private double m_dblTemperatureScalingFactor = 0.0;
+	private double m_dblTemperatureDivisor = 0.0;
+
+	public LogarithmicSchedule(double dblTemperatureScalingFactor, double dblTemperatureDivisor)
+	{
+		m_dblTemperatureScalingFactor = dblTemperatureScalingFactor;
+		m_dblTemperatureDivisor = dblTemperatureDivisor;
+	}
+
+	@Override
+	public double temperature(int nRun, int nRuns)
+	{
+		return m_dblTemperatureScalingFactor / (1.0 + Math.log1p((nRun - 1) / m_dblTemperatureDivisor));
+	}
+}
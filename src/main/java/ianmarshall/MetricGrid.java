@@ -0,0 +1,269 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.Worker.DerivativeLevel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class holds the metric tensor components, and their first and second derivatives with respect to radius,
+ * for every radius value of the grid, in contiguous primitive arrays.
+ * <br/>
+ * Element <code>i</code> of each array belongs to the <code>i</code>th radius value, and the radius values are
+ * in ascending order. The radius values belong to the grid's geometry, which is shared by the grid's copies.
+ * <code>MetricComponents</code> lists are only used as an import and export view of a grid.
+ */
+public class MetricGrid
+{
+	private GridGeometry m_ggGeometry = null;     // The radius co-ordinates of the metric, and their coefficients
+	private double[] m_adblA = null;              // } The component values
+	private double[] m_adblB = null;              // } of the metric
+	private double[] m_adblFirstA = null;         // } The first derivatives
+	private double[] m_adblFirstB = null;         // } with respect to radius
+	private double[] m_adblSecondA = null;        // } The second derivatives
+	private double[] m_adblSecondB = null;        // } with respect to radius
+	private double[] m_adblEnergyTerm = null;     // The contribution of each radius value to the energy
+
+	/**
+	 * The constructor.
+	 * @param adblR
+	 *   The radius values in ascending order. The array is used, not copied.
+	 * @param adblA
+	 *   The values of the metric component A, one for each radius value. The array is used, not copied.
+	 * @param adblB
+	 *   The values of the metric component B, one for each radius value. The array is used, not copied.
+	 */
+	public MetricGrid(double[] adblR, double[] adblA, double[] adblB)
+	{
+		this(new GridGeometry(adblR), adblA, adblB);
+	}
+
+	/**
+	 * The constructor.
+	 * @param ggGeometry
+	 *   The radius values and their coefficients.
+	 * @param adblA
+	 *   The values of the metric component A, one for each radius value. The array is used, not copied.
+	 * @param adblB
+	 *   The values of the metric component B, one for each radius value. The array is used, not copied.
+	 */
+	public MetricGrid(GridGeometry ggGeometry, double[] adblA, double[] adblB)
+	{
+		int nSize = ggGeometry.size();
+
+		if ((adblA.length != nSize) || (adblB.length != nSize))
+			throw new IllegalArgumentException(String.format(
+			 "The metric component arrays have lengths %d and %d, but there are %d radius values.",
+			 adblA.length, adblB.length, nSize));
+
+		m_ggGeometry = ggGeometry;
+		m_adblA = adblA;
+		m_adblB = adblB;
+		m_adblFirstA = new double[nSize];
+		m_adblFirstB = new double[nSize];
+		m_adblSecondA = new double[nSize];
+		m_adblSecondB = new double[nSize];
+		m_adblEnergyTerm = new double[nSize];
+	}
+
+	/**
+	 * Make a grid from a list of <code>MetricComponents</code>, and optionally its first and second derivatives.
+	 * @param liG
+	 *   The metric tensor values, in order of ascending adjacent radius values.
+	 * @param liGFirstDerivative
+	 *   The first derivatives of the metric tensor values. If this is <code>null</code> then they will be zero.
+	 * @param liGSecondDerivative
+	 *   The second derivatives of the metric tensor values. If this is <code>null</code> then they will be zero.
+	 * @return
+	 *   The new grid, which shares no data with the lists supplied.
+	 */
+	public static MetricGrid fromMetricComponents(List<MetricComponents> liG,
+	 List<MetricComponents> liGFirstDerivative, List<MetricComponents> liGSecondDerivative)
+	{
+		int nSize = liG.size();
+		double[] adblR = new double[nSize];
+		double[] adblA = new double[nSize];
+		double[] adblB = new double[nSize];
+
+		for (int i = 0; i < nSize; i++)
+		{
+			MetricComponents mc = liG.get(i);
+			adblR[i] = mc.getR();
+			adblA[i] = mc.getA();
+			adblB[i] = mc.getB();
+		}
+
+		MetricGrid mgResult = new MetricGrid(adblR, adblA, adblB);
+
+		if (liGFirstDerivative != null)
+			for (int i = 0; i < nSize; i++)
+			{
+				MetricComponents mc = liGFirstDerivative.get(i);
+				mgResult.m_adblFirstA[i] = mc.getA();
+				mgResult.m_adblFirstB[i] = mc.getB();
+			}
+
+		if (liGSecondDerivative != null)
+			for (int i = 0; i < nSize; i++)
+			{
+				MetricComponents mc = liGSecondDerivative.get(i);
+				mgResult.m_adblSecondA[i] = mc.getA();
+				mgResult.m_adblSecondB[i] = mc.getB();
+			}
+
+		return mgResult;
+	}
+
+	/**
+	 * Export the specified derivative level of this grid as a list of <code>MetricComponents</code>.
+	 * @param dlDerivativeLevel
+	 *   The derivative level to be exported.
+	 * @return
+	 *   A new list, which shares no data with this grid.
+	 */
+	public List<MetricComponents> toMetricComponents(DerivativeLevel dlDerivativeLevel)
+	{
+		double[] adblA = getValues(dlDerivativeLevel, MetricComponent.A);
+		double[] adblB = getValues(dlDerivativeLevel, MetricComponent.B);
+		int nSize = size();
+		List<MetricComponents> liResult = new ArrayList<>(nSize);
+
+		for (int i = 0; i < nSize; i++)
+			liResult.add(new MetricComponents(getR(i), adblA[i], adblB[i]));
+
+		return liResult;
+	}
+
+	/**
+	 * @return
+	 *   A deep copy of this grid.
+	 */
+	public MetricGrid copy()
+	{
+		MetricGrid mgResult = new MetricGrid(m_ggGeometry, m_adblA.clone(), m_adblB.clone());
+		mgResult.copyFrom(this);
+		return mgResult;
+	}
+
+	/**
+	 * Overwrite all the values of this grid with those of another grid of the same size, whose geometry is then shared.
+	 * @param mgSource
+	 *   The grid to be copied from.
+	 */
+	public void copyFrom(MetricGrid mgSource)
+	{
+		int nSize = size();
+
+		if (mgSource.size() != nSize)
+			throw new IllegalArgumentException(String.format(
+			 "Cannot copy a grid of %d points into a grid of %d points.", mgSource.size(), nSize));
+
+		m_ggGeometry = mgSource.m_ggGeometry;
+		System.arraycopy(mgSource.m_adblA,          0, m_adblA,          0, nSize);
+		System.arraycopy(mgSource.m_adblB,          0, m_adblB,          0, nSize);
+		System.arraycopy(mgSource.m_adblFirstA,     0, m_adblFirstA,     0, nSize);
+		System.arraycopy(mgSource.m_adblFirstB,     0, m_adblFirstB,     0, nSize);
+		System.arraycopy(mgSource.m_adblSecondA,    0, m_adblSecondA,    0, nSize);
+		System.arraycopy(mgSource.m_adblSecondB,    0, m_adblSecondB,    0, nSize);
+		System.arraycopy(mgSource.m_adblEnergyTerm, 0, m_adblEnergyTerm, 0, nSize);
+	}
+
+	/**
+	 * Overwrite the values of this grid over a range of radius values with those of another grid of the same geometry.
+	 * @param mgSource
+	 *   The grid to be copied from.
+	 * @param nIndexFrom
+	 *   The lowest index of the radius values to be copied.
+	 * @param nIndexTo
+	 *   The highest index of the radius values to be copied.
+	 */
+	public void copyFrom(MetricGrid mgSource, int nIndexFrom, int nIndexTo)
+	{
+		int nLength = nIndexTo - nIndexFrom + 1;
+
+		System.arraycopy(mgSource.m_adblA,          nIndexFrom, m_adblA,          nIndexFrom, nLength);
+		System.arraycopy(mgSource.m_adblB,          nIndexFrom, m_adblB,          nIndexFrom, nLength);
+		System.arraycopy(mgSource.m_adblFirstA,     nIndexFrom, m_adblFirstA,     nIndexFrom, nLength);
+		System.arraycopy(mgSource.m_adblFirstB,     nIndexFrom, m_adblFirstB,     nIndexFrom, nLength);
+		System.arraycopy(mgSource.m_adblSecondA,    nIndexFrom, m_adblSecondA,    nIndexFrom, nLength);
+		System.arraycopy(mgSource.m_adblSecondB,    nIndexFrom, m_adblSecondB,    nIndexFrom, nLength);
+		System.arraycopy(mgSource.m_adblEnergyTerm, nIndexFrom, m_adblEnergyTerm, nIndexFrom, nLength);
+	}
+
+	/**
+	 * @return
+	 *   The number of radius values.
+	 */
+	public int size()
+	{
+		return m_ggGeometry.size();
+	}
+
+	public GridGeometry getGeometry()
+	{
+		return m_ggGeometry;
+	}
+
+	public double getR(int nIndex)
+	{
+		return m_ggGeometry.getR(nIndex);
+	}
+
+	public double get(DerivativeLevel dlDerivativeLevel, MetricComponent mcMetricComponent, int nIndex)
+	{
+		return getValues(dlDerivativeLevel, mcMetricComponent)[nIndex];
+	}
+
+	public void set(DerivativeLevel dlDerivativeLevel, MetricComponent mcMetricComponent, int nIndex, double dblValue)
+	{
+		getValues(dlDerivativeLevel, mcMetricComponent)[nIndex] = dblValue;
+	}
+
+	/**
+	 * Obtain the backing array of the specified derivative level and metric component, for use by calculation loops.
+	 * @param dlDerivativeLevel
+	 *   The derivative level.
+	 * @param mcMetricComponent
+	 *   The metric component.
+	 * @return
+	 *   The backing array itself, not a copy.
+	 */
+	double[] getValues(DerivativeLevel dlDerivativeLevel, MetricComponent mcMetricComponent)
+	{
+		double[] adblResult = null;
+
+		switch (dlDerivativeLevel)
+		{
+			case None:
+				adblResult = mcMetricComponent == MetricComponent.A ? m_adblA : m_adblB;
+				break;
+			case First:
+				adblResult = mcMetricComponent == MetricComponent.A ? m_adblFirstA : m_adblFirstB;
+				break;
+			case Second:
+				adblResult = mcMetricComponent == MetricComponent.A ? m_adblSecondA : m_adblSecondB;
+				break;
+			default:
+				throw new RuntimeException(String.format(
+				 "Derivative level \"%s\" not found.", dlDerivativeLevel.toString()));
+		}
+
+		return adblResult;
+	}
+
+	double[] getRValues()
+	{
+		return m_ggGeometry.getRValues();
+	}
+
+	/**
+	 * @return
+	 *   The backing array of the contribution of each radius value to the energy, as last calculated
+	 *   by <code>SimulatedAnnealing</code>.
+	 */
+	double[] getEnergyTerms()
+	{
+		return m_adblEnergyTerm;
+	}
+}
@@ -0,0 +1,196 @@
+package ianmarshall;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class exposes the {@link RunMetrics} of the runs while they execute: always as a JMX MBean, and optionally in
+ * the Prometheus text format over HTTP, at the path <code>/metrics</code> of a port of the local host only.
+ * <br/>
+ * The values are read from the counters when they are requested, so the endpoint costs the runs nothing between
+ * requests.
+ */
+public class MetricsEndpoint implements AutoCloseable
+{
+	private static final Logger logger = LoggerFactory.getLogger(MetricsEndpoint.class);
+
+	static final String S_OBJECT_NAME = "ianmarshall:type=RunMetrics";
+	static final String S_PATH = "/metrics";
+	private static final String S_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+	private static final String S_PREFIX = "schwarzschild_";
+
+	private RunMetricsMBean m_rmMetrics = null;
+	private ObjectName m_onName = null;
+	private HttpServer m_hsServer = null;
+
+	/**
+	 * The constructor, which registers the MBean and starts the HTTP server. A failure to do either is logged, and the
+	 * runs continue without it.
+	 * @param rmMetrics
+	 *   The counters of the runs.
+	 * @param nPort
+	 *   The port of the local host on which the metrics are served over HTTP, or <code>0</code> if they are not.
+	 */
+	public MetricsEndpoint(RunMetricsMBean rmMetrics, int nPort)
+	{
+		m_rmMetrics = rmMetrics;
+
+		try
+		{
+			MBeanServer mbs = ManagementFactory.getPlatformMBeanServer();
+			m_onName = new ObjectName(S_OBJECT_NAME);
+
+			if (mbs.isRegistered(m_onName))
+				mbs.unregisterMBean(m_onName);
+
+			// The counters are registered through their interface, which need not be named after their class
+			mbs.registerMBean(new StandardMBean(rmMetrics, RunMetricsMBean.class), m_onName);
+		}
+		catch (JMException e)
+		{
+			logger.warn(String.format("The metrics could not be registered as the MBean \"%s\".", S_OBJECT_NAME), e);
+			m_onName = null;
+		}
+
+		if (nPort > 0)
+			try
+			{
+				m_hsServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), nPort), 0);
+				m_hsServer.createContext(S_PATH, this::handle);
+				m_hsServer.start();
+				logger.info(String.format("The metrics are served at \"http://%s:%d%s\".",
+				 InetAddress.getLoopbackAddress().getHostAddress(), getPort(), S_PATH));
+			}
+			catch (IOException e)
+			{
+				logger.warn(String.format("The metrics could not be served on port %d.", nPort), e);
+				m_hsServer = null;
+			}
+	}
+
+	/**
+	 * @return
+	 *   The port on which the metrics are served over HTTP, or <code>0</code> if they are not.
+	 */
+	public int getPort()
+	{
+		return m_hsServer != null ? m_hsServer.getAddress().getPort() : 0;
+	}
+
+	/**
+	 * Unregister the MBean and stop the HTTP server.
+	 */
+	@Override
+	public void close()
+	{
+		if (m_onName != null)
+		{
+			try
+			{
+				ManagementFactory.getPlatformMBeanServer().unregisterMBean(m_onName);
+			}
+			catch (JMException e)
+			{
+				logger.warn(String.format("The MBean \"%s\" could not be unregistered.", S_OBJECT_NAME), e);
+			}
+
+			m_onName = null;
+		}
+
+		if (m_hsServer != null)
+		{
+			m_hsServer.stop(0);
+			m_hsServer = null;
+		}
+	}
+
+	/**
+	 * @param rmMetrics
+	 *   The counters of the runs.
+	 * @return
+	 *   The metrics in the Prometheus text format.
+	 */
+	static String format(RunMetricsMBean rmMetrics)
+	{
+		StringBuilder sb = new StringBuilder();
+
+		append(sb, "runs_total", "counter", "The number of runs executed.", rmMetrics.getRun());
+		append(sb, "runs_planned", "gauge", "The number of runs to be executed.", rmMetrics.getRuns());
+		append(sb, "runs_per_second", "gauge", "The number of runs per second over the latest rate interval.",
+		 rmMetrics.getRunsPerSecond());
+		append(sb, "acceptance_rate", "gauge", "The proportion of moves accepted over the latest rate interval.",
+		 rmMetrics.getAcceptanceRate());
+		append(sb, "acceptances_total", "counter", "The number of moves accepted.", rmMetrics.getAcceptances());
+		append(sb, "rejections_total", "counter", "The number of moves rejected.", rmMetrics.getRejections());
+		append(sb, "energy", "gauge", "The current energy.", rmMetrics.getEnergy());
+		append(sb, "best_energy", "gauge", "The lowest energy reached.", rmMetrics.getBestEnergy());
+		append(sb, "temperature", "gauge", "The current annealing temperature.", rmMetrics.getTemperature());
+		append(sb, "eta_seconds", "gauge", "The estimated number of seconds until all the runs have been executed.",
+		 rmMetrics.getEtaSeconds());
+		append(sb, "heap_used_bytes", "gauge", "The number of bytes of heap memory used.", rmMetrics.getHeapUsedBytes());
+		append(sb, "heap_max_bytes", "gauge", "The maximum number of bytes of heap memory.", rmMetrics.getHeapMaxBytes());
+
+		return sb.toString();
+	}
+
+	private static void append(StringBuilder sb, String sName, String sType, String sHelp, double dblValue)
+	{
+		sb.append(String.format("# HELP %s%s %s\n# TYPE %s%s %s\n%s%s %s\n", S_PREFIX, sName, sHelp, S_PREFIX, sName,
+		 sType, S_PREFIX, sName, formatValue(dblValue)));
+	}
+
+	private static String formatValue(double dblValue)
+	{
+		String sResult;
+
+		if (Double.isNaN(dblValue))
+			sResult = "NaN";
+		else if (Double.isInfinite(dblValue))
+			sResult = dblValue > 0.0 ? "+Inf" : "-Inf";
+		else if ((dblValue == Math.rint(dblValue)) && (Math.abs(dblValue) < 1.0E15))
+			sResult = Long.toString((long)dblValue);
+		else
+			sResult = Double.toString(dblValue);
+
+		return sResult;
+	}
+
+	private void handle(HttpExchange he) throws IOException
+	{
+		try
+		{
+			if ("GET".equals(he.getRequestMethod()))
+			{
+				byte[] abBody = format(m_rmMetrics).getBytes(StandardCharsets.UTF_8);
+				he.getResponseHeaders().set("Content-Type", S_CONTENT_TYPE);
+				he.sendResponseHeaders(200, abBody.length);
+
+				try (OutputStream os = he.getResponseBody())
+				{
+					os.write(abBody);
+				}
+			}
+			else
+				he.sendResponseHeaders(405, -1);
+		}
+		finally
+		{
+			he.close();
+		}
+	}
+}
@@ -0,0 +1,207 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.MetricComponents.MetricComponent.A;
+import static ianmarshall.MetricComponents.MetricComponent.B;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+/**
+ * This class represents a candidate move of the simulated annealing: a Gaussian bump added to one metric component,
+ * centred on one radius value.
+ * <br/>
+ * The bump is truncated where it is too small, relative to its peak, to change a metric component value,
+ * so that only the values near its centre are changed.
+ * <br/>
+ * A move is applied to a grid in place. Before it is applied, the values, derivatives and energy terms which it can
+ * change are recorded, so that a rejected move can be undone without copying the grid. The buffers are reused
+ * from one move to the next, and are only reallocated if a move's range is wider than any before.
+ */
+public class Move
+{
+	// The bump is truncated where it falls below this fraction of its peak
+	private static final double DBL_BUMP_CUT_OFF = 1.0E-17;
+
+	// The half-width of the bump, in standard deviations, at which it is truncated
+	private static final double DBL_BUMP_HALF_WIDTH = Math.sqrt(-Math.log(DBL_BUMP_CUT_OFF));
+
+	private int m_nIndexCentre = 0;
+	private MetricComponent m_mcMetricComponent = MetricComponent.A;
+	private double m_dblDeltaPeak = 0.0;
+	private double m_dblStandardDeviation = 1.0;
+	private int m_nIndexFrom = 0;    // } The range of indices, inclusive,
+	private int m_nIndexTo = 0;      // } of the values changed by the move
+
+	// The undo buffers: the changed metric component values, and the derivatives and energy terms within the stencil
+	private int m_nStencilFrom = 0;
+	private int m_nStencilTo = -1;
+	private double[] m_adblUndoValues = new double[0];
+	private double[] m_adblUndoFirstA = new double[0];
+	private double[] m_adblUndoFirstB = new double[0];
+	private double[] m_adblUndoSecondA = new double[0];
+	private double[] m_adblUndoSecondB = new double[0];
+	private double[] m_adblUndoEnergyTerm = new double[0];
+
+	public Move()
+	{
+	}
+
+	/**
+	 * Set the parameters of the move.
+	 * @param nSize
+	 *   The number of radius values of the grid to which the move will be applied.
+	 * @param nIndexCentre
+	 *   The zero-based index of the radius value at the centre of the bump.
+	 * @param mcMetricComponent
+	 *   The metric component to be changed.
+	 * @param dblDeltaPeak
+	 *   The change of the metric component at the centre of the bump.
+	 * @param dblStandardDeviation
+	 *   The standard deviation of the bump, in numbers of radius values.
+	 */
+	public void set(int nSize, int nIndexCentre, MetricComponent mcMetricComponent, double dblDeltaPeak,
+	 double dblStandardDeviation)
+	{
+		m_nIndexCentre = nIndexCentre;
+		m_mcMetricComponent = mcMetricComponent;
+		m_dblDeltaPeak = dblDeltaPeak;
+		m_dblStandardDeviation = dblStandardDeviation;
+
+		int nHalfWidth = halfWidth(dblStandardDeviation);
+		m_nIndexFrom = Math.max(0, nIndexCentre - nHalfWidth);
+		m_nIndexTo = Math.min(nSize - 1, nIndexCentre + nHalfWidth);
+	}
+
+	/**
+	 * @param dblStandardDeviation
+	 *   The standard deviation of a bump, in numbers of radius values.
+	 * @return
+	 *   The number of radius values either side of the centre of the bump which it can change.
+	 */
+	static int halfWidth(double dblStandardDeviation)
+	{
+		return (int)Math.ceil(dblStandardDeviation * DBL_BUMP_HALF_WIDTH);
+	}
+
+	/**
+	 * Add the bump to the metric component values of the grid, having recorded what it can change so that it can be
+	 * undone. The derivatives are not recalculated.
+	 * @param mgG
+	 *   The grid to be changed.
+	 */
+	public void apply(MetricGrid mgG)
+	{
+		double[] adblMC = mgG.getValues(None, m_mcMetricComponent);
+		int nSize = mgG.size();
+		m_nStencilFrom = getStencilFrom();
+		m_nStencilTo = getStencilTo(nSize);
+		int nStencilLength = m_nStencilTo - m_nStencilFrom + 1;
+
+		if (m_adblUndoValues.length < nStencilLength)
+		{
+			m_adblUndoValues = new double[nStencilLength];
+			m_adblUndoFirstA = new double[nStencilLength];
+			m_adblUndoFirstB = new double[nStencilLength];
+			m_adblUndoSecondA = new double[nStencilLength];
+			m_adblUndoSecondB = new double[nStencilLength];
+			m_adblUndoEnergyTerm = new double[nStencilLength];
+		}
+
+		System.arraycopy(adblMC, m_nIndexFrom, m_adblUndoValues, 0, m_nIndexTo - m_nIndexFrom + 1);
+		System.arraycopy(mgG.getValues(First, A),  m_nStencilFrom, m_adblUndoFirstA,     0, nStencilLength);
+		System.arraycopy(mgG.getValues(First, B),  m_nStencilFrom, m_adblUndoFirstB,     0, nStencilLength);
+		System.arraycopy(mgG.getValues(Second, A), m_nStencilFrom, m_adblUndoSecondA,    0, nStencilLength);
+		System.arraycopy(mgG.getValues(Second, B), m_nStencilFrom, m_adblUndoSecondB,    0, nStencilLength);
+		System.arraycopy(mgG.getEnergyTerms(),     m_nStencilFrom, m_adblUndoEnergyTerm, 0, nStencilLength);
+
+		for (int i = m_nIndexFrom; i <= m_nIndexTo; i++)
+		{
+			double dblExponent = (i - m_nIndexCentre) / m_dblStandardDeviation;
+			double dblDelta = m_dblDeltaPeak * Math.exp(-dblExponent * dblExponent);
+			adblMC[i] += dblDelta;
+		}
+	}
+
+	/**
+	 * Restore the grid to its state before this move was applied to it. Only the values, derivatives and energy terms
+	 * which the move can have changed are restored, so the derivatives and energy terms elsewhere must not have been
+	 * changed either, other than by being recalculated from unchanged values.
+	 * @param mgG
+	 *   The grid to which this move was last applied.
+	 */
+	public void undo(MetricGrid mgG)
+	{
+		int nStencilLength = m_nStencilTo - m_nStencilFrom + 1;
+
+		System.arraycopy(m_adblUndoValues,     0, mgG.getValues(None, m_mcMetricComponent), m_nIndexFrom,
+		 m_nIndexTo - m_nIndexFrom + 1);
+		System.arraycopy(m_adblUndoFirstA,     0, mgG.getValues(First, A),  m_nStencilFrom, nStencilLength);
+		System.arraycopy(m_adblUndoFirstB,     0, mgG.getValues(First, B),  m_nStencilFrom, nStencilLength);
+		System.arraycopy(m_adblUndoSecondA,    0, mgG.getValues(Second, A), m_nStencilFrom, nStencilLength);
+		System.arraycopy(m_adblUndoSecondB,    0, mgG.getValues(Second, B), m_nStencilFrom, nStencilLength);
+		System.arraycopy(m_adblUndoEnergyTerm, 0, mgG.getEnergyTerms(),     m_nStencilFrom, nStencilLength);
+	}
+
+	public int getIndexCentre()
+	{
+		return m_nIndexCentre;
+	}
+
+	public MetricComponent getMetricComponent()
+	{
+		return m_mcMetricComponent;
+	}
+
+	public double getDeltaPeak()
+	{
+		return m_dblDeltaPeak;
+	}
+
+	public double getStandardDeviation()
+	{
+		return m_dblStandardDeviation;
+	}
+
+	/**
+	 * @return
+	 *   The lowest index of the values changed by the move.
+	 */
+	public int getIndexFrom()
+	{
+		return m_nIndexFrom;
+	}
+
+	/**
+	 * @return
+	 *   The highest index of the values changed by the move.
+	 */
+	public int getIndexTo()
+	{
+		return m_nIndexTo;
+	}
+
+	/**
+	 * The derivatives at a point are calculated from the values at it and its neighbours, except at the first and last
+	 * points, where forward and backward differences use the next two and previous two values respectively.
+	 * @return
+	 *   The lowest index of the derivatives, and so of the energy terms, changed by the move.
+	 */
+	public int getStencilFrom()
+	{
+		return m_nIndexFrom <= 2 ? 0 : m_nIndexFrom - 1;
+	}
+
+	/**
+	 * @param nSize
+	 *   The number of radius values of the grid.
+	 * @return
+	 *   The highest index of the derivatives, and so of the energy terms, changed by the move.
+	 * @see #getStencilFrom()
+	 */
+	public int getStencilTo(int nSize)
+	{
+		final int N = nSize - 1;
+		return m_nIndexTo >= N - 2 ? N : m_nIndexTo + 1;
+	}
+}
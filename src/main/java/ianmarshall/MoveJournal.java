@@ -0,0 +1,499 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class writes an append-only binary journal of the accepted moves of the simulated annealing, and replays it
+ * to rebuild the metric tensor values as they were after any run.
+ * <br/>
+ * The journal starts with a header containing the run number and the radius and metric component values from which
+ * the moves start. Each accepted move is then a fixed-length record of its run number, centre index, metric component,
+ * delta peak, standard deviation, and the energy before and after it. Records are collected in a direct buffer, and
+ * written through a file channel when the buffer is full or the journal is flushed.
+ * <br/>
+ * At intervals the journal is flushed, and a keyframe is appended to a second file, named after the journal with
+ * ".keyframes" added. A keyframe is a fixed-length record of the run number, the last move's run
+ * number, the number of moves, the last move's energy after it, the journal's length, and the metric component
+ * values, so that a replay can start from the last keyframe before the run required rather than from the header.
+ * <br/>
+ * Since a move only adds its bump to the metric component values, replaying the moves in order reproduces the values
+ * exactly.
+ */
+public class MoveJournal implements AutoCloseable
+{
+	/**
+	 * The metric tensor values rebuilt by replaying a journal.
+	 */
+	public static class Replay
+	{
+		private MetricGrid m_mgG = null;
+		private int m_nRun = 0;
+		private int m_nMoves = 0;
+		private double m_dblEnergy = Double.NaN;
+
+		private Replay(MetricGrid mgG, int nRun)
+		{
+			m_mgG = mgG;
+			m_nRun = nRun;
+		}
+
+		private Replay(MetricGrid mgG, int nRun, int nMoves, double dblEnergy)
+		{
+			this(mgG, nRun);
+			m_nMoves = nMoves;
+			m_dblEnergy = dblEnergy;
+		}
+
+		public MetricGrid getMetricGrid()
+		{
+			return m_mgG;
+		}
+
+		/**
+		 * @return
+		 *   The run number of the last move replayed, or the journal's start run number if none was replayed.
+		 */
+		public int getRun()
+		{
+			return m_nRun;
+		}
+
+		/**
+		 * @return
+		 *   The number of moves replayed.
+		 */
+		public int getMoves()
+		{
+			return m_nMoves;
+		}
+
+		/**
+		 * @return
+		 *   The energy after the last move replayed as it was recorded, or <code>NaN</code> if no move was replayed.
+		 */
+		public double getEnergy()
+		{
+			return m_dblEnergy;
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(MoveJournal.class);
+
+	private static final int N_MAGIC = 0x53534A4D;    // "SSJM"
+	private static final int N_VERSION = 1;
+	private static final int N_HEADER_FIXED_LENGTH = 4 * Integer.BYTES;
+	private static final int N_RECORD_LENGTH = (2 * Integer.BYTES) + Byte.BYTES + (4 * Double.BYTES);
+	private static final int N_BUFFER_CAPACITY = 64 * 1024;
+
+	static final String S_KEYFRAMES_SUFFIX = ".keyframes";
+	private static final int N_KEYFRAMES_MAGIC = 0x53534A4B;    // "SSJK"
+	private static final int N_KEYFRAMES_HEADER_LENGTH = 3 * Integer.BYTES;
+	private static final int N_KEYFRAME_FIXED_LENGTH = (2 * Integer.BYTES) + (3 * Long.BYTES);
+
+	private FileChannel m_fcChannel = null;
+	private FileChannel m_fcKeyframes = null;
+	private ByteBuffer m_bbBuffer = ByteBuffer.allocateDirect(N_BUFFER_CAPACITY);
+	private ByteBuffer m_bbKeyframe = null;
+	private boolean m_bBegun = false;
+	private long m_lMoves = 0L;
+	private int m_nRunLastMove = 0;
+	private double m_dblEnergyLastMove = Double.NaN;
+	private int m_nRunKeyframe = 0;
+
+	/**
+	 * The constructor, which creates the journal file and its keyframes file, replacing any existing files.
+	 * @param pPath
+	 *   The path of the journal file.
+	 * @throws IOException
+	 *   If the files cannot be created.
+	 */
+	public MoveJournal(Path pPath) throws IOException
+	{
+		m_fcChannel = FileChannel.open(pPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+		 StandardOpenOption.TRUNCATE_EXISTING);
+
+		try
+		{
+			m_fcKeyframes = FileChannel.open(keyframesPath(pPath), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			 StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		catch (IOException e)
+		{
+			m_fcChannel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * @param pPath
+	 *   The path of a journal file.
+	 * @return
+	 *   The path of its keyframes file.
+	 */
+	static Path keyframesPath(Path pPath)
+	{
+		return pPath.resolveSibling(pPath.getFileName() + S_KEYFRAMES_SUFFIX);
+	}
+
+	/**
+	 * Write the journal's header, if it has not already been written.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 * @param mgG
+	 *   The metric tensor values after those runs, from which the moves start.
+	 * @throws IOException
+	 *   If the header cannot be written.
+	 */
+	public void begin(int nRun, MetricGrid mgG) throws IOException
+	{
+		if (!m_bBegun)
+		{
+			int nSize = mgG.size();
+			ByteBuffer bbHeader = ByteBuffer.allocate(N_HEADER_FIXED_LENGTH + (3 * nSize * Double.BYTES));
+			bbHeader.putInt(N_MAGIC).putInt(N_VERSION).putInt(nRun).putInt(nSize);
+			bbHeader.asDoubleBuffer().put(mgG.getRValues()).put(mgG.getValues(None, MetricComponent.A))
+			 .put(mgG.getValues(None, MetricComponent.B));
+			bbHeader.clear();
+
+			while (bbHeader.hasRemaining())
+				m_fcChannel.write(bbHeader);
+
+			ByteBuffer bbKeyframesHeader = ByteBuffer.allocate(N_KEYFRAMES_HEADER_LENGTH);
+			bbKeyframesHeader.putInt(N_KEYFRAMES_MAGIC).putInt(N_VERSION).putInt(nSize);
+			bbKeyframesHeader.flip();
+
+			while (bbKeyframesHeader.hasRemaining())
+				m_fcKeyframes.write(bbKeyframesHeader);
+
+			m_bbKeyframe = ByteBuffer.allocate(N_KEYFRAME_FIXED_LENGTH + (2 * nSize * Double.BYTES));
+			m_nRunLastMove = nRun;
+			m_nRunKeyframe = nRun;
+			m_bBegun = true;
+		}
+	}
+
+	/**
+	 * Append an accepted move to the journal.
+	 * @param nRun
+	 *   The run number of the move.
+	 * @param mvMove
+	 *   The move.
+	 * @param dblEnergyBefore
+	 *   The energy before the move.
+	 * @param dblEnergyAfter
+	 *   The energy after the move.
+	 * @throws IOException
+	 *   If the buffer is full and cannot be written.
+	 */
+	public void append(int nRun, Move mvMove, double dblEnergyBefore, double dblEnergyAfter) throws IOException
+	{
+		if (m_bbBuffer.remaining() < N_RECORD_LENGTH)
+			flush();
+
+		m_bbBuffer.putInt(nRun).putInt(mvMove.getIndexCentre()).put((byte)mvMove.getMetricComponent().ordinal())
+		 .putDouble(mvMove.getDeltaPeak()).putDouble(mvMove.getStandardDeviation()).putDouble(dblEnergyBefore)
+		 .putDouble(dblEnergyAfter);
+		m_lMoves++;
+		m_nRunLastMove = nRun;
+		m_dblEnergyLastMove = dblEnergyAfter;
+	}
+
+	/**
+	 * Flush the journal, and append a keyframe of the metric tensor values after a run, if the header has been
+	 * written and no keyframe has been appended for the run or a later one.
+	 * @param nRun
+	 *   The run number.
+	 * @param mgG
+	 *   The metric tensor values after the run.
+	 * @throws IOException
+	 *   If the journal or the keyframe cannot be written.
+	 */
+	public void keyframe(int nRun, MetricGrid mgG) throws IOException
+	{
+		if (m_bBegun && (nRun > m_nRunKeyframe))
+		{
+			// The keyframe is only written once the moves before it are in the journal file
+			flush();
+
+			m_bbKeyframe.clear();
+			m_bbKeyframe.putInt(nRun).putInt(m_nRunLastMove).putLong(m_lMoves).putDouble(m_dblEnergyLastMove)
+			 .putLong(m_fcChannel.position());
+			m_bbKeyframe.asDoubleBuffer().put(mgG.getValues(None, MetricComponent.A))
+			 .put(mgG.getValues(None, MetricComponent.B));
+			m_bbKeyframe.clear();
+
+			while (m_bbKeyframe.hasRemaining())
+				m_fcKeyframes.write(m_bbKeyframe);
+
+			m_nRunKeyframe = nRun;
+		}
+	}
+
+	/**
+	 * Write the buffered moves to the journal file.
+	 * @throws IOException
+	 *   If they cannot be written.
+	 */
+	public void flush() throws IOException
+	{
+		m_bbBuffer.flip();
+
+		while (m_bbBuffer.hasRemaining())
+			m_fcChannel.write(m_bbBuffer);
+
+		m_bbBuffer.clear();
+	}
+
+	/**
+	 * @return
+	 *   The number of moves appended.
+	 */
+	public long getMoves()
+	{
+		return m_lMoves;
+	}
+
+	@Override
+	public void close() throws IOException
+	{
+		try
+		{
+			flush();
+			m_fcChannel.close();
+		}
+		finally
+		{
+			m_fcKeyframes.close();
+		}
+	}
+
+	/**
+	 * Rebuild the metric tensor values as they were after a given run, by replaying the moves of a journal from the
+	 * last keyframe before the run, or from the header if there is no such keyframe or no keyframes file.
+	 * @param pPath
+	 *   The path of the journal file.
+	 * @param nRun
+	 *   The run number after which the values are required.
+	 * @return
+	 *   The values, with their derivatives and energy terms not calculated.
+	 * @throws IOException
+	 *   If the journal cannot be read, or is not a journal.
+	 */
+	public static Replay replay(Path pPath, int nRun) throws IOException
+	{
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			ByteBuffer bbHeader = ByteBuffer.allocate(N_HEADER_FIXED_LENGTH);
+			readFully(fcChannel, bbHeader);
+
+			if ((bbHeader.getInt() != N_MAGIC) || (bbHeader.getInt() != N_VERSION))
+				throw new IOException(String.format("The file \"%s\" is not a move journal of version %d.", pPath,
+				 N_VERSION));
+
+			int nRunStart = bbHeader.getInt();
+			int nSize = bbHeader.getInt();
+			double[] adblR = new double[nSize];
+			double[] adblA = new double[nSize];
+			double[] adblB = new double[nSize];
+
+			ByteBuffer bbValues = ByteBuffer.allocate(3 * nSize * Double.BYTES);
+			readFully(fcChannel, bbValues);
+			bbValues.asDoubleBuffer().get(adblR).get(adblA).get(adblB);
+
+			MetricGrid mgG = new MetricGrid(adblR, adblA, adblB);
+			Replay rpResult = seek(pPath, fcChannel, nRun, mgG);
+
+			if (rpResult == null)
+				rpResult = new Replay(mgG, nRunStart);
+
+			MetricComponent[] amcMetricComponents = MetricComponent.values();
+			Move mvMove = new Move();
+			ByteBuffer bbBuffer = ByteBuffer.allocateDirect(N_BUFFER_CAPACITY - (N_BUFFER_CAPACITY % N_RECORD_LENGTH));
+			boolean bFinished = false;
+
+			while ((!bFinished) && (fcChannel.read(bbBuffer) > 0))
+			{
+				bbBuffer.flip();
+
+				while ((!bFinished) && (bbBuffer.remaining() >= N_RECORD_LENGTH))
+				{
+					int nRunMove = bbBuffer.getInt();
+
+					if (nRunMove > nRun)
+						bFinished = true;
+					else
+					{
+						int nIndexCentre = bbBuffer.getInt();
+						MetricComponent mc = amcMetricComponents[bbBuffer.get()];
+						double dblDeltaPeak = bbBuffer.getDouble();
+						double dblStandardDeviation = bbBuffer.getDouble();
+						bbBuffer.getDouble();    // The energy before the move
+						double dblEnergyAfter = bbBuffer.getDouble();
+
+						mvMove.set(nSize, nIndexCentre, mc, dblDeltaPeak, dblStandardDeviation);
+						mvMove.apply(mgG);
+
+						rpResult.m_nRun = nRunMove;
+						rpResult.m_nMoves++;
+						rpResult.m_dblEnergy = dblEnergyAfter;
+					}
+				}
+
+				bbBuffer.compact();
+			}
+
+			return rpResult;
+		}
+	}
+
+	/**
+	 * Start a replay from the last keyframe before a given run, whose moves are all in the journal file.
+	 * @param pPath
+	 *   The path of the journal file.
+	 * @param fcChannel
+	 *   The journal, which is positioned at the keyframe's moves.
+	 * @param nRun
+	 *   The run number after which the values are required.
+	 * @param mgG
+	 *   The values from the journal's header, to which the keyframe's values are copied.
+	 * @return
+	 *   The replay as it was at the keyframe, or <code>null</code> if there is no such keyframe.
+	 * @throws IOException
+	 *   If the keyframes file cannot be read, or is not for the journal.
+	 */
+	private static Replay seek(Path pPath, FileChannel fcChannel, int nRun, MetricGrid mgG) throws IOException
+	{
+		Replay rpResult = null;
+		Path pKeyframes = keyframesPath(pPath);
+
+		if (Files.exists(pKeyframes))
+			try (FileChannel fcKeyframes = FileChannel.open(pKeyframes, StandardOpenOption.READ))
+			{
+				int nSize = mgG.size();
+				int nKeyframeLength = N_KEYFRAME_FIXED_LENGTH + (2 * nSize * Double.BYTES);
+				long lJournalLength = fcChannel.size();
+				long lKeyframes = 0L;
+
+				// The file is empty if the journal's header was never written
+				if (fcKeyframes.size() >= N_KEYFRAMES_HEADER_LENGTH)
+				{
+					ByteBuffer bbHeader = ByteBuffer.allocate(N_KEYFRAMES_HEADER_LENGTH);
+					readFully(fcKeyframes, bbHeader, 0L);
+
+					if ((bbHeader.getInt() != N_KEYFRAMES_MAGIC) || (bbHeader.getInt() != N_VERSION)
+					 || (bbHeader.getInt() != nSize))
+						throw new IOException(String.format("The file \"%s\" is not the keyframes of the move journal.",
+						 pKeyframes));
+
+					// A keyframe being written when the runs ended is incomplete, and is ignored
+					lKeyframes = (fcKeyframes.size() - N_KEYFRAMES_HEADER_LENGTH) / nKeyframeLength;
+				}
+
+				// Find the last keyframe not after the run, and whose moves were all written, by a binary search, since
+				// both the run numbers and the journal lengths of the keyframes increase
+				ByteBuffer bbKeyframe = ByteBuffer.allocate(nKeyframeLength);
+				long lFrom = 0L;
+				long lTo = lKeyframes - 1L;
+				long lFound = -1L;
+
+				while (lFrom <= lTo)
+				{
+					long lMiddle = (lFrom + lTo) >>> 1;
+					bbKeyframe.clear().limit(N_KEYFRAME_FIXED_LENGTH);
+					readFully(fcKeyframes, bbKeyframe, N_KEYFRAMES_HEADER_LENGTH + (lMiddle * nKeyframeLength));
+
+					int nRunKeyframe = bbKeyframe.getInt(0);
+					long lOffset = bbKeyframe.getLong(N_KEYFRAME_FIXED_LENGTH - Long.BYTES);
+
+					if ((nRunKeyframe <= nRun) && (lOffset <= lJournalLength))
+					{
+						lFound = lMiddle;
+						lFrom = lMiddle + 1L;
+					}
+					else
+						lTo = lMiddle - 1L;
+				}
+
+				if (lFound >= 0L)
+				{
+					bbKeyframe.clear();
+					readFully(fcKeyframes, bbKeyframe, N_KEYFRAMES_HEADER_LENGTH + (lFound * nKeyframeLength));
+					bbKeyframe.getInt();    // The keyframe's run number
+					int nRunLastMove = bbKeyframe.getInt();
+					long lMoves = bbKeyframe.getLong();
+					double dblEnergy = bbKeyframe.getDouble();
+					long lOffset = bbKeyframe.getLong();
+					bbKeyframe.asDoubleBuffer().get(mgG.getValues(None, MetricComponent.A))
+					 .get(mgG.getValues(None, MetricComponent.B));
+
+					fcChannel.position(lOffset);
+					rpResult = new Replay(mgG, nRunLastMove, (int)lMoves, dblEnergy);
+				}
+			}
+
+		return rpResult;
+	}
+
+	private static void readFully(FileChannel fcChannel, ByteBuffer bbBuffer) throws IOException
+	{
+		while (bbBuffer.hasRemaining())
+			if (fcChannel.read(bbBuffer) < 0)
+				throw new EOFException("The move journal ended unexpectedly.");
+
+		bbBuffer.flip();
+	}
+
+	private static void readFully(FileChannel fcChannel, ByteBuffer bbBuffer, long lPosition) throws IOException
+	{
+		while (bbBuffer.hasRemaining())
+			if (fcChannel.read(bbBuffer, lPosition + bbBuffer.position()) < 0)
+				throw new EOFException("The move journal's keyframes ended unexpectedly.");
+
+		bbBuffer.flip();
+	}
+
+	/**
+	 * Replay a journal, and log the energy and a selection of the metric tensor values after a given run.
+	 * @param asArgs
+	 *   The path of the journal file, optionally followed by the run number, which defaults to the last run.
+	 */
+	public static void main(String[] asArgs) throws IOException
+	{
+		if ((asArgs.length < 1) || (asArgs.length > 2))
+			logger.error(String.format("Usage: %s [journal file path] [run number]", MoveJournal.class.getSimpleName()));
+		else
+		{
+			int nRun = asArgs.length == 2 ? Integer.parseInt(asArgs[1]) : Integer.MAX_VALUE;
+			Replay rpReplay = replay(Paths.get(asArgs[0]), nRun);
+			MetricGrid mgG = rpReplay.getMetricGrid();
+			double dblEnergy = new EnergyKernel().energy(mgG);
+
+			StringBuilder sbLog = new StringBuilder(String.format(
+			 "Replayed %s moves up to run number %s. The recalculated energy is %f, and the recorded energy is %f."
+			 + "%n  index                   R                   A                   B"
+			 + "%n  -----  ------------------  ------------------  ------------------",
+			 SchwarzschildSimulatedAnnealing.formatInteger(rpReplay.getMoves()),
+			 SchwarzschildSimulatedAnnealing.formatInteger(rpReplay.getRun()), dblEnergy, rpReplay.getEnergy()));
+
+			for (int i = 0; i < mgG.size(); i++)
+				if ((i == mgG.size() - 1) || ((i % 100) == 0))
+					sbLog.append(String.format("%n  %5d  %,18.12f  %,18.12f  %,18.12f", i, mgG.getR(i),
+					 mgG.get(None, MetricComponent.A, i), mgG.get(None, MetricComponent.B, i)));
+
+			logger.info(sbLog.toString());
+		}
+	}
+}
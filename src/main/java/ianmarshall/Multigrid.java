@@ -0,0 +1,455 @@
+package ianmarshall;
+
+import ianmarshall.SnapshotPublisher.Snapshot;
+import ianmarshall.WorkerResult.Reason;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class executes the runs by a single worker on successively finer grids, coarse to fine, so that the errors of
+ * the metric component values which extend over many radius values are annealed away on a coarse grid, on which a
+ * move reaches further and each run is cheaper, before the runs continue on the finer grids.
+ * <br/>
+ * The finest grid is the usual one, and each coarser grid has the square of the step factor of the radius values of
+ * the next finer one, and so about half as many radius values. Each grid has its own share of the runs and follows
+ * the annealing schedule over them, and starts from the result of the grid before it, interpolated linearly onto its
+ * radius values. Each grid has its own random number stream split from the seed, since the run numbers of each grid
+ * start again from 1, so the grids' moves are independent, and the same seed always gives the same result.
+ */
+public class Multigrid implements AnnealingEngine
+{
+	/**
+	 * The counters of the progress of the runs on all the grids together, which are read from those of the current
+	 * grid's worker when they are requested.
+	 */
+	private class Metrics implements RunMetricsMBean
+	{
+		private Metrics()
+		{
+		}
+
+		/**
+		 * @return
+		 *   The number of runs executed on all the grids.
+		 */
+		@Override
+		public int getRun()
+		{
+			Worker worker = m_wCurrent;
+			return m_nRunsCompleted + (worker != null ? worker.getRunMetrics().getRun() : 0);
+		}
+
+		/**
+		 * @return
+		 *   The number of runs to be executed on all the grids.
+		 */
+		@Override
+		public int getRuns()
+		{
+			return m_spStartParameters.getNumberOfRuns();
+		}
+
+		@Override
+		public double getRunsPerSecond()
+		{
+			Worker worker = m_wCurrent;
+			return worker != null ? worker.getRunMetrics().getRunsPerSecond() : Double.NaN;
+		}
+
+		@Override
+		public double getAcceptanceRate()
+		{
+			Worker worker = m_wCurrent;
+			return worker != null ? worker.getRunMetrics().getAcceptanceRate() : Double.NaN;
+		}
+
+		@Override
+		public long getAcceptances()
+		{
+			Worker worker = m_wCurrent;
+			return m_lAcceptancesCompleted + (worker != null ? worker.getRunMetrics().getAcceptances() : 0L);
+		}
+
+		@Override
+		public long getRejections()
+		{
+			Worker worker = m_wCurrent;
+			return m_lRejectionsCompleted + (worker != null ? worker.getRunMetrics().getRejections() : 0L);
+		}
+
+		/**
+		 * @return
+		 *   The current energy on the current grid.
+		 */
+		@Override
+		public double getEnergy()
+		{
+			Worker worker = m_wCurrent;
+			return worker != null ? worker.getRunMetrics().getEnergy() : Double.NaN;
+		}
+
+		/**
+		 * @return
+		 *   The lowest energy on the current grid, since the energies of different grids are not comparable.
+		 */
+		@Override
+		public double getBestEnergy()
+		{
+			Worker worker = m_wCurrent;
+			return worker != null ? worker.getRunMetrics().getBestEnergy() : Double.NaN;
+		}
+
+		@Override
+		public double getTemperature()
+		{
+			Worker worker = m_wCurrent;
+			return worker != null ? worker.getRunMetrics().getTemperature() : Double.NaN;
+		}
+
+		/**
+		 * @return
+		 *   The estimated time to complete the runs on all the grids, at the rate of the current grid, which
+		 *   overestimates it while the runs are on a coarser grid.
+		 */
+		@Override
+		public long getEtaSeconds()
+		{
+			double dblRunsPerSecond = getRunsPerSecond();
+			long lResult = -1L;
+
+			if (dblRunsPerSecond > 0.0)
+				lResult = (long)Math.ceil(Math.max(getRuns() - getRun(), 0) / dblRunsPerSecond);
+
+			return lResult;
+		}
+
+		@Override
+		public long getHeapUsedBytes()
+		{
+			return RunMetrics.heapUsage().getUsed();
+		}
+
+		@Override
+		public long getHeapMaxBytes()
+		{
+			return RunMetrics.heapUsage().getMax();
+		}
+	}
+
+	// The maximum number of grids, the coarsest of which then has about a sixteenth as many radius values as the finest
+	public static final int N_LEVELS_MAX = 5;
+
+	private static final Logger logger = LoggerFactory.getLogger(Multigrid.class);
+
+	private StartParameters m_spStartParameters = null;
+	private int m_nLevels = 0;
+	private int[] m_anLevelRuns = null;
+	private RandomStream[] m_arsRandom = null;
+
+	// The worker of the current grid, and the counters of the grids which it follows
+	private volatile Worker m_wCurrent = null;
+	private volatile int m_nRunsCompleted = 0;
+	private volatile long m_lAcceptancesCompleted = 0L;
+	private volatile long m_lRejectionsCompleted = 0L;
+
+	private volatile boolean m_bStopping = false;
+	private volatile boolean m_bPausing = false;
+	private volatile boolean m_bStopped = false;
+	private volatile WorkerResult m_WorkerResult = null;
+	private CompletableFuture<WorkerResult> m_cfCompletion = new CompletableFuture<>();
+	private Metrics m_mMetrics = new Metrics();
+
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 */
+	public Multigrid(StartParameters spStartParameters)
+	{
+		m_spStartParameters = spStartParameters;
+		m_nLevels = spStartParameters.getMultigridLevels();
+		m_anLevelRuns = levelRuns(spStartParameters.getNumberOfRuns(), m_nLevels,
+		 spStartParameters.getMultigridFineShare());
+		m_arsRandom = new RandomStream[m_nLevels];
+	}
+
+	@Override
+	public void stopExecution()
+	{
+		m_bStopping = true;
+		Worker worker = m_wCurrent;
+
+		if (worker != null)
+			worker.stopExecution();
+	}
+
+	@Override
+	public void pauseExecution()
+	{
+		m_bPausing = true;
+		Worker worker = m_wCurrent;
+
+		if (worker != null)
+			worker.pauseExecution();
+	}
+
+	@Override
+	public void resumeExecution()
+	{
+		m_bPausing = false;
+		Worker worker = m_wCurrent;
+
+		if (worker != null)
+			worker.resumeExecution();
+	}
+
+	/**
+	 * @return
+	 *   Whether the worker of the current grid is paused. A worker about to be started pauses after its first run.
+	 */
+	@Override
+	public boolean getPaused()
+	{
+		Worker worker = m_wCurrent;
+		return m_bPausing && (worker != null) && worker.getPaused();
+	}
+
+	@Override
+	public boolean getStopped()
+	{
+		return m_bStopped;
+	}
+
+	@Override
+	public WorkerResult getWorkerResult()
+	{
+		return m_WorkerResult;
+	}
+
+	@Override
+	public CompletableFuture<WorkerResult> getCompletion()
+	{
+		return m_cfCompletion;
+	}
+
+	@Override
+	public RunMetricsMBean getRunMetrics()
+	{
+		return m_mMetrics;
+	}
+
+	/**
+	 * @return
+	 *   The latest snapshot of the current grid, or <code>null</code> if its runs have not started.
+	 */
+	@Override
+	public Snapshot getSnapshot()
+	{
+		Worker worker = m_wCurrent;
+		return worker != null ? worker.getSnapshot() : null;
+	}
+
+	@Override
+	public UncaughtExceptionHandler getUncaughtExceptionHandler()
+	{
+		return (t, th) ->
+		{
+			m_WorkerResult = new WorkerResult(Reason.FAILED, th, m_mMetrics.getRun(), null, Double.NaN);
+			m_bStopped = true;
+			m_cfCompletion.complete(m_WorkerResult);
+		};
+	}
+
+	@Override
+	public void run()
+	{
+		m_bStopped = false;
+		m_WorkerResult = null;
+		m_nRunsCompleted = 0;
+		m_lAcceptancesCompleted = 0L;
+		m_lRejectionsCompleted = 0L;
+
+		logger.info(String.format("Executing the runs on %d grids, with %s runs from the coarsest to the finest.",
+		 m_nLevels, formatRuns(m_anLevelRuns)));
+
+		RandomStream rsSeed = new RandomStream(m_spStartParameters.getSeed());
+		MetricGrid mgG = Worker.initialiseMetricTensors(m_spStartParameters, geometry(0, m_nLevels));
+		WorkerResult wrLevel = null;
+		boolean bContinue = true;
+
+		for (int k = 0; (k < m_nLevels) && bContinue; k++)
+		{
+			GridGeometry ggGeometry = geometry(k, m_nLevels);
+			m_arsRandom[k] = rsSeed.split(k);
+
+			if (k > 0)
+				mgG = WarmStart.resample(mgG, ggGeometry);
+
+			// A grid without runs of its own only passes its starting values on to the next
+			if (m_anLevelRuns[k] > 0)
+			{
+				logger.info(String.format("Executing %s runs on grid %d of %d, of %d radius values.",
+				 SchwarzschildSimulatedAnnealing.formatInteger(m_anLevelRuns[k]), k + 1, m_nLevels, ggGeometry.size()));
+
+				Worker worker = new Worker(m_spStartParameters.withNumberOfRuns(m_anLevelRuns[k]), 0, mgG, null,
+				 m_arsRandom[k]);
+				worker.setReportTensorValues(k == m_nLevels - 1);
+				m_wCurrent = worker;
+
+				// A pause or stop request may have arrived before the worker was created
+				if (m_bPausing)
+					worker.pauseExecution();
+
+				if (m_bStopping)
+					worker.stopExecution();
+
+				runWorker(worker);
+				wrLevel = worker.getWorkerResult();
+
+				RunMetricsMBean rm = worker.getRunMetrics();
+				m_lAcceptancesCompleted += rm.getAcceptances();
+				m_lRejectionsCompleted += rm.getRejections();
+				m_nRunsCompleted += wrLevel.getRun();
+				m_wCurrent = null;
+
+				bContinue = (wrLevel.getReason() != Reason.STOPPED) && (wrLevel.getReason() != Reason.FAILED);
+
+				if (bContinue)
+				{
+					mgG = wrLevel.getMetricGrid();
+					logger.info(String.format("Grid %d of %d ended after %s runs at energy %f, with the reason \"%s\".",
+					 k + 1, m_nLevels, SchwarzschildSimulatedAnnealing.formatInteger(wrLevel.getRun()),
+					 wrLevel.getEnergy(), wrLevel.getReason().value()));
+				}
+			}
+		}
+
+		m_WorkerResult = selectResult(wrLevel, mgG);
+		m_bStopped = true;
+		m_cfCompletion.complete(m_WorkerResult);
+	}
+
+	/**
+	 * @param nLevel
+	 *   The zero-based index of a grid, from the coarsest to the finest.
+	 * @return
+	 *   The random number stream of the grid's runs, or <code>null</code> if they have not been started.
+	 */
+	RandomStream getRandomStream(int nLevel)
+	{
+		return m_arsRandom[nLevel];
+	}
+
+	/**
+	 * Execute a worker on this thread, recording any exception or error thrown in its result.
+	 */
+	private static void runWorker(Worker worker)
+	{
+		try
+		{
+			worker.run();
+		}
+		catch (Throwable th)
+		{
+			worker.getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), th);
+		}
+	}
+
+	/**
+	 * @param wrLevel
+	 *   The result of the last grid whose runs were executed.
+	 * @param mgG
+	 *   The metric tensor values with which the last grid whose runs were executed started.
+	 * @return
+	 *   The result of the finest grid, with the number of runs executed on all the grids, or if the runs were stopped
+	 *   or failed on a coarser grid, the result of that grid with its values interpolated onto the finest grid and
+	 *   their energy there. A failure is also logged.
+	 */
+	private WorkerResult selectResult(WorkerResult wrLevel, MetricGrid mgG)
+	{
+		WorkerResult wrResult;
+
+		if (wrLevel.getReason() == Reason.FAILED)
+		{
+			logger.error(String.format("The runs failed at run number %s of the grid of %d radius values.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(wrLevel.getRun()), mgG.size()), wrLevel.getThrowable());
+			wrResult = new WorkerResult(Reason.FAILED, wrLevel.getThrowable(), m_nRunsCompleted, null, Double.NaN);
+		}
+		else
+		{
+			MetricGrid mgResult = wrLevel.getMetricGrid();
+			double dblEnergy = wrLevel.getEnergy();
+			GridGeometry ggFinest = geometry(m_nLevels - 1, m_nLevels);
+
+			// A worker stopped before its first run has no energy, and takes over the values it started from
+			if (mgResult == null)
+				mgResult = mgG;
+
+			if (mgResult.size() != ggFinest.size())
+			{
+				mgResult = WarmStart.resample(mgResult, ggFinest);
+				dblEnergy = new EnergyKernel().energy(mgResult.copy());
+			}
+
+			wrResult = new WorkerResult(wrLevel.getReason(), null, m_nRunsCompleted, mgResult, dblEnergy);
+		}
+
+		return wrResult;
+	}
+
+	/**
+	 * @param nLevel
+	 *   The zero-based index of a grid, from the coarsest to the finest.
+	 * @param nLevels
+	 *   The number of grids.
+	 * @return
+	 *   The radius values of the grid. Those of the finest grid are the usual ones, and the step factor of each coarser
+	 *   grid is the square of that of the next finer one.
+	 */
+	static GridGeometry geometry(int nLevel, int nLevels)
+	{
+		return GridGeometry.logarithmic(GridGeometry.DBL_R_MIN, GridGeometry.DBL_R_MAX,
+		 Math.pow(GridGeometry.DBL_STEP_FACTOR_RADIUS, 1 << (nLevels - 1 - nLevel)));
+	}
+
+	/**
+	 * @param nRuns
+	 *   The number of runs on all the grids.
+	 * @param nLevels
+	 *   The number of grids.
+	 * @param dblFineShare
+	 *   The share of the runs executed on the finest grid, which must be greater than 0 and less than 1.
+	 * @return
+	 *   The number of runs on each grid, from the coarsest to the finest. The finest grid has at least one run, and the
+	 *   coarser grids share the rest equally, the coarsest taking any remainder.
+	 */
+	static int[] levelRuns(int nRuns, int nLevels, double dblFineShare)
+	{
+		int[] anResult = new int[nLevels];
+		int nCoarseRuns = (int)(nRuns * (1.0 - dblFineShare));
+		int nCoarseLevels = nLevels - 1;
+
+		anResult[nLevels - 1] = nRuns - nCoarseRuns;
+
+		for (int k = 0; k < nCoarseLevels; k++)
+			anResult[k] = nCoarseRuns / nCoarseLevels;
+
+		anResult[0] += nCoarseRuns % nCoarseLevels;
+		return anResult;
+	}
+
+	private static String formatRuns(int[] anRuns)
+	{
+		StringBuilder sbResult = new StringBuilder();
+
+		for (int k = 0; k < anRuns.length; k++)
+			sbResult.append(k == 0 ? "" : (k == anRuns.length - 1 ? " and " : ", "))
+			 .append(SchwarzschildSimulatedAnnealing.formatInteger(anRuns[k]));
+
+		return sbResult.toString();
+	}
+}
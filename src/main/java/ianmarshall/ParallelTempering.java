@@ -0,0 +1,473 @@
+package ianmarshall;
+
+import ianmarshall.SimulatedAnnealing.EnergyMode;
+import ianmarshall.SnapshotPublisher.Snapshot;
+import ianmarshall.WorkerResult.Reason;
+
+import java.lang.Thread.UncaughtExceptionHandler;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class executes the runs by parallel tempering (replica exchange): a number of chains, each at its own fixed
+ * temperature, are advanced concurrently on a pool of threads, one thread per chain.
+ * <br/>
+ * The temperatures form a geometric ladder from the minimum temperature, for the first chain, to the temperature
+ * scaling factor, for the last chain. After every swap interval of runs, the states of neighbouring chains are
+ * exchanged with the Metropolis probability <code>min(1, exp(k (1/Ti - 1/Tj) (Ei - Ej)))</code>, where
+ * <code>k</code> is the acceptance probability scaling factor, so that states found by the hot chains, which cross
+ * energy barriers easily, can descend to the cold chains. Exchanges are attempted between the pairs starting at even
+ * and at odd indexes alternately.
+ * <br/>
+ * Each chain has its own random number stream split from the seed, and the exchanges have another, so the same seed
+ * always gives the same result, whatever the scheduling of the threads.
+ */
+public class ParallelTempering implements AnnealingEngine
+{
+	private static final Logger logger = LoggerFactory.getLogger(ParallelTempering.class);
+
+	// The identifier of the random number stream of the exchanges, split from the seed like those of the chains
+	private static final long L_SWAP_STREAM_ID = -1L;
+
+	private StartParameters m_spStartParameters = null;
+	private int m_nReplicas = 0;
+	private int m_nRun = 0;
+	private int m_nRuns = 0;
+	private int m_nSwapInterval = 0;
+	private int m_nTelemetryIntervalRuns = 0;
+	private EnergyMode m_emEnergyMode = EnergyMode.INCREMENTAL;
+	private int m_nEnergyCheckInterval = 0;
+	private double m_dblAcceptanceProbabilityScalingFactor = 0.0;
+
+	private Chain[] m_achChains = null;
+	private double[] m_adblTemperatures = null;
+	private RandomStream m_rsSwapRandom = null;
+
+	// The statistics of each chain, and of each pair of neighbouring chains
+	private long[] m_alAcceptances = null;
+	private long[] m_alSwapAttempts = null;
+	private long[] m_alSwapAcceptances = null;
+
+	private volatile boolean m_bStopping = false;
+	private volatile boolean m_bStopped = false;
+	private volatile WorkerResult m_WorkerResult = null;
+	private PauseControl m_pcPauseControl = new PauseControl();
+	private CompletableFuture<WorkerResult> m_cfCompletion = new CompletableFuture<>();
+	private SnapshotPublisher m_snpSnapshotPublisher = null;
+	private RunMetrics m_rmMetrics = null;
+
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 */
+	public ParallelTempering(StartParameters spStartParameters)
+	{
+		m_spStartParameters = spStartParameters;
+		m_nReplicas = spStartParameters.getReplicas();
+		m_nRuns = spStartParameters.getNumberOfRuns();
+		m_nSwapInterval = spStartParameters.getSwapInterval();
+		m_nTelemetryIntervalRuns = spStartParameters.getTelemetryIntervalRuns();
+		m_emEnergyMode = spStartParameters.getEnergyMode();
+		m_nEnergyCheckInterval = spStartParameters.getEnergyCheckInterval();
+		m_dblAcceptanceProbabilityScalingFactor = spStartParameters.getAcceptanceProbabilityScalingFactor();
+
+		m_adblTemperatures = temperatureLadder(spStartParameters.getMinimumTemperature(),
+		 spStartParameters.getTemperatureScalingFactor(), m_nReplicas);
+
+		RandomStream rsSeed = new RandomStream(spStartParameters.getSeed());
+		m_rsSwapRandom = rsSeed.split(L_SWAP_STREAM_ID);
+		m_achChains = new Chain[m_nReplicas];
+
+		for (int k = 0; k < m_nReplicas; k++)
+		{
+			RandomStream rsRandom = rsSeed.split(k);
+			SimulatedAnnealing saSimulatedAnnealing = new SimulatedAnnealing(spStartParameters, rsRandom);
+			m_achChains[k] = new Chain(saSimulatedAnnealing, rsRandom, m_emEnergyMode);
+		}
+
+		m_alAcceptances = new long[m_nReplicas];
+		m_alSwapAttempts = new long[m_nReplicas - 1];
+		m_alSwapAcceptances = new long[m_nReplicas - 1];
+		m_snpSnapshotPublisher = new SnapshotPublisher(spStartParameters.getSnapshotInterval());
+		m_rmMetrics = new RunMetrics(m_nRuns, m_nRun);
+	}
+
+	/**
+	 * Calculate a geometric ladder of temperatures, which gives similar exchange rates between all neighbouring pairs
+	 * of chains when the heat capacity is roughly constant.
+	 * @param dblMinimumTemperature
+	 *   The temperature of the coldest chain.
+	 * @param dblMaximumTemperature
+	 *   The temperature of the hottest chain.
+	 * @param nReplicas
+	 *   The number of chains, which must be at least 2.
+	 * @return
+	 *   The temperatures in ascending order.
+	 */
+	static double[] temperatureLadder(double dblMinimumTemperature, double dblMaximumTemperature, int nReplicas)
+	{
+		double[] adblResult = new double[nReplicas];
+		double dblRatio = Math.pow(dblMaximumTemperature / dblMinimumTemperature, 1.0 / (nReplicas - 1));
+
+		for (int k = 0; k < nReplicas; k++)
+			adblResult[k] = dblMinimumTemperature * Math.pow(dblRatio, k);
+
+		adblResult[nReplicas - 1] = dblMaximumTemperature;
+		return adblResult;
+	}
+
+	@Override
+	public void stopExecution()
+	{
+		m_bStopping = true;
+		m_pcPauseControl.wake();
+		logger.info(String.format("Stopping run number %s...", SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)));
+	}
+
+	@Override
+	public void pauseExecution()
+	{
+		m_pcPauseControl.pause();
+	}
+
+	@Override
+	public void resumeExecution()
+	{
+		m_pcPauseControl.resume();
+	}
+
+	@Override
+	public boolean getPaused()
+	{
+		return m_pcPauseControl.getPaused();
+	}
+
+	@Override
+	public boolean getStopped()
+	{
+		return m_bStopped;
+	}
+
+	@Override
+	public WorkerResult getWorkerResult()
+	{
+		return m_WorkerResult;
+	}
+
+	@Override
+	public CompletableFuture<WorkerResult> getCompletion()
+	{
+		return m_cfCompletion;
+	}
+
+	@Override
+	public Snapshot getSnapshot()
+	{
+		return m_snpSnapshotPublisher.read();
+	}
+
+	@Override
+	public RunMetricsMBean getRunMetrics()
+	{
+		return m_rmMetrics;
+	}
+
+	@Override
+	public UncaughtExceptionHandler getUncaughtExceptionHandler()
+	{
+		return (t, th) ->
+		{
+			Chain chBest = bestChain();
+			m_WorkerResult = new WorkerResult(Reason.FAILED, th, m_nRun, chBest.getMetricGrid(), chBest.getEnergy());
+			m_bStopped = true;
+			m_cfCompletion.complete(m_WorkerResult);
+		};
+	}
+
+	@Override
+	public void run()
+	{
+		m_bStopping = false;
+		m_bStopped = false;
+		m_WorkerResult = null;
+
+		if (m_nRun == 0)
+		{
+			MetricGrid mgG = Worker.initialiseMetricTensors(m_spStartParameters);
+
+			for (Chain ch: m_achChains)
+				ch.setMetricGrid(mgG.copy(), 1);
+		}
+
+		publishSnapshot();
+
+		logger.info(String.format("Parallel tempering with %d replicas at the temperatures %s, exchanging states every"
+		 + " %s runs.", m_nReplicas, formatTemperatures(),
+		 SchwarzschildSimulatedAnnealing.formatInteger(m_nSwapInterval)));
+
+		ExecutorService esExecutor = Executors.newFixedThreadPool(m_nReplicas);
+
+		try
+		{
+			while ((!m_bStopping) && (m_nRun < m_nRuns))
+			{
+				int nRunFrom = m_nRun + 1;
+				int nRunTo = Math.min(m_nRun + m_nSwapInterval, m_nRuns);
+				List<Callable<Void>> liTasks = new ArrayList<>(m_nReplicas);
+
+				for (int k = 0; k < m_nReplicas; k++)
+				{
+					final int K = k;
+					liTasks.add(() ->
+					{
+						advance(K, nRunFrom, nRunTo);
+						return null;
+					});
+				}
+
+				for (Future<Void> f: esExecutor.invokeAll(liTasks))
+					f.get();
+
+				m_nRun = nRunTo;
+				exchange((m_nRun + m_nSwapInterval - 1) / m_nSwapInterval);
+
+				if ((m_nTelemetryIntervalRuns > 0)
+				 && ((nRunFrom - 1) / m_nTelemetryIntervalRuns != m_nRun / m_nTelemetryIntervalRuns))
+					logStatistics();
+
+				if (m_snpSnapshotPublisher.due(m_nRun))
+					publishSnapshot();
+
+				updateMetrics();
+
+				// A pause parks the thread here, between rounds, while the chains keep their states
+				m_pcPauseControl.park(m_nRun, () -> m_bStopping);
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			m_bStopping = true;
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(String.format("Run number %s: a replica failed.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)), e.getCause());
+		}
+		finally
+		{
+			esExecutor.shutdownNow();
+		}
+
+		// The energies are calculated fully, without the drift of the incrementally calculated energies
+		if (m_emEnergyMode == EnergyMode.INCREMENTAL)
+			for (Chain ch: m_achChains)
+				ch.checkEnergy(m_nRun);
+
+		// The statistics were logged after the last round if it ended a telemetry interval
+		if ((m_nTelemetryIntervalRuns <= 0) || ((m_nRun % m_nTelemetryIntervalRuns) != 0))
+			logStatistics();
+
+		publishSnapshot();
+		updateMetrics();
+		Chain chBest = bestChain();
+		Worker.reportFinalTensorValues(chBest.getMetricGrid());
+
+		Reason rReason;
+
+		if (m_nRun >= m_nRuns)
+		{
+			rReason = Reason.COMPLETED;
+			logger.info("All processing has been completed.");
+		}
+		else
+		{
+			rReason = Reason.STOPPED;
+			logger.info("Stopped before all processing completed.");
+		}
+
+		m_WorkerResult = new WorkerResult(rReason, null, m_nRun, chBest.getMetricGrid(), chBest.getEnergy());
+		m_bStopped = true;
+		m_cfCompletion.complete(m_WorkerResult);
+	}
+
+	/**
+	 * Execute a range of runs of a chain at its temperature. This is called on the chain's own thread.
+	 */
+	private void advance(int k, int nRunFrom, int nRunTo)
+	{
+		Chain ch = m_achChains[k];
+		double dblTemperature = m_adblTemperatures[k];
+		long lAcceptances = 0L;
+
+		for (int nRun = nRunFrom; nRun <= nRunTo; nRun++)
+		{
+			if (ch.step(nRun, dblTemperature))
+				lAcceptances++;
+
+			if ((m_emEnergyMode == EnergyMode.INCREMENTAL) && ((nRun % m_nEnergyCheckInterval) == 0))
+				ch.checkEnergy(nRun);
+		}
+
+		m_alAcceptances[k] += lAcceptances;
+	}
+
+	/**
+	 * Attempt to exchange the states of neighbouring chains.
+	 * @param nRound
+	 *   The number of the round of runs just completed, the parity of which selects the pairs.
+	 */
+	private void exchange(int nRound)
+	{
+		m_rsSwapRandom.startBlock(nRound);
+
+		for (int i = nRound % 2; i < m_nReplicas - 1; i += 2)
+		{
+			Chain chI = m_achChains[i];
+			Chain chJ = m_achChains[i + 1];
+			double dblExponent = m_dblAcceptanceProbabilityScalingFactor
+			 * ((1.0 / m_adblTemperatures[i]) - (1.0 / m_adblTemperatures[i + 1])) * (chI.getEnergy() - chJ.getEnergy());
+
+			m_alSwapAttempts[i]++;
+
+			if ((dblExponent >= 0.0) || (m_rsSwapRandom.nextDouble() < Math.exp(dblExponent)))
+			{
+				chI.exchange(chJ);
+				m_alSwapAcceptances[i]++;
+			}
+		}
+	}
+
+	/**
+	 * Refresh the snapshot with the state of the replica of lowest energy. This is called between rounds, while the
+	 * replicas are not running.
+	 */
+	private void publishSnapshot()
+	{
+		Chain chBest = bestChain();
+		m_snpSnapshotPublisher.publish(m_nRun, chBest.getEnergy(), chBest.getMetricGrid());
+	}
+
+	/**
+	 * Update the counters of the progress of the runs with those of all the replicas, and the energy and temperature of
+	 * the replica of lowest energy. This is called between rounds.
+	 */
+	private void updateMetrics()
+	{
+		int nBest = 0;
+		long lAcceptances = 0L;
+
+		for (int k = 0; k < m_nReplicas; k++)
+		{
+			lAcceptances += m_alAcceptances[k];
+
+			if (m_achChains[k].getEnergy() < m_achChains[nBest].getEnergy())
+				nBest = k;
+		}
+
+		double dblEnergy = m_achChains[nBest].getEnergy();
+		m_rmMetrics.update(m_nRun, lAcceptances, ((long)m_nReplicas * m_nRun) - lAcceptances, dblEnergy,
+		 Math.min(m_rmMetrics.getBestEnergy(), dblEnergy), m_adblTemperatures[nBest]);
+	}
+
+	private Chain bestChain()
+	{
+		Chain chResult = m_achChains[0];
+
+		for (Chain ch: m_achChains)
+			if (ch.getEnergy() < chResult.getEnergy())
+				chResult = ch;
+
+		return chResult;
+	}
+
+	private String formatTemperatures()
+	{
+		StringBuilder sbResult = new StringBuilder();
+
+		for (int k = 0; k < m_nReplicas; k++)
+			sbResult.append(k == 0 ? "" : ", ").append(String.format("%g", m_adblTemperatures[k]));
+
+		return sbResult.toString();
+	}
+
+	private void logStatistics()
+	{
+		StringBuilder sbLog = new StringBuilder(String.format("Run number %s: the replicas are:"
+		 + "%n  replica     temperature                energy  acceptance  swap rate with next"
+		 + "%n  -------  --------------  --------------------  ----------  -------------------",
+		 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)));
+
+		for (int k = 0; k < m_nReplicas; k++)
+		{
+			String sSwapRate = k < m_nReplicas - 1 ? String.format("%5.3f of %,d", rate(m_alSwapAcceptances[k],
+			 m_alSwapAttempts[k]), m_alSwapAttempts[k]) : "";
+
+			sbLog.append(String.format("%n  %7d  %14g  %,20.6f  %10.4f  %s", k, m_adblTemperatures[k],
+			 m_achChains[k].getEnergy(), rate(m_alAcceptances[k], m_nRun), sSwapRate));
+		}
+
+		logger.info(sbLog.toString());
+	}
+
+	private static double rate(long lCount, long lTotal)
+	{
+		return lTotal > 0L ? (double)lCount / lTotal : 0.0;
+	}
+
+	public int getRun()
+	{
+		return m_nRun;
+	}
+
+	/**
+	 * @return
+	 *   The temperatures of the chains, in ascending order.
+	 */
+	public double[] getTemperatures()
+	{
+		return m_adblTemperatures.clone();
+	}
+
+	/**
+	 * @return
+	 *   The current energy of each chain.
+	 */
+	public double[] getEnergies()
+	{
+		double[] adblResult = new double[m_nReplicas];
+
+		for (int k = 0; k < m_nReplicas; k++)
+			adblResult[k] = m_achChains[k].getEnergy();
+
+		return adblResult;
+	}
+
+	/**
+	 * @return
+	 *   The number of exchanges attempted between each chain and the next.
+	 */
+	public long[] getSwapAttempts()
+	{
+		return m_alSwapAttempts.clone();
+	}
+
+	/**
+	 * @return
+	 *   The number of exchanges accepted between each chain and the next.
+	 */
+	public long[] getSwapAcceptances()
+	{
+		return m_alSwapAcceptances.clone();
+	}
+}
@@ -0,0 +1,451 @@
+package ianmarshall;
+
+import ianmarshall.WorkerResult.Reason;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class executes a sweep of the start parameters: the runs are executed for every combination (cell) of the
+ * values supplied for the parameters, on a fixed pool of threads, and a line of results is appended to a table as each
+ * cell completes.
+ * <br/>
+ * The value of any start parameter may be a list of values separated by commas, or a range
+ * <code>from:to:step</code>, which includes <code>to</code> if it is a whole number of steps from <code>from</code>.
+ * Each cell is executed with the seed and each of the following seeds up to the number of seeds, so that its spread
+ * can be seen. The cells share the grid geometry, which is immutable, but nothing else.
+ * <br/>
+ * The table is written in comma-separated values, with a column for each parameter supplied, followed by the final
+ * energy, the latest run number executed, the reason the runs ended and the wall time. A sweep is resumed by executing
+ * it again with the same table: the cells which completed are not executed again, and a line left incomplete by a
+ * crash is removed.
+ */
+public class ParameterSweep
+{
+	private static final Logger logger = LoggerFactory.getLogger(ParameterSweep.class);
+
+	public static final String S_ARG_NAME_RESULTS = "sweepResults";
+	public static final String S_ARG_NAME_SEEDS = "sweepSeeds";
+	public static final String S_ARG_NAME_THREADS = "sweepThreads";
+
+	private static final String S_SEPARATOR = ",";
+	private static final String S_RANGE_SEPARATOR = ":";
+	private static final List<String> LI_RESULT_COLUMNS = Arrays.asList("energy", "runs", "reason", "wallMillis");
+
+	// The maximum number of values of a range, which guards against a step which is much too small
+	private static final int N_RANGE_VALUES_MAX = 100000;
+
+	private Path m_pResults = null;
+	private int m_nSeeds = 1;
+	private int m_nThreads = Runtime.getRuntime().availableProcessors();
+	private List<String> m_lisNames = new ArrayList<>();
+	private List<List<String>> m_lilisValues = new ArrayList<>();
+	private List<String[]> m_liCells = new ArrayList<>();
+	private BufferedWriter m_bwWriter = null;
+
+	public ParameterSweep()
+	{
+	}
+
+	/**
+	 * Parse the arguments of the sweep, and check that the start parameters of every cell are valid.
+	 * @param asArgs
+	 *   The arguments, which are those of the application, any value of which may be a list or range, together with
+	 *   those of the sweep.
+	 * @return
+	 *   The errors found, or an empty string if there are none.
+	 */
+	public String parseArguments(String[] asArgs)
+	{
+		String sError = "";
+		List<Long> lilSeeds = Arrays.asList(1L);
+
+		if ((asArgs.length % 2) != 0)
+			sError = "Each parameter must have one value.";
+
+		try
+		{
+			for (int i = 0; (i < asArgs.length - 1) && sError.isEmpty(); i += 2)
+			{
+				String sArgName = StartParameters.findArgName(asArgs[i]);
+				String sValue = asArgs[i + 1];
+
+				if (S_ARG_NAME_RESULTS.equalsIgnoreCase(asArgs[i]))
+					m_pResults = Paths.get(sValue);
+				else if (S_ARG_NAME_SEEDS.equalsIgnoreCase(asArgs[i]))
+					m_nSeeds = Integer.parseInt(sValue);
+				else if (S_ARG_NAME_THREADS.equalsIgnoreCase(asArgs[i]))
+					m_nThreads = Integer.parseInt(sValue);
+				else if (sArgName == null)
+					sError = String.format("The parameter \"%s\" is not recognised.", asArgs[i]);
+				else if (sArgName.equals(StartParameters.S_ARG_NAME_MOVE_JOURNAL)
+				 || sArgName.equals(StartParameters.S_ARG_NAME_CHECKPOINT_FILE)
+				 || sArgName.equals(StartParameters.S_ARG_NAME_RESUME_FROM)
+				 || sArgName.equals(StartParameters.S_ARG_NAME_RESULT_FILE)
+				 || sArgName.equals(StartParameters.S_ARG_NAME_TRAJECTORY_FILE))
+					sError = String.format("The parameter \"%s\" does not apply to a sweep.", sArgName);
+				else if (m_lisNames.contains(sArgName))
+					sError = String.format("The parameter \"%s\" is specified more than once.", sArgName);
+				else if (sArgName.equals(StartParameters.S_ARG_NAME_SEED))
+				{
+					lilSeeds = new ArrayList<>();
+
+					for (String sSeed: expandValues(sValue))
+						lilSeeds.add(Long.parseLong(sSeed));
+				}
+				else
+				{
+					m_lisNames.add(sArgName);
+					m_lilisValues.add(expandValues(sValue));
+				}
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			sError = String.format("A value is not a number: %s", e.getMessage());
+		}
+		catch (IllegalArgumentException e)
+		{
+			sError = e.getMessage();
+		}
+
+		if (!sError.isEmpty())
+		{
+			// The arguments' names are in error, so the cells will not be checked
+		}
+		else if (m_pResults == null)
+			sError = String.format("The parameter \"%s\" is missing.", S_ARG_NAME_RESULTS);
+		else if (m_nSeeds <= 0)
+			sError = String.format("The parameter \"%s\" of value %d must be greater than 0.", S_ARG_NAME_SEEDS, m_nSeeds);
+		else if (m_nThreads <= 0)
+			sError = String.format("The parameter \"%s\" of value %d must be greater than 0.", S_ARG_NAME_THREADS,
+			 m_nThreads);
+		else
+		{
+			// The seed is always a column, so that every cell can be repeated
+			Set<String> setSeeds = new LinkedHashSet<>();
+
+			for (long lSeed: lilSeeds)
+				for (int i = 0; i < m_nSeeds; i++)
+					setSeeds.add(Long.toString(lSeed + i));
+
+			m_lisNames.add(StartParameters.S_ARG_NAME_SEED);
+			m_lilisValues.add(new ArrayList<>(setSeeds));
+			createCells(new String[2 * m_lisNames.size()], 0);
+
+			for (int i = 0; (i < m_liCells.size()) && sError.isEmpty(); i++)
+			{
+				String sCellError = new StartParameters().parseArguments(m_liCells.get(i));
+
+				if (!sCellError.isEmpty())
+					sError = String.format("The cell %s is in error: %s", key(m_liCells.get(i)), sCellError);
+			}
+		}
+
+		if (!sError.isEmpty())
+			sError += " Please see the sweep's usage for details.";
+
+		return sError;
+	}
+
+	/**
+	 * @param sValue
+	 *   The value of a parameter, which may be a list of values separated by commas, or a numeric range
+	 *   <code>from:to:step</code>.
+	 * @return
+	 *   The values, those of a range being written exactly, without rounding errors.
+	 * @throws IllegalArgumentException
+	 *   If a range is incorrectly written.
+	 */
+	static List<String> expandValues(String sValue)
+	{
+		List<String> lisResult = new ArrayList<>();
+		String[] asRange = sValue.split(S_RANGE_SEPARATOR, -1);
+
+		if (asRange.length == 3)
+		{
+			BigDecimal bdFrom = new BigDecimal(asRange[0].trim());
+			BigDecimal bdTo = new BigDecimal(asRange[1].trim());
+			BigDecimal bdStep = new BigDecimal(asRange[2].trim());
+
+			if ((bdStep.signum() == 0) || ((bdStep.signum() < 0) != (bdTo.compareTo(bdFrom) < 0)))
+				throw new IllegalArgumentException(String.format(
+				 "The step of the range \"%s\" must be towards its end, and not 0.", sValue));
+
+			BigDecimal bdNext = bdFrom;
+
+			while ((bdStep.signum() > 0) ? (bdNext.compareTo(bdTo) <= 0) : (bdNext.compareTo(bdTo) >= 0))
+			{
+				if (lisResult.size() == N_RANGE_VALUES_MAX)
+					throw new IllegalArgumentException(String.format(
+					 "The range \"%s\" has more than %d values.", sValue, N_RANGE_VALUES_MAX));
+
+				lisResult.add(bdNext.toPlainString());
+				bdNext = bdNext.add(bdStep);
+			}
+		}
+		else if (asRange.length == 1)
+		{
+			for (String s: sValue.split(S_SEPARATOR))
+				if (!s.trim().isEmpty())
+					lisResult.add(s.trim());
+		}
+
+		if (lisResult.isEmpty())
+			throw new IllegalArgumentException(String.format("The value \"%s\" is not a list or range of values.",
+			 sValue));
+
+		return lisResult;
+	}
+
+	/**
+	 * Create the cells of the Cartesian product of the values, the last parameter's values varying fastest.
+	 */
+	private void createCells(String[] asCell, int nParameter)
+	{
+		if (nParameter == m_lisNames.size())
+			m_liCells.add(asCell.clone());
+		else
+			for (String sValue: m_lilisValues.get(nParameter))
+			{
+				asCell[2 * nParameter] = m_lisNames.get(nParameter);
+				asCell[(2 * nParameter) + 1] = sValue;
+				createCells(asCell, nParameter + 1);
+			}
+	}
+
+	/**
+	 * @return
+	 *   The arguments of the start parameters of each cell, in the order in which they are executed.
+	 */
+	public List<String[]> getCells()
+	{
+		return m_liCells;
+	}
+
+	/**
+	 * @return
+	 *   The values of a cell's parameters, which identify it in the table.
+	 */
+	private static String key(String[] asCell)
+	{
+		StringBuilder sbResult = new StringBuilder();
+
+		for (int i = 1; i < asCell.length; i += 2)
+			sbResult.append(i > 1 ? S_SEPARATOR : "").append(asCell[i]);
+
+		return sbResult.toString();
+	}
+
+	private String header()
+	{
+		List<String> lisColumns = new ArrayList<>(m_lisNames);
+		lisColumns.addAll(LI_RESULT_COLUMNS);
+		return String.join(S_SEPARATOR, lisColumns);
+	}
+
+	/**
+	 * Execute the cells which are not already in the table, and append their results to it.
+	 * @return
+	 *   The number of cells executed.
+	 * @throws IOException
+	 *   If the table cannot be read or written, or is that of a sweep of other parameters.
+	 * @throws InterruptedException
+	 *   If the thread is interrupted while waiting for the cells.
+	 */
+	public int execute() throws IOException, InterruptedException
+	{
+		Set<String> setCompleted = readCompletedCells();
+		List<String[]> liPending = new ArrayList<>();
+
+		for (String[] asCell: m_liCells)
+			if (!setCompleted.contains(key(asCell)))
+				liPending.add(asCell);
+
+		logger.info(String.format("Sweeping %d cells, of which %d have already completed, on %d threads. The results are"
+		 + " written to \"%s\".", m_liCells.size(), m_liCells.size() - liPending.size(), m_nThreads, m_pResults));
+
+		ExecutorService esExecutor = Executors.newFixedThreadPool(m_nThreads);
+
+		try (BufferedWriter bwWriter = Files.newBufferedWriter(m_pResults, StandardCharsets.UTF_8,
+		 StandardOpenOption.CREATE, StandardOpenOption.APPEND))
+		{
+			m_bwWriter = bwWriter;
+
+			if (Files.size(m_pResults) == 0L)
+				writeLine(header());
+
+			List<Future<?>> liFutures = new ArrayList<>(liPending.size());
+
+			for (String[] asCell: liPending)
+				liFutures.add(esExecutor.submit(() -> executeCell(asCell)));
+
+			for (Future<?> f: liFutures)
+				f.get();
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("The results table could not be written.", e.getCause());
+		}
+		finally
+		{
+			esExecutor.shutdownNow();
+			m_bwWriter = null;
+		}
+
+		logger.info(String.format("The sweep has completed: %d cells were executed.", liPending.size()));
+		return liPending.size();
+	}
+
+	/**
+	 * Read the cells which have completed from the table, if it exists, and rewrite it without any incomplete line
+	 * or failed cell, so that the latter are executed again.
+	 */
+	private Set<String> readCompletedCells() throws IOException
+	{
+		Set<String> setResult = new HashSet<>();
+
+		if (Files.exists(m_pResults) && (Files.size(m_pResults) > 0L))
+		{
+			String sContent = new String(Files.readAllBytes(m_pResults), StandardCharsets.UTF_8);
+			List<String> lisLines = new ArrayList<>(Arrays.asList(sContent.split("\\R", -1)));
+
+			// The last line is empty if the table ends with a complete line, and incomplete otherwise
+			lisLines.remove(lisLines.size() - 1);
+
+			if (lisLines.isEmpty() || !lisLines.get(0).equals(header()))
+				throw new IOException(String.format("The results table \"%s\" is not that of a sweep of the parameters"
+				 + " %s.", m_pResults, m_lisNames));
+
+			List<String> lisKept = new ArrayList<>(lisLines.subList(0, 1));
+			int nColumns = m_lisNames.size() + LI_RESULT_COLUMNS.size();
+			String sFailed = S_SEPARATOR + Reason.FAILED.value() + S_SEPARATOR;
+
+			for (String sLine: lisLines.subList(1, lisLines.size()))
+				if ((sLine.split(S_SEPARATOR, -1).length == nColumns) && !sLine.contains(sFailed))
+				{
+					lisKept.add(sLine);
+					setResult.add(sLine.substring(0, nthSeparator(sLine, m_lisNames.size())));
+				}
+
+			if ((lisKept.size() < lisLines.size()) || !sContent.endsWith(System.lineSeparator()))
+			{
+				Path pTemporary = m_pResults.resolveSibling(m_pResults.getFileName() + ".tmp");
+				Files.write(pTemporary, lisKept, StandardCharsets.UTF_8);
+				Files.move(pTemporary, m_pResults, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+
+		return setResult;
+	}
+
+	private static int nthSeparator(String sLine, int n)
+	{
+		int nResult = -1;
+
+		for (int i = 0; i < n; i++)
+			nResult = sLine.indexOf(S_SEPARATOR, nResult + 1);
+
+		return nResult;
+	}
+
+	/**
+	 * Execute a cell's runs on a thread of the pool, and append its results to the table.
+	 */
+	private void executeCell(String[] asCell)
+	{
+		StartParameters spStartParameters = new StartParameters();
+		spStartParameters.parseArguments(asCell);
+		AnnealingEngine aeEngine = Supervisor.createEngine(spStartParameters, null, null);
+
+		if (aeEngine instanceof Worker)
+			((Worker) aeEngine).setReportTensorValues(false);
+
+		long lStart = System.nanoTime();
+
+		try
+		{
+			aeEngine.run();
+		}
+		catch (Throwable th)
+		{
+			aeEngine.getUncaughtExceptionHandler().uncaughtException(Thread.currentThread(), th);
+		}
+
+		long lWallMillis = (System.nanoTime() - lStart) / 1000000L;
+		WorkerResult wr = aeEngine.getWorkerResult();
+
+		if (wr.getReason() == Reason.FAILED)
+			logger.error(String.format("The cell %s failed.", key(asCell)), wr.getThrowable());
+
+		writeLine(String.join(S_SEPARATOR, key(asCell), Double.toString(wr.getEnergy()), Integer.toString(wr.getRun()),
+		 wr.getReason().value(), Long.toString(lWallMillis)));
+	}
+
+	/**
+	 * Append a line to the table, and flush it, so that it is kept if the sweep crashes.
+	 */
+	private synchronized void writeLine(String sLine)
+	{
+		try
+		{
+			m_bwWriter.write(sLine);
+			m_bwWriter.newLine();
+			m_bwWriter.flush();
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("The results table could not be written.", e);
+		}
+	}
+
+	public static void showUsage()
+	{
+		logger.info(String.format(
+		   "%nUsage"
+		 + "%n-----"
+		 + "%n  %1$s %2$s [file path] [%3$s [whole number]] [%4$s [whole number]] [parameters]%n"
+		 + "%nThe parameters are those of %5$s, the value of any of which may be a list of values separated by commas,"
+		 + " or a range from:to:step. The runs are executed for every combination of the values, each with the seed"
+		 + " (by default 1) and the following seeds up to [%3$s] (by default 1), on [%4$s] threads (by default the"
+		 + " number of processors). A line of results is appended to [%2$s] as each combination completes, and the"
+		 + " combinations already in it are not executed again.%n",
+		 ParameterSweep.class.getSimpleName(), S_ARG_NAME_RESULTS, S_ARG_NAME_SEEDS, S_ARG_NAME_THREADS,
+		 SchwarzschildSimulatedAnnealing.class.getSimpleName()));
+	}
+
+	public static void main(String[] asArgs) throws IOException, InterruptedException
+	{
+		ParameterSweep psSweep = new ParameterSweep();
+		String sError = psSweep.parseArguments(asArgs);
+
+		if (sError.isEmpty())
+			psSweep.execute();
+		else
+		{
+			showUsage();
+			logger.error(sError);
+		}
+	}
+}
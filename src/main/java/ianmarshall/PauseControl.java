@@ -0,0 +1,97 @@
+package ianmarshall;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class pauses the thread executing the runs in place, between runs, by parking it until it is resumed or
+ * stopped. The thread keeps all its state while it is parked, including the derivatives and energy terms of its metric
+ * tensor values, so nothing is recalculated when it is resumed.
+ */
+public class PauseControl
+{
+	private static final Logger logger = LoggerFactory.getLogger(PauseControl.class);
+
+	private volatile boolean m_bPausing = false;
+	private volatile Thread m_thParked = null;
+
+	public PauseControl()
+	{
+	}
+
+	/**
+	 * Request that the runs pause after the current run. This may be called from any thread.
+	 */
+	public void pause()
+	{
+		m_bPausing = true;
+	}
+
+	/**
+	 * Resume the runs where they paused, or cancel a pause which has not yet taken effect. This may be called from any
+	 * thread.
+	 */
+	public void resume()
+	{
+		m_bPausing = false;
+		wake();
+	}
+
+	/**
+	 * Wake the parked thread, if there is one, so that it can find that it has been asked to stop.
+	 */
+	public void wake()
+	{
+		Thread th = m_thParked;
+
+		if (th != null)
+			LockSupport.unpark(th);
+	}
+
+	/**
+	 * @return
+	 *   Whether the runs have been asked to pause, and have not been resumed.
+	 */
+	public boolean getPausing()
+	{
+		return m_bPausing;
+	}
+
+	/**
+	 * @return
+	 *   Whether the thread executing the runs is parked.
+	 */
+	public boolean getPaused()
+	{
+		return m_thParked != null;
+	}
+
+	/**
+	 * Park the calling thread, between runs, if the runs have been asked to pause, until they are resumed or stopped.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param bsStopping
+	 *   Whether the runs have been asked to stop, which ends the pause.
+	 */
+	public void park(int nRun, BooleanSupplier bsStopping)
+	{
+		if (m_bPausing && !bsStopping.getAsBoolean())
+		{
+			// The thread is published before the request is checked again, so a resume in between is not missed
+			m_thParked = Thread.currentThread();
+			logger.info(String.format("Paused after run number %s.", SchwarzschildSimulatedAnnealing.formatInteger(nRun)));
+
+			while (m_bPausing && !bsStopping.getAsBoolean())
+				LockSupport.park(this);
+
+			m_thParked = null;
+
+			if (!bsStopping.getAsBoolean())
+				logger.info(String.format("Resumed after run number %s.",
+				 SchwarzschildSimulatedAnnealing.formatInteger(nRun)));
+		}
+	}
+}
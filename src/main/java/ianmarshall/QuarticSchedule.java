@@ -0,0 +1,34 @@
+package ianmarshall;
+
+/**
+ * The original annealing schedule: T = s * (1 - (n - 1) / d)^4, where s is the temperature scaling factor and d is
+ * the temperature divisor, until the temperature reaches zero at run d + 1, after which it remains zero.
+ */
+public class QuarticSchedule implements AnnealingSchedule
+{
+	private double m_dblTemperatureScalingFactor = 0.0;
+	private double m_dblTemperatureDivisor = 0.0;
+
+	public QuarticSchedule(double dblTemperatureScalingFactor, double dblTemperatureDivisor)
+	{
+		m_dblTemperatureScalingFactor = dblTemperatureScalingFactor;
+		m_dblTemperatureDivisor = dblTemperatureDivisor;
+	}
+
+	@Override
+	public double temperature(int nRun, int nRuns)
+	{
+		double result = 0.0;
+		double dblFactor = 1.0 - (((double)(nRun - 1)) / m_dblTemperatureDivisor);
+
+		if (dblFactor > 0.0)
+		{
+			result = m_dblTemperatureScalingFactor * Math.pow(dblFactor, 4.0);
+
+			if (result < 0.0)
+				result = 0.0;
+		}
+
+		return result;
+	}
+}
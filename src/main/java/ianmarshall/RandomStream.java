@@ -0,0 +1,167 @@
+package ianmarshall;
+
+/**
+ * This class is a counter-based pseudorandom number generator, for use by one thread.
+ * <br/>
+ * The n-th number of a stream is the SplitMix64 mixing function applied to the stream's key plus n times the golden
+ * ratio constant, so a number depends only on the key and its position in the stream. A stream can therefore be
+ * positioned anywhere without generating the numbers before it, and streams for parallel chains are derived from a
+ * seed by {@link #split(long)} without any shared state.
+ * <br/>
+ * The numbers drawn for a run are drawn from their own block of the stream, positioned by {@link #startBlock(long)},
+ * so that the same seed gives the same trajectory whether or not the runs were paused and resumed.
+ */
+public class RandomStream
+{
+	private static final long L_GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// Each block contains 2^N_BLOCK_SHIFT numbers
+	private static final int N_BLOCK_SHIFT = 16;
+
+	// 2^-53, which converts the upper 53 bits of a number to a double in [0, 1)
+	private static final double DBL_UNIT = 0x1.0p-53;
+
+	private final long m_lKey;
+	private long m_lCounter = 0L;
+
+	/**
+	 * The constructor.
+	 * @param lSeed
+	 *   The seed. The same seed always gives the same numbers.
+	 */
+	public RandomStream(long lSeed)
+	{
+		this(mix(lSeed), 0L);
+	}
+
+	private RandomStream(long lKey, long lCounter)
+	{
+		m_lKey = lKey;
+		m_lCounter = lCounter;
+	}
+
+	/**
+	 * Derive an independent stream from this stream's key, for example for one of several parallel chains.
+	 * @param lStreamId
+	 *   The identifier of the derived stream. The same identifier always gives the same stream.
+	 * @return
+	 *   The derived stream, positioned at its start.
+	 */
+	public RandomStream split(long lStreamId)
+	{
+		return new RandomStream(mix(m_lKey ^ mix(lStreamId + L_GOLDEN_GAMMA)), 0L);
+	}
+
+	/**
+	 * @return
+	 *   A stream of the same numbers as this one, at the same position, for use by another thread.
+	 */
+	public RandomStream copy()
+	{
+		return new RandomStream(m_lKey, m_lCounter);
+	}
+
+	/**
+	 * Position the stream at the start of a block of numbers, so that the numbers drawn within the block do not depend
+	 * on how many were drawn within previous blocks. A block contains 65 536 numbers.
+	 * @param lBlock
+	 *   The zero-based index of the block, such as a run number.
+	 */
+	public void startBlock(long lBlock)
+	{
+		m_lCounter = lBlock << N_BLOCK_SHIFT;
+	}
+
+	/**
+	 * @param lKey
+	 *   The key of a stream, as returned by {@link #getKey()}.
+	 * @param lCounter
+	 *   The position of the next number of the stream, as returned by {@link #getCounter()}.
+	 * @return
+	 *   The stream, at that position, such as one restored from a checkpoint.
+	 */
+	static RandomStream restore(long lKey, long lCounter)
+	{
+		return new RandomStream(lKey, lCounter);
+	}
+
+	/**
+	 * @return
+	 *   The key from which the numbers of the stream are derived.
+	 */
+	long getKey()
+	{
+		return m_lKey;
+	}
+
+	/**
+	 * @return
+	 *   The position of the next number of the stream.
+	 */
+	public long getCounter()
+	{
+		return m_lCounter;
+	}
+
+	/**
+	 * @param lCounter
+	 *   The position of the next number of the stream, as returned by {@link #getCounter()}.
+	 */
+	public void setCounter(long lCounter)
+	{
+		m_lCounter = lCounter;
+	}
+
+	/**
+	 * @return
+	 *   The next number of the stream, uniformly distributed over all <code>long</code> values.
+	 */
+	public long nextLong()
+	{
+		return mix(m_lKey + (L_GOLDEN_GAMMA * m_lCounter++));
+	}
+
+	/**
+	 * @return
+	 *   The next number of the stream, uniformly distributed in [0, 1).
+	 */
+	public double nextDouble()
+	{
+		return (nextLong() >>> 11) * DBL_UNIT;
+	}
+
+	/**
+	 * @param nBound
+	 *   The upper bound, exclusive, which must be greater than zero.
+	 * @return
+	 *   The next number of the stream, uniformly distributed from <code>0</code> to <code>nBound - 1</code>.
+	 *   A single number is always drawn, so that the position of the stream is predictable.
+	 */
+	public int nextInt(int nBound)
+	{
+		// The high half of the 64-bit product of 32 random bits and the bound, with a bias below 2^-32 per value
+		return (int)(((nextLong() >>> 32) * nBound) >>> 32);
+	}
+
+	/**
+	 * @return
+	 *   The next number of the stream, normally distributed with a mean of 0 and a standard deviation of 1, using the
+	 *   Box-Muller transform of two numbers.
+	 */
+	public double nextGaussian()
+	{
+		double dblU1 = 1.0 - nextDouble();    // In (0, 1], so that its logarithm is finite
+		double dblU2 = nextDouble();
+		return Math.sqrt(-2.0 * Math.log(dblU1)) * Math.cos(2.0 * Math.PI * dblU2);
+	}
+
+	/**
+	 * The finalising mixing function of SplitMix64, which is a bijection of <code>long</code> values.
+	 */
+	private static long mix(long l)
+	{
+		l = (l ^ (l >>> 30)) * 0xBF58476D1CE4E5B9L;
+		l = (l ^ (l >>> 27)) * 0x94D049BB133111EBL;
+		return l ^ (l >>> 31);
+	}
+}
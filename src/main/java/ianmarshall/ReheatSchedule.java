@@ -0,0 +1,95 @@
+package ianmarshall;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An exponential annealing schedule which is reheated when the energy stagnates.
+ * <br/>
+ * The temperature falls as that of {@link ExponentialSchedule} from the latest reheat. If the lowest energy found has
+ * not fallen for a given number of runs, the schedule is restarted from half the temperature at which it was last
+ * started, so that the runs can leave the local minimum of energy in which they are trapped.
+ */
+public class ReheatSchedule implements AnnealingSchedule
+{
+	private static final Logger logger = LoggerFactory.getLogger(ReheatSchedule.class);
+
+	// The temperature at which the schedule is restarted, relative to that at which it was last started
+	private static final double DBL_REHEAT_FACTOR = 0.5;
+
+	private double m_dblTemperatureDivisor = 0.0;
+	private int m_nStagnationRuns = 0;
+	private double m_dblStartTemperature = 0.0;
+	private int m_nRunStart = 1;
+	private double m_dblBestEnergy = Double.POSITIVE_INFINITY;
+	private int m_nRunBest = 0;
+	private int m_nReheats = 0;
+
+	/**
+	 * The constructor.
+	 * @param dblTemperatureScalingFactor
+	 *   The initial temperature.
+	 * @param dblTemperatureDivisor
+	 *   The number of runs over which the temperature falls by a factor of e.
+	 * @param nStagnationRuns
+	 *   The number of runs without a new lowest energy after which the schedule is reheated.
+	 */
+	public ReheatSchedule(double dblTemperatureScalingFactor, double dblTemperatureDivisor, int nStagnationRuns)
+	{
+		m_dblStartTemperature = dblTemperatureScalingFactor;
+		m_dblTemperatureDivisor = dblTemperatureDivisor;
+		m_nStagnationRuns = nStagnationRuns;
+	}
+
+	@Override
+	public double temperature(int nRun, int nRuns)
+	{
+		return m_dblStartTemperature * Math.exp(-(nRun - m_nRunStart) / m_dblTemperatureDivisor);
+	}
+
+	@Override
+	public void record(int nRun, boolean bAccepted, double dblEnergy)
+	{
+		if (dblEnergy < m_dblBestEnergy)
+		{
+			m_dblBestEnergy = dblEnergy;
+			m_nRunBest = nRun;
+		}
+		else if (nRun - m_nRunBest >= m_nStagnationRuns)
+		{
+			m_dblStartTemperature *= DBL_REHEAT_FACTOR;
+			m_nRunStart = nRun + 1;
+			m_nRunBest = nRun;
+			m_nReheats++;
+
+			logger.info(String.format("Run number %s: the lowest energy %f has not fallen for %s runs,"
+			 + " so the temperature has been reheated to %g.", SchwarzschildSimulatedAnnealing.formatInteger(nRun),
+			 m_dblBestEnergy, SchwarzschildSimulatedAnnealing.formatInteger(m_nStagnationRuns), m_dblStartTemperature));
+		}
+	}
+
+	@Override
+	public double[] getState()
+	{
+		return new double[] {m_dblStartTemperature, m_nRunStart, m_dblBestEnergy, m_nRunBest, m_nReheats};
+	}
+
+	@Override
+	public void setState(double[] adblState)
+	{
+		m_dblStartTemperature = adblState[0];
+		m_nRunStart = (int)adblState[1];
+		m_dblBestEnergy = adblState[2];
+		m_nRunBest = (int)adblState[3];
+		m_nReheats = (int)adblState[4];
+	}
+
+	/**
+	 * @return
+	 *   The number of times the schedule has been reheated.
+	 */
+	public int getReheats()
+	{
+		return m_nReheats;
+	}
+}
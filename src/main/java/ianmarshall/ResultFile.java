@@ -0,0 +1,256 @@
+package ianmarshall;
+
+import static ianmarshall.MetricComponents.MetricComponent.A;
+import static ianmarshall.MetricComponents.MetricComponent.B;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import cern.colt.matrix.DoubleMatrix2D;
+
+/**
+ * This class is a file of the final state of the runs, in a binary columnar format which can be memory-mapped and
+ * read without parsing, so that many results can be loaded and compared cheaply.
+ * <br/>
+ * The file has a header of 32 bytes: the magic number, the version, the numbers of columns and rows, the number of
+ * runs executed and the energy. Each column then follows as an array of doubles, one for each radius value. All the
+ * values are little-endian, and each column starts on a multiple of 8 bytes. The columns are those of the table of
+ * final values which a worker reports, and the Ricci tensor values, whose squares are the residuals which the runs
+ * minimise.
+ */
+public class ResultFile
+{
+	/**
+	 * The columns, in the order in which they are written.
+	 */
+	public enum Column
+	{
+		INDEX("i"), R("R"), A("A"), B("B"), FIRST_A("dA/dR"), FIRST_B("dB/dR"), SECOND_A("d2A/dR2"),
+		SECOND_B("d2B/dR2"), R00("R00"), R11("R11"), R22("R22");
+
+		private String m_sValue = "";
+
+		Column(String sValue)
+		{
+			m_sValue = sValue;
+		}
+
+		public String value()
+		{
+			return m_sValue;
+		}
+	}
+
+	private static final int N_MAGIC = 0x53535253;    // "SSRS"
+	private static final int N_VERSION = 1;
+	private static final int N_HEADER_LENGTH = 32;
+
+	private int m_nRows = 0;
+	private int m_nRun = 0;
+	private double m_dblEnergy = Double.NaN;
+	private DoubleBuffer m_dbColumns = null;
+
+	/**
+	 * The constructor.
+	 * @param nRows
+	 *   The number of rows, one for each radius value.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param dblEnergy
+	 *   The energy.
+	 * @param dbColumns
+	 *   The columns, one after another, which are not copied.
+	 */
+	private ResultFile(int nRows, int nRun, double dblEnergy, DoubleBuffer dbColumns)
+	{
+		m_nRows = nRows;
+		m_nRun = nRun;
+		m_dblEnergy = dblEnergy;
+		m_dbColumns = dbColumns;
+	}
+
+	/**
+	 * @return
+	 *   The number of rows, one for each radius value.
+	 */
+	public int size()
+	{
+		return m_nRows;
+	}
+
+	public int getRun()
+	{
+		return m_nRun;
+	}
+
+	public double getEnergy()
+	{
+		return m_dblEnergy;
+	}
+
+	/**
+	 * @param cColumn
+	 *   A column.
+	 * @return
+	 *   A read-only view of the column in the file, whose values are not copied.
+	 */
+	public DoubleBuffer getColumn(Column cColumn)
+	{
+		int nStart = cColumn.ordinal() * m_nRows;
+		return m_dbColumns.slice(nStart, m_nRows);
+	}
+
+	/**
+	 * @param cColumn
+	 *   A column.
+	 * @param nRow
+	 *   The zero-based index of a row.
+	 * @return
+	 *   The value in the column and row.
+	 */
+	public double get(Column cColumn, int nRow)
+	{
+		return m_dbColumns.get((cColumn.ordinal() * m_nRows) + nRow);
+	}
+
+	/**
+	 * @return
+	 *   The radius and metric component values, copied out of the file, with their derivatives not calculated.
+	 */
+	public MetricGrid toMetricGrid()
+	{
+		double[] adblR = new double[m_nRows];
+		double[] adblA = new double[m_nRows];
+		double[] adblB = new double[m_nRows];
+
+		getColumn(Column.R).get(adblR);
+		getColumn(Column.A).get(adblA);
+		getColumn(Column.B).get(adblB);
+		return new MetricGrid(adblR, adblA, adblB);
+	}
+
+	/**
+	 * Write the final state of the runs to a file. The derivatives and Ricci tensor values are calculated from the
+	 * metric component values, on a copy of them.
+	 * @param pPath
+	 *   The path of the file.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param dblEnergy
+	 *   The energy.
+	 * @param mgG
+	 *   The metric tensor values.
+	 * @throws IOException
+	 *   If the file cannot be written.
+	 */
+	static void write(Path pPath, int nRun, double dblEnergy, MetricGrid mgG) throws IOException
+	{
+		MetricGrid mgCopy = mgG.copy();
+		new EnergyKernel().energy(mgCopy);
+
+		int nRows = mgCopy.size();
+		int nColumns = Column.values().length;
+		ByteBuffer bbBuffer = ByteBuffer.allocate(N_HEADER_LENGTH + (nColumns * nRows * Double.BYTES))
+		 .order(ByteOrder.LITTLE_ENDIAN);
+
+		bbBuffer.putInt(N_MAGIC).putInt(N_VERSION).putInt(nColumns).putInt(nRows).putInt(nRun).putInt(0)
+		 .putDouble(dblEnergy);
+
+		for (int i = 0; i < nRows; i++)
+			bbBuffer.putDouble(i);
+
+		for (double[] adbl: new double[][] {mgCopy.getRValues(), mgCopy.getValues(None, A), mgCopy.getValues(None, B),
+		 mgCopy.getValues(First, A), mgCopy.getValues(First, B), mgCopy.getValues(Second, A),
+		 mgCopy.getValues(Second, B)})
+			for (double dbl: adbl)
+				bbBuffer.putDouble(dbl);
+
+		// The Ricci tensor values are calculated by the reference calculation, row by row, and written column by column
+		double[][] aadblRicci = new double[3][nRows];
+
+		for (int i = 0; i < nRows; i++)
+		{
+			DoubleMatrix2D dvRicci = Worker.calculateRicciTensorValues(mgCopy, i);
+
+			for (int j = 0; j < 3; j++)
+				aadblRicci[j][i] = dvRicci.get(j, 0);
+		}
+
+		for (double[] adbl: aadblRicci)
+			for (double dbl: adbl)
+				bbBuffer.putDouble(dbl);
+
+		bbBuffer.flip();
+
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.CREATE,
+		 StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))
+		{
+			while (bbBuffer.hasRemaining())
+				fcChannel.write(bbBuffer);
+		}
+	}
+
+	/**
+	 * @param pPath
+	 *   The path of a result file.
+	 * @return
+	 *   The result, whose columns are read from the file, memory-mapped, as they are used.
+	 * @throws IOException
+	 *   If the file cannot be read, or is not a result file.
+	 */
+	public static ResultFile read(Path pPath) throws IOException
+	{
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			long lLength = fcChannel.size();
+
+			if ((lLength < N_HEADER_LENGTH) || (lLength > Integer.MAX_VALUE))
+				throw new IOException(String.format("The file \"%s\" is not a result file.", pPath));
+
+			// The mapping remains valid after the channel is closed
+			ByteBuffer bbBuffer = fcChannel.map(MapMode.READ_ONLY, 0L, lLength).order(ByteOrder.LITTLE_ENDIAN);
+
+			if ((bbBuffer.getInt() != N_MAGIC) || (bbBuffer.getInt() != N_VERSION))
+				throw new IOException(String.format("The file \"%s\" is not a result file of version %d.", pPath,
+				 N_VERSION));
+
+			int nColumns = bbBuffer.getInt();
+			int nRows = bbBuffer.getInt();
+			int nRun = bbBuffer.getInt();
+			bbBuffer.getInt();
+			double dblEnergy = bbBuffer.getDouble();
+
+			if ((nColumns != Column.values().length) || (nRows < 0)
+			 || (lLength != N_HEADER_LENGTH + ((long)nColumns * nRows * Double.BYTES)))
+				throw new IOException(String.format("The result file \"%s\" has an incorrect length.", pPath));
+
+			return new ResultFile(nRows, nRun, dblEnergy, bbBuffer.asDoubleBuffer().asReadOnlyBuffer());
+		}
+	}
+
+	/**
+	 * @param pPath
+	 *   The path of a file.
+	 * @return
+	 *   Whether the file starts as a result file does.
+	 * @throws IOException
+	 *   If the file cannot be read.
+	 */
+	static boolean isResultFile(Path pPath) throws IOException
+	{
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			ByteBuffer bbMagic = ByteBuffer.allocate(Integer.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+			return (fcChannel.read(bbMagic, 0L) == Integer.BYTES) && (bbMagic.getInt(0) == N_MAGIC);
+		}
+	}
+}
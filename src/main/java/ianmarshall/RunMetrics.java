@@ -0,0 +1,189 @@
+package ianmarshall;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.function.LongSupplier;
+
+/**
+ * This class holds the counters of the progress of the runs, which may be read from any thread, through JMX or the
+ * {@link MetricsEndpoint}, while the runs continue.
+ * <br/>
+ * The counters are updated by the thread executing the runs only every so many runs, so the runs pay for no more than
+ * a comparison per run, and the values read are at most that many runs old. The rate of the runs and the acceptance
+ * rate are measured over intervals of at least a second.
+ */
+public class RunMetrics implements RunMetricsMBean
+{
+	// The number of runs between updates, for the runs which update the counters themselves
+	static final int N_UPDATE_INTERVAL = 256;
+
+	private static final long L_RATE_INTERVAL_NANOS = 1000000000L;    // 1s
+
+	private final int m_nRuns;
+	private final LongSupplier m_lsClock;
+
+	// The start of the current rate interval, which is only used by the thread executing the runs
+	private int m_nRunIntervalStart = 0;
+	private long m_lAcceptancesIntervalStart = 0L;
+	private long m_lRejectionsIntervalStart = 0L;
+	private long m_lNanosIntervalStart = 0L;
+
+	private volatile int m_nRun = 0;
+	private volatile long m_lAcceptances = 0L;
+	private volatile long m_lRejections = 0L;
+	private volatile double m_dblEnergy = Double.NaN;
+	private volatile double m_dblBestEnergy = Double.POSITIVE_INFINITY;
+	private volatile double m_dblTemperature = Double.NaN;
+	private volatile double m_dblRunsPerSecond = Double.NaN;
+	private volatile double m_dblAcceptanceRate = Double.NaN;
+
+	/**
+	 * The constructor.
+	 * @param nRuns
+	 *   The number of runs to be executed.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 */
+	public RunMetrics(int nRuns, int nRun)
+	{
+		this(nRuns, nRun, System::nanoTime);
+	}
+
+	/**
+	 * The constructor, with a clock which can be controlled by tests.
+	 * @param lsClock
+	 *   Supplies the current time in nanoseconds.
+	 */
+	RunMetrics(int nRuns, int nRun, LongSupplier lsClock)
+	{
+		m_nRuns = nRuns;
+		m_lsClock = lsClock;
+		m_nRun = nRun;
+		m_nRunIntervalStart = nRun;
+		m_lNanosIntervalStart = lsClock.getAsLong();
+	}
+
+	/**
+	 * Update the counters. This is called only by the thread executing the runs.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param lAcceptances
+	 *   The number of moves accepted since the runs started.
+	 * @param lRejections
+	 *   The number of moves rejected since the runs started.
+	 * @param dblEnergy
+	 *   The current energy.
+	 * @param dblBestEnergy
+	 *   The lowest energy reached.
+	 * @param dblTemperature
+	 *   The current annealing temperature.
+	 */
+	public void update(int nRun, long lAcceptances, long lRejections, double dblEnergy, double dblBestEnergy,
+	 double dblTemperature)
+	{
+		long lNanos = m_lsClock.getAsLong();
+
+		if (lNanos - m_lNanosIntervalStart >= L_RATE_INTERVAL_NANOS)
+		{
+			long lMoves = (lAcceptances - m_lAcceptancesIntervalStart) + (lRejections - m_lRejectionsIntervalStart);
+
+			m_dblRunsPerSecond = (nRun - m_nRunIntervalStart) * 1.0E9 / (lNanos - m_lNanosIntervalStart);
+			m_dblAcceptanceRate = lMoves > 0L ? (double)(lAcceptances - m_lAcceptancesIntervalStart) / lMoves : Double.NaN;
+
+			m_nRunIntervalStart = nRun;
+			m_lAcceptancesIntervalStart = lAcceptances;
+			m_lRejectionsIntervalStart = lRejections;
+			m_lNanosIntervalStart = lNanos;
+		}
+
+		m_lAcceptances = lAcceptances;
+		m_lRejections = lRejections;
+		m_dblEnergy = dblEnergy;
+		m_dblBestEnergy = dblBestEnergy;
+		m_dblTemperature = dblTemperature;
+		m_nRun = nRun;
+	}
+
+	@Override
+	public int getRun()
+	{
+		return m_nRun;
+	}
+
+	@Override
+	public int getRuns()
+	{
+		return m_nRuns;
+	}
+
+	@Override
+	public double getRunsPerSecond()
+	{
+		return m_dblRunsPerSecond;
+	}
+
+	@Override
+	public double getAcceptanceRate()
+	{
+		return m_dblAcceptanceRate;
+	}
+
+	@Override
+	public long getAcceptances()
+	{
+		return m_lAcceptances;
+	}
+
+	@Override
+	public long getRejections()
+	{
+		return m_lRejections;
+	}
+
+	@Override
+	public double getEnergy()
+	{
+		return m_dblEnergy;
+	}
+
+	@Override
+	public double getBestEnergy()
+	{
+		return m_dblBestEnergy;
+	}
+
+	@Override
+	public double getTemperature()
+	{
+		return m_dblTemperature;
+	}
+
+	@Override
+	public long getEtaSeconds()
+	{
+		double dblRunsPerSecond = m_dblRunsPerSecond;
+		long lResult = -1L;
+
+		if (dblRunsPerSecond > 0.0)
+			lResult = (long)Math.ceil(Math.max(m_nRuns - m_nRun, 0) / dblRunsPerSecond);
+
+		return lResult;
+	}
+
+	@Override
+	public long getHeapUsedBytes()
+	{
+		return heapUsage().getUsed();
+	}
+
+	@Override
+	public long getHeapMaxBytes()
+	{
+		return heapUsage().getMax();
+	}
+
+	static MemoryUsage heapUsage()
+	{
+		return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+	}
+}
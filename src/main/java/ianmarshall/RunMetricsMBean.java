@@ -0,0 +1,68 @@
+package ianmarshall;
+
+/**
+ * The management interface of {@link RunMetrics}, through which the progress of the runs is read over JMX.
+ */
+public interface RunMetricsMBean
+{
+	/**
+	 * @return
+	 *   The number of runs executed.
+	 */
+	int getRun();
+
+	/**
+	 * @return
+	 *   The number of runs to be executed.
+	 */
+	int getRuns();
+
+	/**
+	 * @return
+	 *   The number of runs per second over the latest rate interval.
+	 */
+	double getRunsPerSecond();
+
+	/**
+	 * @return
+	 *   The proportion of moves accepted over the latest rate interval.
+	 */
+	double getAcceptanceRate();
+
+	/**
+	 * @return
+	 *   The number of moves accepted since the runs started.
+	 */
+	long getAcceptances();
+
+	/**
+	 * @return
+	 *   The number of moves rejected since the runs started.
+	 */
+	long getRejections();
+
+	double getEnergy();
+
+	double getBestEnergy();
+
+	double getTemperature();
+
+	/**
+	 * @return
+	 *   The estimated number of seconds until all the runs have been executed, at the latest rate, or <code>-1</code>
+	 *   if it cannot be estimated yet.
+	 */
+	long getEtaSeconds();
+
+	/**
+	 * @return
+	 *   The number of bytes of heap memory used.
+	 */
+	long getHeapUsedBytes();
+
+	/**
+	 * @return
+	 *   The maximum number of bytes of heap memory which can be used, or <code>-1</code> if it is undefined.
+	 */
+	long getHeapMaxBytes();
+}
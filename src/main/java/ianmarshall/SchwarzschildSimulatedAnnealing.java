@@ -3,8 +3,11 @@ package ianmarshall;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,57 +52,78 @@ public class SchwarzschildSimulatedAnnealing
 			double dblTemperatureScalingFactor           = spStartParams.getTemperatureScalingFactor();
 			double dblTemperatureDivisor                 = spStartParams.getTemperatureDivisor();
 
-			int nMaxWidthParams = Collections.max(Arrays.asList(
-			 StartParameters.S_ARG_NAME_NUMBER_OF_RUNS.length(),
-			 StartParameters.S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR.length(),
-			 StartParameters.S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR.length(),
-			 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR.length(),
-			 StartParameters.S_ARG_NAME_TEMPERATURE_DIVISOR.length()));
-
 			String sRuns                               = formatInteger(nRuns) + "  ";
 			String sNeighbourPeakScalingFactor         = formatDouble(dblNeighbourPeakScalingFactor);
 			String sAcceptanceProbabilityScalingFactor = formatDouble(dblAcceptanceProbabilityScalingFactor);
 			String sTemperatureScalingFactor           = formatDouble(dblTemperatureScalingFactor);
 			String sTemperatureDivisor                 = formatDouble(dblTemperatureDivisor);
 
-			int nMaxWidthValues = Collections.max(Arrays.asList(
-			 sRuns.length(),
-			 sNeighbourPeakScalingFactor.length(),
-			 sAcceptanceProbabilityScalingFactor.length(),
-			 sTemperatureScalingFactor.length(),
-			 sTemperatureDivisor.length()));
-
-			String sFormat = String.format("Parameter values:"
-			 + "%%n  %%%1$ss = %%%2$ss,"
-			 + "%%n  %%%1$ss = %%%2$ss,"
-			 + "%%n  %%%1$ss = %%%2$ss,"
-			 + "%%n  %%%1$ss = %%%2$ss,"
-			 + "%%n  %%%1$ss = %%%2$ss."
-			 + "%%n%%nTo pause execution enter \"P\"."
-			 + "%%nFrom a paused execution, enter \"S\" to stop execution and anything else to resume execution.",
-			 nMaxWidthParams, nMaxWidthValues);
-
-			logger.info(String.format(sFormat,
-			 StartParameters.S_ARG_NAME_NUMBER_OF_RUNS,                      sRuns,
-			 StartParameters.S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR,       sNeighbourPeakScalingFactor,
-			 StartParameters.S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR, sAcceptanceProbabilityScalingFactor,
-			 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR,          sTemperatureScalingFactor,
-			 StartParameters.S_ARG_NAME_TEMPERATURE_DIVISOR,                 sTemperatureDivisor));
+			List<String> lisParams = new ArrayList<>(Arrays.asList(
+			 StartParameters.S_ARG_NAME_NUMBER_OF_RUNS,
+			 StartParameters.S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR,
+			 StartParameters.S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR,
+			 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR,
+			 StartParameters.S_ARG_NAME_TEMPERATURE_DIVISOR));
+
+			List<String> lisValues = new ArrayList<>(Arrays.asList(
+			 sRuns,
+			 sNeighbourPeakScalingFactor,
+			 sAcceptanceProbabilityScalingFactor,
+			 sTemperatureScalingFactor,
+			 sTemperatureDivisor));
+
+			// The optional parameters are shown as they were supplied
+			Map<String, String> mapOptionalArgs = spStartParams.getOptionalArguments();
+			for (Entry<String, String> entry: mapOptionalArgs.entrySet())
+			{
+				lisParams.add(entry.getKey());
+				lisValues.add(entry.getValue());
+			}
+
+			// A seed taken from the clock is shown, so that the results can be repeated
+			if (!mapOptionalArgs.containsKey(StartParameters.S_ARG_NAME_SEED))
+			{
+				lisParams.add(StartParameters.S_ARG_NAME_SEED);
+				lisValues.add(Long.toString(spStartParams.getSeed()));
+			}
+
+			int nMaxWidthParams = 0;
+			for (String sParam: lisParams)
+				nMaxWidthParams = Math.max(nMaxWidthParams, sParam.length());
+
+			int nMaxWidthValues = 0;
+			for (String sValue: lisValues)
+				nMaxWidthValues = Math.max(nMaxWidthValues, sValue.length());
+
+			String sFormatParam = String.format("%%n  %%%1$ss = %%%2$ss", nMaxWidthParams, nMaxWidthValues);
+			StringBuilder sbMsg = new StringBuilder("Parameter values:");
+
+			for (int i = 0; i < lisParams.size(); i++)
+			{
+				sbMsg.append(String.format(sFormatParam, lisParams.get(i), lisValues.get(i)));
+				sbMsg.append(i < lisParams.size() - 1 ? "," : ".");
+			}
+
+			sbMsg.append(String.format("%n%nTo pause execution enter \"P\"."
+			 + "%nFrom a paused execution, enter \"S\" to stop execution and anything else to resume execution."));
+
+			logger.info(sbMsg.toString());
 
 			Supervisor supervisor = new Supervisor(spStartParams);
 			WorkerResult wrResult = supervisor.execute();
+			String sFormat;
 			boolean bProcessingCompleted = wrResult.getProcessingCompleted();
 			int nRun = wrResult.getRun();
 			Throwable th = wrResult.getThrowable();
 
 			if (bProcessingCompleted)
-				sFormat = "Processing has completed.";
+				sFormat = "Processing has completed (%s).";
 			else
-				sFormat = "Processing was stopped before it completed.";
+				sFormat = "Processing was stopped before it completed (%s).";
 
-			sFormat += " The latest run number executed was %s.";
+			sFormat += " The latest run number executed was %s, with energy %f.";
 			String sRun = formatInteger(nRun);
-			logger.info(String.format(sFormat, sRun));
+			logger.info(String.format(sFormat, wrResult.getReason().value(), sRun, wrResult.getEnergy()));
 
 			StringBuilder sb = new StringBuilder();
 
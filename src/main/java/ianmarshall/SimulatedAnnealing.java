@@ -1,14 +1,6 @@
 package ianmarshall;
 
-import cern.colt.matrix.DoubleMatrix2D;
-
 import ianmarshall.MetricComponents.MetricComponent;
-import static ianmarshall.MetricComponents.MetricComponent.A;
-import static ianmarshall.Worker.DerivativeLevel.None;
-
-import java.util.List;
-import java.util.Map.Entry;
-import java.util.Random;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,121 +15,154 @@ import org.slf4j.LoggerFactory;
  */
 public class SimulatedAnnealing
 {
-	private static final Logger logger = LoggerFactory.getLogger(SimulatedAnnealing.class);
-	private static final Random m_Random = new Random();    // Remove "static" for multi-instance use
+	/**
+	 * Whether the energy of a candidate is calculated over all radius values,
+	 * or by updating the current energy over only the radius values affected by the move.
+	 */
+	public enum EnergyMode
+	{
+		FULL("full"), INCREMENTAL("incremental");
+
+		private String m_sValue = "";
+
+		EnergyMode(String sValue)
+		{
+			m_sValue = sValue;
+		}
+
+		public String value()
+		{
+			return m_sValue;
+		}
+
+		/**
+		 * @param sValue
+		 *   The value of an energy mode, in any case.
+		 * @return
+		 *   The energy mode, or <code>null</code> if there is none of the value supplied.
+		 */
+		public static EnergyMode parse(String sValue)
+		{
+			EnergyMode emResult = null;
 
+			for (EnergyMode em: values())
+				if (em.value().equalsIgnoreCase(sValue))
+					emResult = em;
+
+			return emResult;
+		}
+	}
+
+	// The standard deviation of the bump of a candidate move, in numbers of radius values
+	static final double DBL_NEIGHBOUR_STANDARD_DEVIATION = 1.0;
+
+	private static final Logger logger = LoggerFactory.getLogger(SimulatedAnnealing.class);
+	private RandomStream m_rsRandom = null;
 	private double m_dblNeighbourPeakScalingFactor = 0.0;
 	private double m_dblAcceptanceProbabilityScalingFactor = 0.0;
-	private double m_dblTemperatureScalingFactor = 0.0;
-	private double m_dblTemperatureDivisor = 0.0;
+	private EnergyEvaluator m_eeEnergyEvaluator = null;
+	private AnnealingSchedule m_asSchedule = null;
 //private String m_sLogMessage = null;    // Refactor this for multi-instance use
 
-	public SimulatedAnnealing(StartParameters spStartParameters)
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @param rsRandom
+	 *   The random number stream from which candidates are generated, which is not shared with other threads.
+	 */
+	public SimulatedAnnealing(StartParameters spStartParameters, RandomStream rsRandom)
 	{
+		m_rsRandom = rsRandom;
 		m_dblNeighbourPeakScalingFactor = spStartParameters.getNeighbourPeakScalingFactor();
 		m_dblAcceptanceProbabilityScalingFactor = spStartParameters.getAcceptanceProbabilityScalingFactor();
-		m_dblTemperatureScalingFactor = spStartParameters.getTemperatureScalingFactor();
-		m_dblTemperatureDivisor = spStartParameters.getTemperatureDivisor();
+		m_eeEnergyEvaluator = EnergyEvaluator.create(spStartParameters.getEnergyEvaluator());
+		m_asSchedule = AnnealingSchedule.create(spStartParameters);
 	}
 
 	/**
 	 * The energy (goal) function.
 	 * <br/>
 	 * Calculate the energy of the state space, which is represented by the supplied tensor values and their derivatives.
-	 * @param liG
+	 * The derivatives, and the contribution of each radius value to the energy, are calculated and stored in the grid,
+	 * the latter for use by {@link #energyChange(MetricGrid, int, int, int)}.
+	 * @param mgG
 	 *   The tensor values, with metric components for each value of radius.
-	 * @param liGFirstDerivative
-	 *   The 1st derivative of the tensor values.
-	 * @param liGSecondDerivative
-	 *   The 2nd derivative of the tensor values.
 	 * @param nRun
 	 *   The number of runs already executed. A value of <code>0</code> means no run has yet been executed.
 	 * @return
 	 *   The energy of the state space.
 	 */
-	public double energy(List<MetricComponents> liG, List<MetricComponents> liGFirstDerivative,
-	 List<MetricComponents> liGSecondDerivative, int nRun)
+	public double energy(MetricGrid mgG, int nRun)
 	{
-		double dblSumOfSquaresOfRicciTensorsOverAllR = 0.0;
-		int nSize = liG.size();
-
-		for (int i = 0; i < nSize; i++)
-		{
-			// 3 rows by 1 column
-			DoubleMatrix2D dmRicci = Worker.calculateRicciTensorValues(liG, liGFirstDerivative, liGSecondDerivative, i);
-
-	 // boolean bLog = (nRun <= 3) && ((i == 0) || (i == 3));
-			boolean bLog = false;
-
-			if (bLog)
-			{
-				String sMsg = String.format("%n  nRun = %d, i = %d: dmRicci has elements:%n%s .%n",
-				 nRun, i, dmRicci.toString());
-				logger.info(sMsg);
-			}
-
-			double dblSumOfSquaresOfRicciTensors = 0.0;
-
-			for (int j = 0; j < dmRicci.rows(); j++)
-			{
-				double dblRicciTensor = dmRicci.get(j, 0);
-				dblSumOfSquaresOfRicciTensors += dblRicciTensor * dblRicciTensor;
-			}
-
-			final int nStart;
-			final int nFinish;
-			if (i == 0)
-			{
-				nStart = i;        // Forward difference for the first point
-				nFinish = nStart + 1;
-			}
-			else if (i < nSize - 1)
-			{
-				nStart = i - 1;    // Central difference for an internal point
-				nFinish = nStart + 2;
-			}
-			else
-			{
-				nStart = i - 1;    // Backward difference for the last point
-				nFinish = nStart + 1;
-			}
-
-			Entry<Double, Double> entry = Worker.getMetricComponentOfDerivativeLevel(liG, null, null, None, nStart, A);
-			double dblRStart = entry.getKey().doubleValue();
-			entry = Worker.getMetricComponentOfDerivativeLevel(liG, null, null, None, nFinish, A);
-			double dblRFinish = entry.getKey().doubleValue();
-
-			dblSumOfSquaresOfRicciTensorsOverAllR +=
-			 dblSumOfSquaresOfRicciTensors * (dblRFinish - dblRStart) / (nFinish - nStart);
-		}
-
-		return dblSumOfSquaresOfRicciTensorsOverAllR;
+		return m_eeEnergyEvaluator.energy(mgG);
 	}
 
 	/**
-	 * The candidate generator procedure.
-	 * @param liG
+	 * Calculate the change of energy of the state space due to a change of the tensor values over a range of radius
+	 * values only, and update the derivatives and the contributions to the energy stored in the grid over that range.
+	 * <br/>
+	 * The contributions to the energy stored in the grid must be those of the state space before the change.
+	 * @param mgG
 	 *   The tensor values, with metric components for each value of radius.
+	 * @param nIndexFrom
+	 *   The lowest index of the radius values, the derivatives of which have changed.
+	 * @param nIndexTo
+	 *   The highest index of the radius values, the derivatives of which have changed.
+	 * @param nRun
+	 *   The number of runs already executed. A value of <code>0</code> means no run has yet been executed.
 	 * @return
-	 *   The tensor values of the candidate, with metric components for each value of radius.
+	 *   The change of energy of the state space.
 	 */
-	public List<MetricComponents> neighbour(List<MetricComponents> liG)
+	public double energyChange(MetricGrid mgG, int nIndexFrom, int nIndexTo, int nRun)
 	{
-		List<MetricComponents> liGResult = MetricComponents.deepCopyMetricComponents(liG);
+		return m_eeEnergyEvaluator.energyChange(mgG, nIndexFrom, nIndexTo);
+	}
 
-		int nSize = liGResult.size();
+	/**
+	 * The candidate generator procedure.
+	 * <br/>
+	 * The candidate replaces the supplied tensor values in place. The move made can be undone by
+	 * {@link Move#undo(MetricGrid)}.
+	 * @param mgG
+	 *   The tensor values, with metric components for each value of radius. These will be changed to the tensor values
+	 *   of the candidate, whose derivatives must then be recalculated over the range of the move's stencil.
+	 * @param mvMove
+	 *   This will be set to the move made.
+	 */
+	public void neighbour(MetricGrid mgG, Move mvMove)
+	{
+		neighbour(mgG, mvMove, 0, mgG.size() - 1);
+	}
+
+	/**
+	 * The candidate generator procedure, with the centre of the move's bump restricted to a range of radius values.
+	 * @param mgG
+	 *   The tensor values, with metric components for each value of radius. These will be changed to the tensor values
+	 *   of the candidate, whose derivatives must then be recalculated over the range of the move's stencil.
+	 * @param mvMove
+	 *   This will be set to the move made.
+	 * @param nCentreFrom
+	 *   The lowest index of the radius value at the centre of the bump.
+	 * @param nCentreTo
+	 *   The highest index of the radius value at the centre of the bump.
+	 * @see #neighbour(MetricGrid, Move)
+	 */
+	public void neighbour(MetricGrid mgG, Move mvMove, int nCentreFrom, int nCentreTo)
+	{
+		int nSize = mgG.size();
  // double dblStandardDeviationMax = nSize / 4.0;
-		int nIndexCentre = m_Random.nextInt(nSize);
+		int nIndexCentre = nCentreFrom + m_rsRandom.nextInt(nCentreTo - nCentreFrom + 1);
 
  // double dblStandardDeviation = Math.floor(Math.random() * dblStandardDeviationMax);
  // dblStandardDeviation = Math.max(0.1, dblStandardDeviation);
-		double dblStandardDeviation = 1.0;
+		double dblStandardDeviation = DBL_NEIGHBOUR_STANDARD_DEVIATION;
 
 		// Equally likely between -m_dblNeighbourPeakScalingFactor and +m_dblNeighbourPeakScalingFactor inclusive
-		double dblDeltaPeak = m_dblNeighbourPeakScalingFactor * ((2.0 * Math.random()) - 1.0);
+		double dblDeltaPeak = m_dblNeighbourPeakScalingFactor * ((2.0 * m_rsRandom.nextDouble()) - 1.0);
 
 		MetricComponent[] amcMetricComponents = MetricComponent.values();
-		int nMCIndex = m_Random.nextInt(amcMetricComponents.length);
+		int nMCIndex = m_rsRandom.nextInt(amcMetricComponents.length);
 		MetricComponent mc = amcMetricComponents[nMCIndex];
 
  // m_sLogMessage = String.format("SimulatedAnnealing.neighbour(...):"
@@ -146,17 +171,8 @@ public class SimulatedAnnealing
  //  + "%n  dblDeltaPeak         = %f.",
  //  nIndexCentre, dblStandardDeviation, dblDeltaPeak);
 
-		for (int i = 0; i < liGResult.size(); i++)
-		{
-			double dblExponent = (i - nIndexCentre) / dblStandardDeviation;
-			double dblDelta = dblDeltaPeak * Math.exp(-dblExponent * dblExponent);
-
-			double dblMC = Worker.getMetricComponentOfDerivativeLevel(liGResult, null, null, None, i, mc)
-			 .getValue().doubleValue();
-			Worker.setMetricComponentOfDerivativeLevel(liGResult, null, null, None, i, mc, dblMC + dblDelta);
-		}
-
-		return liGResult;
+		mvMove.set(nSize, nIndexCentre, mc, dblDeltaPeak, dblStandardDeviation);
+		mvMove.apply(mgG);
 	}
 
 	/**
@@ -189,7 +205,8 @@ public class SimulatedAnnealing
 	/**
 	 * The annealing schedule.
 	 * <br/>
-	 * Calculate the simulated annealing temperature.
+	 * Calculate the simulated annealing temperature, using the {@link AnnealingSchedule} selected by the start
+	 * parameters.
 	 * @param nIteration
 	 *   The <code>1</code>-based iteration №.
 	 * @param nRuns
@@ -199,21 +216,26 @@ public class SimulatedAnnealing
 	 */
 	public double temperature(int nIteration, int nRuns)
 	{
-		double result = 0.0;
-		double dblFactor = 1.0 - (((double)(nIteration - 1)) / m_dblTemperatureDivisor);
-
-		if (dblFactor > 0.0)
-		{
-			result = m_dblTemperatureScalingFactor * Math.pow(dblFactor, 4.0);
-
-			if (result < 0.0)
-				result = 0.0;
-		}
+		return m_asSchedule.temperature(nIteration, nRuns);
+	}
 
- // if (result <= 4.0)
- // 	result = 4.0;
+	/**
+	 * Record the outcome of a run for the annealing schedule, which may adapt to it.
+	 * @param nIteration
+	 *   The <code>1</code>-based iteration №.
+	 * @param bAccepted
+	 *   Whether the run's move was accepted.
+	 * @param dblEnergy
+	 *   The current energy after the run.
+	 */
+	public void record(int nIteration, boolean bAccepted, double dblEnergy)
+	{
+		m_asSchedule.record(nIteration, bAccepted, dblEnergy);
+	}
 
-		return result;
+	public AnnealingSchedule getSchedule()
+	{
+		return m_asSchedule;
 	}
 
 	/*
@@ -0,0 +1,209 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * This class publishes snapshots of the state of the runs, which can be read from any thread while the runs continue,
+ * without pausing them.
+ * <br/>
+ * The state is copied into a buffer under a sequence lock, a {@link StampedLock}: a reader copies it out
+ * optimistically, without blocking the runs, and only takes the lock to copy it again if it was written meanwhile.
+ * The runs copy their state into the buffer once every snapshot interval, whether or not anybody reads it, so a
+ * snapshot is never more than an interval old, and between refreshes the runs pay for no more than a comparison per
+ * run.
+ */
+public class SnapshotPublisher
+{
+	/**
+	 * A consistent copy of the state of the runs.
+	 */
+	public static class Snapshot
+	{
+		private int m_nRun = 0;
+		private double m_dblEnergy = Double.NaN;
+		private long m_lTimeMillis = 0L;
+		private MetricGrid m_mgG = null;
+
+		/**
+		 * The constructor.
+		 * @param nRun
+		 *   The number of runs executed.
+		 * @param dblEnergy
+		 *   The energy.
+		 * @param lTimeMillis
+		 *   The time at which the state was published, in milliseconds since the epoch.
+		 * @param mgG
+		 *   The metric tensor values, which are not copied.
+		 */
+		public Snapshot(int nRun, double dblEnergy, long lTimeMillis, MetricGrid mgG)
+		{
+			m_nRun = nRun;
+			m_dblEnergy = dblEnergy;
+			m_lTimeMillis = lTimeMillis;
+			m_mgG = mgG;
+		}
+
+		public int getRun()
+		{
+			return m_nRun;
+		}
+
+		public double getEnergy()
+		{
+			return m_dblEnergy;
+		}
+
+		public long getTimeMillis()
+		{
+			return m_lTimeMillis;
+		}
+
+		/**
+		 * @return
+		 *   The metric tensor values, which belong to the reader, with their derivatives and energy terms not
+		 *   calculated.
+		 */
+		public MetricGrid getMetricGrid()
+		{
+			return m_mgG;
+		}
+	}
+
+	private final int m_nSnapshotInterval;
+	private final StampedLock m_slLock = new StampedLock();
+
+	// Written only by the thread executing the runs
+	private int m_nRunPublished = 0;
+
+	// The buffer, guarded by the lock
+	private int m_nRun = 0;
+	private double m_dblEnergy = Double.NaN;
+	private long m_lTimeMillis = 0L;
+	private double[] m_adblR = null;
+	private double[] m_adblA = null;
+	private double[] m_adblB = null;
+
+	/**
+	 * The constructor.
+	 * @param nSnapshotInterval
+	 *   The least number of runs between refreshes of the snapshot.
+	 */
+	public SnapshotPublisher(int nSnapshotInterval)
+	{
+		m_nSnapshotInterval = nSnapshotInterval;
+	}
+
+	/**
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @return
+	 *   Whether the snapshot should be refreshed, because a snapshot interval has passed since it was last refreshed.
+	 *   This is called only by the thread executing the runs.
+	 */
+	public boolean due(int nRun)
+	{
+		return nRun - m_nRunPublished >= m_nSnapshotInterval;
+	}
+
+	/**
+	 * Refresh the snapshot with a copy of the state of the runs. This is called only by the thread executing the runs.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param dblEnergy
+	 *   The current energy.
+	 * @param mgG
+	 *   The current metric tensor values.
+	 */
+	public void publish(int nRun, double dblEnergy, MetricGrid mgG)
+	{
+		m_nRunPublished = nRun;
+		int nSize = mgG.size();
+		long lStamp = m_slLock.writeLock();
+
+		try
+		{
+			if ((m_adblR == null) || (m_adblR.length != nSize))
+			{
+				m_adblR = new double[nSize];
+				m_adblA = new double[nSize];
+				m_adblB = new double[nSize];
+			}
+
+			System.arraycopy(mgG.getRValues(),                       0, m_adblR, 0, nSize);
+			System.arraycopy(mgG.getValues(None, MetricComponent.A), 0, m_adblA, 0, nSize);
+			System.arraycopy(mgG.getValues(None, MetricComponent.B), 0, m_adblB, 0, nSize);
+			m_nRun = nRun;
+			m_dblEnergy = dblEnergy;
+			m_lTimeMillis = System.currentTimeMillis();
+		}
+		finally
+		{
+			m_slLock.unlockWrite(lStamp);
+		}
+	}
+
+	/**
+	 * Read a copy of the latest snapshot. This may be called from any thread, and never waits for the runs other than
+	 * while a refresh is being copied.
+	 * @return
+	 *   The latest snapshot, or <code>null</code> if none has been published.
+	 */
+	public Snapshot read()
+	{
+		long lStamp = m_slLock.tryOptimisticRead();
+		int nRun = m_nRun;
+		double dblEnergy = m_dblEnergy;
+		long lTimeMillis = m_lTimeMillis;
+		double[][] aadblCopy = copy();
+
+		// The buffer was written while it was being copied, so the copy may be inconsistent
+		if (!m_slLock.validate(lStamp))
+		{
+			lStamp = m_slLock.readLock();
+
+			try
+			{
+				nRun = m_nRun;
+				dblEnergy = m_dblEnergy;
+				lTimeMillis = m_lTimeMillis;
+				aadblCopy = copy();
+			}
+			finally
+			{
+				m_slLock.unlockRead(lStamp);
+			}
+		}
+
+		Snapshot snResult = null;
+
+		if (aadblCopy != null)
+			snResult = new Snapshot(nRun, dblEnergy, lTimeMillis, new MetricGrid(aadblCopy[0], aadblCopy[1],
+			 aadblCopy[2]));
+
+		return snResult;
+	}
+
+	/**
+	 * @return
+	 *   A copy of the radius and metric component values of the buffer, or <code>null</code> if it is empty. The copy
+	 *   is only consistent if the buffer was not written meanwhile, so nothing is made of it here, and each array is
+	 *   copied at its own length, so that a copy made while the buffer was being replaced cannot throw.
+	 */
+	private double[][] copy()
+	{
+		double[] adblR = m_adblR;
+		double[] adblA = m_adblA;
+		double[] adblB = m_adblB;
+		double[][] aadblResult = null;
+
+		if ((adblR != null) && (adblA != null) && (adblB != null))
+			aadblResult = new double[][] {Arrays.copyOf(adblR, adblR.length), Arrays.copyOf(adblA, adblA.length),
+			 Arrays.copyOf(adblB, adblB.length)};
+
+		return aadblResult;
+	}
+}
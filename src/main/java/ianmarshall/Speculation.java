@@ -0,0 +1,177 @@
+package ianmarshall;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class evaluates the candidate moves of consecutive runs of a chain concurrently, each on its own copy of the
+ * chain (a lane), from the same current state.
+ * <br/>
+ * The proposals of runs <code>n, n+1, ...</code> are made in parallel, and are then decided in order: the runs before
+ * the first accepted move are rejections, exactly as they would have been had they been executed one at a time, since
+ * the state did not change between them. The first accepted move is copied to every other lane, and the proposals after
+ * it are discarded, to be made again from the new state. Since the random numbers of a run depend only on the run
+ * number, the chain follows exactly the same trajectory as when its runs are executed one at a time.
+ * <br/>
+ * The first lane is the chain supplied, whose proposals are made on the calling thread.
+ */
+public class Speculation implements AutoCloseable
+{
+	private Chain[] m_achLanes = null;
+	private ExecutorService m_esExecutor = null;
+
+	/**
+	 * The constructor.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @param chChain
+	 *   The chain, which is the first lane.
+	 * @param rsRandom
+	 *   The random number stream of the chain, of which each other lane has a copy.
+	 * @param nLanes
+	 *   The number of lanes, which is at least 2.
+	 */
+	public Speculation(StartParameters spStartParameters, Chain chChain, RandomStream rsRandom, int nLanes)
+	{
+		m_achLanes = new Chain[nLanes];
+		m_achLanes[0] = chChain;
+
+		for (int j = 1; j < nLanes; j++)
+		{
+			RandomStream rsLane = rsRandom.copy();
+			SimulatedAnnealing saSimulatedAnnealing = new SimulatedAnnealing(spStartParameters, rsLane);
+			m_achLanes[j] = new Chain(saSimulatedAnnealing, rsLane, spStartParameters.getEnergyMode());
+		}
+
+		m_esExecutor = Executors.newFixedThreadPool(nLanes - 1);
+	}
+
+	/**
+	 * Set the metric tensor values of every lane to copies of those of the chain, which must have been set.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 */
+	public void start(int nRun)
+	{
+		for (int j = 1; j < m_achLanes.length; j++)
+			m_achLanes[j].setMetricGrid(m_achLanes[0].getMetricGrid().copy(), nRun);
+	}
+
+	public int getLanes()
+	{
+		return m_achLanes.length;
+	}
+
+	/**
+	 * Make the proposals of consecutive runs concurrently, one per lane.
+	 * @param nRunFrom
+	 *   The run number of the first lane's proposal.
+	 * @param nLanes
+	 *   The number of lanes, and so of runs, to be proposed, from the first.
+	 */
+	public void propose(int nRunFrom, int nLanes)
+	{
+		List<Future<?>> liFutures = new ArrayList<>(nLanes - 1);
+
+		for (int j = 1; j < nLanes; j++)
+		{
+			Chain ch = m_achLanes[j];
+			int nRun = nRunFrom + j;
+			liFutures.add(m_esExecutor.submit(() -> ch.propose(nRun)));
+		}
+
+		m_achLanes[0].propose(nRunFrom);
+
+		try
+		{
+			for (Future<?> f: liFutures)
+				f.get();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(String.format("Run number %s: interrupted while proposing moves.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(nRunFrom)), e);
+		}
+		catch (ExecutionException e)
+		{
+			throw new RuntimeException(String.format("Run number %s: a lane failed to propose a move.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(nRunFrom)), e.getCause());
+		}
+	}
+
+	/**
+	 * Accept a lane's proposal, or undo it, and if it is accepted, copy it to every other lane, discarding their
+	 * proposals which have not been decided.
+	 * @param nLane
+	 *   The lane, whose proposal is the first not yet decided.
+	 * @param nLanes
+	 *   The number of lanes which made proposals.
+	 * @param dblTemperature
+	 *   The simulated annealing temperature of the lane's run.
+	 * @return
+	 *   Whether the move was accepted.
+	 */
+	public boolean decide(int nLane, int nLanes, double dblTemperature)
+	{
+		Chain chLane = m_achLanes[nLane];
+		boolean bAcceptMove = chLane.decide(dblTemperature);
+
+		if (bAcceptMove)
+		{
+			discard(nLane + 1, nLanes);
+
+			for (int j = 0; j < m_achLanes.length; j++)
+				if (j != nLane)
+					m_achLanes[j].follow(chLane);
+		}
+
+		return bAcceptMove;
+	}
+
+	/**
+	 * Undo the proposals of a range of lanes, which have not been decided.
+	 * @param nLaneFrom
+	 *   The first lane.
+	 * @param nLanes
+	 *   The number of lanes which made proposals.
+	 */
+	public void discard(int nLaneFrom, int nLanes)
+	{
+		for (int j = nLaneFrom; j < nLanes; j++)
+			m_achLanes[j].discard();
+	}
+
+	/**
+	 * @param nLane
+	 *   The lane.
+	 * @return
+	 *   The move of the lane's latest proposal.
+	 */
+	public Move getMove(int nLane)
+	{
+		return m_achLanes[nLane].getMove();
+	}
+
+	/**
+	 * Recalculate the current energy of every lane over all radius values.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 * @see Chain#checkEnergy(int)
+	 */
+	public void checkEnergy(int nRun)
+	{
+		for (Chain ch: m_achLanes)
+			ch.checkEnergy(nRun);
+	}
+
+	@Override
+	public void close()
+	{
+		m_esExecutor.shutdown();
+	}
+}
@@ -1,14 +1,25 @@
 package ianmarshall;
 
+import ianmarshall.AnnealingSchedule.Type;
+import ianmarshall.EnergyEvaluator.Implementation;
+import ianmarshall.SimulatedAnnealing.EnergyMode;
+import ianmarshall.Supervisor.Mode;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class StartParameters
+public class StartParameters implements Cloneable
 {
 	private static final Logger logger = LoggerFactory.getLogger(StartParameters.class);
-	private static int N_NUMBER_OF_ARGS = 5;
+	private static int N_NUMBER_OF_ARGS = 5;    // The number of required arguments
 
 
 	// The parameters' argument names and data types
@@ -29,6 +40,169 @@ public class StartParameters
 	private static final String S_ARG_DATA_TYPE_TEMPERATURE_DIVISOR = "decimal number";
 
 
+	// The optional parameters' argument names and data types
+
+	public static final String S_ARG_NAME_ENERGY_MODE = "energyMode";
+	private static final String S_ARG_DATA_TYPE_ENERGY_MODE = "full|incremental";
+
+	public static final String S_ARG_NAME_ENERGY_CHECK_INTERVAL = "energyCheckInterval";
+	private static final String S_ARG_DATA_TYPE_ENERGY_CHECK_INTERVAL = "whole number";
+
+	public static final String S_ARG_NAME_ENERGY_EVALUATOR = "energyEvaluator";
+	private static final String S_ARG_DATA_TYPE_ENERGY_EVALUATOR = "scalar|vector";
+
+	public static final String S_ARG_NAME_TELEMETRY_INTERVAL_RUNS = "telemetryIntervalRuns";
+	private static final String S_ARG_DATA_TYPE_TELEMETRY_INTERVAL_RUNS = "whole number";
+
+	public static final String S_ARG_NAME_TELEMETRY_INTERVAL_MILLIS = "telemetryIntervalMillis";
+	private static final String S_ARG_DATA_TYPE_TELEMETRY_INTERVAL_MILLIS = "whole number";
+
+	public static final String S_ARG_NAME_MOVE_JOURNAL = "moveJournal";
+	private static final String S_ARG_DATA_TYPE_MOVE_JOURNAL = "file path";
+
+	public static final String S_ARG_NAME_SEED = "seed";
+	private static final String S_ARG_DATA_TYPE_SEED = "whole number";
+
+	public static final String S_ARG_NAME_SCHEDULE = "schedule";
+	private static final String S_ARG_DATA_TYPE_SCHEDULE = "quartic|exponential|logarithmic|adaptive|reheat";
+
+	public static final String S_ARG_NAME_TARGET_ACCEPTANCE_RATE = "targetAcceptanceRate";
+	private static final String S_ARG_DATA_TYPE_TARGET_ACCEPTANCE_RATE = "decimal number";
+
+	public static final String S_ARG_NAME_STAGNATION_RUNS = "stagnationRuns";
+	private static final String S_ARG_DATA_TYPE_STAGNATION_RUNS = "whole number";
+
+	public static final String S_ARG_NAME_CONVERGENCE_WINDOW = "convergenceWindow";
+	private static final String S_ARG_DATA_TYPE_CONVERGENCE_WINDOW = "whole number";
+
+	public static final String S_ARG_NAME_CONVERGENCE_TOLERANCE = "convergenceTolerance";
+	private static final String S_ARG_DATA_TYPE_CONVERGENCE_TOLERANCE = "decimal number";
+
+	public static final String S_ARG_NAME_ENERGY_TARGET = "energyTarget";
+	private static final String S_ARG_DATA_TYPE_ENERGY_TARGET = "decimal number";
+
+	public static final String S_ARG_NAME_ACCEPTANCE_RATE_FLOOR = "acceptanceRateFloor";
+	private static final String S_ARG_DATA_TYPE_ACCEPTANCE_RATE_FLOOR = "decimal number";
+
+	public static final String S_ARG_NAME_MODE = "mode";
+	private static final String S_ARG_DATA_TYPE_MODE = "single|tempering|ensemble|checkerboard|island|multigrid";
+
+	public static final String S_ARG_NAME_REPLICAS = "replicas";
+	private static final String S_ARG_DATA_TYPE_REPLICAS = "whole number";
+
+	public static final String S_ARG_NAME_SWAP_INTERVAL = "swapInterval";
+	private static final String S_ARG_DATA_TYPE_SWAP_INTERVAL = "whole number";
+
+	public static final String S_ARG_NAME_MINIMUM_TEMPERATURE = "minimumTemperature";
+	private static final String S_ARG_DATA_TYPE_MINIMUM_TEMPERATURE = "decimal number";
+
+	public static final String S_ARG_NAME_SPECULATIVE_THREADS = "speculativeThreads";
+	private static final String S_ARG_DATA_TYPE_SPECULATIVE_THREADS = "whole number";
+
+	public static final String S_ARG_NAME_WINDOW_WIDTH = "windowWidth";
+	private static final String S_ARG_DATA_TYPE_WINDOW_WIDTH = "whole number";
+
+	public static final String S_ARG_NAME_SWEEP_MOVES = "sweepMoves";
+	private static final String S_ARG_DATA_TYPE_SWEEP_MOVES = "whole number";
+
+	public static final String S_ARG_NAME_INITIAL_A = "initialA";
+	private static final String S_ARG_DATA_TYPE_INITIAL_A = "decimal number";
+
+	public static final String S_ARG_NAME_INITIAL_B = "initialB";
+	private static final String S_ARG_DATA_TYPE_INITIAL_B = "decimal number";
+
+	public static final String S_ARG_NAME_ISLAND_DIRECTORY = "islandDirectory";
+	private static final String S_ARG_DATA_TYPE_ISLAND_DIRECTORY = "directory path";
+
+	public static final String S_ARG_NAME_ISLAND_ID = "islandId";
+	private static final String S_ARG_DATA_TYPE_ISLAND_ID = "whole number";
+
+	public static final String S_ARG_NAME_MIGRATION_INTERVAL = "migrationInterval";
+	private static final String S_ARG_DATA_TYPE_MIGRATION_INTERVAL = "whole number";
+
+	public static final String S_ARG_NAME_SNAPSHOT_INTERVAL = "snapshotInterval";
+	private static final String S_ARG_DATA_TYPE_SNAPSHOT_INTERVAL = "whole number";
+
+	public static final String S_ARG_NAME_METRICS_PORT = "metricsPort";
+	private static final String S_ARG_DATA_TYPE_METRICS_PORT = "port number";
+
+	public static final String S_ARG_NAME_CHECKPOINT_FILE = "checkpointFile";
+	private static final String S_ARG_DATA_TYPE_CHECKPOINT_FILE = "file path";
+
+	public static final String S_ARG_NAME_CHECKPOINT_INTERVAL = "checkpointInterval";
+	private static final String S_ARG_DATA_TYPE_CHECKPOINT_INTERVAL = "whole number";
+
+	public static final String S_ARG_NAME_RESUME_FROM = "resumeFrom";
+	private static final String S_ARG_DATA_TYPE_RESUME_FROM = "file path";
+
+	public static final String S_ARG_NAME_WARM_START = "warmStart";
+	private static final String S_ARG_DATA_TYPE_WARM_START = "file path";
+
+	public static final String S_ARG_NAME_RESULT_FILE = "resultFile";
+	private static final String S_ARG_DATA_TYPE_RESULT_FILE = "file path";
+
+	public static final String S_ARG_NAME_TRAJECTORY_FILE = "trajectoryFile";
+	private static final String S_ARG_DATA_TYPE_TRAJECTORY_FILE = "file path";
+
+	public static final String S_ARG_NAME_TRAJECTORY_BUCKETS = "trajectoryBuckets";
+	private static final String S_ARG_DATA_TYPE_TRAJECTORY_BUCKETS = "comma-separated whole numbers";
+
+	public static final String S_ARG_NAME_MULTIGRID_LEVELS = "multigridLevels";
+	private static final String S_ARG_DATA_TYPE_MULTIGRID_LEVELS = "whole number";
+
+	public static final String S_ARG_NAME_MULTIGRID_FINE_SHARE = "multigridFineShare";
+	private static final String S_ARG_DATA_TYPE_MULTIGRID_FINE_SHARE = "decimal number";
+
+	// The maximum number of moves of a window per half-sweep, whose random numbers must fit in a block of its stream
+	private static final int N_SWEEP_MOVES_MAX = 16384;
+
+	private static final String[] AS_ARG_NAMES =
+	{
+		S_ARG_NAME_NUMBER_OF_RUNS,
+		S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR,
+		S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR,
+		S_ARG_NAME_TEMPERATURE_SCALING_FACTOR,
+		S_ARG_NAME_TEMPERATURE_DIVISOR,
+		S_ARG_NAME_ENERGY_MODE,
+		S_ARG_NAME_ENERGY_CHECK_INTERVAL,
+		S_ARG_NAME_ENERGY_EVALUATOR,
+		S_ARG_NAME_TELEMETRY_INTERVAL_RUNS,
+		S_ARG_NAME_TELEMETRY_INTERVAL_MILLIS,
+		S_ARG_NAME_MOVE_JOURNAL,
+		S_ARG_NAME_SEED,
+		S_ARG_NAME_SCHEDULE,
+		S_ARG_NAME_TARGET_ACCEPTANCE_RATE,
+		S_ARG_NAME_STAGNATION_RUNS,
+		S_ARG_NAME_CONVERGENCE_WINDOW,
+		S_ARG_NAME_CONVERGENCE_TOLERANCE,
+		S_ARG_NAME_ENERGY_TARGET,
+		S_ARG_NAME_ACCEPTANCE_RATE_FLOOR,
+		S_ARG_NAME_MODE,
+		S_ARG_NAME_REPLICAS,
+		S_ARG_NAME_SWAP_INTERVAL,
+		S_ARG_NAME_MINIMUM_TEMPERATURE,
+		S_ARG_NAME_SPECULATIVE_THREADS,
+		S_ARG_NAME_WINDOW_WIDTH,
+		S_ARG_NAME_SWEEP_MOVES,
+		S_ARG_NAME_INITIAL_A,
+		S_ARG_NAME_INITIAL_B,
+		S_ARG_NAME_ISLAND_DIRECTORY,
+		S_ARG_NAME_ISLAND_ID,
+		S_ARG_NAME_MIGRATION_INTERVAL,
+		S_ARG_NAME_SNAPSHOT_INTERVAL,
+		S_ARG_NAME_METRICS_PORT,
+		S_ARG_NAME_CHECKPOINT_FILE,
+		S_ARG_NAME_CHECKPOINT_INTERVAL,
+		S_ARG_NAME_RESUME_FROM,
+		S_ARG_NAME_WARM_START,
+		S_ARG_NAME_RESULT_FILE,
+		S_ARG_NAME_TRAJECTORY_FILE,
+		S_ARG_NAME_TRAJECTORY_BUCKETS,
+		S_ARG_NAME_MULTIGRID_LEVELS,
+		S_ARG_NAME_MULTIGRID_FINE_SHARE
+	};
+
+
 	// The parameters' fields
 	private int m_nRuns = 0;
 	private double m_dblNeighbourPeakScalingFactor = 0.0;
@@ -36,6 +210,49 @@ public class StartParameters
 	private double m_dblTemperatureScalingFactor = 0.0;
 	private double m_dblTemperatureDivisor = 0.0;
 
+	// The optional parameters' fields, with their default values
+	private EnergyMode m_emEnergyMode = EnergyMode.INCREMENTAL;
+	private int m_nEnergyCheckInterval = 100000;
+	private Implementation m_imEnergyEvaluator = Implementation.SCALAR;
+	private int m_nTelemetryIntervalRuns = 100000;
+	private long m_lTelemetryIntervalMillis = 0L;
+	private String m_sMoveJournal = "";
+	private long m_lSeed = System.nanoTime();
+	private Type m_tSchedule = Type.QUARTIC;
+	private double m_dblTargetAcceptanceRate = 0.3;
+	private int m_nStagnationRuns = 100000;
+	private int m_nConvergenceWindow = 0;
+	private double m_dblConvergenceTolerance = 1.0E-6;
+	private double m_dblEnergyTarget = Double.NaN;
+	private double m_dblAcceptanceRateFloor = 0.0;
+	private Mode m_mMode = Mode.SINGLE;
+	private int m_nReplicas = Runtime.getRuntime().availableProcessors();
+	private int m_nSwapInterval = 1000;
+	private double m_dblMinimumTemperature = 0.001;
+	private int m_nSpeculativeThreads = 1;
+	private int m_nWindowWidth = 64;
+	private int m_nSweepMoves = 32;
+	private double m_dblInitialA = 1.0;
+	private double m_dblInitialB = -1.0;
+	private String m_sIslandDirectory = "";
+	private int m_nIslandId = 0;
+	private int m_nMigrationInterval = 100000;
+	private int m_nSnapshotInterval = 10000;
+	private int m_nMetricsPort = 0;
+	private String m_sCheckpointFile = "";
+	private int m_nCheckpointInterval = 1000000;
+	private String m_sResumeFrom = "";
+	private String m_sWarmStart = "";
+	private MetricGrid m_mgWarmStart = null;
+	private String m_sResultFile = "";
+	private String m_sTrajectoryFile = "";
+	private int[] m_anTrajectoryBuckets = {1000, 100000, 10000000};
+	private int m_nMultigridLevels = 3;
+	private double m_dblMultigridFineShare = 0.5;
+
+	// The parameters' values as supplied, by argument name
+	private Map<String, String> m_mapArgs = new LinkedHashMap<>();
+
 	public StartParameters()
 	{
 	}
@@ -65,12 +282,390 @@ public class StartParameters
 		return m_dblTemperatureDivisor;
 	}
 
+	public EnergyMode getEnergyMode()
+	{
+		return m_emEnergyMode;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs between recalculations of the whole energy, which bound the drift of the incrementally
+	 *   calculated energy.
+	 */
+	public int getEnergyCheckInterval()
+	{
+		return m_nEnergyCheckInterval;
+	}
+
+	public Implementation getEnergyEvaluator()
+	{
+		return m_imEnergyEvaluator;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs between progress summaries, or <code>0</code> if they are not logged by the number of runs.
+	 */
+	public int getTelemetryIntervalRuns()
+	{
+		return m_nTelemetryIntervalRuns;
+	}
+
+	/**
+	 * @return
+	 *   The number of milliseconds between progress summaries, or <code>0</code> if they are not logged by time.
+	 */
+	public long getTelemetryIntervalMillis()
+	{
+		return m_lTelemetryIntervalMillis;
+	}
+
+	/**
+	 * @return
+	 *   The path of the file to which accepted moves are journalled, or an empty string if they are not journalled.
+	 */
+	public String getMoveJournal()
+	{
+		return m_sMoveJournal;
+	}
+
+	/**
+	 * @return
+	 *   The seed of the random numbers, which determines the runs' moves and whether they are accepted.
+	 */
+	public long getSeed()
+	{
+		return m_lSeed;
+	}
+
+	public Type getSchedule()
+	{
+		return m_tSchedule;
+	}
+
+	/**
+	 * @return
+	 *   The rate of acceptance of moves at the first run targeted by the adaptive annealing schedule.
+	 */
+	public double getTargetAcceptanceRate()
+	{
+		return m_dblTargetAcceptanceRate;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs without a new lowest energy after which the reheating annealing schedule is reheated.
+	 */
+	public int getStagnationRuns()
+	{
+		return m_nStagnationRuns;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs of each window over which convergence is checked, or <code>0</code> if it is not checked.
+	 */
+	public int getConvergenceWindow()
+	{
+		return m_nConvergenceWindow;
+	}
+
+	/**
+	 * @return
+	 *   The fraction of the lowest energy within a convergence window by which that within the next window must differ
+	 *   for the runs to continue.
+	 */
+	public double getConvergenceTolerance()
+	{
+		return m_dblConvergenceTolerance;
+	}
+
+	/**
+	 * @return
+	 *   The energy at or below which the runs end, or <code>NaN</code> if there is no target.
+	 */
+	public double getEnergyTarget()
+	{
+		return m_dblEnergyTarget;
+	}
+
+	/**
+	 * @return
+	 *   The rate of acceptance over a convergence window below which the runs end, or <code>0</code> if there is none.
+	 */
+	public double getAcceptanceRateFloor()
+	{
+		return m_dblAcceptanceRateFloor;
+	}
+
+	/**
+	 * @return
+	 *   Whether the runs are executed by a single worker, or by replicas of parallel tempering.
+	 */
+	public Mode getMode()
+	{
+		return m_mMode;
+	}
+
+	/**
+	 * @return
+	 *   The number of replicas of parallel tempering, each of which runs on its own thread.
+	 */
+	public int getReplicas()
+	{
+		return m_nReplicas;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs of each replica between attempts to exchange the states of replicas.
+	 */
+	public int getSwapInterval()
+	{
+		return m_nSwapInterval;
+	}
+
+	/**
+	 * @return
+	 *   The temperature of the coldest replica of parallel tempering.
+	 */
+	public double getMinimumTemperature()
+	{
+		return m_dblMinimumTemperature;
+	}
+
+	/**
+	 * @return
+	 *   The number of consecutive runs of a worker whose candidate moves are proposed concurrently, each on its own
+	 *   thread, or <code>1</code> if the runs are executed one at a time.
+	 */
+	public int getSpeculativeThreads()
+	{
+		return m_nSpeculativeThreads;
+	}
+
+	/**
+	 * @return
+	 *   The number of radius values of each window of a checkerboard sweep.
+	 */
+	public int getWindowWidth()
+	{
+		return m_nWindowWidth;
+	}
+
+	/**
+	 * @return
+	 *   The number of moves made in each window of a checkerboard sweep in each half-sweep.
+	 */
+	public int getSweepMoves()
+	{
+		return m_nSweepMoves;
+	}
+
+	/**
+	 * @return
+	 *   The value of the metric component A at every radius value at the start of the runs.
+	 */
+	public double getInitialA()
+	{
+		return m_dblInitialA;
+	}
+
+	/**
+	 * @return
+	 *   The value of the metric component B at every radius value at the start of the runs.
+	 */
+	public double getInitialB()
+	{
+		return m_dblInitialB;
+	}
+
+	/**
+	 * @return
+	 *   The directory shared by the islands, through which they exchange their states, or an empty string if none
+	 *   was supplied.
+	 */
+	public String getIslandDirectory()
+	{
+		return m_sIslandDirectory;
+	}
+
+	/**
+	 * @return
+	 *   The identifier of this island, which is unique among the islands sharing the directory.
+	 */
+	public int getIslandId()
+	{
+		return m_nIslandId;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs of an island between exchanges of its state with those of the other islands.
+	 */
+	public int getMigrationInterval()
+	{
+		return m_nMigrationInterval;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs of a worker between refreshes of its live snapshot.
+	 */
+	public int getSnapshotInterval()
+	{
+		return m_nSnapshotInterval;
+	}
+
+	/**
+	 * @return
+	 *   The port of the local host on which the progress of the runs is served over HTTP, or <code>0</code> if it is
+	 *   not.
+	 */
+	public int getMetricsPort()
+	{
+		return m_nMetricsPort;
+	}
+
+	/**
+	 * @return
+	 *   The path of the file to which a worker writes checkpoints of its state, or an empty string if it does not.
+	 */
+	public String getCheckpointFile()
+	{
+		return m_sCheckpointFile;
+	}
+
+	/**
+	 * @return
+	 *   The number of runs of a worker between checkpoints.
+	 */
+	public int getCheckpointInterval()
+	{
+		return m_nCheckpointInterval;
+	}
+
+	/**
+	 * @return
+	 *   The path of the checkpoint from which a worker resumes its runs, or an empty string if it starts them afresh.
+	 */
+	public String getResumeFrom()
+	{
+		return m_sResumeFrom;
+	}
+
+	/**
+	 * @return
+	 *   The path of the file of previous results from which the runs start, or an empty string if they start from the
+	 *   initial values of the metric components.
+	 */
+	public String getWarmStart()
+	{
+		return m_sWarmStart;
+	}
+
+	/**
+	 * @return
+	 *   The metric component values read from the file of previous results, on the grid of the runs which produced
+	 *   them, or <code>null</code> if the runs start from the initial values of the metric components.
+	 */
+	public MetricGrid getWarmStartValues()
+	{
+		return m_mgWarmStart;
+	}
+
+	/**
+	 * @return
+	 *   The path of the binary columnar file to which the final state of the runs is written, or an empty string if it
+	 *   is not written.
+	 */
+	public String getResultFile()
+	{
+		return m_sResultFile;
+	}
+
+	/**
+	 * @return
+	 *   The path of the store to which a worker writes the downsampled trajectory of its runs, or an empty string if it
+	 *   is not written.
+	 */
+	public String getTrajectoryFile()
+	{
+		return m_sTrajectoryFile;
+	}
+
+	/**
+	 * @return
+	 *   The sizes of the buckets of runs of the trajectory, in ascending order, each a multiple of the one before it.
+	 */
+	public int[] getTrajectoryBuckets()
+	{
+		return m_anTrajectoryBuckets.clone();
+	}
+
+	/**
+	 * @return
+	 *   The number of grids of the multigrid mode, including the finest.
+	 */
+	public int getMultigridLevels()
+	{
+		return m_nMultigridLevels;
+	}
+
+	/**
+	 * @return
+	 *   The share of the runs of the multigrid mode executed on the finest grid.
+	 */
+	public double getMultigridFineShare()
+	{
+		return m_dblMultigridFineShare;
+	}
+
+	/**
+	 * @param nRuns
+	 *   A number of runs.
+	 * @return
+	 *   A copy of these start parameters, with the number of runs supplied and the temperature divisor scaled in
+	 *   proportion to it, so that the annealing schedule is followed over those runs. It shares their other values.
+	 */
+	StartParameters withNumberOfRuns(int nRuns)
+	{
+		StartParameters spResult;
+
+		try
+		{
+			spResult = (StartParameters)super.clone();
+		}
+		catch (CloneNotSupportedException e)
+		{
+			throw new IllegalStateException("The start parameters could not be copied.", e);
+		}
+
+		spResult.m_nRuns = nRuns;
+		spResult.m_dblTemperatureDivisor = m_dblTemperatureDivisor * nRuns / m_nRuns;
+		return spResult;
+	}
+
+	/**
+	 * @return
+	 *   The values of the optional parameters which were supplied, by argument name.
+	 */
+	public Map<String, String> getOptionalArguments()
+	{
+		Map<String, String> mapResult = new LinkedHashMap<>(m_mapArgs);
+
+		for (int i = 0; i < N_NUMBER_OF_ARGS; i++)
+			mapResult.remove(AS_ARG_NAMES[i]);
+
+		return mapResult;
+	}
+
 	public void showUsage()
 	{
-		String sMsg = String.format(
+		StringBuilder sbMsg = new StringBuilder(String.format(
 		   "%nUsage"
 		 + "%n-----"
-		 + "%n  %s %s [%s] %s [%s] %s [%s] %s [%s] %s [%s]%n"
+		 + "%n  %s %s [%s] %s [%s] %s [%s] %s [%s] %s [%s] [optional parameters]%n"
 		 + "%n[%2$s] is the number of runs to be executed by the worker (calculation processor)."
 		 + " This must be greater than zero."
 		 + "%n[%4$s] is the scaling factor to be applied to changes of neighbouring values in a iteration."
@@ -81,15 +676,233 @@ public class StartParameters
 		 + " This must be greater than zero."
 		 + "%n[%10$s] is the divisor to be used when calculating the annealing temperature."
 		 + " This must be greater than zero."
-		 + "%n",
+		 + "%n"
+		 + "%nThe optional parameters, each of which is a name followed by a value, are:",
 		 SchwarzschildSimulatedAnnealing.class.getSimpleName(),
 		 S_ARG_NAME_NUMBER_OF_RUNS,                      S_ARG_DATA_TYPE_NUMBER_OF_RUNS,
 		 S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR,       S_ARG_DATA_TYPE_NEIGHBOUR_PEAK_SCALING_FACTOR,
 		 S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR, S_ARG_DATA_TYPE_ACCEPTANCE_PROBILITY_SCALING_FACTOR,
 		 S_ARG_NAME_TEMPERATURE_SCALING_FACTOR,          S_ARG_DATA_TYPE_TEMPERATURE_SCALING_FACTOR,
-		 S_ARG_NAME_TEMPERATURE_DIVISOR,                 S_ARG_DATA_TYPE_TEMPERATURE_DIVISOR);
+		 S_ARG_NAME_TEMPERATURE_DIVISOR,                 S_ARG_DATA_TYPE_TEMPERATURE_DIVISOR));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is whether to recalculate the energy of all radius values for each run,"
+		 + " or only that of the radius values changed by the run. The default is \"%3$s\"."
+		 + "%n  %4$s [%5$s] is the number of runs between recalculations of the whole energy when it is calculated"
+		 + " incrementally. This must be greater than zero. The default is %6$d."
+		 + "%n  %7$s [%8$s] is whether to calculate the energy one radius value at a time, or several at a time"
+		 + " using the CPU's vector instructions. The latter requires the JVM option"
+		 + " \"--add-modules jdk.incubator.vector\". The default is \"%9$s\".",
+		 S_ARG_NAME_ENERGY_MODE,                         S_ARG_DATA_TYPE_ENERGY_MODE,
+		 m_emEnergyMode.value(),
+		 S_ARG_NAME_ENERGY_CHECK_INTERVAL,               S_ARG_DATA_TYPE_ENERGY_CHECK_INTERVAL,
+		 m_nEnergyCheckInterval,
+		 S_ARG_NAME_ENERGY_EVALUATOR,                    S_ARG_DATA_TYPE_ENERGY_EVALUATOR,
+		 m_imEnergyEvaluator.value()));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the number of runs between summaries of progress, or 0 not to log them by the number"
+		 + " of runs. This must not be negative. The default is %3$d."
+		 + "%n  %4$s [%5$s] is the number of milliseconds between summaries of progress, or 0 not to log them by"
+		 + " time. A summary is logged when either interval has passed. This must not be negative. The default is %6$d.",
+		 S_ARG_NAME_TELEMETRY_INTERVAL_RUNS,             S_ARG_DATA_TYPE_TELEMETRY_INTERVAL_RUNS,
+		 m_nTelemetryIntervalRuns,
+		 S_ARG_NAME_TELEMETRY_INTERVAL_MILLIS,           S_ARG_DATA_TYPE_TELEMETRY_INTERVAL_MILLIS,
+		 m_lTelemetryIntervalMillis));
 
-		logger.info(sMsg);
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the file to which each accepted move is written, in binary, so that the metric"
+		 + " components after any run can be rebuilt with \"%3$s [%2$s] [run number]\". At each summary of progress"
+		 + " and checkpoint the moves are flushed to the file, and a keyframe of the metric components is written to"
+		 + " the file with \"%4$s\" added to its name, from which a rebuild starts. By default moves are not"
+		 + " written."
+		 + "%n  %5$s [%6$s] is the seed of the random numbers. The same seed gives the same results. By default the"
+		 + " seed is taken from the clock.",
+		 S_ARG_NAME_MOVE_JOURNAL,                        S_ARG_DATA_TYPE_MOVE_JOURNAL,
+		 MoveJournal.class.getSimpleName(),              MoveJournal.S_KEYFRAMES_SUFFIX,
+		 S_ARG_NAME_SEED,                                S_ARG_DATA_TYPE_SEED));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the annealing schedule, where s is [%19$s] and d is [%20$s]:"
+		 + "%n    quartic     T = s(1 - (n - 1)/d)^4 until it reaches 0;"
+		 + "%n    exponential T = s exp(-(n - 1)/d);"
+		 + "%n    logarithmic T = s/(1 + ln(1 + (n - 1)/d));"
+		 + "%n    adaptive    T starts at s, and is adjusted to obtain a rate of acceptance of moves falling from"
+		 + " [%4$s] to 0;"
+		 + "%n    reheat      T falls as exponential, and is restarted from half its previous start after [%7$s] runs"
+		 + " without a new lowest energy."
+		 + "%n   The default is \"%3$s\"."
+		 + "%n  %4$s [%5$s] is the initial target rate of acceptance of the adaptive schedule. This must be greater than"
+		 + " 0 and less than 1. The default is %6$s."
+		 + "%n  %7$s [%8$s] is the number of runs without a new lowest energy after which the reheat schedule is"
+		 + " reheated. This must be greater than zero. The default is %9$d."
+		 + "%n  %10$s [%11$s] is the number of runs of each window at the end of which the runs end early if the lowest"
+		 + " energy within it has hardly changed from that within the previous window, or too few moves were accepted."
+		 + " The default is 0, which means never."
+		 + "%n  %12$s [%13$s] is the fraction of the lowest energy within a window by which that within the next window"
+		 + " must differ for the runs to continue. This must not be negative. The default is %14$s."
+		 + "%n  %15$s [%16$s] is the energy at or below which the runs end early. By default there is none."
+		 + "%n  %17$s [%18$s] is the rate of acceptance of moves over a window below which the runs end early. This must"
+		 + " be at least 0 and less than 1. The default is 0, which means never.",
+		 S_ARG_NAME_SCHEDULE,                            S_ARG_DATA_TYPE_SCHEDULE,
+		 m_tSchedule.value(),
+		 S_ARG_NAME_TARGET_ACCEPTANCE_RATE,              S_ARG_DATA_TYPE_TARGET_ACCEPTANCE_RATE,
+		 SchwarzschildSimulatedAnnealing.formatDouble(m_dblTargetAcceptanceRate),
+		 S_ARG_NAME_STAGNATION_RUNS,                     S_ARG_DATA_TYPE_STAGNATION_RUNS,
+		 m_nStagnationRuns,
+		 S_ARG_NAME_CONVERGENCE_WINDOW,                  S_ARG_DATA_TYPE_CONVERGENCE_WINDOW,
+		 S_ARG_NAME_CONVERGENCE_TOLERANCE,               S_ARG_DATA_TYPE_CONVERGENCE_TOLERANCE,
+		 Double.toString(m_dblConvergenceTolerance),
+		 S_ARG_NAME_ENERGY_TARGET,                       S_ARG_DATA_TYPE_ENERGY_TARGET,
+		 S_ARG_NAME_ACCEPTANCE_RATE_FLOOR,               S_ARG_DATA_TYPE_ACCEPTANCE_RATE_FLOOR,
+		 S_ARG_NAME_TEMPERATURE_SCALING_FACTOR,
+		 S_ARG_NAME_TEMPERATURE_DIVISOR));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is whether the runs are executed by a single worker following the annealing schedule,"
+		 + " by replicas at fixed temperatures from [%9$s] to [%25$s] in geometric progression, each on its own thread,"
+		 + " which exchange their states (parallel tempering), by an ensemble of independent workers with their own"
+		 + " seeds, the result of lowest energy of which is selected, by checkerboard sweeps, in which alternate"
+		 + " windows of [%16$s] radius values are annealed concurrently with [%19$s] moves each, or by a single worker"
+		 + " which is one of several islands, each a process of its own, which exchange their states through [%26$s],"
+		 + " or by a single worker on successively finer grids (multigrid), each continuing from the result of the"
+		 + " last, interpolated, with its own share of the [%24$s] runs and its own annealing schedule over them."
+		 + " Each replica or worker executes [%24$s] runs, and each move of a checkerboard sweep counts as a run. The move"
+		 + " journal only applies to the single mode, and early ending does not apply to parallel tempering or"
+		 + " checkerboard sweeps, nor does the annealing schedule to parallel tempering. The default is \"%3$s\"."
+		 + "%n  %4$s [%5$s] is the number of replicas of parallel tempering, or of workers of an ensemble."
+		 + " This must be at least 2. The default is the number of processors, %6$d."
+		 + "%n  %7$s [%8$s] is the number of runs of each replica between attempts to exchange the states of"
+		 + " neighbouring replicas. This must be greater than zero. The default is %11$d."
+		 + "%n  %9$s [%10$s] is the temperature of the coldest replica. This must be greater than zero and less than"
+		 + " [%25$s]. The default is %12$s."
+		 + "%n  %13$s [%14$s] is the number of consecutive runs of a worker whose candidate moves are proposed"
+		 + " concurrently from the same state, each on its own thread. The runs are then decided in order, up to the first"
+		 + " accepted move, so the trajectory is exactly that of runs executed one at a time, but the rejected moves,"
+		 + " which are most of them at low temperatures, are evaluated in parallel. The default is %15$d, which means the"
+		 + " runs are executed one at a time."
+		 + "%n  %16$s [%17$s] is the number of radius values of each window of a checkerboard sweep. The moves of a window"
+		 + " are centred at least a halo margin from its ends, so this must be at least %22$d. The default is %18$d."
+		 + "%n  %19$s [%20$s] is the number of moves made in each window of a checkerboard sweep in each half-sweep. Each"
+		 + " move counts as a run. This must be from 1 to %23$d. The default is %21$d.",
+		 S_ARG_NAME_MODE,                                S_ARG_DATA_TYPE_MODE,
+		 m_mMode.value(),
+		 S_ARG_NAME_REPLICAS,                            S_ARG_DATA_TYPE_REPLICAS,
+		 m_nReplicas,
+		 S_ARG_NAME_SWAP_INTERVAL,                       S_ARG_DATA_TYPE_SWAP_INTERVAL,
+		 S_ARG_NAME_MINIMUM_TEMPERATURE,                 S_ARG_DATA_TYPE_MINIMUM_TEMPERATURE,
+		 m_nSwapInterval,
+		 SchwarzschildSimulatedAnnealing.formatDouble(m_dblMinimumTemperature),
+		 S_ARG_NAME_SPECULATIVE_THREADS,                 S_ARG_DATA_TYPE_SPECULATIVE_THREADS,
+		 m_nSpeculativeThreads,
+		 S_ARG_NAME_WINDOW_WIDTH,                        S_ARG_DATA_TYPE_WINDOW_WIDTH,
+		 m_nWindowWidth,
+		 S_ARG_NAME_SWEEP_MOVES,                         S_ARG_DATA_TYPE_SWEEP_MOVES,
+		 m_nSweepMoves,
+		 CheckerboardSweep.minimumWindowWidth(),
+		 N_SWEEP_MOVES_MAX,
+		 S_ARG_NAME_NUMBER_OF_RUNS,
+		 S_ARG_NAME_TEMPERATURE_SCALING_FACTOR,
+		 S_ARG_NAME_ISLAND_DIRECTORY));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the value of the metric component A at every radius value at the start of the runs."
+		 + " This must not be 0. The default is %3$s."
+		 + "%n  %4$s [%5$s] is the value of the metric component B at every radius value at the start of the runs."
+		 + " This must not be 0. The default is %6$s.",
+		 S_ARG_NAME_INITIAL_A,                           S_ARG_DATA_TYPE_INITIAL_A,
+		 SchwarzschildSimulatedAnnealing.formatDouble(m_dblInitialA),
+		 S_ARG_NAME_INITIAL_B,                           S_ARG_DATA_TYPE_INITIAL_B,
+		 SchwarzschildSimulatedAnnealing.formatDouble(m_dblInitialB)));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the directory shared by the islands. Every [%6$s] runs each island writes its state"
+		 + " to it, and continues from the state of lowest energy written by the other islands if that is lower than its"
+		 + " own. No island waits for another, so each continues on its own if the others die. The global best state is"
+		 + " tracked by \"%9$s [%2$s] [number of islands] [timeout seconds]\". This is required for the island mode."
+		 + "%n  %3$s [%4$s] is the identifier of this island, which must be unique among the islands sharing [%1$s],"
+		 + " and which selects its own random number stream from the seed. This must not be negative. The default is"
+		 + " %5$d."
+		 + "%n  %6$s [%7$s] is the number of runs of an island between exchanges of its state. This must be greater"
+		 + " than zero. The default is %8$d.",
+		 S_ARG_NAME_ISLAND_DIRECTORY,                    S_ARG_DATA_TYPE_ISLAND_DIRECTORY,
+		 S_ARG_NAME_ISLAND_ID,                           S_ARG_DATA_TYPE_ISLAND_ID,
+		 m_nIslandId,
+		 S_ARG_NAME_MIGRATION_INTERVAL,                  S_ARG_DATA_TYPE_MIGRATION_INTERVAL,
+		 m_nMigrationInterval,
+		 IslandCoordinator.class.getSimpleName()));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the number of runs of a worker between refreshes of the snapshot of its state which can"
+		 + " be read while it runs. This must be greater than zero. The default is %3$d."
+		 + "%n  %4$s [%5$s] is the port of the local host on which the progress of the runs is served over HTTP, at"
+		 + " the path \"%7$s\", in the Prometheus text format. It is always available as the JMX MBean \"%8$s\"."
+		 + " This must be from 0 to 65535, and 0 means it is not served over HTTP. The default is %6$d.",
+		 S_ARG_NAME_SNAPSHOT_INTERVAL,                   S_ARG_DATA_TYPE_SNAPSHOT_INTERVAL,
+		 m_nSnapshotInterval,
+		 S_ARG_NAME_METRICS_PORT,                        S_ARG_DATA_TYPE_METRICS_PORT,
+		 m_nMetricsPort,
+		 MetricsEndpoint.S_PATH,
+		 MetricsEndpoint.S_OBJECT_NAME));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the file to which a single worker or island writes a checkpoint of its state every"
+		 + " [%3$s] runs, and when it stops. Each checkpoint is written to a memory-mapped temporary file, which then"
+		 + " replaces the previous one atomically. The runs can be resumed from it with [%6$s]. By default no"
+		 + " checkpoints are written."
+		 + "%n  %3$s [%4$s] is the number of runs between checkpoints. This must be greater than zero. The default is"
+		 + " %5$d."
+		 + "%n  %6$s [%7$s] is a checkpoint from which a single worker or island resumes its runs, continuing exactly"
+		 + " as they would have if they had not been interrupted. The random number stream is that of the checkpoint,"
+		 + " and the other parameters should be those with which it was written. The annealing schedule must be, or the"
+		 + " runs are not resumed. By default the runs start afresh."
+		 + "%n  %8$s [%9$s] is a file of previous results from which the runs start, instead of from [%13$s] and"
+		 + " [%14$s]: a checkpoint, a result file, a log containing the table of final values which a worker reports,"
+		 + " or a CSV file whose rows are the radius, A and B. The values are interpolated onto the grid of the runs if"
+		 + " it differs. This cannot be combined with [%6$s]. By default the runs start from the initial values."
+		 + "%n  %10$s [%11$s] is a file to which the final state of the runs is written, in the binary columnar format"
+		 + " of the class %12$s: the columns of the final table of the log and the Ricci tensor values, as little-endian"
+		 + " doubles which can be memory-mapped without parsing. A result file can also be a [%8$s]. By default no"
+		 + " result file is written.",
+		 S_ARG_NAME_CHECKPOINT_FILE,                     S_ARG_DATA_TYPE_CHECKPOINT_FILE,
+		 S_ARG_NAME_CHECKPOINT_INTERVAL,                 S_ARG_DATA_TYPE_CHECKPOINT_INTERVAL,
+		 m_nCheckpointInterval,
+		 S_ARG_NAME_RESUME_FROM,                         S_ARG_DATA_TYPE_RESUME_FROM,
+		 S_ARG_NAME_WARM_START,                          S_ARG_DATA_TYPE_WARM_START,
+		 S_ARG_NAME_RESULT_FILE,                         S_ARG_DATA_TYPE_RESULT_FILE,
+		 ResultFile.class.getSimpleName(),
+		 S_ARG_NAME_INITIAL_A,
+		 S_ARG_NAME_INITIAL_B));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is a file to which a single worker or island writes the trajectory of its runs, in the"
+		 + " binary format of the class %5$s: for each bucket of runs, the acceptance rate and the minimum, mean and"
+		 + " maximum of the energy and temperature. The file is written by a thread of its own, and can be read while the"
+		 + " runs continue. When the runs are resumed the trajectory is appended to the file, which must have the"
+		 + " same bucket sizes. By default no trajectory is written."
+		 + "%n  %3$s [%4$s] are the sizes of the buckets of runs of [%1$s], at each of which the trajectory is"
+		 + " downsampled. Each must be a multiple of the one before it. The default is %6$s.",
+		 S_ARG_NAME_TRAJECTORY_FILE,                     S_ARG_DATA_TYPE_TRAJECTORY_FILE,
+		 S_ARG_NAME_TRAJECTORY_BUCKETS,                  S_ARG_DATA_TYPE_TRAJECTORY_BUCKETS,
+		 TrajectoryStore.class.getSimpleName(),
+		 Arrays.stream(m_anTrajectoryBuckets).mapToObj(Integer::toString).collect(Collectors.joining(","))));
+
+		sbMsg.append(String.format(
+		   "%n  %1$s [%2$s] is the number of grids of the multigrid mode, the finest of which is the usual grid. Each"
+		 + " coarser grid has about half as many radius values as the next finer one. This must be from 2 to %3$d."
+		 + " The default is %4$d."
+		 + "%n  %5$s [%6$s] is the share of [%8$s] which the multigrid mode executes on the finest grid, the rest"
+		 + " being shared equally by the coarser grids. This must be greater than 0 and less than 1. The default is"
+		 + " %7$s."
+		 + "%n",
+		 S_ARG_NAME_MULTIGRID_LEVELS,                    S_ARG_DATA_TYPE_MULTIGRID_LEVELS,
+		 Multigrid.N_LEVELS_MAX,
+		 m_nMultigridLevels,
+		 S_ARG_NAME_MULTIGRID_FINE_SHARE,                S_ARG_DATA_TYPE_MULTIGRID_FINE_SHARE,
+		 SchwarzschildSimulatedAnnealing.formatDouble(m_dblMultigridFineShare),
+		 S_ARG_NAME_NUMBER_OF_RUNS));
+
+		logger.info(sbMsg.toString());
 	}
 
 	public String parseArguments(String[] asArgs)
@@ -97,87 +910,63 @@ public class StartParameters
 		StringBuilder sbError = new StringBuilder();
 		logger.info(String.format("About to parse the command line arguments \"%s\".", Arrays.asList(asArgs)));
 
-		if (asArgs.length == 2 * N_NUMBER_OF_ARGS)
+		if ((asArgs.length >= 2 * N_NUMBER_OF_ARGS) && ((asArgs.length % 2) == 0))
 		{
-			int nIndexArgNumberOfRuns = -1;
-			int nIndexArgNeighbourPeakScalingFactor = -1;
-			int nIndexArgAcceptanceProbabilityScalingFactor = -1;
-			int nIndexArgTemperatureScalingFactor = -1;
-			int nIndexArgTemperatureDivisor = -1;
+			for (int nIndexArgName = 0; nIndexArgName < asArgs.length; nIndexArgName += 2)
+			{
+				String sArgName = findArgName(asArgs[nIndexArgName]);
+
+				if (sArgName == null)
+					appendError(sbError, String.format("The parameter \"%s\" is not recognised.", asArgs[nIndexArgName]));
+				else if (m_mapArgs.put(sArgName, asArgs[nIndexArgName + 1]) != null)
+					appendError(sbError, String.format("The parameter \"%s\" is specified more than once.", sArgName));
+			}
+
+			boolean bRequiredArgsFound = true;
 
 			for (int i = 0; i < N_NUMBER_OF_ARGS; i++)
+				bRequiredArgsFound = bRequiredArgsFound && m_mapArgs.containsKey(AS_ARG_NAMES[i]);
+
+			if (sbError.length() > 0)
 			{
-				int nIndexArgName = 2 * i;
-
-				if (S_ARG_NAME_NUMBER_OF_RUNS.equalsIgnoreCase(asArgs[nIndexArgName]))
-					nIndexArgNumberOfRuns = nIndexArgName + 1;
-				else if (S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR.equalsIgnoreCase(asArgs[nIndexArgName]))
-					nIndexArgNeighbourPeakScalingFactor = nIndexArgName + 1;
-				else if (S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR.equalsIgnoreCase(asArgs[nIndexArgName]))
-					nIndexArgAcceptanceProbabilityScalingFactor = nIndexArgName + 1;
-				else if (S_ARG_NAME_TEMPERATURE_SCALING_FACTOR.equalsIgnoreCase(asArgs[nIndexArgName]))
-					nIndexArgTemperatureScalingFactor = nIndexArgName + 1;
-				else if (S_ARG_NAME_TEMPERATURE_DIVISOR.equalsIgnoreCase(asArgs[nIndexArgName]))
-					nIndexArgTemperatureDivisor = nIndexArgName + 1;
+				// The arguments' names are in error, so their values will not be parsed
 			}
-
-			if ((nIndexArgNumberOfRuns > -1) && (nIndexArgNeighbourPeakScalingFactor > -1)
-			 && (nIndexArgAcceptanceProbabilityScalingFactor > -1) && (nIndexArgTemperatureScalingFactor > -1)
-			 && (nIndexArgTemperatureDivisor > -1))
+			else if (bRequiredArgsFound)
 			{
 				try
 				{
-					m_nRuns = Integer.parseInt(asArgs[nIndexArgNumberOfRuns]);
-					m_dblNeighbourPeakScalingFactor = Double.parseDouble(asArgs[nIndexArgNeighbourPeakScalingFactor]);
+					m_nRuns = Integer.parseInt(m_mapArgs.get(S_ARG_NAME_NUMBER_OF_RUNS));
+					m_dblNeighbourPeakScalingFactor = Double.parseDouble(m_mapArgs.get(S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR));
 					m_dblAcceptanceProbabilityScalingFactor =
-					 Double.parseDouble(asArgs[nIndexArgAcceptanceProbabilityScalingFactor]);
-					m_dblTemperatureScalingFactor = Double.parseDouble(asArgs[nIndexArgTemperatureScalingFactor]);
-					m_dblTemperatureDivisor = Double.parseDouble(asArgs[nIndexArgTemperatureDivisor]);
+					 Double.parseDouble(m_mapArgs.get(S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR));
+					m_dblTemperatureScalingFactor = Double.parseDouble(m_mapArgs.get(S_ARG_NAME_TEMPERATURE_SCALING_FACTOR));
+					m_dblTemperatureDivisor = Double.parseDouble(m_mapArgs.get(S_ARG_NAME_TEMPERATURE_DIVISOR));
 
 					if (m_nRuns <= 0)
 						sbError.append(String.format("The parameter \"%s\" of value %d must be greater than 0.",
 						 S_ARG_NAME_NUMBER_OF_RUNS, m_nRuns));
 
 					if (m_dblNeighbourPeakScalingFactor <= 0.0)
-					{
-						if (sbError.length() > 0)
-							sbError.append(" ");
-
-						sbError.append(String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
+						appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
 						 S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR, m_dblNeighbourPeakScalingFactor));
-					}
 
 					if (m_dblAcceptanceProbabilityScalingFactor <= 0.0)
-					{
-						if (sbError.length() > 0)
-							sbError.append(" ");
-
-						sbError.append(String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
+						appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
 						 S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR, m_dblAcceptanceProbabilityScalingFactor));
-					}
 
 					if (m_dblTemperatureScalingFactor <= 0.0)
-					{
-						if (sbError.length() > 0)
-							sbError.append(" ");
-
-						sbError.append(String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
+						appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
 						 S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, m_dblTemperatureScalingFactor));
-					}
-
 
 					if (m_dblTemperatureDivisor <= 0.0)
-					{
-						if (sbError.length() > 0)
-							sbError.append(" ");
-
-						sbError.append(String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
+						appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 .",
 						 S_ARG_NAME_TEMPERATURE_DIVISOR, m_dblTemperatureDivisor));
-					}
+
+					parseOptionalArguments(sbError);
 				}
 				catch (NumberFormatException e)
 				{
-					sbError.append("At least one of the parameters has an incorrect data type.");
+					appendError(sbError, "At least one of the parameters has an incorrect data type.");
 				}
 			}
 			else
@@ -188,11 +977,416 @@ public class StartParameters
 				 S_ARG_NAME_TEMPERATURE_DIVISOR));
 		}
 		else
-			sbError.append(String.format("Please specify exactly %d parameters, each with one value.", N_NUMBER_OF_ARGS));
+			sbError.append(String.format(
+			 "Please specify at least the %d required parameters, each with one value.", N_NUMBER_OF_ARGS));
 
 		if (sbError.length() > 0)
 			sbError.append(" Please see the program's usage for details.");
 
 		return sbError.toString();
 	}
+
+	/**
+	 * Parse the values of the optional parameters which were supplied, leaving the others at their default values.
+	 * @param sbError
+	 *   Any errors found will be appended to this.
+	 * @throws NumberFormatException
+	 *   If a numeric parameter value is not a number.
+	 */
+	private void parseOptionalArguments(StringBuilder sbError)
+	{
+		String sValue = m_mapArgs.get(S_ARG_NAME_ENERGY_MODE);
+		if (sValue != null)
+		{
+			m_emEnergyMode = EnergyMode.parse(sValue);
+
+			if (m_emEnergyMode == null)
+			{
+				m_emEnergyMode = EnergyMode.INCREMENTAL;
+				appendError(sbError, String.format("The parameter \"%s\" of value \"%s\" must be one of %s.",
+				 S_ARG_NAME_ENERGY_MODE, sValue, S_ARG_DATA_TYPE_ENERGY_MODE));
+			}
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_ENERGY_CHECK_INTERVAL);
+		if (sValue != null)
+		{
+			m_nEnergyCheckInterval = Integer.parseInt(sValue);
+
+			if (m_nEnergyCheckInterval <= 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be greater than 0.",
+				 S_ARG_NAME_ENERGY_CHECK_INTERVAL, m_nEnergyCheckInterval));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_ENERGY_EVALUATOR);
+		if (sValue != null)
+		{
+			m_imEnergyEvaluator = Implementation.parse(sValue);
+
+			if (m_imEnergyEvaluator == null)
+			{
+				m_imEnergyEvaluator = Implementation.SCALAR;
+				appendError(sbError, String.format("The parameter \"%s\" of value \"%s\" must be one of %s.",
+				 S_ARG_NAME_ENERGY_EVALUATOR, sValue, S_ARG_DATA_TYPE_ENERGY_EVALUATOR));
+			}
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_TELEMETRY_INTERVAL_RUNS);
+		if (sValue != null)
+		{
+			m_nTelemetryIntervalRuns = Integer.parseInt(sValue);
+
+			if (m_nTelemetryIntervalRuns < 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must not be negative.",
+				 S_ARG_NAME_TELEMETRY_INTERVAL_RUNS, m_nTelemetryIntervalRuns));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_TELEMETRY_INTERVAL_MILLIS);
+		if (sValue != null)
+		{
+			m_lTelemetryIntervalMillis = Long.parseLong(sValue);
+
+			if (m_lTelemetryIntervalMillis < 0L)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must not be negative.",
+				 S_ARG_NAME_TELEMETRY_INTERVAL_MILLIS, m_lTelemetryIntervalMillis));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_MOVE_JOURNAL);
+		if (sValue != null)
+			m_sMoveJournal = sValue;
+
+		sValue = m_mapArgs.get(S_ARG_NAME_SEED);
+		if (sValue != null)
+			m_lSeed = Long.parseLong(sValue);
+
+		sValue = m_mapArgs.get(S_ARG_NAME_SCHEDULE);
+		if (sValue != null)
+		{
+			m_tSchedule = Type.parse(sValue);
+
+			if (m_tSchedule == null)
+			{
+				m_tSchedule = Type.QUARTIC;
+				appendError(sbError, String.format("The parameter \"%s\" of value \"%s\" must be one of %s.",
+				 S_ARG_NAME_SCHEDULE, sValue, S_ARG_DATA_TYPE_SCHEDULE));
+			}
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_TARGET_ACCEPTANCE_RATE);
+		if (sValue != null)
+		{
+			m_dblTargetAcceptanceRate = Double.parseDouble(sValue);
+
+			if ((m_dblTargetAcceptanceRate <= 0.0) || (m_dblTargetAcceptanceRate >= 1.0))
+				appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 and"
+				 + " less than 1.0 .", S_ARG_NAME_TARGET_ACCEPTANCE_RATE, m_dblTargetAcceptanceRate));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_STAGNATION_RUNS);
+		if (sValue != null)
+		{
+			m_nStagnationRuns = Integer.parseInt(sValue);
+
+			if (m_nStagnationRuns <= 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be greater than 0.",
+				 S_ARG_NAME_STAGNATION_RUNS, m_nStagnationRuns));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_CONVERGENCE_WINDOW);
+		if (sValue != null)
+		{
+			m_nConvergenceWindow = Integer.parseInt(sValue);
+
+			if (m_nConvergenceWindow < 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must not be negative.",
+				 S_ARG_NAME_CONVERGENCE_WINDOW, m_nConvergenceWindow));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_CONVERGENCE_TOLERANCE);
+		if (sValue != null)
+		{
+			m_dblConvergenceTolerance = Double.parseDouble(sValue);
+
+			if (m_dblConvergenceTolerance < 0.0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %g must not be negative.",
+				 S_ARG_NAME_CONVERGENCE_TOLERANCE, m_dblConvergenceTolerance));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_ENERGY_TARGET);
+		if (sValue != null)
+			m_dblEnergyTarget = Double.parseDouble(sValue);
+
+		sValue = m_mapArgs.get(S_ARG_NAME_ACCEPTANCE_RATE_FLOOR);
+		if (sValue != null)
+		{
+			m_dblAcceptanceRateFloor = Double.parseDouble(sValue);
+
+			if ((m_dblAcceptanceRateFloor < 0.0) || (m_dblAcceptanceRateFloor >= 1.0))
+				appendError(sbError, String.format("The parameter \"%s\" of value %f must be at least 0.0 and"
+				 + " less than 1.0 .", S_ARG_NAME_ACCEPTANCE_RATE_FLOOR, m_dblAcceptanceRateFloor));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_MODE);
+		if (sValue != null)
+		{
+			m_mMode = Mode.parse(sValue);
+
+			if (m_mMode == null)
+			{
+				m_mMode = Mode.SINGLE;
+				appendError(sbError, String.format("The parameter \"%s\" of value \"%s\" must be one of %s.",
+				 S_ARG_NAME_MODE, sValue, S_ARG_DATA_TYPE_MODE));
+			}
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_REPLICAS);
+		if (sValue != null)
+		{
+			m_nReplicas = Integer.parseInt(sValue);
+
+			if (m_nReplicas < 2)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be at least 2.",
+				 S_ARG_NAME_REPLICAS, m_nReplicas));
+		}
+		else
+			m_nReplicas = Math.max(2, m_nReplicas);
+
+		sValue = m_mapArgs.get(S_ARG_NAME_SWAP_INTERVAL);
+		if (sValue != null)
+		{
+			m_nSwapInterval = Integer.parseInt(sValue);
+
+			if (m_nSwapInterval <= 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be greater than 0.",
+				 S_ARG_NAME_SWAP_INTERVAL, m_nSwapInterval));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_MINIMUM_TEMPERATURE);
+		if (sValue != null)
+			m_dblMinimumTemperature = Double.parseDouble(sValue);
+
+		if ((m_mMode == Mode.TEMPERING)
+		 && ((m_dblMinimumTemperature <= 0.0) || (m_dblMinimumTemperature >= m_dblTemperatureScalingFactor)))
+			appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 and"
+			 + " less than the parameter \"%s\".", S_ARG_NAME_MINIMUM_TEMPERATURE, m_dblMinimumTemperature,
+			 S_ARG_NAME_TEMPERATURE_SCALING_FACTOR));
+
+		sValue = m_mapArgs.get(S_ARG_NAME_SPECULATIVE_THREADS);
+		if (sValue != null)
+		{
+			m_nSpeculativeThreads = Integer.parseInt(sValue);
+
+			if (m_nSpeculativeThreads < 1)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be at least 1.",
+				 S_ARG_NAME_SPECULATIVE_THREADS, m_nSpeculativeThreads));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_WINDOW_WIDTH);
+		if (sValue != null)
+		{
+			m_nWindowWidth = Integer.parseInt(sValue);
+
+			if (m_nWindowWidth < CheckerboardSweep.minimumWindowWidth())
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be at least %d.",
+				 S_ARG_NAME_WINDOW_WIDTH, m_nWindowWidth, CheckerboardSweep.minimumWindowWidth()));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_SWEEP_MOVES);
+		if (sValue != null)
+		{
+			m_nSweepMoves = Integer.parseInt(sValue);
+
+			if ((m_nSweepMoves < 1) || (m_nSweepMoves > N_SWEEP_MOVES_MAX))
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be from 1 to %d.",
+				 S_ARG_NAME_SWEEP_MOVES, m_nSweepMoves, N_SWEEP_MOVES_MAX));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_INITIAL_A);
+		if (sValue != null)
+		{
+			m_dblInitialA = Double.parseDouble(sValue);
+
+			if (m_dblInitialA == 0.0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %f must not be 0.0 .",
+				 S_ARG_NAME_INITIAL_A, m_dblInitialA));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_INITIAL_B);
+		if (sValue != null)
+		{
+			m_dblInitialB = Double.parseDouble(sValue);
+
+			if (m_dblInitialB == 0.0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %f must not be 0.0 .",
+				 S_ARG_NAME_INITIAL_B, m_dblInitialB));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_ISLAND_DIRECTORY);
+		if (sValue != null)
+			m_sIslandDirectory = sValue;
+
+		if ((m_mMode == Mode.ISLAND) && m_sIslandDirectory.isEmpty())
+			appendError(sbError, String.format("The parameter \"%s\" is required for the mode \"%s\".",
+			 S_ARG_NAME_ISLAND_DIRECTORY, Mode.ISLAND.value()));
+
+		sValue = m_mapArgs.get(S_ARG_NAME_ISLAND_ID);
+		if (sValue != null)
+		{
+			m_nIslandId = Integer.parseInt(sValue);
+
+			if (m_nIslandId < 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must not be negative.",
+				 S_ARG_NAME_ISLAND_ID, m_nIslandId));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_MIGRATION_INTERVAL);
+		if (sValue != null)
+		{
+			m_nMigrationInterval = Integer.parseInt(sValue);
+
+			if (m_nMigrationInterval <= 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be greater than 0.",
+				 S_ARG_NAME_MIGRATION_INTERVAL, m_nMigrationInterval));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_SNAPSHOT_INTERVAL);
+		if (sValue != null)
+		{
+			m_nSnapshotInterval = Integer.parseInt(sValue);
+
+			if (m_nSnapshotInterval <= 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be greater than 0.",
+				 S_ARG_NAME_SNAPSHOT_INTERVAL, m_nSnapshotInterval));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_METRICS_PORT);
+		if (sValue != null)
+		{
+			m_nMetricsPort = Integer.parseInt(sValue);
+
+			if ((m_nMetricsPort < 0) || (m_nMetricsPort > 65535))
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be from 0 to 65535.",
+				 S_ARG_NAME_METRICS_PORT, m_nMetricsPort));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_CHECKPOINT_FILE);
+		if (sValue != null)
+			m_sCheckpointFile = sValue;
+
+		sValue = m_mapArgs.get(S_ARG_NAME_CHECKPOINT_INTERVAL);
+		if (sValue != null)
+		{
+			m_nCheckpointInterval = Integer.parseInt(sValue);
+
+			if (m_nCheckpointInterval <= 0)
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be greater than 0.",
+				 S_ARG_NAME_CHECKPOINT_INTERVAL, m_nCheckpointInterval));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_RESUME_FROM);
+		if (sValue != null)
+			m_sResumeFrom = sValue;
+
+		sValue = m_mapArgs.get(S_ARG_NAME_WARM_START);
+		if (sValue != null)
+		{
+			m_sWarmStart = sValue;
+
+			if (!m_sResumeFrom.isEmpty())
+				appendError(sbError, String.format("The parameters \"%s\" and \"%s\" cannot both be supplied.",
+				 S_ARG_NAME_WARM_START, S_ARG_NAME_RESUME_FROM));
+			else
+				try
+				{
+					m_mgWarmStart = WarmStart.read(Paths.get(m_sWarmStart));
+				}
+				catch (IOException | InvalidPathException e)
+				{
+					appendError(sbError, String.format("The parameter \"%s\" of value \"%s\" cannot be read: %s",
+					 S_ARG_NAME_WARM_START, m_sWarmStart, e.getMessage()));
+				}
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_RESULT_FILE);
+		if (sValue != null)
+			m_sResultFile = sValue;
+
+		sValue = m_mapArgs.get(S_ARG_NAME_TRAJECTORY_FILE);
+		if (sValue != null)
+			m_sTrajectoryFile = sValue;
+
+		sValue = m_mapArgs.get(S_ARG_NAME_TRAJECTORY_BUCKETS);
+		if (sValue != null)
+		{
+			m_anTrajectoryBuckets = Arrays.stream(sValue.split(",")).mapToInt(s -> Integer.parseInt(s.trim())).toArray();
+			boolean bValid = m_anTrajectoryBuckets[0] > 0;
+
+			// Each size is a multiple of the one before it, so that its buckets are made of whole smaller buckets
+			for (int i = 1; i < m_anTrajectoryBuckets.length; i++)
+				bValid = bValid && (m_anTrajectoryBuckets[i] > m_anTrajectoryBuckets[i - 1])
+				 && ((m_anTrajectoryBuckets[i] % m_anTrajectoryBuckets[i - 1]) == 0);
+
+			if (!bValid)
+				appendError(sbError, String.format("The parameter \"%s\" of value \"%s\" must be ascending whole numbers"
+				 + " greater than 0, each a multiple of the one before it.", S_ARG_NAME_TRAJECTORY_BUCKETS, sValue));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_MULTIGRID_LEVELS);
+		if (sValue != null)
+		{
+			m_nMultigridLevels = Integer.parseInt(sValue);
+
+			if ((m_nMultigridLevels < 2) || (m_nMultigridLevels > Multigrid.N_LEVELS_MAX))
+				appendError(sbError, String.format("The parameter \"%s\" of value %d must be from 2 to %d.",
+				 S_ARG_NAME_MULTIGRID_LEVELS, m_nMultigridLevels, Multigrid.N_LEVELS_MAX));
+		}
+
+		sValue = m_mapArgs.get(S_ARG_NAME_MULTIGRID_FINE_SHARE);
+		if (sValue != null)
+		{
+			m_dblMultigridFineShare = Double.parseDouble(sValue);
+
+			if ((m_dblMultigridFineShare <= 0.0) || (m_dblMultigridFineShare >= 1.0))
+				appendError(sbError, String.format("The parameter \"%s\" of value %f must be greater than 0.0 and less"
+				 + " than 1.0 .", S_ARG_NAME_MULTIGRID_FINE_SHARE, m_dblMultigridFineShare));
+		}
+
+		// Only a single worker, which is also the engine of an island, has a checkpointed state and a trajectory
+		if ((m_mMode != Mode.SINGLE) && (m_mMode != Mode.ISLAND))
+			for (String sArgName: new String[] {S_ARG_NAME_CHECKPOINT_FILE, S_ARG_NAME_RESUME_FROM,
+			 S_ARG_NAME_TRAJECTORY_FILE})
+				if (m_mapArgs.containsKey(sArgName))
+					appendError(sbError, String.format("The parameter \"%s\" only applies to the modes \"%s\" and"
+					 + " \"%s\".", sArgName, Mode.SINGLE.value(), Mode.ISLAND.value()));
+
+		// The moves of an island are not journalled, since it also takes over the states of other islands
+		if ((m_mMode != Mode.SINGLE) && m_mapArgs.containsKey(S_ARG_NAME_MOVE_JOURNAL))
+			appendError(sbError, String.format("The parameter \"%s\" only applies to the mode \"%s\".",
+			 S_ARG_NAME_MOVE_JOURNAL, Mode.SINGLE.value()));
+	}
+
+	/**
+	 * @param sArg
+	 *   A parameter's argument name, in any case.
+	 * @return
+	 *   The parameter's argument name as it is defined, or <code>null</code> if there is no such parameter.
+	 */
+	static String findArgName(String sArg)
+	{
+		String sResult = null;
+
+		for (String sArgName: AS_ARG_NAMES)
+			if (sArgName.equalsIgnoreCase(sArg))
+				sResult = sArgName;
+
+		return sResult;
+	}
+
+	private static void appendError(StringBuilder sbError, String sError)
+	{
+		if (sbError.length() > 0)
+			sbError.append(" ");
+
+		sbError.append(sError);
+	}
 }
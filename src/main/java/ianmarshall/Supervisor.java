@@ -7,7 +7,10 @@ import static ianmarshall.Supervisor.ExecutionCommand.STOP;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.List;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -46,6 +49,47 @@ public class Supervisor
 		}
 	}
 
+	/**
+	 * How the runs are processed: by a single worker following the annealing schedule, by replicas at a ladder of
+	 * fixed temperatures which exchange their states, by an ensemble of independent workers, by checkerboard sweeps
+	 * of concurrently annealed windows of the grid, or by a single worker which is one of several islands, each in a
+	 * process of its own, which exchange their best states.
+	 */
+	public enum Mode
+	{
+		SINGLE("single"), TEMPERING("tempering"), ENSEMBLE("ensemble"), CHECKERBOARD("checkerboard"),
+		ISLAND("island"), MULTIGRID("multigrid");
+
+		private String m_sValue = "";
+
+		Mode(String sValue)
+		{
+			m_sValue = sValue;
+		}
+
+		public String value()
+		{
+			return m_sValue;
+		}
+
+		/**
+		 * @param sValue
+		 *   The value of a mode, in any case.
+		 * @return
+		 *   The mode, or <code>null</code> if there is none of the value supplied.
+		 */
+		public static Mode parse(String sValue)
+		{
+			Mode mResult = null;
+
+			for (Mode m: values())
+				if (m.value().equalsIgnoreCase(sValue))
+					mResult = m;
+
+			return mResult;
+		}
+	}
+
 	private static final Logger logger = LoggerFactory.getLogger(Supervisor.class);
 	private StartParameters m_spStartParameters = null;
 	private BufferedReader m_brReader = null;
@@ -57,129 +101,197 @@ public class Supervisor
 		m_brReader = new BufferedReader(isrReader);
 	}
 
+	/**
+	 * Execute the runs on a thread of their own, and act on the commands entered until they stop. The commands and the
+	 * end of the runs are events, each of which is handled as soon as it happens: a pause parks the runs in place, and
+	 * the result is returned as soon as they stop.
+	 * @return
+	 *   The result of the runs.
+	 * @throws IOException
+	 *   If the move journal cannot be created or closed, the checkpoint from which to resume cannot be read, or the
+	 *   result file cannot be written.
+	 */
 	public WorkerResult execute() throws IOException
 	{
-		WorkerResult srResult = null;
-		Worker worker = new Worker(m_spStartParameters, 0, null);
+		String sMoveJournal = m_spStartParameters.getMoveJournal();
+		MoveJournal mjMoveJournal = sMoveJournal.isEmpty() ? null : new MoveJournal(Paths.get(sMoveJournal));
+		String sResumeFrom = m_spStartParameters.getResumeFrom();
+		Checkpoint ckResume = null;
+
+		if (!sResumeFrom.isEmpty())
+		{
+			ckResume = Checkpoint.read(Paths.get(sResumeFrom));
+			logger.info(String.format("The runs are resumed from the checkpoint \"%s\" after run number %s, with energy"
+			 + " %f.", sResumeFrom, SchwarzschildSimulatedAnnealing.formatInteger(ckResume.getRun()),
+			 ckResume.getEnergy()));
+		}
+
+		AnnealingEngine worker = createEngine(m_spStartParameters, mjMoveJournal, ckResume);
+		CompletableFuture<WorkerResult> cfCompletion = worker.getCompletion();
+		MetricsEndpoint meMetrics = new MetricsEndpoint(worker.getRunMetrics(), m_spStartParameters.getMetricsPort());
+
 		Thread thread = new Thread(worker);
-		thread.setUncaughtExceptionHandler(worker.getWorkerUncaughtExceptionHandler());
+		thread.setUncaughtExceptionHandler(worker.getUncaughtExceptionHandler());
 		thread.start();
 
+		// The input is read on a daemon thread, so that a read still waiting when the runs stop does not hold the JVM
+		ExecutorService esReader = Executors.newSingleThreadExecutor(r ->
+		{
+			Thread th = new Thread(r, "input");
+			th.setDaemon(true);
+			return th;
+		});
+
+		CompletableFuture<String> cfInput = readLine(esReader);
 		ExecutionCommand ecState = CONTINUE;
-		ExecutionCommand ecStatePrevious = ecState;
+		logger.info(String.format("The current processing state is \"%s\".", ecState.toString()));
 
-		while (ecState != STOP)
+		while (!cfCompletion.isDone())
 		{
-			String sMsg;
-			if (ecState == ecStatePrevious)
-				sMsg = String.format("The current processing state is \"%s\".", ecState.toString());
-			else
-				sMsg = String.format("The processing state has changed from \"%s\" to \"%s\".",
-				 ecStatePrevious.toString(), ecState.toString());
-			logger.info(sMsg);
-
-			ecStatePrevious = ecState;
-			ExecutionCommand ecKey = CONTINUE;
-			boolean bLoop = true;
-
-			while (bLoop)
+			CompletableFuture.anyOf(cfCompletion, cfInput).join();
+
+			if (!cfCompletion.isDone())
 			{
-				WorkerResult wrWorkerResult = worker.getWorkerResult();
-				boolean bProcessingCompleted = (wrWorkerResult != null)
-				 && (wrWorkerResult.getProcessingCompleted() || (wrWorkerResult.getThrowable() != null));
+				String sInput = cfInput.join();
+				ExecutionCommand ecKey = ExecutionCommand.parse(sInput);
+				ExecutionCommand ecStatePrevious = ecState;
 
-				if (bProcessingCompleted)
+				if (sInput == null)
 				{
-					ecState = PAUSE;
-					ecKey = STOP;
-					bLoop = false;
+					// There will be no more input, so paused runs are resumed, and the runs are left to complete
+					logger.info("The input has ended.");
+					cfInput = new CompletableFuture<>();
 				}
-				else if ((ecState == PAUSE) || m_brReader.ready())
+				else
 				{
-					if (!m_brReader.ready())
-						logger.info("Waiting for character input...");
-
-					String sInput = m_brReader.readLine();
-					ecKey = ExecutionCommand.parse(sInput);
-
-					if (sInput.isEmpty())
-						sInput = "[nothing]";
-					else
-						sInput = String.format("\"%s\"", sInput.toUpperCase());
-
 					logger.info(String.format("Your entry of %s is interpreted as the command \"%s\".",
-					 sInput, ecKey.toString()));
-
-					bLoop = false;
+					 sInput.isEmpty() ? "[nothing]" : String.format("\"%s\"", sInput.toUpperCase()), ecKey.toString()));
+					cfInput = readLine(esReader);
 				}
-				else
-					try
-					{
-						Thread.sleep(1000);    // 1s
-					}
-					catch (InterruptedException e)
-					{
-						// Do nothing
-					}
-			}
 
-			switch (ecState)
-			{
-				case CONTINUE:
-					if (ecKey == PAUSE)
-					{
-						ecState = ecKey;
-						worker.stopExecution();
-					}
-					break;
-				case PAUSE:
-					boolean bStopped = worker.getStopped();
-
-					while (!bStopped)
-					{
-						logger.info("Waiting for the processing to stop...");
-
-						try
+				switch (ecState)
+				{
+					case CONTINUE:
+						if (ecKey == PAUSE)
 						{
-							thread.join();
+							ecState = ecKey;
+							worker.pauseExecution();
 						}
-						catch (InterruptedException e)
+						break;
+					case PAUSE:
+						// A repeated pause leaves the runs paused, still waiting for input
+						if (ecKey == STOP)
 						{
-							// Do nothing
-						}
-
-						bStopped = worker.getStopped();    // This should be true always
-					}
-
-					if ((ecKey == CONTINUE) || (ecKey == STOP))
-					{
-						ecState = ecKey;
-						WorkerResult wrWorkerResult = worker.getWorkerResult();
-						boolean bProcessingCompleted = wrWorkerResult.getProcessingCompleted()
-						 || (wrWorkerResult.getThrowable() != null);
-
-						if ((ecKey == STOP) || bProcessingCompleted)
-						{
-							ecState = STOP;
-							srResult = wrWorkerResult;
+							ecState = ecKey;
+							worker.stopExecution();
 						}
 						else if (ecKey == CONTINUE)
 						{
-							int nRun = wrWorkerResult.getRun();
-							List<MetricComponents> liG = wrWorkerResult.getMetricComponentsList();
-							worker = new Worker(m_spStartParameters, nRun, liG);
-							thread = new Thread(worker);
-							thread.setUncaughtExceptionHandler(worker.getWorkerUncaughtExceptionHandler());
-							thread.start();
+							ecState = ecKey;
+							worker.resumeExecution();
 						}
-					}
-					break;
-				default:
-					break;
+						break;
+					default:
+						break;
+				}
+
+				if (ecState != ecStatePrevious)
+					logger.info(String.format("The processing state has changed from \"%s\" to \"%s\".",
+					 ecStatePrevious.toString(), ecState.toString()));
+
+				if (ecState == PAUSE)
+					logger.info("Waiting for character input...");
+			}
+		}
+
+		esReader.shutdownNow();
+		meMetrics.close();
+
+		if (mjMoveJournal != null)
+			mjMoveJournal.close();
+
+		WorkerResult wrResult = cfCompletion.join();
+		String sResultFile = m_spStartParameters.getResultFile();
+
+		if ((!sResultFile.isEmpty()) && (wrResult.getMetricGrid() != null))
+		{
+			ResultFile.write(Paths.get(sResultFile), wrResult.getRun(), wrResult.getEnergy(), wrResult.getMetricGrid());
+			logger.info(String.format("The final state of the runs has been written to the result file \"%s\".",
+			 sResultFile));
+		}
+
+		// The reader is not closed, since closing it would wait for a read still waiting for input
+		return wrResult;
+	}
+
+	/**
+	 * @return
+	 *   A future which is completed with the next line of input, or <code>null</code> at the end of the input or if it
+	 *   cannot be read.
+	 */
+	private CompletableFuture<String> readLine(ExecutorService esReader)
+	{
+		return CompletableFuture.supplyAsync(() ->
+		{
+			String sResult = null;
+
+			try
+			{
+				sResult = m_brReader.readLine();
+			}
+			catch (IOException e)
+			{
+				logger.warn("The input could not be read.", e);
 			}
+
+			return sResult;
+		}, esReader);
+	}
+
+	/**
+	 * Create the engine which executes the runs in the mode of the start parameters.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @param mjMoveJournal
+	 *   The journal to which a single worker writes its accepted moves, or <code>null</code> if they are not written.
+	 * @param ckResume
+	 *   The checkpoint from which a single worker or island resumes its runs, or <code>null</code> if it starts them
+	 *   afresh.
+	 * @return
+	 *   The engine, which has not been started.
+	 */
+	static AnnealingEngine createEngine(StartParameters spStartParameters, MoveJournal mjMoveJournal,
+	 Checkpoint ckResume)
+	{
+		AnnealingEngine aeResult;
+
+		if ((ckResume != null) && (spStartParameters.getMode() == Mode.ISLAND))
+		{
+			Worker worker = Worker.resume(spStartParameters, ckResume, null);
+			worker.setIsland(new Island(spStartParameters));
+			aeResult = worker;
+		}
+		else if (ckResume != null)
+			aeResult = Worker.resume(spStartParameters, ckResume, mjMoveJournal);
+		else if (spStartParameters.getMode() == Mode.TEMPERING)
+			aeResult = new ParallelTempering(spStartParameters);
+		else if (spStartParameters.getMode() == Mode.ENSEMBLE)
+			aeResult = new Ensemble(spStartParameters);
+		else if (spStartParameters.getMode() == Mode.CHECKERBOARD)
+			aeResult = new CheckerboardSweep(spStartParameters);
+		else if (spStartParameters.getMode() == Mode.MULTIGRID)
+			aeResult = new Multigrid(spStartParameters);
+		else if (spStartParameters.getMode() == Mode.ISLAND)
+		{
+			// Each island has its own random number stream, so the islands can share the seed
+			RandomStream rsRandom = new RandomStream(spStartParameters.getSeed()).split(spStartParameters.getIslandId());
+			Worker worker = new Worker(spStartParameters, 0, null, null, rsRandom);
+			worker.setIsland(new Island(spStartParameters));
+			aeResult = worker;
 		}
+		else
+			aeResult = new Worker(spStartParameters, 0, null, mjMoveJournal);
 
-		m_brReader.close();
-		return srResult;
+		return aeResult;
 	}
 }
@@ -0,0 +1,207 @@
+package ianmarshall;
+
+import java.util.function.LongSupplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class aggregates the progress of the runs of a worker, and logs a single summary line for each sampling
+ * interval instead of a line for each run.
+ * <br/>
+ * A sample is taken every given number of runs, or every given number of milliseconds, whichever comes first.
+ * Between samples only counters are updated, so recording a run costs no formatting or logging.
+ */
+public class Telemetry
+{
+	private static final Logger logger = LoggerFactory.getLogger(Telemetry.class);
+
+	// The number of runs between readings of the clock, when sampling by time
+	private static final int N_CLOCK_CHECK_INTERVAL = 256;
+
+	private final int m_nSampleIntervalRuns;
+	private final long m_lSampleIntervalNanos;
+	private final LongSupplier m_lsClock;
+
+	// The counters since the last sample
+	private int m_nAcceptances = 0;
+	private int m_nRejections = 0;
+	private int m_nRunLastSample = 0;
+	private long m_lNanosLastSample = 0L;
+
+	// The counters since the telemetry was created
+	private long m_lTotalAcceptances = 0L;
+	private long m_lTotalRejections = 0L;
+	private int m_nSamples = 0;
+	private double m_dblBestEnergy = Double.POSITIVE_INFINITY;
+	private int m_nBestRun = 0;
+
+	// The state of the latest run recorded
+	private int m_nRun = 0;
+	private double m_dblEnergy = 0.0;
+	private double m_dblTemperature = 0.0;
+
+	// The counters which may be read while the runs continue, or null if there are none
+	private RunMetrics m_rmMetrics = null;
+
+	/**
+	 * The constructor.
+	 * @param nSampleIntervalRuns
+	 *   The number of runs between samples, or <code>0</code> not to sample by the number of runs.
+	 * @param lSampleIntervalMillis
+	 *   The number of milliseconds between samples, or <code>0</code> not to sample by time.
+	 * @param nRun
+	 *   The number of runs already executed.
+	 */
+	public Telemetry(int nSampleIntervalRuns, long lSampleIntervalMillis, int nRun)
+	{
+		this(nSampleIntervalRuns, lSampleIntervalMillis, nRun, System::nanoTime);
+	}
+
+	/**
+	 * The constructor, with a clock which can be controlled by tests.
+	 * @param lsClock
+	 *   Supplies the current time in nanoseconds.
+	 */
+	Telemetry(int nSampleIntervalRuns, long lSampleIntervalMillis, int nRun, LongSupplier lsClock)
+	{
+		m_nSampleIntervalRuns = nSampleIntervalRuns;
+		m_lSampleIntervalNanos = lSampleIntervalMillis * 1000000L;
+		m_lsClock = lsClock;
+		m_nRunLastSample = nRun;
+		m_nRun = nRun;
+		m_lNanosLastSample = lsClock.getAsLong();
+	}
+
+	/**
+	 * Record the outcome of a run, and log a summary if a sampling interval has passed.
+	 * @param nRun
+	 *   The run number.
+	 * @param bAccepted
+	 *   Whether the run's move was accepted.
+	 * @param dblEnergy
+	 *   The current energy after the run.
+	 * @param dblTemperature
+	 *   The annealing temperature of the run.
+	 * @return
+	 *   Whether a summary was logged.
+	 */
+	public boolean record(int nRun, boolean bAccepted, double dblEnergy, double dblTemperature)
+	{
+		if (bAccepted)
+			m_nAcceptances++;
+		else
+			m_nRejections++;
+
+		m_nRun = nRun;
+		m_dblEnergy = dblEnergy;
+		m_dblTemperature = dblTemperature;
+
+		if (dblEnergy < m_dblBestEnergy)
+		{
+			m_dblBestEnergy = dblEnergy;
+			m_nBestRun = nRun;
+		}
+
+		boolean bSample = (m_nSampleIntervalRuns > 0) && (nRun - m_nRunLastSample >= m_nSampleIntervalRuns);
+
+		if ((!bSample) && (m_lSampleIntervalNanos > 0L) && ((nRun % N_CLOCK_CHECK_INTERVAL) == 0))
+			bSample = m_lsClock.getAsLong() - m_lNanosLastSample >= m_lSampleIntervalNanos;
+
+		if (bSample)
+			sample();
+
+		if ((m_rmMetrics != null) && ((nRun % RunMetrics.N_UPDATE_INTERVAL) == 0))
+			updateMetrics();
+
+		return bSample;
+	}
+
+	/**
+	 * Log a summary of the runs recorded since the last sample, if there are any.
+	 */
+	public void flush()
+	{
+		if (m_nRun > m_nRunLastSample)
+			sample();
+
+		if (m_rmMetrics != null)
+			updateMetrics();
+	}
+
+	/**
+	 * @param rmMetrics
+	 *   The counters to be updated every {@link RunMetrics#N_UPDATE_INTERVAL} runs, so that they can be read while the
+	 *   runs continue, or <code>null</code> if there are none. The default is <code>null</code>.
+	 */
+	public void setRunMetrics(RunMetrics rmMetrics)
+	{
+		m_rmMetrics = rmMetrics;
+	}
+
+	private void updateMetrics()
+	{
+		m_rmMetrics.update(m_nRun, getAcceptances(), getRejections(), m_dblEnergy, m_dblBestEnergy, m_dblTemperature);
+	}
+
+	private void sample()
+	{
+		long lNanos = m_lsClock.getAsLong();
+		int nRuns = m_nAcceptances + m_nRejections;
+		double dblSeconds = (lNanos - m_lNanosLastSample) / 1.0E9;
+
+		logger.info(String.format("Runs %s to %s: accepted %d, rejected %d (acceptance rate %.5f),"
+		 + " energy %f, best energy %f at run %s, temperature %g, %s runs per second.",
+		 SchwarzschildSimulatedAnnealing.formatInteger(m_nRunLastSample + 1),
+		 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_nAcceptances, m_nRejections,
+		 nRuns > 0 ? (double)m_nAcceptances / nRuns : 0.0, m_dblEnergy, m_dblBestEnergy,
+		 SchwarzschildSimulatedAnnealing.formatInteger(m_nBestRun), m_dblTemperature,
+		 dblSeconds > 0.0 ? SchwarzschildSimulatedAnnealing.formatInteger((int)(nRuns / dblSeconds)) : "-"));
+
+		m_lTotalAcceptances += m_nAcceptances;
+		m_lTotalRejections += m_nRejections;
+		m_nSamples++;
+
+		m_nAcceptances = 0;
+		m_nRejections = 0;
+		m_nRunLastSample = m_nRun;
+		m_lNanosLastSample = lNanos;
+	}
+
+	/**
+	 * @return
+	 *   The number of summaries logged.
+	 */
+	public int getSamples()
+	{
+		return m_nSamples;
+	}
+
+	/**
+	 * @return
+	 *   The number of accepted moves, including those since the last sample.
+	 */
+	public long getAcceptances()
+	{
+		return m_lTotalAcceptances + m_nAcceptances;
+	}
+
+	/**
+	 * @return
+	 *   The number of rejected moves, including those since the last sample.
+	 */
+	public long getRejections()
+	{
+		return m_lTotalRejections + m_nRejections;
+	}
+
+	public double getBestEnergy()
+	{
+		return m_dblBestEnergy;
+	}
+
+	public int getBestRun()
+	{
+		return m_nBestRun;
+	}
+}
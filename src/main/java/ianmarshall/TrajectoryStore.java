@@ -0,0 +1,519 @@
+package ianmarshall;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class writes an append-only binary store of the trajectory of the runs of a worker, downsampled into buckets
+ * of runs at several resolutions, from which the energy, temperature and acceptance rate can be plotted against the
+ * run number without reading the logs.
+ * <br/>
+ * Each resolution is a bucket size, a number of runs which is a multiple of the next smaller one, and the buckets of
+ * each size are aligned to multiples of it. For every bucket the store has the number of runs and acceptances, and
+ * the minimum, mean and maximum of the energy and of the temperature. Only the buckets being filled are held, one for
+ * each size, so the memory used does not grow with the number of runs, and recording a run only updates the smallest
+ * bucket: a full bucket is folded into the next larger one.
+ * <br/>
+ * A full bucket is a fixed-length record in a buffer, which is written through a file channel by a thread of its
+ * own, not that of the runs, when it is full or a bucket larger than the smallest is complete. At most a few buffers
+ * wait to be written: if the writing falls behind, the runs wait until there is room for the next. The store starts
+ * with a header containing the bucket sizes, and when it is closed the partly filled buckets are written too. When
+ * the runs are resumed the store is appended to, so the buckets of the earlier runs are kept.
+ */
+public class TrajectoryStore implements AutoCloseable
+{
+	/**
+	 * A bucket of runs, as read from a store.
+	 */
+	public static class Bucket
+	{
+		private int m_nFirstRun = 0;
+		private int m_nRuns = 0;
+		private int m_nAcceptances = 0;
+		private double[] m_adblValues = null;    // The minimum, mean and maximum energy, then the same of temperature
+
+		private Bucket(int nFirstRun, int nRuns, int nAcceptances, double[] adblValues)
+		{
+			m_nFirstRun = nFirstRun;
+			m_nRuns = nRuns;
+			m_nAcceptances = nAcceptances;
+			m_adblValues = adblValues;
+		}
+
+		/**
+		 * @return
+		 *   The run number of the first run in the bucket.
+		 */
+		public int getFirstRun()
+		{
+			return m_nFirstRun;
+		}
+
+		/**
+		 * @return
+		 *   The number of runs in the bucket, which is less than the bucket size only if the bucket is the first or the
+		 *   last.
+		 */
+		public int getRuns()
+		{
+			return m_nRuns;
+		}
+
+		public int getAcceptances()
+		{
+			return m_nAcceptances;
+		}
+
+		public double getAcceptanceRate()
+		{
+			return (double)m_nAcceptances / m_nRuns;
+		}
+
+		public double getMinimumEnergy()
+		{
+			return m_adblValues[0];
+		}
+
+		public double getMeanEnergy()
+		{
+			return m_adblValues[1];
+		}
+
+		public double getMaximumEnergy()
+		{
+			return m_adblValues[2];
+		}
+
+		public double getMinimumTemperature()
+		{
+			return m_adblValues[3];
+		}
+
+		public double getMeanTemperature()
+		{
+			return m_adblValues[4];
+		}
+
+		public double getMaximumTemperature()
+		{
+			return m_adblValues[5];
+		}
+	}
+
+	/**
+	 * The trajectory read from a store.
+	 */
+	public static class Trajectory
+	{
+		private int[] m_anBucketSizes = null;
+		private List<List<Bucket>> m_lilBuckets = new ArrayList<>();
+
+		private Trajectory(int[] anBucketSizes)
+		{
+			m_anBucketSizes = anBucketSizes;
+
+			for (int i = 0; i < anBucketSizes.length; i++)
+				m_lilBuckets.add(new ArrayList<>());
+		}
+
+		/**
+		 * @return
+		 *   The bucket sizes, in ascending order.
+		 */
+		public int[] getBucketSizes()
+		{
+			return m_anBucketSizes.clone();
+		}
+
+		/**
+		 * @param nBucketSize
+		 *   One of the bucket sizes.
+		 * @return
+		 *   The buckets of the size, in order of run number.
+		 */
+		public List<Bucket> getBuckets(int nBucketSize)
+		{
+			int nLevel = Arrays.binarySearch(m_anBucketSizes, nBucketSize);
+
+			if (nLevel < 0)
+				throw new IllegalArgumentException(String.format("The trajectory has no buckets of %d runs.",
+				 nBucketSize));
+
+			return m_lilBuckets.get(nLevel);
+		}
+	}
+
+	private static final Logger logger = LoggerFactory.getLogger(TrajectoryStore.class);
+
+	private static final int N_MAGIC = 0x53535454;    // "SSTT"
+	private static final int N_VERSION = 1;
+	private static final int N_HEADER_FIXED_LENGTH = 3 * Integer.BYTES;
+	private static final int N_RECORD_LENGTH = (4 * Integer.BYTES) + (6 * Double.BYTES);
+	private static final int N_BUFFER_CAPACITY = 64 * 1024;
+	private static final int N_QUEUED_BUFFERS_MAX = 4;
+
+	private final int[] m_anBucketSizes;
+	private final int m_nLevels;
+	private FileChannel m_fcChannel = null;
+	private ExecutorService m_esWriter = null;
+	private ByteBuffer m_bbBuffer = ByteBuffer.allocate(N_BUFFER_CAPACITY);
+
+	// Set by the writer's thread if a buffer cannot be written, after which nothing more is written
+	private volatile boolean m_bFailed = false;
+
+	// The buckets being filled, one for each size
+	private int[] m_anFirstRun = null;
+	private int[] m_anRuns = null;
+	private int[] m_anAcceptances = null;
+	private double[] m_adblEnergyMinimum = null;
+	private double[] m_adblEnergySum = null;
+	private double[] m_adblEnergyMaximum = null;
+	private double[] m_adblTemperatureMinimum = null;
+	private double[] m_adblTemperatureSum = null;
+	private double[] m_adblTemperatureMaximum = null;
+
+	/**
+	 * The constructor, which creates the store's file, replacing any existing file, and writes its header.
+	 * @param pPath
+	 *   The path of the store's file.
+	 * @param anBucketSizes
+	 *   The bucket sizes in ascending order, each a multiple of the one before it.
+	 * @throws IOException
+	 *   If the file cannot be created.
+	 */
+	public TrajectoryStore(Path pPath, int[] anBucketSizes) throws IOException
+	{
+		this(pPath, anBucketSizes, false);
+	}
+
+	/**
+	 * The constructor.
+	 * @param pPath
+	 *   The path of the store's file.
+	 * @param anBucketSizes
+	 *   The bucket sizes in ascending order, each a multiple of the one before it.
+	 * @param bAppend
+	 *   Whether the runs are resumed, in which case an existing store is appended to, after any record which was being
+	 *   written when it was last written is dropped. Otherwise, or if there is no store, the file is created, replacing
+	 *   any existing file, and its header is written.
+	 * @throws IOException
+	 *   If the file cannot be created, or the existing store has other bucket sizes.
+	 */
+	public TrajectoryStore(Path pPath, int[] anBucketSizes, boolean bAppend) throws IOException
+	{
+		m_anBucketSizes = anBucketSizes.clone();
+		m_nLevels = anBucketSizes.length;
+		m_anFirstRun = new int[m_nLevels];
+		m_anRuns = new int[m_nLevels];
+		m_anAcceptances = new int[m_nLevels];
+		m_adblEnergyMinimum = new double[m_nLevels];
+		m_adblEnergySum = new double[m_nLevels];
+		m_adblEnergyMaximum = new double[m_nLevels];
+		m_adblTemperatureMinimum = new double[m_nLevels];
+		m_adblTemperatureSum = new double[m_nLevels];
+		m_adblTemperatureMaximum = new double[m_nLevels];
+
+		for (int nLevel = 0; nLevel < m_nLevels; nLevel++)
+			clear(nLevel);
+
+		ByteBuffer bbHeader = ByteBuffer.allocate(N_HEADER_FIXED_LENGTH + (m_nLevels * Integer.BYTES));
+		bbHeader.putInt(N_MAGIC).putInt(N_VERSION).putInt(m_nLevels);
+
+		for (int nBucketSize: m_anBucketSizes)
+			bbHeader.putInt(nBucketSize);
+
+		bbHeader.flip();
+
+		if (bAppend && Files.isRegularFile(pPath) && (Files.size(pPath) > 0L))
+		{
+			m_fcChannel = FileChannel.open(pPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+			boolean bOpened = false;
+
+			try
+			{
+				append(pPath, bbHeader);
+				bOpened = true;
+			}
+			finally
+			{
+				if (!bOpened)
+					m_fcChannel.close();
+			}
+		}
+		else
+		{
+			m_fcChannel = FileChannel.open(pPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+			 StandardOpenOption.TRUNCATE_EXISTING);
+
+			while (bbHeader.hasRemaining())
+				m_fcChannel.write(bbHeader);
+		}
+
+		// The writer's thread is a daemon, so that it cannot hold the JVM if the store is not closed. While the queue
+		// is full the runs wait for room in it, so the buffers are written in order, by that thread alone
+		m_esWriter = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+		 new ArrayBlockingQueue<>(N_QUEUED_BUFFERS_MAX), r ->
+		{
+			Thread th = new Thread(r, "trajectory");
+			th.setDaemon(true);
+			return th;
+		}, (r, tpe) ->
+		{
+			try
+			{
+				tpe.getQueue().put(r);
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		});
+	}
+
+	/**
+	 * Check that the existing store has the header which this one would write, drop any partial record at its end,
+	 * and position the channel at its end.
+	 */
+	private void append(Path pPath, ByteBuffer bbHeader) throws IOException
+	{
+		long lLength = m_fcChannel.size();
+		int nHeaderLength = bbHeader.remaining();
+		ByteBuffer bbExisting = ByteBuffer.allocate(nHeaderLength);
+
+		if (lLength >= nHeaderLength)
+			while (bbExisting.hasRemaining())
+				m_fcChannel.read(bbExisting, bbExisting.position());
+
+		if (!bbExisting.flip().equals(bbHeader))
+			throw new IOException(String.format("The trajectory store \"%s\" is not one of version %d with the bucket"
+			 + " sizes %s, so it cannot be appended to.", pPath, N_VERSION, Arrays.toString(m_anBucketSizes)));
+
+		long lRecordsLength = ((lLength - nHeaderLength) / N_RECORD_LENGTH) * N_RECORD_LENGTH;
+		long lEnd = nHeaderLength + lRecordsLength;
+
+		if (lEnd < lLength)
+		{
+			logger.info(String.format("The partly written record at the end of the trajectory store \"%s\" has been"
+			 + " dropped.", pPath));
+			m_fcChannel.truncate(lEnd);
+		}
+
+		m_fcChannel.position(lEnd);
+	}
+
+	/**
+	 * Record the outcome of a run. This is called only by the thread executing the runs, in order of run number.
+	 * @param nRun
+	 *   The run number.
+	 * @param bAccepted
+	 *   Whether the run's move was accepted.
+	 * @param dblEnergy
+	 *   The current energy after the run.
+	 * @param dblTemperature
+	 *   The annealing temperature of the run.
+	 */
+	public void record(int nRun, boolean bAccepted, double dblEnergy, double dblTemperature)
+	{
+		if (m_anRuns[0] == 0)
+			m_anFirstRun[0] = nRun;
+
+		m_anRuns[0]++;
+
+		if (bAccepted)
+			m_anAcceptances[0]++;
+
+		m_adblEnergyMinimum[0] = Math.min(m_adblEnergyMinimum[0], dblEnergy);
+		m_adblEnergySum[0] += dblEnergy;
+		m_adblEnergyMaximum[0] = Math.max(m_adblEnergyMaximum[0], dblEnergy);
+		m_adblTemperatureMinimum[0] = Math.min(m_adblTemperatureMinimum[0], dblTemperature);
+		m_adblTemperatureSum[0] += dblTemperature;
+		m_adblTemperatureMaximum[0] = Math.max(m_adblTemperatureMaximum[0], dblTemperature);
+
+		// A full bucket is folded into the next larger one, which may then be full too
+		for (int nLevel = 0; (nLevel < m_nLevels) && ((nRun % m_anBucketSizes[nLevel]) == 0); nLevel++)
+		{
+			complete(nLevel);
+
+			if (nLevel > 0)
+				submit();
+		}
+	}
+
+	/**
+	 * Write the buckets which are complete, and those being filled, and close the store's file.
+	 * @throws IOException
+	 *   If the file cannot be written or closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		for (int nLevel = 0; nLevel < m_nLevels; nLevel++)
+			if (m_anRuns[nLevel] > 0)
+				complete(nLevel);
+
+		submit();
+		m_esWriter.shutdown();
+
+		try
+		{
+			m_esWriter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		m_fcChannel.close();
+
+		if (m_bFailed)
+			throw new IOException("The trajectory could not be written completely.");
+	}
+
+	/**
+	 * Write a bucket's record to the buffer, fold it into the next larger bucket if there is one, and empty it.
+	 */
+	private void complete(int nLevel)
+	{
+		if (m_bbBuffer.remaining() < N_RECORD_LENGTH)
+			submit();
+
+		int nRuns = m_anRuns[nLevel];
+
+		m_bbBuffer.putInt(nLevel).putInt(m_anFirstRun[nLevel]).putInt(nRuns).putInt(m_anAcceptances[nLevel])
+		 .putDouble(m_adblEnergyMinimum[nLevel]).putDouble(m_adblEnergySum[nLevel] / nRuns)
+		 .putDouble(m_adblEnergyMaximum[nLevel]).putDouble(m_adblTemperatureMinimum[nLevel])
+		 .putDouble(m_adblTemperatureSum[nLevel] / nRuns).putDouble(m_adblTemperatureMaximum[nLevel]);
+
+		int nNext = nLevel + 1;
+
+		if (nNext < m_nLevels)
+		{
+			if (m_anRuns[nNext] == 0)
+				m_anFirstRun[nNext] = m_anFirstRun[nLevel];
+
+			m_anRuns[nNext] += nRuns;
+			m_anAcceptances[nNext] += m_anAcceptances[nLevel];
+			m_adblEnergyMinimum[nNext] = Math.min(m_adblEnergyMinimum[nNext], m_adblEnergyMinimum[nLevel]);
+			m_adblEnergySum[nNext] += m_adblEnergySum[nLevel];
+			m_adblEnergyMaximum[nNext] = Math.max(m_adblEnergyMaximum[nNext], m_adblEnergyMaximum[nLevel]);
+			m_adblTemperatureMinimum[nNext] = Math.min(m_adblTemperatureMinimum[nNext],
+			 m_adblTemperatureMinimum[nLevel]);
+			m_adblTemperatureSum[nNext] += m_adblTemperatureSum[nLevel];
+			m_adblTemperatureMaximum[nNext] = Math.max(m_adblTemperatureMaximum[nNext],
+			 m_adblTemperatureMaximum[nLevel]);
+		}
+
+		clear(nLevel);
+	}
+
+	private void clear(int nLevel)
+	{
+		m_anRuns[nLevel] = 0;
+		m_anAcceptances[nLevel] = 0;
+		m_adblEnergyMinimum[nLevel] = Double.POSITIVE_INFINITY;
+		m_adblEnergySum[nLevel] = 0.0;
+		m_adblEnergyMaximum[nLevel] = Double.NEGATIVE_INFINITY;
+		m_adblTemperatureMinimum[nLevel] = Double.POSITIVE_INFINITY;
+		m_adblTemperatureSum[nLevel] = 0.0;
+		m_adblTemperatureMaximum[nLevel] = Double.NEGATIVE_INFINITY;
+	}
+
+	/**
+	 * Hand the buffer, if it has any records, to the writer's thread, and continue with a new one. Once writing has
+	 * failed the records are discarded.
+	 */
+	private void submit()
+	{
+		if (m_bFailed)
+			m_bbBuffer.clear();
+		else if (m_bbBuffer.position() > 0)
+		{
+			ByteBuffer bbFull = m_bbBuffer.flip();
+			m_bbBuffer = ByteBuffer.allocate(N_BUFFER_CAPACITY);
+
+			m_esWriter.execute(() ->
+			{
+				try
+				{
+					while (bbFull.hasRemaining())
+						m_fcChannel.write(bbFull);
+				}
+				catch (IOException e)
+				{
+					if (!m_bFailed)
+						logger.warn("The trajectory could not be written, and no more of it will be.", e);
+
+					m_bFailed = true;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Read a store, which may still be being written, in which case a record being written is skipped.
+	 * @param pPath
+	 *   The path of the store's file.
+	 * @return
+	 *   The trajectory.
+	 * @throws IOException
+	 *   If the file cannot be read, or is not a trajectory store.
+	 */
+	public static Trajectory read(Path pPath) throws IOException
+	{
+		try (FileChannel fcChannel = FileChannel.open(pPath, StandardOpenOption.READ))
+		{
+			long lLength = fcChannel.size();
+			ByteBuffer bbBuffer = fcChannel.map(FileChannel.MapMode.READ_ONLY, 0L, lLength);
+
+			if ((lLength < N_HEADER_FIXED_LENGTH) || (bbBuffer.getInt() != N_MAGIC) || (bbBuffer.getInt() != N_VERSION))
+				throw new IOException(String.format("The file \"%s\" is not a trajectory store of version %d.", pPath,
+				 N_VERSION));
+
+			int nLevels = bbBuffer.getInt();
+
+			if ((nLevels < 0) || (bbBuffer.remaining() < nLevels * Integer.BYTES))
+				throw new IOException(String.format("The trajectory store \"%s\" has an incorrect header.", pPath));
+
+			int[] anBucketSizes = new int[nLevels];
+
+			for (int i = 0; i < nLevels; i++)
+				anBucketSizes[i] = bbBuffer.getInt();
+
+			Trajectory tyResult = new Trajectory(anBucketSizes);
+
+			while (bbBuffer.remaining() >= N_RECORD_LENGTH)
+			{
+				int nLevel = bbBuffer.getInt();
+				int nFirstRun = bbBuffer.getInt();
+				int nRuns = bbBuffer.getInt();
+				int nAcceptances = bbBuffer.getInt();
+				double[] adblValues = new double[6];
+
+				for (int i = 0; i < adblValues.length; i++)
+					adblValues[i] = bbBuffer.getDouble();
+
+				if ((nLevel < 0) || (nLevel >= nLevels))
+					throw new IOException(String.format("The trajectory store \"%s\" has a record of an unknown bucket"
+					 + " size.", pPath));
+
+				tyResult.m_lilBuckets.get(nLevel).add(new Bucket(nFirstRun, nRuns, nAcceptances, adblValues));
+			}
+
+			return tyResult;
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package ianmarshall;
+
+import static ianmarshall.MetricComponents.MetricComponent.A;
+import static ianmarshall.MetricComponents.MetricComponent.B;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class calculates the energy of a grid in the same way as {@link EnergyKernel}, but for several internal
+ * radius values at once, using the widest vectors of the CPU. The first and last radius values, and those left over
+ * at the end of a range, are calculated by <code>EnergyKernel</code>.
+ * <br/>
+ * Each lane evaluates the same expressions in the same order as <code>EnergyKernel</code>, so the derivatives and
+ * energy terms are identical to its own; only the order in which the energy terms are summed differs.
+ * <br/>
+ * This class must only be loaded through {@link EnergyEvaluator#create(EnergyEvaluator.Implementation)}, since the
+ * module <code>jdk.incubator.vector</code> may not be present.
+ */
+public class VectorEnergyKernel implements EnergyEvaluator
+{
+	private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+	public VectorEnergyKernel()
+	{
+	}
+
+	@Override
+	public double energy(MetricGrid mgG)
+	{
+		return evaluate(mgG, 0, mgG.size() - 1);
+	}
+
+	@Override
+	public double energyChange(MetricGrid mgG, int nIndexFrom, int nIndexTo)
+	{
+		double dblEnergyOld = 0.0;
+		double[] adblEnergyTerm = mgG.getEnergyTerms();
+
+		for (int i = nIndexFrom; i <= nIndexTo; i++)
+			dblEnergyOld += adblEnergyTerm[i];
+
+		double dblEnergyNew = evaluate(mgG, nIndexFrom, nIndexTo);
+		return dblEnergyNew - dblEnergyOld;
+	}
+
+	/**
+	 * Calculate the derivatives and the energy terms of a range of radius values, storing them in the grid.
+	 * @param mgG
+	 *   The metric tensor values. The grid must contain at least 3 radius values.
+	 * @param nIndexFrom
+	 *   The lowest index of the radius values to be calculated.
+	 * @param nIndexTo
+	 *   The highest index of the radius values to be calculated.
+	 * @return
+	 *   The sum of the energy terms calculated.
+	 */
+	private static double evaluate(MetricGrid mgG, int nIndexFrom, int nIndexTo)
+	{
+		final int N = mgG.size() - 1;    // The maximum index value
+		final int N_LANES = SPECIES.length();
+		double dblResult = 0.0;
+
+		// Only the internal points use central differences, whose stencils start at the previous point
+		int nInternalFrom = Math.max(nIndexFrom, 1);
+		int nInternalTo = Math.min(nIndexTo, N - 1);
+
+		if (nIndexFrom == 0)
+			dblResult += EnergyKernel.evaluate(mgG, 0, 0);
+
+		final GridGeometry ggGeometry = mgG.getGeometry();
+		final double[] adblR = ggGeometry.getRValues();
+		final double[] adblInvDrNext = ggGeometry.getInvDrNext();
+		final double[] adblInvDrPrev = ggGeometry.getInvDrPrev();
+		final double[] adblSecondFactor = ggGeometry.getSecondFactors();
+		final double[] adblWeight = ggGeometry.getWeights();
+		final double[] adblA = mgG.getValues(None, A);
+		final double[] adblB = mgG.getValues(None, B);
+		final double[] adblFirstA = mgG.getValues(First, A);
+		final double[] adblFirstB = mgG.getValues(First, B);
+		final double[] adblSecondA = mgG.getValues(Second, A);
+		final double[] adblSecondB = mgG.getValues(Second, B);
+		final double[] adblEnergyTerm = mgG.getEnergyTerms();
+
+		final DoubleVector vOne = DoubleVector.broadcast(SPECIES, 1.0);
+		final DoubleVector vMinusOne = DoubleVector.broadcast(SPECIES, -1.0);
+		DoubleVector vSum = DoubleVector.zero(SPECIES);
+		int i = nInternalFrom;
+
+		for (; i + N_LANES - 1 <= nInternalTo; i += N_LANES)
+		{
+			// The derivatives, from the three points of the stencil
+			DoubleVector vA0 = DoubleVector.fromArray(SPECIES, adblA, i - 1);
+			DoubleVector vA1 = DoubleVector.fromArray(SPECIES, adblA, i);
+			DoubleVector vA2 = DoubleVector.fromArray(SPECIES, adblA, i + 1);
+			DoubleVector vB0 = DoubleVector.fromArray(SPECIES, adblB, i - 1);
+			DoubleVector vB1 = DoubleVector.fromArray(SPECIES, adblB, i);
+			DoubleVector vB2 = DoubleVector.fromArray(SPECIES, adblB, i + 1);
+			DoubleVector vInvDrNext = DoubleVector.fromArray(SPECIES, adblInvDrNext, i);
+			DoubleVector vInvDrPrev = DoubleVector.fromArray(SPECIES, adblInvDrPrev, i);
+			DoubleVector vSecondFactor = DoubleVector.fromArray(SPECIES, adblSecondFactor, i);
+
+			DoubleVector vFirstDifferentialNextA = vA2.sub(vA1).mul(vInvDrNext);
+			DoubleVector vFirstDifferentialPrevA = vA1.sub(vA0).mul(vInvDrPrev);
+			DoubleVector vFirstDifferentialNextB = vB2.sub(vB1).mul(vInvDrNext);
+			DoubleVector vFirstDifferentialPrevB = vB1.sub(vB0).mul(vInvDrPrev);
+
+			DoubleVector vdAdR = vFirstDifferentialNextA.add(vFirstDifferentialPrevA).mul(0.5);
+			DoubleVector vdBdR = vFirstDifferentialNextB.add(vFirstDifferentialPrevB).mul(0.5);
+			DoubleVector vd2AdR2 = vFirstDifferentialNextA.sub(vFirstDifferentialPrevA).mul(vSecondFactor);
+			DoubleVector vd2BdR2 = vFirstDifferentialNextB.sub(vFirstDifferentialPrevB).mul(vSecondFactor);
+
+			vdAdR.intoArray(adblFirstA, i);
+			vdBdR.intoArray(adblFirstB, i);
+			vd2AdR2.intoArray(adblSecondA, i);
+			vd2BdR2.intoArray(adblSecondB, i);
+
+			// The Ricci tensor values
+			DoubleVector vR = DoubleVector.fromArray(SPECIES, adblR, i);
+
+			DoubleVector vR00 = vOne.div(vB1.mul(vR)).mul(vdAdR)
+			 .sub(vOne.div(vA1.mul(4.0).mul(vB1)).mul(vdAdR).mul(vdAdR))
+			 .sub(vOne.div(vB1.mul(4.0).mul(vB1)).mul(vdAdR).mul(vdBdR))
+			 .add(vOne.div(vB1.mul(2.0)).mul(vd2AdR2));
+
+			DoubleVector vR11 = vOne.div(vB1.mul(vR)).mul(vdBdR).neg()
+			 .sub(vOne.div(vA1.mul(4.0).mul(vB1)).mul(vdAdR).mul(vdBdR))
+			 .sub(vOne.div(vA1.mul(4.0).mul(vA1)).mul(vdAdR).mul(vdAdR))
+			 .add(vOne.div(vA1.mul(2.0)).mul(vd2AdR2));
+
+			DoubleVector vR22 = vMinusOne.sub(vOne.div(vB1))
+			 .sub(vR.div(vA1.mul(2.0).mul(vB1)).mul(vdAdR))
+			 .add(vR.div(vB1.mul(2.0).mul(vB1)).mul(vdBdR));
+
+			// The weight of the point is its share of the radius range
+			DoubleVector vSumOfSquaresOfRicciTensors = vR00.mul(vR00).add(vR11.mul(vR11)).add(vR22.mul(vR22));
+			DoubleVector vEnergyTerm = vSumOfSquaresOfRicciTensors.mul(DoubleVector.fromArray(SPECIES, adblWeight, i));
+			vEnergyTerm.intoArray(adblEnergyTerm, i);
+			vSum = vSum.add(vEnergyTerm);
+		}
+
+		dblResult += vSum.reduceLanes(VectorOperators.ADD);
+
+		// The internal points left over, and the last point
+		if (i <= nInternalTo)
+			dblResult += EnergyKernel.evaluate(mgG, i, nInternalTo);
+
+		if (nIndexTo == N)
+			dblResult += EnergyKernel.evaluate(mgG, N, N);
+
+		return dblResult;
+	}
+
+	@Override
+	public String toString()
+	{
+		return String.format("%s (%d lanes of %d bits)", Implementation.VECTOR.value(), SPECIES.length(),
+		 SPECIES.vectorBitSize());
+	}
+}
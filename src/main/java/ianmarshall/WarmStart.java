@@ -0,0 +1,213 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class reads the metric component values of previous runs, from which new runs start instead of from constant
+ * values, so that long runs can be chained and refined rather than restarted.
+ * <br/>
+ * The values are read from a checkpoint, a {@link ResultFile}, or a text file containing a table of them: either the
+ * table of final values which a worker reports, in which each row is the index, radius, A, B and their derivatives,
+ * or a CSV file in which each row is the radius, A and B. Any other lines are skipped, and if there are several
+ * tables, as in a log file, the last one is read.
+ * <br/>
+ * The values are resampled onto the grid of the new runs by linear interpolation in the radius, and outside the
+ * radius range of the previous runs are those at its nearer end. If the grids are the same the values are taken
+ * exactly.
+ */
+public class WarmStart
+{
+	// The columns of the radius value in the rows of the two kinds of table
+	private static final int N_COLUMN_R_CSV = 0;
+	private static final int N_COLUMN_R_REPORT = 1;
+
+	/**
+	 * @param pPath
+	 *   The path of a checkpoint, a result file, or a text file containing a table of metric component values.
+	 * @return
+	 *   The metric component values, on the grid of the runs which produced them.
+	 * @throws IOException
+	 *   If the file cannot be read, or contains no table of at least 3 rows of ascending radius values.
+	 */
+	static MetricGrid read(Path pPath) throws IOException
+	{
+		MetricGrid mgResult;
+
+		if (Checkpoint.isCheckpoint(pPath))
+			mgResult = Checkpoint.read(pPath).getMetricGrid();
+		else if (ResultFile.isResultFile(pPath))
+			mgResult = ResultFile.read(pPath).toMetricGrid();
+		else
+		{
+			List<double[]> liTable = new ArrayList<>();
+			List<double[]> liRows = new ArrayList<>();
+
+			for (String sLine: Files.readAllLines(pPath))
+			{
+				double[] adblRow = parseRow(sLine);
+
+				if (adblRow != null)
+					liRows.add(adblRow);
+				else if (!liRows.isEmpty())
+				{
+					liTable = liRows;
+					liRows = new ArrayList<>();
+				}
+			}
+
+			if (!liRows.isEmpty())
+				liTable = liRows;
+
+			mgResult = toMetricGrid(liTable);
+
+			if (mgResult == null)
+				throw new IOException(String.format("The file \"%s\" contains no table of at least 3 rows of ascending"
+				 + " radius values.", pPath));
+		}
+
+		return mgResult;
+	}
+
+	/**
+	 * @param mgSource
+	 *   The metric component values of previous runs.
+	 * @param ggGeometry
+	 *   The grid of the new runs.
+	 * @return
+	 *   The metric component values resampled onto the grid of the new runs, with their derivatives not calculated.
+	 */
+	static MetricGrid resample(MetricGrid mgSource, GridGeometry ggGeometry)
+	{
+		int nSize = ggGeometry.size();
+		int nSizeSource = mgSource.size();
+		double[] adblRSource = mgSource.getRValues();
+		double[] adblASource = mgSource.getValues(None, MetricComponent.A);
+		double[] adblBSource = mgSource.getValues(None, MetricComponent.B);
+		double[] adblA = new double[nSize];
+		double[] adblB = new double[nSize];
+
+		for (int i = 0; i < nSize; i++)
+		{
+			double dblR = ggGeometry.getR(i);
+			int nIndex = Arrays.binarySearch(adblRSource, dblR);
+
+			if (nIndex >= 0)
+			{
+				adblA[i] = adblASource[nIndex];
+				adblB[i] = adblBSource[nIndex];
+			}
+			else
+			{
+				// The index of the first source radius value above the radius value
+				int nAbove = -nIndex - 1;
+
+				if (nAbove == 0)
+				{
+					adblA[i] = adblASource[0];
+					adblB[i] = adblBSource[0];
+				}
+				else if (nAbove == nSizeSource)
+				{
+					adblA[i] = adblASource[nSizeSource - 1];
+					adblB[i] = adblBSource[nSizeSource - 1];
+				}
+				else
+				{
+					int nBelow = nAbove - 1;
+					double dblFraction = (dblR - adblRSource[nBelow]) / (adblRSource[nAbove] - adblRSource[nBelow]);
+
+					adblA[i] = adblASource[nBelow] + (dblFraction * (adblASource[nAbove] - adblASource[nBelow]));
+					adblB[i] = adblBSource[nBelow] + (dblFraction * (adblBSource[nAbove] - adblBSource[nBelow]));
+				}
+			}
+		}
+
+		return new MetricGrid(ggGeometry, adblA, adblB);
+	}
+
+	/**
+	 * @param sLine
+	 *   A line of a text file.
+	 * @return
+	 *   The numbers in the line, or <code>null</code> if it is not a row of at least 3 numbers. The numbers are
+	 *   separated by white space or commas, and may contain commas grouping their digits, as in the table of final
+	 *   values which a worker reports.
+	 */
+	static double[] parseRow(String sLine)
+	{
+		String sTrimmed = sLine.trim();
+		String[] asColumns = sTrimmed.split("\\s*,\\s+|\\s+");
+
+		// Without white space the commas can only separate the numbers
+		if (asColumns.length == 1)
+			asColumns = sTrimmed.split(",");
+
+		double[] adblResult = null;
+
+		if (asColumns.length >= 3)
+			try
+			{
+				adblResult = new double[asColumns.length];
+
+				for (int i = 0; i < asColumns.length; i++)
+					adblResult[i] = Double.parseDouble(asColumns[i].replace(",", ""));
+			}
+			catch (NumberFormatException e)
+			{
+				adblResult = null;
+			}
+
+		return adblResult;
+	}
+
+	/**
+	 * @param liTable
+	 *   The rows of a table, each of which is either the radius, A and B, or the index, radius, A, B and any other
+	 *   columns.
+	 * @return
+	 *   The metric component values of the table, or <code>null</code> if it has fewer than 3 rows, or its rows are of
+	 *   different lengths or not in ascending order of radius value.
+	 */
+	private static MetricGrid toMetricGrid(List<double[]> liTable)
+	{
+		MetricGrid mgResult = null;
+		int nSize = liTable.size();
+
+		if (nSize >= 3)
+		{
+			int nColumns = liTable.get(0).length;
+			int nColumnR = nColumns == 3 ? N_COLUMN_R_CSV : N_COLUMN_R_REPORT;
+			double[] adblR = new double[nSize];
+			double[] adblA = new double[nSize];
+			double[] adblB = new double[nSize];
+			boolean bValid = true;
+
+			for (int i = 0; i < nSize; i++)
+			{
+				double[] adblRow = liTable.get(i);
+				bValid = bValid && (adblRow.length == nColumns);
+
+				if (bValid)
+				{
+					adblR[i] = adblRow[nColumnR];
+					adblA[i] = adblRow[nColumnR + 1];
+					adblB[i] = adblRow[nColumnR + 2];
+					bValid = (i == 0) || (adblR[i] > adblR[i - 1]);
+				}
+			}
+
+			if (bValid)
+				mgResult = new MetricGrid(adblR, adblA, adblB);
+		}
+
+		return mgResult;
+	}
+}
@@ -4,21 +4,26 @@ import cern.colt.matrix.DoubleFactory2D;
 import cern.colt.matrix.DoubleMatrix2D;
 
 import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.SimulatedAnnealing.EnergyMode;
+import ianmarshall.SnapshotPublisher.Snapshot;
+import ianmarshall.WorkerResult.Reason;
 import static ianmarshall.MetricComponents.MetricComponent.A;
 import static ianmarshall.MetricComponents.MetricComponent.B;
 import static ianmarshall.Worker.DerivativeLevel.First;
 import static ianmarshall.Worker.DerivativeLevel.None;
 import static ianmarshall.Worker.DerivativeLevel.Second;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.Thread.UncaughtExceptionHandler;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map.Entry;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class Worker implements Runnable
+public class Worker implements AnnealingEngine
 {
 	public enum DerivativeLevel
 	{
@@ -74,32 +79,49 @@ public class Worker implements Runnable
 		@Override
 		public void uncaughtException(Thread t, Throwable th)
 		{
-			m_WorkerResult = new WorkerResult(m_bProcessingCompleted, th, m_nRun, m_liG);
+			m_WorkerResult = new WorkerResult(Reason.FAILED, th, m_nRun, m_mgG, m_chChain.getEnergy());
 			m_bStopped = true;
+			m_cfCompletion.complete(m_WorkerResult);
 		}
 
 	}
 
-	// private static final double DBL_SUCCESS_LOG_PROBABILITY = 0.001;
 	private static final Logger logger = LoggerFactory.getLogger(Worker.class);
-	private static final StringBuilder s_sbMoveLog = new StringBuilder();    // Refactor this for multi-instance use
 	private int m_nRun = 0;
 	private int m_nRuns = 0;
 
-	// These are tensor values, with metric components for each value of radius
-	private List<MetricComponents> m_liG = null;
-	private List<MetricComponents> m_liGFirstDerivative = null;
-	private List<MetricComponents> m_liGSecondDerivative = null;
+	// These are tensor values and their derivatives, with metric components for each value of radius
+	private MetricGrid m_mgG = null;
 
-	private boolean m_bFirstRun = true;    // This will also be true when resuming running after a pause
+	private boolean m_bFirstRun = true;
 	private volatile boolean m_bStopping = false;
-	private boolean m_bStopped = false;
-	private boolean m_bProcessingCompleted = false;
+	private volatile boolean m_bStopped = false;
 	private WorkerUncaughtExceptionHandler m_wuehExceptionHandler = null;
-	private WorkerResult m_WorkerResult = null;
+	private volatile WorkerResult m_WorkerResult = null;
+	private PauseControl m_pcPauseControl = new PauseControl();
+	private CompletableFuture<WorkerResult> m_cfCompletion = new CompletableFuture<>();
+	private SnapshotPublisher m_snpSnapshotPublisher = null;
+	private RunMetrics m_rmMetrics = null;
 
+	private StartParameters m_spStartParameters = null;
 	private SimulatedAnnealing m_saSimulatedAnnealing = null;
-	private double m_dblEnergyCurrent = -1.0;
+	private Chain m_chChain = null;
+	private EnergyMode m_emEnergyMode = EnergyMode.INCREMENTAL;
+	private int m_nEnergyCheckInterval = 0;
+	private Telemetry m_tTelemetry = null;
+	private MoveJournal m_mjMoveJournal = null;
+	private RandomStream m_rsRandom = null;
+	private ConvergenceMonitor m_cmConvergenceMonitor = null;
+	private Reason m_rReason = null;
+	private boolean m_bReportTensorValues = true;
+	private int m_nSpeculativeThreads = 1;
+	private Speculation m_spSpeculation = null;
+	private Island m_isIsland = null;
+	private Path m_pCheckpointFile = null;
+	private int m_nCheckpointInterval = 0;
+	private Checkpoint m_ckResume = null;
+	private Path m_pTrajectoryFile = null;
+	private TrajectoryStore m_tsTrajectory = null;
 
 	/**
 	 * The constructor.
@@ -107,165 +129,528 @@ public class Worker implements Runnable
 	 *   The the application's start parameters.
 	 * @param nRun
 	 *   The number of runs already executed. A value of <code>0</code> means no run has yet been executed.
-	 * @param liG
+	 * @param mgG
 	 *   If not <code>null</code> then use this to set the metric tensor values, otherwise calculate the initial values.
+	 * @param mjMoveJournal
+	 *   The journal to which accepted moves are to be appended, or <code>null</code> if they are not to be journalled.
 	 */
-	public Worker(StartParameters spStartParameters, int nRun, List<MetricComponents> liG)
+	public Worker(StartParameters spStartParameters, int nRun, MetricGrid mgG, MoveJournal mjMoveJournal)
 	{
+		this(spStartParameters, nRun, mgG, mjMoveJournal, new RandomStream(spStartParameters.getSeed()));
+	}
+
+	/**
+	 * The constructor, with a random number stream of its own, such as one of several workers executing concurrently.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @param nRun
+	 *   The number of runs already executed. A value of <code>0</code> means no run has yet been executed.
+	 * @param mgG
+	 *   If not <code>null</code> then use this to set the metric tensor values, otherwise calculate the initial values.
+	 * @param mjMoveJournal
+	 *   The journal to which accepted moves are to be appended, or <code>null</code> if they are not to be journalled.
+	 * @param rsRandom
+	 *   The random number stream, which is not shared with other threads.
+	 */
+	public Worker(StartParameters spStartParameters, int nRun, MetricGrid mgG, MoveJournal mjMoveJournal,
+	 RandomStream rsRandom)
+	{
+		m_spStartParameters = spStartParameters;
 		m_nRun = nRun;
 		m_nRuns = spStartParameters.getNumberOfRuns();
-		m_liG = liG;
+		m_mgG = mgG;
+		m_mjMoveJournal = mjMoveJournal;
 		m_wuehExceptionHandler = new WorkerUncaughtExceptionHandler();
-		m_saSimulatedAnnealing = new SimulatedAnnealing(spStartParameters);
+		m_rsRandom = rsRandom;
+		m_saSimulatedAnnealing = new SimulatedAnnealing(spStartParameters, m_rsRandom);
+		m_emEnergyMode = spStartParameters.getEnergyMode();
+		m_chChain = new Chain(m_saSimulatedAnnealing, m_rsRandom, m_emEnergyMode);
+		m_nEnergyCheckInterval = spStartParameters.getEnergyCheckInterval();
+		m_nSpeculativeThreads = spStartParameters.getSpeculativeThreads();
+		m_cmConvergenceMonitor = new ConvergenceMonitor(spStartParameters, nRun);
+		m_tTelemetry = new Telemetry(spStartParameters.getTelemetryIntervalRuns(),
+		 spStartParameters.getTelemetryIntervalMillis(), nRun);
+		m_snpSnapshotPublisher = new SnapshotPublisher(spStartParameters.getSnapshotInterval());
+		m_rmMetrics = new RunMetrics(m_nRuns, nRun);
+		m_tTelemetry.setRunMetrics(m_rmMetrics);
+
+		String sCheckpointFile = spStartParameters.getCheckpointFile();
+		m_pCheckpointFile = sCheckpointFile.isEmpty() ? null : Paths.get(sCheckpointFile);
+		m_nCheckpointInterval = spStartParameters.getCheckpointInterval();
+
+		String sTrajectoryFile = spStartParameters.getTrajectoryFile();
+		m_pTrajectoryFile = sTrajectoryFile.isEmpty() ? null : Paths.get(sTrajectoryFile);
+	}
+
+	/**
+	 * Create a worker which resumes the runs from a checkpoint, exactly as they would have continued had they not
+	 * been interrupted.
+	 * @param spStartParameters
+	 *   The the application's start parameters.
+	 * @param ck
+	 *   The checkpoint, whose metric tensor values the worker takes over.
+	 * @param mjMoveJournal
+	 *   The journal to which accepted moves are to be appended, or <code>null</code> if they are not to be journalled.
+	 * @return
+	 *   The worker, which has not been started.
+	 * @throws IllegalArgumentException
+	 *   If the checkpoint was written by runs of another annealing schedule, or its states are not of the lengths of
+	 *   those of the schedule and convergence monitor of the start parameters.
+	 */
+	public static Worker resume(StartParameters spStartParameters, Checkpoint ck, MoveJournal mjMoveJournal)
+	{
+		Worker wResult = new Worker(spStartParameters, ck.getRun(), ck.getMetricGrid(), mjMoveJournal,
+		 RandomStream.restore(ck.getRandomKey(), ck.getRandomCounter()));
+		int nScheduleStateLength = wResult.m_saSimulatedAnnealing.getSchedule().getState().length;
+		int nMonitorStateLength = wResult.m_cmConvergenceMonitor.getState().length;
+
+		if ((ck.getSchedule() != spStartParameters.getSchedule())
+		 || (ck.getScheduleState().length != nScheduleStateLength)
+		 || (ck.getMonitorState().length != nMonitorStateLength))
+			throw new IllegalArgumentException(String.format("The checkpoint was written by runs of the \"%s\" annealing"
+			 + " schedule, with states of %d and %d values, which cannot be resumed by runs of the \"%s\" schedule, with"
+			 + " states of %d and %d values.", ck.getSchedule().value(), ck.getScheduleState().length,
+			 ck.getMonitorState().length, spStartParameters.getSchedule().value(), nScheduleStateLength,
+			 nMonitorStateLength));
+
+		wResult.m_saSimulatedAnnealing.getSchedule().setState(ck.getScheduleState());
+		wResult.m_cmConvergenceMonitor.setState(ck.getMonitorState());
+		wResult.m_ckResume = ck;
+		return wResult;
 	}
 
+	@Override
 	public void stopExecution()
 	{
 		m_bStopping = true;
+		m_pcPauseControl.wake();
 		logger.info(String.format("Stopping run number %s...", SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)));
 	}
 
+	@Override
+	public void pauseExecution()
+	{
+		m_pcPauseControl.pause();
+	}
+
+	@Override
+	public void resumeExecution()
+	{
+		m_pcPauseControl.resume();
+	}
+
+	@Override
+	public boolean getPaused()
+	{
+		return m_pcPauseControl.getPaused();
+	}
+
 	/**
 	 * @return
 	 *   Whether working has stopped, whether all processing has been completed or not.
 	 */
+	@Override
 	public boolean getStopped()
 	{
 		return m_bStopped;
 	}
 
-	public WorkerUncaughtExceptionHandler getWorkerUncaughtExceptionHandler()
+	@Override
+	public WorkerUncaughtExceptionHandler getUncaughtExceptionHandler()
 	{
 		return m_wuehExceptionHandler;
 	}
 
+	@Override
 	public WorkerResult getWorkerResult()
 	{
 		return m_WorkerResult;
 	}
 
+	@Override
+	public CompletableFuture<WorkerResult> getCompletion()
+	{
+		return m_cfCompletion;
+	}
+
+	@Override
+	public Snapshot getSnapshot()
+	{
+		return m_snpSnapshotPublisher.read();
+	}
+
+	@Override
+	public RunMetricsMBean getRunMetrics()
+	{
+		return m_rmMetrics;
+	}
+
+	/**
+	 * @param bReportTensorValues
+	 *   Whether all the metric tensor values are logged when the runs stop. The default is <code>true</code>.
+	 */
+	public void setReportTensorValues(boolean bReportTensorValues)
+	{
+		m_bReportTensorValues = bReportTensorValues;
+	}
+
+	/**
+	 * @param isIsland
+	 *   The island through which this worker exchanges its state with those of other islands every migration interval,
+	 *   or <code>null</code> if it does not. The default is <code>null</code>.
+	 */
+	public void setIsland(Island isIsland)
+	{
+		m_isIsland = isIsland;
+	}
+
 	@Override
 	public void run()
 	{
-		m_bStopping = false;
+		// A stop requested before the runs started is kept, so that a worker queued on a pool can be stopped
 		m_bStopped = false;
+		m_rReason = null;
 
-		while ((!m_bStopping) && (m_nRun < m_nRuns))
+		try
 		{
-			m_nRun++;
-	 // logger.info(String.format("Started run number %s.", SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)));
-
-			if (m_bFirstRun)
+			while ((!m_bStopping) && (m_nRun < m_nRuns) && (m_rReason == null))
 			{
-				if (m_liG == null)
-					initialiseMetricTensors();
+		 // logger.info(String.format("Started run number %s.", SchwarzschildSimulatedAnnealing.formatInteger(m_nRun + 1)));
 
-				if ((m_liGFirstDerivative == null) || (m_liGSecondDerivative == null))
+				if (m_bFirstRun)
 				{
-					m_liGFirstDerivative  = MetricComponents.deepCopyMetricComponents(m_liG);
-					m_liGSecondDerivative = MetricComponents.deepCopyMetricComponents(m_liG);
-				}
+					if (m_mgG == null)
+						m_mgG = initialiseMetricTensors(m_spStartParameters);
 
-				calculateAllDifferentialsForAllValues(m_liG, m_liGFirstDerivative, m_liGSecondDerivative);
+					// The current energy has not been calculated yet, unless it was checkpointed with the values
+					if (m_ckResume != null)
+						m_chChain.restore(m_mgG, m_ckResume.getEnergy());
+					else
+						m_chChain.setMetricGrid(m_mgG, m_nRun + 1);
 
-				// The current energy has not been calculated yet
-				m_dblEnergyCurrent = m_saSimulatedAnnealing.energy(m_liG, m_liGFirstDerivative, m_liGSecondDerivative, m_nRun);
+					m_snpSnapshotPublisher.publish(m_nRun, m_chChain.getEnergy(), m_mgG);
 
-				m_bFirstRun = false;
-			}
+					if (m_mjMoveJournal != null)
+						beginMoveJournal();
 
-			List<MetricComponents> liGNew = m_saSimulatedAnnealing.neighbour(m_liG);
-			List<MetricComponents> liGNewFirstDerivative = MetricComponents.deepCopyMetricComponents(m_liGFirstDerivative);
-			List<MetricComponents> liGNewSecondDerivative = MetricComponents.deepCopyMetricComponents(m_liGSecondDerivative);
-			calculateAllDifferentialsForAllValues(liGNew, liGNewFirstDerivative, liGNewSecondDerivative);
-			double dblEnergyNew = m_saSimulatedAnnealing.energy(liGNew, liGNewFirstDerivative, liGNewSecondDerivative,
-			 m_nRun);
-			double dblTemperature = m_saSimulatedAnnealing.temperature(m_nRun, m_nRuns);
-			double dblProbability = m_saSimulatedAnnealing.acceptanceProbability(m_dblEnergyCurrent, dblEnergyNew,
-			 dblTemperature);
-			boolean bAcceptMove = Math.random() < dblProbability;
-			String sLogEntry = null;
-	 // bAcceptMove = false;    // Delete this line
+					if (m_pTrajectoryFile != null)
+						openTrajectory();
 
-			if (bAcceptMove)
-			{
-		 // if (Math.random() < DBL_SUCCESS_LOG_PROBABILITY)
-		 // {
-					sLogEntry = String.format("Run number %s:"
-					 + "    ***  Accepted move from energy %f to %f at temperature %f with probability %.5f.  ***",
-					 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_dblEnergyCurrent, dblEnergyNew, dblTemperature,
-					 dblProbability);
-
-					int nStartLength = s_sbMoveLog.length();
-					s_sbMoveLog.append(String.format("%n  run %d: %s", m_nRun, sLogEntry));
-
-					if (nStartLength == 0)
-					{
-						String sRemove = String.format("%n");
-						int nLengthRemove = sRemove.length();
-						s_sbMoveLog.delete(0, nLengthRemove);
-					}
-		 // }
-
-				m_liG = liGNew;
-				m_liGFirstDerivative = liGNewFirstDerivative;
-				m_liGSecondDerivative = liGNewSecondDerivative;
-				m_dblEnergyCurrent = dblEnergyNew;
-
-		 // String sLogMessage = m_saSimulatedAnnealing.popLatestLogMessage();
-		 // logger.info(sLogMessage);
+					m_bFirstRun = false;
+				}
+
+				if (m_nSpeculativeThreads <= 1)
+				{
+					m_nRun++;
+					double dblTemperature = m_saSimulatedAnnealing.temperature(m_nRun, m_nRuns);
+					double dblEnergyBefore = m_chChain.getEnergy();
+					boolean bAcceptMove = m_chChain.step(m_nRun, dblTemperature);
+					completeRun(bAcceptMove, m_chChain.getMove(), dblEnergyBefore, dblTemperature);
+				}
+				else
+					runSpeculatively();
+
+				// A pause parks the thread here, between runs, so it resumes with all its state as it was
+				m_pcPauseControl.park(m_nRun, () -> m_bStopping);
 			}
-			else if (dblProbability >= 0.5)
+		}
+		finally
+		{
+			if (m_spSpeculation != null)
 			{
-				sLogEntry = String.format("Run number %s:"
-				 + " rejected move from energy %f to %f with probability %.5f.",
-				 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_dblEnergyCurrent, dblEnergyNew, dblProbability);
-
-		 // sLogEntry = String.format("%n***  Remove the setting of bAcceptMove to false.  ***");
+				m_spSpeculation.close();
+				m_spSpeculation = null;
 			}
+		}
 
-			if (sLogEntry == null)
-				sLogEntry = String.format("Run number %s: (pre-move) energy = %f.",
-				 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_dblEnergyCurrent);
+		m_tTelemetry.flush();
 
-			if (sLogEntry != null)
-			{
-				logger.info(sLogEntry);
-		 // logger.info(String.format("Completed run number %s with current energy %f.",
-		 //  SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_dblEnergyCurrent));
-			}
+		if (m_tsTrajectory != null)
+			closeTrajectory();
 
-	 // logger.info(String.format("Completed run number %s with current energy %f.",
-	 //  SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_dblEnergyCurrent));
-		}
+		// The checkpoint has the incrementally calculated energy, from which the runs continue if they are resumed
+		if ((m_pCheckpointFile != null) && (!m_bFirstRun))
+			writeCheckpoint();
 
-		logger.info(String.format("Move log is:%n%s", s_sbMoveLog));
-		reportFinalTensorValues();
+		// The result's energy is calculated fully, without the drift of the incrementally calculated energy
+		if ((m_emEnergyMode == EnergyMode.INCREMENTAL) && (!m_bFirstRun))
+			m_chChain.checkEnergy(m_nRun);
 
-		if (m_nRun >= m_nRuns)
+		if (m_mjMoveJournal != null)
+			flushMoveJournal();
+
+		if (!m_bFirstRun)
+			m_snpSnapshotPublisher.publish(m_nRun, m_chChain.getEnergy(), m_mgG);
+
+		if ((m_mgG != null) && m_bReportTensorValues)
+			reportFinalTensorValues(m_mgG);
+
+		if (m_rReason != null)
 		{
-			s_sbMoveLog.setLength(0);
-			m_bProcessingCompleted = true;
+			logger.info(String.format("Processing has been completed early at run number %s, with the reason \"%s\".",
+			 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_rReason.value()));
+		}
+		else if (m_nRun >= m_nRuns)
+		{
+			m_rReason = Reason.COMPLETED;
 			logger.info("All processing has been completed.");
 		}
 		else
+		{
+			m_rReason = Reason.STOPPED;
 			logger.info("Stopped before all processing completed.");
+		}
+
+		// The other islands are told that this one has stopped, and why, with its final state
+		if ((m_isIsland != null) && (m_mgG != null))
+			m_isIsland.publish(m_nRun, m_rReason, m_mgG, m_chChain.getEnergy());
 
-		m_WorkerResult = new WorkerResult(m_bProcessingCompleted, null, m_nRun, m_liG);
+		m_WorkerResult = new WorkerResult(m_rReason, null, m_nRun, m_mgG, m_chChain.getEnergy());
 		m_bStopped = true;
+		m_cfCompletion.complete(m_WorkerResult);
+	}
+
+	/**
+	 * Execute runs with their candidate moves proposed concurrently, up to and including the first accepted move.
+	 * The runs of a batch do not extend beyond a check of the incrementally calculated energy, so that every run is
+	 * decided from the same energy as when the runs are executed one at a time.
+	 */
+	private void runSpeculatively()
+	{
+		if (m_spSpeculation == null)
+		{
+			m_spSpeculation = new Speculation(m_spStartParameters, m_chChain, m_rsRandom, m_nSpeculativeThreads);
+			m_spSpeculation.start(m_nRun + 1);
+		}
+
+		int nRunFrom = m_nRun + 1;
+		int nLanes = Math.min(m_spSpeculation.getLanes(), m_nRuns - m_nRun);
+
+		if (m_emEnergyMode == EnergyMode.INCREMENTAL)
+			nLanes = Math.min(nLanes, m_nEnergyCheckInterval - (m_nRun % m_nEnergyCheckInterval));
+
+		if (m_isIsland != null)
+			nLanes = Math.min(nLanes, m_isIsland.getMigrationInterval() - (m_nRun % m_isIsland.getMigrationInterval()));
+
+		m_spSpeculation.propose(nRunFrom, nLanes);
+		boolean bAcceptMove = false;
+		int nLane = 0;
+
+		while ((nLane < nLanes) && (!bAcceptMove) && (m_rReason == null))
+		{
+			m_nRun = nRunFrom + nLane;
+			double dblTemperature = m_saSimulatedAnnealing.temperature(m_nRun, m_nRuns);
+			double dblEnergyBefore = m_chChain.getEnergy();
+			bAcceptMove = m_spSpeculation.decide(nLane, nLanes, dblTemperature);
+			completeRun(bAcceptMove, m_spSpeculation.getMove(nLane), dblEnergyBefore, dblTemperature);
+			nLane++;
+		}
+
+		// The proposals after the runs ended early are discarded; those after an accepted move already have been
+		if (!bAcceptMove)
+			m_spSpeculation.discard(nLane, nLanes);
+	}
+
+	/**
+	 * Record the outcome of the latest run, whose move has been accepted or undone.
+	 */
+	private void completeRun(boolean bAcceptMove, Move mvMove, double dblEnergyBefore, double dblTemperature)
+	{
+		double dblEnergyCurrent = m_chChain.getEnergy();
+
+		if (bAcceptMove && (m_mjMoveJournal != null))
+			appendToMoveJournal(mvMove, dblEnergyBefore, dblEnergyCurrent);
+
+		m_saSimulatedAnnealing.record(m_nRun, bAcceptMove, dblEnergyCurrent);
+
+		// Progress is logged once per sampling interval rather than for each run
+		boolean bTelemetryLogged = m_tTelemetry.record(m_nRun, bAcceptMove, dblEnergyCurrent, dblTemperature);
+
+		if (m_tsTrajectory != null)
+			m_tsTrajectory.record(m_nRun, bAcceptMove, dblEnergyCurrent, dblTemperature);
+
+		if ((m_emEnergyMode == EnergyMode.INCREMENTAL) && ((m_nRun % m_nEnergyCheckInterval) == 0))
+		{
+			if (m_spSpeculation != null)
+				m_spSpeculation.checkEnergy(m_nRun);
+			else
+				m_chChain.checkEnergy(m_nRun);
+		}
+
+		// The runs end early if the energy can no longer usefully improve
+		m_rReason = m_cmConvergenceMonitor.check(m_nRun, bAcceptMove, m_chChain.getEnergy());
+
+		if ((m_isIsland != null) && ((m_nRun % m_isIsland.getMigrationInterval()) == 0) && (m_rReason == null))
+			migrate();
+
+		// The state is copied once every snapshot interval
+		if (m_snpSnapshotPublisher.due(m_nRun))
+			m_snpSnapshotPublisher.publish(m_nRun, m_chChain.getEnergy(), m_mgG);
+
+		boolean bCheckpointDue = (m_pCheckpointFile != null) && ((m_nRun % m_nCheckpointInterval) == 0);
+
+		if (bCheckpointDue)
+			writeCheckpoint();
+
+		// The journal is flushed with a keyframe at the telemetry and checkpoint intervals, so that the moves reach
+		// the file without waiting for its buffer to fill, and a replay can start near the run required
+		if ((m_mjMoveJournal != null) && (bTelemetryLogged || bCheckpointDue))
+			keyframeMoveJournal();
+	}
+
+	/**
+	 * Write a checkpoint of the state of the runs. A failure to write it is logged, and the runs continue, so that
+	 * the previous checkpoint remains.
+	 */
+	private void writeCheckpoint()
+	{
+		try
+		{
+			Checkpoint.write(m_pCheckpointFile, new Checkpoint(m_nRun, m_chChain.getEnergy(), m_rsRandom.getKey(),
+			 m_rsRandom.getCounter(), m_spStartParameters.getSchedule(), m_saSimulatedAnnealing.getSchedule().getState(),
+			 m_cmConvergenceMonitor.getState(), m_mgG));
+		}
+		catch (IOException e)
+		{
+			logger.warn(String.format("Run number %s: the checkpoint could not be written to \"%s\".",
+			 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun), m_pCheckpointFile), e);
+		}
+	}
+
+	/**
+	 * Create the store of the trajectory of the runs, or append to it if the runs are resumed. A failure to create it
+	 * is logged, and the runs continue without it.
+	 */
+	private void openTrajectory()
+	{
+		try
+		{
+			m_tsTrajectory = new TrajectoryStore(m_pTrajectoryFile, m_spStartParameters.getTrajectoryBuckets(),
+			 m_ckResume != null);
+		}
+		catch (IOException e)
+		{
+			logger.warn(String.format("The trajectory store \"%s\" could not be created.", m_pTrajectoryFile), e);
+		}
+	}
+
+	private void closeTrajectory()
+	{
+		try
+		{
+			m_tsTrajectory.close();
+			logger.info(String.format("The trajectory of the runs has been written to \"%s\".", m_pTrajectoryFile));
+		}
+		catch (IOException e)
+		{
+			logger.warn(String.format("The trajectory store \"%s\" could not be completed.", m_pTrajectoryFile), e);
+		}
+
+		m_tsTrajectory = null;
+	}
+
+	/**
+	 * Exchange this worker's state with those of the other islands, and continue from the state of lowest energy
+	 * among them if that is lower than its own.
+	 */
+	private void migrate()
+	{
+		MetricGrid mgMigrant = m_isIsland.exchange(m_nRun, m_mgG, m_chChain.getEnergy());
+
+		if (mgMigrant != null)
+		{
+			m_mgG.copyFrom(mgMigrant);
+
+			// The energy, and the derivatives on which it depends, are recalculated for the new values
+			m_chChain.setMetricGrid(m_mgG, m_nRun + 1);
+
+			if (m_spSpeculation != null)
+				m_spSpeculation.start(m_nRun + 1);
+		}
+	}
+
+	private void beginMoveJournal()
+	{
+		try
+		{
+			m_mjMoveJournal.begin(m_nRun, m_mgG);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("The move journal's header could not be written.", e);
+		}
+	}
+
+	private void appendToMoveJournal(Move mvMove, double dblEnergyBefore, double dblEnergyAfter)
+	{
+		try
+		{
+			m_mjMoveJournal.append(m_nRun, mvMove, dblEnergyBefore, dblEnergyAfter);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(String.format("Run number %s: the move journal could not be written.",
+			 SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)), e);
+		}
+	}
+
+	private void keyframeMoveJournal()
+	{
+		try
+		{
+			m_mjMoveJournal.keyframe(m_nRun, m_mgG);
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(String.format("Run number %s: the move journal's keyframe could not be"
+			 + " written.", SchwarzschildSimulatedAnnealing.formatInteger(m_nRun)), e);
+		}
+	}
+
+	private void flushMoveJournal()
+	{
+		try
+		{
+			m_mjMoveJournal.flush();
+			logger.info(String.format("%s accepted moves have been written to the move journal.",
+			 SchwarzschildSimulatedAnnealing.formatInteger((int)m_mjMoveJournal.getMoves())));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException("The move journal could not be written.", e);
+		}
 	}
 
 	/**
 	 * Initialise the metric tensor, and its first and second derivatives with respect to radius,
 	 * with start values for logarithmically-graduated radius values.
+	 * @param spStartParameters
+	 *   The the application's start parameters, which give the start values.
+	 * @return
+	 *   The metric tensor values.
 	 */
-	private void initialiseMetricTensors()
+	static MetricGrid initialiseMetricTensors(StartParameters spStartParameters)
 	{
-		m_liG = new ArrayList<>();
-		m_liGFirstDerivative = new ArrayList<>();
-		m_liGSecondDerivative = new ArrayList<>();
+		return initialiseMetricTensors(spStartParameters, GridGeometry.logarithmic());
+	}
 
-		StringBuilder sbLog = new StringBuilder("Initialising the metric components (a selection is shown)...");
+	/**
+	 * Initialise the metric tensor, and its first and second derivatives with respect to radius,
+	 * with start values for the radius values of a grid.
+	 * @param spStartParameters
+	 *   The the application's start parameters, which give the start values.
+	 * @param ggGeometry
+	 *   The radius values.
+	 * @return
+	 *   The metric tensor values.
+	 */
+	static MetricGrid initialiseMetricTensors(StartParameters spStartParameters, GridGeometry ggGeometry)
+	{
+		MetricGrid mgWarmStart = spStartParameters.getWarmStartValues();
+		StringBuilder sbLog = new StringBuilder(mgWarmStart == null
+		 ? "Initialising the metric components (a selection is shown)..."
+		 : String.format("Initialising the metric components from the previous results \"%s\" (a selection is shown)...",
+		 spStartParameters.getWarmStart()));
 		String sIndent = " ".repeat(72);
 
 		sbLog.append(String.format(
@@ -275,129 +660,70 @@ public class Worker implements Runnable
 
 		String sFormat = "%n" + sIndent + "%5d  %,18.12f  %,18.12f  %,18.12f";
 
-		final double DBL_R_MIN = 1.01;
-		final double DBL_R_MAX = 100.0;
-		final double DBL_STEP_FACTOR_RADIUS = 1.014;
-		double dblR = DBL_R_MIN;
-		int i = 0;
-		boolean bLoop = true;
-		boolean bOneMoreLoop = false;
+		int nSize = ggGeometry.size();
+		MetricGrid mgResult;
 
-		while (bLoop)
+		if (mgWarmStart != null)
+			mgResult = WarmStart.resample(mgWarmStart, ggGeometry);
+		else
 		{
-			if (bOneMoreLoop)
-				bLoop = false;
-
-	 // double dblA =  1.0 * (1.0 - (1.0 / dblR));
-	 // double dblB =  1.0 * (-1.0 / (1.0 - (1.0 / dblR)));
-			double dblA =  1.0;
-			double dblB =  -1.0;
-
-			m_liG.add(new MetricComponents(dblR, dblA, dblB));
-			m_liGFirstDerivative.add(new MetricComponents(dblR, 0.0, 0.0));
-			m_liGSecondDerivative.add(new MetricComponents(dblR, 0.0, 0.0));
-
-			if ((i >= 662) || ((i % 100) == 0))
-				sbLog.append(String.format(sFormat, i, dblR, dblA, dblB));
-
-			double dblRNew = ((dblR  - 1.0) * DBL_STEP_FACTOR_RADIUS) + 1.0;
+			double[] adblA = new double[nSize];
+			double[] adblB = new double[nSize];
 
-			if (dblRNew < DBL_R_MAX)
-				dblR = dblRNew;
-			else if (dblR < DBL_R_MAX)
+			for (int i = 0; i < nSize; i++)
 			{
-				// We shall loop once more only, and then not rely on comparison precision
-				dblR = DBL_R_MAX;
-				bOneMoreLoop = true;
+		 // double dblR = ggGeometry.getR(i);
+		 // double dblA =  1.0 * (1.0 - (1.0 / dblR));
+		 // double dblB =  1.0 * (-1.0 / (1.0 - (1.0 / dblR)));
+				adblA[i] = spStartParameters.getInitialA();
+				adblB[i] = spStartParameters.getInitialB();
 			}
-			else
-				bLoop = false;
 
-			i++;
+			mgResult = new MetricGrid(ggGeometry, adblA, adblB);
 		}
 
+		for (int i = 0; i < nSize; i++)
+			if ((i >= 662) || ((i % 100) == 0))
+				sbLog.append(String.format(sFormat, i, mgResult.getR(i), mgResult.get(None, A, i), mgResult.get(None, B, i)));
+
 		logger.info(sbLog.toString());
 		logger.info("The metric components have been initialised.");
+		return mgResult;
 	}
 
 	/**
-	 * Calculate the first and second differentials of all the metric tensor components with respect to radius.
+	 * Calculate the first and second differentials of all the metric tensor components with respect to radius
+	 * for a range of radius values, and store them in the grid supplied.
 	 * <br>
-	 * All of the parameters must be not <code>null</code> and contain the same number of elements
-	 * for the same radius values. This number of elements must be at least 5.
-	 * @param liG
+	 * This is the reference calculation, component by component, against which {@link EnergyKernel} is checked.
+	 * The grid must contain at least 5 radius values.
+	 * @param mgG
 	 *   The metric tensor components.
-	 * @param liGFirstDerivative
-	 *   The first differential of the metric tensor components with respect to radius.
-	 * @param liGSecondDerivative
-	 *   The second differential of the metric tensor components with respect to radius.
+	 * @param nIndexFrom
+	 *   The lowest index of the radius values, the differentials of which are to be calculated.
+	 * @param nIndexTo
+	 *   The highest index of the radius values, the differentials of which are to be calculated.
 	 */
-	private void calculateAllDifferentialsForAllValues(
-	 List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative,
-	 List<MetricComponents> liGSecondDerivative)
+	static void calculateDifferentials(MetricGrid mgG, int nIndexFrom, int nIndexTo)
 	{
-		final int N = liG.size() - 1;
 		DerivativeLevel[] adlDerivativeLevel = {First, Second};
 
-		for (int i = 0; i <= N; i++)
-		{
-			MetricComponents mc1 = liGFirstDerivative.get(i);
-			mc1.setA(0.0);
-			mc1.setB(0.0);
-
-			MetricComponents mc2 = liGSecondDerivative.get(i);
-			mc2.setA(0.0);
-			mc2.setB(0.0);
-		}
-
 		for (MetricComponent mcMetricComponent: MetricComponent.values())
 			for (DerivativeLevel dlDerivativeLevel: adlDerivativeLevel)
-				for (int i = 0; i <= N; i++)
-					calculateDifferentialOfMetricComponent(liG, liGFirstDerivative, liGSecondDerivative, dlDerivativeLevel, i,
-					 mcMetricComponent);
-	}
-
-	/**
-	 * Calculate the specified level of differential of the specified metric component and store it
-	 * in the appropriate list supplied.
-	 * <br>
-	 * All of the list parameters must be not <code>null</code> and contain the same number of elements
-	 * for the same radius values. This number of elements must be at least 3.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGFirstDerivative
-	 *   A list of first derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGSecondDerivative
-	 *   A list of second derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param dlDerivativeLevel
-	 *   The derivative level to be calculated.
-	 * @param nIndex
-	 *   The zero-based index value of the metric component, the differential of which is to be calculated.
-	 * @param mcMetricComponent
-	 *   The metric component, the differential of which is to be calculated.
-	 */
-	private void calculateDifferentialOfMetricComponent(
-	 List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative,
-	 List<MetricComponents> liGSecondDerivative,
-	 DerivativeLevel dlDerivativeLevel, int nIndex,
-	 MetricComponent mcMetricComponent)
-	{
-			double dblValue = differentialOfMetricComponent(liG, dlDerivativeLevel, nIndex, mcMetricComponent);
+			{
+				double[] adblDerivative = mgG.getValues(dlDerivativeLevel, mcMetricComponent);
 
-			setMetricComponentOfDerivativeLevel(liG, liGFirstDerivative,
-			 liGSecondDerivative, dlDerivativeLevel, nIndex, mcMetricComponent,
-			 dblValue);
+				for (int i = nIndexFrom; i <= nIndexTo; i++)
+					adblDerivative[i] = differentialOfMetricComponent(mgG, dlDerivativeLevel, i, mcMetricComponent);
+			}
 	}
 
 	/**
 	 * Calculate the specified level of differential of the specified metric component.
 	 * <br>
-	 * All of the list parameters must be not <code>null</code> and contain the same number of elements
-	 * for the same radius values. This number of elements must be at least 3.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
+	 * The grid must contain at least 3 radius values.
+	 * @param mgG
+	 *   The metric tensor values, in order of ascending adjacent radius values.
 	 * @param dlDerivativeLevel
 	 *   The derivative level to be calculated.
 	 * @param nIndex
@@ -406,20 +732,19 @@ public class Worker implements Runnable
 	 *   The metric component, the differential of which is to be calculated.
 	 * @return
 	 *   The specified level of differential of the specified metric component with respect to radius,
-	 *   calculated at or near the radius of the entry of the list of the given index.
+	 *   calculated at or near the radius of the grid point of the given index.
 	 */
-	private double differentialOfMetricComponent(
-	 List<MetricComponents> liG, DerivativeLevel dlDerivativeLevel, int nIndex, MetricComponent mcMetricComponent)
+	private static double differentialOfMetricComponent(
+	 MetricGrid mgG, DerivativeLevel dlDerivativeLevel, int nIndex, MetricComponent mcMetricComponent)
 	{
 		double dblResult = 0.0;
-		final int N = liG.size() - 1;    // The maximum index value
+		final int N = mgG.size() - 1;    // The maximum index value
+		double[] adblR = mgG.getRValues();
+		double[] adblX = mgG.getValues(None, mcMetricComponent);
 
-		// The middle elements (index 1) are those of the point, the derivatives of which are to be calculated.
+		// The middle point (offset 1) is the point, the derivatives of which are to be calculated.
 		// This may be different from the index supplied if it is the first or last point.
 		// In these cases, we shall use forward and backward differences instead, respectively.
-		double[] adblR = new double[3];
-		double[] adblX = new double[3];
-
 		final int N_START;
 		if (nIndex == 0)
 			N_START = nIndex;        // Forward difference for the first point
@@ -428,21 +753,10 @@ public class Worker implements Runnable
 		else
 			N_START = nIndex - 2;    // Backward difference for the last point
 
-		final int N_FINISH = N_START + 2;
-		int n = 0;                       // The array index
-
-		// Load the arrays
-		for (int i = N_START; i <= N_FINISH; i++)
-		{
-			Entry<Double, Double> entry = getMetricComponentOfDerivativeLevel(liG, null, null, DerivativeLevel.None, i,
-			 mcMetricComponent);
-			adblR[n] = entry.getKey().doubleValue();
-			adblX[n] = entry.getValue().doubleValue();
-			n++;
-		}
-
-		double dblFirstDifferentialNext = (adblX[2] - adblX[1]) / (adblR[2] - adblR[1]);
-		double dblFirstDifferentialPrev = (adblX[1] - adblX[0]) / (adblR[1] - adblR[0]);
+		double dblFirstDifferentialNext =
+		 (adblX[N_START + 2] - adblX[N_START + 1]) / (adblR[N_START + 2] - adblR[N_START + 1]);
+		double dblFirstDifferentialPrev =
+		 (adblX[N_START + 1] - adblX[N_START]) / (adblR[N_START + 1] - adblR[N_START]);
 
 		switch (dlDerivativeLevel)
 		{
@@ -450,7 +764,8 @@ public class Worker implements Runnable
 				dblResult = 0.5 * (dblFirstDifferentialNext + dblFirstDifferentialPrev);
 				break;
 			case Second:
-				dblResult = 2.0 * (dblFirstDifferentialNext - dblFirstDifferentialPrev) / (adblR[2] - adblR[0]);
+				dblResult = 2.0 * (dblFirstDifferentialNext - dblFirstDifferentialPrev)
+				 / (adblR[N_START + 2] - adblR[N_START]);
 				break;
 			default:
 				throw new RuntimeException(String.format(
@@ -465,151 +780,26 @@ public class Worker implements Runnable
 		return dblResult;
 	}
 
-	/**
-	 * Get the specified radius and metric component of the specified level of differential of the specified index
-	 * from the lists supplied.
-	 * <br>
-	 * The list parameter for the derivative level sought must be not <code>null</code> and must contain the same number
-	 * of elements for the same radius values as any other list parameter used.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGFirstDerivative
-	 *   A list of first derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGSecondDerivative
-	 *   A list of second derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param dlDerivativeLevel
-	 *   The derivative level to be found.
-	 * @param nIndex
-	 *   The zero-based index value of the metric component to be found.
-	 * @param mcMetricComponent
-	 *   The metric component to be found.
-	 * @return
-	 *   The specified radius and metric component of the specified level of differential of the specified index
-	 *   from the lists supplied.
-	 */
-	public static Entry<Double, Double> getMetricComponentOfDerivativeLevel(
-	 List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative,
-	 List<MetricComponents> liGSecondDerivative,
-	 DerivativeLevel dlDerivativeLevel, int nIndex, MetricComponent mcMetricComponent)
-	{
-		MetricComponents mcMetricComponents =
-		 getMetricComponents(liG, liGFirstDerivative, liGSecondDerivative, dlDerivativeLevel, nIndex);
-		Entry<Double, Double> entryResult = mcMetricComponents.getComponent(mcMetricComponent);
-		return entryResult;
-	}
-
-	/**
-	 * Set the specified metric component of the specified level of differential of the specified index
-	 * using the lists supplied.
-	 * <br>
-	 * All of the list parameters must be not <code>null</code> and contain the same number of elements
-	 * for the same radius values.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGFirstDerivative
-	 *   A list of first derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGSecondDerivative
-	 *   A list of second derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param dlDerivativeLevel
-	 *   The derivative level to be set.
-	 * @param nIndex
-	 *   The zero-based index value of the metric component to be set.
-	 * @param mcMetricComponent
-	 *   The metric component to be set.
-	 * @param dblValue
-	 *   The metric component value to be set.
-	 */
-	public static void setMetricComponentOfDerivativeLevel(
-	 List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative,
-	 List<MetricComponents> liGSecondDerivative,
-	 DerivativeLevel dlDerivativeLevel, int nIndex, MetricComponent mcMetricComponent, double dblValue)
-	{
-		MetricComponents mcMetricComponents =
-		 getMetricComponents(liG, liGFirstDerivative, liGSecondDerivative, dlDerivativeLevel, nIndex);
-		mcMetricComponents.setComponent(mcMetricComponent, dblValue);
-	}
-
-	/**
-	 * Obtain the <code>MetricComponents</code> for the given parameters.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGFirstDerivative
-	 *   A list of first derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGSecondDerivative
-	 *   A list of second derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param dlDerivativeLevel
-	 *   The derivative level.
-	 * @param nIndex
-	 *   The zero-based index value of the metric component.
-	 * @return
-	 *   The <code>MetricComponents</code>.
-	 */
-	private static MetricComponents getMetricComponents(
-	 List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative,
-	 List<MetricComponents> liGSecondDerivative,
-	 DerivativeLevel dlDerivativeLevel, int nIndex)
-	{
-		MetricComponents mcMetricComponents = null;
-
-		switch (dlDerivativeLevel)
-		{
-			case None:
-				mcMetricComponents = liG.get(nIndex);
-				break;
-			case First:
-				mcMetricComponents = liGFirstDerivative.get(nIndex);
-				break;
-			case Second:
-				mcMetricComponents = liGSecondDerivative.get(nIndex);
-				break;
-			default:
-				throw new RuntimeException(String.format(
-				 "Derivative level \"%s\" not found.", dlDerivativeLevel.toString()));
-		}
-
-		return mcMetricComponents;
-	}
-
 	/*
 	 * Calculate the Jacobian matrix (values) at the given point in space-time (the radius).
 	 * <br>
-	 * All of the list parameters must be not <code>null</code> and contain the
-	 * same number of elements for the same radius values.
-	 * This number of elements must be at least 5.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGFirstDerivative
-	 *   A list of first derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGSecondDerivative
-	 *   A list of second derivative metric tensor values, in order of ascending adjacent radius values.
+	 * The grid must contain at least 5 radius values.
+	 * @param mgG
+	 *   The metric tensor values and their derivatives, in order of ascending adjacent radius values.
 	 * @param nIndex
 	 *   The zero-based index of the metric component of the point in space-time (the radius) to be used.
 	 * @return
 	 *   The Jacobian matrix (values) at the given point in space-time (the radius).
 	 */
 	/*
-	private DoubleMatrix2D calculateJacobianMatrixValues(List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative, List<MetricComponents> liGSecondDerivative, int nIndex)
+	private DoubleMatrix2D calculateJacobianMatrixValues(MetricGrid mgG, int nIndex)
 	{
-		Entry<Double, Double> entry = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative,
-		 None, nIndex, A);
-		double dblR = entry.getKey().doubleValue();
-		double dblA = entry.getValue().doubleValue();
-
-		double dblB = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, None, nIndex, B).
-		 getValue().doubleValue();
-
-		double dAdR = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, First, nIndex, A)
-		 .getValue().doubleValue();
-
-		double dBdR = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, First, nIndex, B)
-		 .getValue().doubleValue();
-
-		double d2AdR2 = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, Second, nIndex, A)
-		 .getValue().doubleValue();
+		double dblR = mgG.getR(nIndex);
+		double dblA = mgG.get(None, A, nIndex);
+		double dblB = mgG.get(None, B, nIndex);
+		double dAdR = mgG.get(First, A, nIndex);
+		double dBdR = mgG.get(First, B, nIndex);
+		double d2AdR2 = mgG.get(Second, A, nIndex);
 
 		double dR00dA = (1 / (4.0 * dblA * dblA * dblB)) * dAdR * dAdR;
 		double dR00dB = -((1 / (dblB * dblB * dblR)) * dAdR) + ((1 / (4.0 * dblA * dblB * dblB)) * dAdR * dAdR)
@@ -637,40 +827,24 @@ public class Worker implements Runnable
 	/**
 	 * Calculate the Ricci tensor values at the given point in space-time (the radius).
 	 * <br>
-	 * All of the list parameters must be not <code>null</code> and contain the
-	 * same number of elements for the same radius values.
-	 * This number of elements must be at least 5.
-	 * @param liG
-	 *   A list of the metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGFirstDerivative
-	 *   A list of first derivative metric tensor values, in order of ascending adjacent radius values.
-	 * @param liGSecondDerivative
-	 *   A list of second derivative metric tensor values, in order of ascending adjacent radius values.
+	 * This is the reference calculation, against which {@link EnergyKernel} is checked.
+	 * The grid must contain at least 5 radius values, and its derivatives must have been calculated.
+	 * @param mgG
+	 *   The metric tensor values and their derivatives, in order of ascending adjacent radius values.
 	 * @param nIndex
 	 *   The zero-based index of the metric component of the point in space-time (the radius) to be used.
 	 * @return
 	 *   The Ricci tensor values at the given point in space-time (the radius) as the vector (1-D column matrix):
 	 *   <code>(R00, R11, R22)T</code>.
 	 */
-	public static DoubleMatrix2D calculateRicciTensorValues(List<MetricComponents> liG,
-	 List<MetricComponents> liGFirstDerivative, List<MetricComponents> liGSecondDerivative, int nIndex)
+	public static DoubleMatrix2D calculateRicciTensorValues(MetricGrid mgG, int nIndex)
 	{
-		Entry<Double, Double> entry = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative,
-		 None, nIndex, A);
-		double dblR = entry.getKey().doubleValue();
-		double dblA = entry.getValue().doubleValue();
-
-		double dblB = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, None, nIndex, B).
-		 getValue().doubleValue();
-
-		double dAdR = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, First, nIndex, A)
-		 .getValue().doubleValue();
-
-		double dBdR = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, First, nIndex, B)
-		 .getValue().doubleValue();
-
-		double d2AdR2 = getMetricComponentOfDerivativeLevel(liG, liGFirstDerivative, liGSecondDerivative, Second, nIndex, A)
-		 .getValue().doubleValue();
+		double dblR = mgG.getR(nIndex);
+		double dblA = mgG.get(None, A, nIndex);
+		double dblB = mgG.get(None, B, nIndex);
+		double dAdR = mgG.get(First, A, nIndex);
+		double dBdR = mgG.get(First, B, nIndex);
+		double d2AdR2 = mgG.get(Second, A, nIndex);
 
 		double dblR00 = ((1.0 / (dblB * dblR)) * dAdR)
 		 - ((1.0 / (4.0 * dblA * dblB)) * dAdR * dAdR)
@@ -693,7 +867,12 @@ public class Worker implements Runnable
 		return dvResult;
 	}
 
-	private void reportFinalTensorValues()
+	/**
+	 * Log all the metric tensor values and their derivatives.
+	 * @param mgG
+	 *   The metric tensor values after the final run.
+	 */
+	static void reportFinalTensorValues(MetricGrid mgG)
 	{
 		logger.info(String.format("The metric components (in the format \"index, r, A, B\") after the final run are:"));
 		StringBuilder sbLog = new StringBuilder();
@@ -707,21 +886,15 @@ public class Worker implements Runnable
 			 "%n      i                   R                   A                   B               dA/dR               dB/dR             d2A/dR2             d2B/dR2"
 		 + "%n  -----  ------------------  ------------------  ------------------  ------------------  ------------------  ------------------  ------------------"));
 
-		for (int i = 0; i < m_liG.size(); i++)
+		for (int i = 0; i < mgG.size(); i++)
 		{
-			Entry<Double, Double> entry = getMetricComponentOfDerivativeLevel(m_liG, null, null, None, i, A);
-			double dblR = entry.getKey().doubleValue();
-			double dblA = entry.getValue().doubleValue();
-			double dblB = getMetricComponentOfDerivativeLevel(m_liG, null, null, None, i, B).getValue().doubleValue();
-
-			double dAdR = getMetricComponentOfDerivativeLevel(
-			 m_liG, m_liGFirstDerivative, m_liGSecondDerivative, First, i, A).getValue().doubleValue();
-			double dBdR = getMetricComponentOfDerivativeLevel(
-			 m_liG, m_liGFirstDerivative, m_liGSecondDerivative, First, i, B).getValue().doubleValue();
-			double d2AdR2 = getMetricComponentOfDerivativeLevel(
-			 m_liG, m_liGFirstDerivative, m_liGSecondDerivative, Second, i, A).getValue().doubleValue();
-			double d2BdR2 = getMetricComponentOfDerivativeLevel(
-			 m_liG, m_liGFirstDerivative, m_liGSecondDerivative, Second, i, B).getValue().doubleValue();
+			double dblR = mgG.getR(i);
+			double dblA = mgG.get(None, A, i);
+			double dblB = mgG.get(None, B, i);
+			double dAdR = mgG.get(First, A, i);
+			double dBdR = mgG.get(First, B, i);
+			double d2AdR2 = mgG.get(Second, A, i);
+			double d2BdR2 = mgG.get(Second, B, i);
 
 	 // String sFormat = "%n  %5d, %,18.12f, %,18.12f, %,18.12f, %,18.12f, %,18.12f, %,18.12f, %,18.12f";    // For use in CSV format
 			String sFormat = "%n  %5d  %,18.12f  %,18.12f  %,18.12f  %,18.12f  %,18.12f  %,18.12f  %,18.12f";
@@ -1,21 +1,62 @@
 package ianmarshall;
 
+import static ianmarshall.Worker.DerivativeLevel.None;
+
 import java.util.Collections;
 import java.util.List;
 
 public class WorkerResult
 {
+	/**
+	 * The reason for which a worker stopped.
+	 */
+	public enum Reason
+	{
+		COMPLETED("all runs completed"), CONVERGED("energy converged"), ENERGY_TARGET("energy target reached"),
+		ACCEPTANCE_RATE_FLOOR("acceptance rate below floor"), STOPPED("stopped"), FAILED("failed");
+
+		private String m_sValue = "";
+
+		Reason(String sValue)
+		{
+			m_sValue = sValue;
+		}
+
+		public String value()
+		{
+			return m_sValue;
+		}
+	}
+
 	private boolean m_bProcessingCompleted = false;
 	private Throwable m_thThrowable = null;
 	private int m_nRun = 0;
-	private List<MetricComponents> m_liG = null;
+	private MetricGrid m_mgG = null;
+	private Reason m_rReason = Reason.STOPPED;
+	private double m_dblEnergy = Double.NaN;
 
-	public WorkerResult(boolean bProcessingCompleted, Throwable thThrowable, int nRun, List<MetricComponents> liG)
+	/**
+	 * The constructor.
+	 * @param rReason
+	 *   The reason for which the worker stopped. Processing is completed if it stopped for any reason other than
+	 *   having been stopped, or having failed.
+	 * @param thThrowable
+	 *   The exception or error thrown, or <code>null</code> if none was.
+	 * @param nRun
+	 *   The number of runs executed.
+	 * @param mgG
+	 *   The metric tensor values, which are copied, or <code>null</code> if they had not been initialised.
+	 * @param dblEnergy
+	 *   The current energy, or <code>NaN</code> if it had not been calculated.
+	 */
+	public WorkerResult(Reason rReason, Throwable thThrowable, int nRun, MetricGrid mgG, double dblEnergy)
 	{
-		m_bProcessingCompleted = bProcessingCompleted;
+		m_rReason = rReason;
+		m_bProcessingCompleted = (rReason != Reason.STOPPED) && (rReason != Reason.FAILED);
 		m_thThrowable = thThrowable;
 		m_nRun = nRun;
-		m_liG = MetricComponents.deepCopyMetricComponents(liG);
+		m_mgG = mgG != null ? mgG.copy() : null;
+		m_dblEnergy = dblEnergy;
 	}
 
 	public boolean getProcessingCompleted()
@@ -33,8 +74,38 @@ public class WorkerResult
 		return m_nRun;
 	}
 
+	public Reason getReason()
+	{
+		return m_rReason;
+	}
+
+	/**
+	 * @return
+	 *   The current energy when the worker stopped, or <code>NaN</code> if it had not been calculated.
+	 */
+	public double getEnergy()
+	{
+		return m_dblEnergy;
+	}
+
+	/**
+	 * @return
+	 *   The metric tensor values and their derivatives, or <code>null</code> if they had not been initialised.
+	 *   This is the result's own copy, which must not be modified.
+	 */
+	public MetricGrid getMetricGrid()
+	{
+		return m_mgG;
+	}
+
+	/**
+	 * @return
+	 *   The metric tensor values as an unmodifiable list of <code>MetricComponents</code>,
+	 *   which is empty if they had not been initialised.
+	 */
 	public List<MetricComponents> getMetricComponentsList()
 	{
-		return Collections.unmodifiableList(m_liG);
+		List<MetricComponents> liG = m_mgG != null ? m_mgG.toMetricComponents(None) : Collections.emptyList();
+		return Collections.unmodifiableList(liG);
 	}
 }
@@ -0,0 +1,82 @@
+package ianmarshall;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AnnealingScheduleTest
+{
+	private static final double DBL_SCALING_FACTOR = 100.0;
+	private static final double DBL_DIVISOR = 20000.0;
+	private static final int N_RUNS = 1000000;
+
+	public AnnealingScheduleTest()
+	{
+	}
+
+	@Test
+	public void testFixedSchedules()
+	{
+		AnnealingSchedule asQuartic = new QuarticSchedule(DBL_SCALING_FACTOR, DBL_DIVISOR);
+		assertEquals(DBL_SCALING_FACTOR, asQuartic.temperature(1, N_RUNS), 0.0);
+		assertEquals(DBL_SCALING_FACTOR / 16.0, asQuartic.temperature(10001, N_RUNS), 1.0E-12);
+		assertEquals(0.0, asQuartic.temperature(20001, N_RUNS), 0.0);
+		assertEquals(0.0, asQuartic.temperature(N_RUNS, N_RUNS), 0.0);
+
+		AnnealingSchedule asExponential = new ExponentialSchedule(DBL_SCALING_FACTOR, DBL_DIVISOR);
+		assertEquals(DBL_SCALING_FACTOR, asExponential.temperature(1, N_RUNS), 0.0);
+		assertEquals(DBL_SCALING_FACTOR / Math.E, asExponential.temperature(20001, N_RUNS), 1.0E-12);
+		assertTrue(asExponential.temperature(N_RUNS, N_RUNS) > 0.0);
+
+		AnnealingSchedule asLogarithmic = new LogarithmicSchedule(DBL_SCALING_FACTOR, DBL_DIVISOR);
+		assertEquals(DBL_SCALING_FACTOR, asLogarithmic.temperature(1, N_RUNS), 0.0);
+		assertEquals(DBL_SCALING_FACTOR / (1.0 + Math.log(2.0)), asLogarithmic.temperature(20001, N_RUNS), 1.0E-12);
+		assertTrue(asLogarithmic.temperature(N_RUNS, N_RUNS) > asExponential.temperature(N_RUNS, N_RUNS));
+	}
+
+	@Test
+	public void testAdaptiveScheduleFollowsTheTargetRate()
+	{
+		AnnealingSchedule asAdaptive = new AdaptiveSchedule(DBL_SCALING_FACTOR, 0.5);
+		int nRun = 0;
+
+		// Too few acceptances raise the temperature
+		for (int i = 0; i < AdaptiveSchedule.N_WINDOW_RUNS; i++)
+		{
+			nRun++;
+			asAdaptive.temperature(nRun, N_RUNS);
+			asAdaptive.record(nRun, false, 1.0);
+		}
+
+		double dblTemperature = asAdaptive.temperature(nRun + 1, N_RUNS);
+		assertTrue(dblTemperature > DBL_SCALING_FACTOR);
+
+		// Too many acceptances lower the temperature
+		for (int i = 0; i < AdaptiveSchedule.N_WINDOW_RUNS; i++)
+		{
+			nRun++;
+			asAdaptive.temperature(nRun, N_RUNS);
+			asAdaptive.record(nRun, true, 1.0);
+		}
+
+		assertTrue(asAdaptive.temperature(nRun + 1, N_RUNS) < dblTemperature);
+	}
+
+	@Test
+	public void testReheatScheduleIsReheatedWhenTheEnergyStagnates()
+	{
+		ReheatSchedule rsReheat = new ReheatSchedule(DBL_SCALING_FACTOR, 500.0, 1000);
+
+		for (int nRun = 1; nRun <= 5000; nRun++)
+			rsReheat.record(nRun, false, 10.0 - (nRun * 0.001));
+
+		assertEquals(0, rsReheat.getReheats());
+		double dblTemperature = rsReheat.temperature(6000, N_RUNS);
+
+		for (int nRun = 5001; nRun <= 6000; nRun++)
+			rsReheat.record(nRun, false, 10.0);
+
+		assertEquals(1, rsReheat.getReheats());
+		assertEquals(DBL_SCALING_FACTOR / 2.0, rsReheat.temperature(6001, N_RUNS), 0.0);
+		assertTrue(rsReheat.temperature(6001, N_RUNS) > dblTemperature);
+	}
+}
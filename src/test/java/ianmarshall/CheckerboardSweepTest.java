@@ -0,0 +1,66 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CheckerboardSweepTest
+{
+	private static final long L_SEED = 20221218L;
+
+	// The parameters other than the required ones and the mode
+	private static final String[] AS_EXTRA_ARGS = {
+	 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, "100.0",
+	 StartParameters.S_ARG_NAME_SEED, Long.toString(L_SEED),
+	 StartParameters.S_ARG_NAME_WINDOW_WIDTH, "40",
+	 StartParameters.S_ARG_NAME_SWEEP_MOVES, "8"};
+
+	@Test
+	public void testSameSeedGivesSameResult()
+	{
+		CheckerboardSweep cs1 = new CheckerboardSweep(TestParameters.startParameters(5000, "checkerboard",
+		 AS_EXTRA_ARGS));
+		cs1.run();
+		CheckerboardSweep cs2 = new CheckerboardSweep(TestParameters.startParameters(5000, "checkerboard",
+		 AS_EXTRA_ARGS));
+		cs2.run();
+
+		WorkerResult wr1 = cs1.getWorkerResult();
+		WorkerResult wr2 = cs2.getWorkerResult();
+
+		assertEquals(wr1.getEnergy(), wr2.getEnergy(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wr1.getMetricGrid().getValues(None, mc), wr2.getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testRunsAreCountedExactly()
+	{
+		// 5 001 is not a multiple of the number of moves of a half-sweep, so the last one is shortened
+		CheckerboardSweep cs = new CheckerboardSweep(TestParameters.startParameters(5001, "checkerboard",
+		 AS_EXTRA_ARGS));
+		cs.run();
+		WorkerResult wr = cs.getWorkerResult();
+
+		assertEquals(Reason.COMPLETED, wr.getReason());
+		assertEquals(5001, wr.getRun());
+		assertTrue(cs.getAcceptances() > 0L);
+	}
+
+	@Test
+	public void testSummedEnergyChangesMatchTheFullEnergy()
+	{
+		CheckerboardSweep cs = new CheckerboardSweep(TestParameters.startParameters(5000, "checkerboard",
+		 AS_EXTRA_ARGS));
+		cs.run();
+		WorkerResult wr = cs.getWorkerResult();
+
+		// A window which read or overwrote another's changes would make the summed energy differ from the full energy
+		assertTrue(wr.getEnergy() > 0.0);
+		assertTrue(cs.getEnergyDriftMax() <= 1.0E-9 * wr.getEnergy());
+	}
+}
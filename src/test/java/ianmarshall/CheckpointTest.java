@@ -0,0 +1,138 @@
+package ianmarshall;
+
+import ianmarshall.AnnealingSchedule.Type;
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class CheckpointTest
+{
+	private static final long L_SEED = 20221229L;
+
+	// The parameters other than the required ones and the mode, of which a test may give others instead
+	private static final String[] AS_EXTRA_ARGS = {"schedule", "adaptive", "convergenceWindow", "200",
+	 "energyCheckInterval", "150", "seed", Long.toString(L_SEED)};
+
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	@Test
+	public void testCheckpointIsWrittenAndRead() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.checkpoint");
+		MetricGrid mgG = Worker.initialiseMetricTensors(startParameters(400));
+		mgG.getValues(First, MetricComponent.B)[7] = 0.125;
+		mgG.getEnergyTerms()[8] = 2.5;
+
+		Checkpoint.write(pFile, new Checkpoint(123, -4.5, 99L, 123L << 16, Type.REHEAT, new double[] {1.0, 2.0},
+		 new double[] {3.0}, mgG));
+		Checkpoint ck = Checkpoint.read(pFile);
+
+		assertEquals(123, ck.getRun());
+		assertEquals(-4.5, ck.getEnergy(), 0.0);
+		assertEquals(99L, ck.getRandomKey());
+		assertEquals(123L << 16, ck.getRandomCounter());
+		assertEquals(Type.REHEAT, ck.getSchedule());
+		assertArrayEquals(new double[] {1.0, 2.0}, ck.getScheduleState(), 0.0);
+		assertArrayEquals(new double[] {3.0}, ck.getMonitorState(), 0.0);
+		assertArrayEquals(mgG.getRValues(), ck.getMetricGrid().getRValues(), 0.0);
+		assertEquals(0.125, ck.getMetricGrid().get(First, MetricComponent.B, 7), 0.0);
+		assertEquals(2.5, ck.getMetricGrid().getEnergyTerms()[8], 0.0);
+		assertFalse(Files.exists(pFile.resolveSibling("run.checkpoint.tmp")));
+	}
+
+	@Test(expected = IOException.class)
+	public void testDamagedCheckpointIsNotRead() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.checkpoint");
+		Checkpoint.write(pFile, new Checkpoint(1, 1.0, 1L, 1L, Type.QUARTIC, new double[0], new double[0],
+		 Worker.initialiseMetricTensors(startParameters(400))));
+
+		byte[] ab = Files.readAllBytes(pFile);
+		ab[ab.length / 2] ^= 1;
+		Files.write(pFile, ab);
+
+		Checkpoint.read(pFile);
+	}
+
+	@Test
+	public void testResumedRunsContinueExactly() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.checkpoint");
+
+		Worker wUninterrupted = new Worker(startParameters(400), 0, null, null);
+		wUninterrupted.setReportTensorValues(false);
+		wUninterrupted.run();
+
+		// The runs are ended after the first window by an acceptance rate floor which cannot be met
+		Worker wInterrupted = new Worker(startParameters(400, "checkpointFile", pFile.toString(),
+		 "acceptanceRateFloor", "0.999"), 0, null, null);
+		wInterrupted.setReportTensorValues(false);
+		wInterrupted.run();
+		assertEquals(Reason.ACCEPTANCE_RATE_FLOOR, wInterrupted.getWorkerResult().getReason());
+		assertEquals(200, Checkpoint.read(pFile).getRun());
+
+		// The seed of the resumed runs is not that of the checkpoint, which is used instead
+		Worker wResumed = Worker.resume(startParameters(400, "seed", "1"), Checkpoint.read(pFile), null);
+		wResumed.setReportTensorValues(false);
+		wResumed.run();
+
+		WorkerResult wr = wResumed.getWorkerResult();
+		assertEquals(Reason.COMPLETED, wr.getReason());
+		assertEquals(400, wr.getRun());
+		assertEquals(wUninterrupted.getWorkerResult().getEnergy(), wr.getEnergy(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wUninterrupted.getWorkerResult().getMetricGrid().getValues(None, mc),
+			 wr.getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testCheckpointOfAnotherScheduleIsNotResumed()
+	{
+		StartParameters sp = startParameters(400);
+		MetricGrid mgG = Worker.initialiseMetricTensors(sp);
+
+		// The runs of the adaptive schedule have a state of 4 values, and those of the convergence monitor 4 too
+		for (Checkpoint ck: new Checkpoint[] {
+		 new Checkpoint(10, 1.0, 1L, 1L, Type.QUARTIC, new double[0], new double[4], mgG),
+		 new Checkpoint(10, 1.0, 1L, 1L, Type.ADAPTIVE, new double[2], new double[4], mgG),
+		 new Checkpoint(10, 1.0, 1L, 1L, Type.ADAPTIVE, new double[4], new double[1], mgG)})
+			try
+			{
+				Worker.resume(sp, ck, null);
+				fail("A checkpoint which does not match the schedule was resumed.");
+			}
+			catch (IllegalArgumentException e)
+			{
+				assertTrue(e.getMessage().contains("annealing schedule"));
+			}
+
+		Worker.resume(sp, new Checkpoint(10, 1.0, 1L, 1L, Type.ADAPTIVE, new double[4], new double[4], mgG), null);
+	}
+
+	@Test
+	public void testCheckpointsAreOnlyForASingleWorker()
+	{
+		assertNotEquals("", new StartParameters().parseArguments(TestParameters.arguments(400, "tempering",
+		 TestParameters.join(AS_EXTRA_ARGS, "resumeFrom", "a"))));
+		assertNotEquals("", new ParameterSweep().parseArguments(new String[] {"sweepResults", "r.csv", "numberOfRuns",
+		 "400", "neighbourPeakScalingFactor", "0.01", "acceptanceProbabilityScalingFactor", "1.0",
+		 "temperatureScalingFactor", "1.0", "temperatureDivisor", "20000", "checkpointFile", "a"}));
+	}
+
+	private static StartParameters startParameters(int nRuns, String... asOptional)
+	{
+		return TestParameters.startParameters(nRuns, "single", TestParameters.join(AS_EXTRA_ARGS, asOptional));
+	}
+}
@@ -0,0 +1,54 @@
+package ianmarshall;
+
+import ianmarshall.WorkerResult.Reason;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConvergenceMonitorTest
+{
+	public ConvergenceMonitorTest()
+	{
+	}
+
+	@Test
+	public void testRunsEndWhenTheEnergyStopsImproving()
+	{
+		ConvergenceMonitor cmMonitor = new ConvergenceMonitor(100, 1.0E-3, Double.NaN, 0.0, 0);
+		Reason rReason = null;
+		int nRun = 0;
+
+		// The energy falls by 1% per window, then stops falling
+		while ((rReason == null) && (nRun < 1000))
+		{
+			nRun++;
+			double dblEnergy = nRun <= 500 ? 10.0 * Math.pow(0.99, nRun / 100) : 10.0 * Math.pow(0.99, 5);
+			rReason = cmMonitor.check(nRun, true, dblEnergy);
+		}
+
+		assertEquals(Reason.CONVERGED, rReason);
+		assertEquals(600, nRun);
+	}
+
+	@Test
+	public void testRunsEndAtTheEnergyTargetOrAcceptanceRateFloor()
+	{
+		ConvergenceMonitor cmMonitor = new ConvergenceMonitor(0, 0.0, 2.0, 0.0, 0);
+		assertNull(cmMonitor.check(1, true, 2.5));
+		assertEquals(Reason.ENERGY_TARGET, cmMonitor.check(2, true, 2.0));
+
+		// Starting after 1000 runs, with an acceptance rate of 10% against a floor of 20%
+		cmMonitor = new ConvergenceMonitor(100, 0.0, Double.NaN, 0.2, 1000);
+		Reason rReason = null;
+		int nRun = 1000;
+
+		while ((rReason == null) && (nRun < 2000))
+		{
+			nRun++;
+			rReason = cmMonitor.check(nRun, (nRun % 10) == 0, 10.0 - (nRun * 0.001));
+		}
+
+		assertEquals(Reason.ACCEPTANCE_RATE_FLOOR, rReason);
+		assertEquals(1100, nRun);
+	}
+}
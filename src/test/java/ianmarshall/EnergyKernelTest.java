@@ -0,0 +1,143 @@
+package ianmarshall;
+
+import cern.colt.matrix.DoubleMatrix2D;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EnergyKernelTest
+{
+	private static final int N_SIZE = 120;
+	private static final long L_SEED = 20221204L;
+	private static final double DBL_RELATIVE_DELTA = 1.0E-12;
+
+	private MetricGrid m_mgG = null;
+	private Random m_Random = null;
+
+	public EnergyKernelTest()
+	{
+	}
+
+	@Before
+	public void setUp()
+	{
+		m_Random = new Random(L_SEED);
+		double[] adblR = new double[N_SIZE];
+		double[] adblA = new double[N_SIZE];
+		double[] adblB = new double[N_SIZE];
+		double dblR = 1.01;
+
+		// A perturbed Schwarzschild solution on a logarithmically-graduated grid
+		for (int i = 0; i < N_SIZE; i++)
+		{
+			adblR[i] = dblR;
+			adblA[i] = (1.0 - (1.0 / dblR)) * (1.0 + (0.05 * m_Random.nextGaussian()));
+			adblB[i] = (-1.0 / (1.0 - (1.0 / dblR))) * (1.0 + (0.05 * m_Random.nextGaussian()));
+			dblR = ((dblR - 1.0) * 1.05) + 1.0;
+		}
+
+		m_mgG = new MetricGrid(adblR, adblA, adblB);
+	}
+
+	@Test
+	public void testEnergyMatchesTheReferenceCalculation()
+	{
+		MetricGrid mgReference = m_mgG.copy();
+		double dblExpected = referenceEnergy(mgReference);
+		double dblActual = new EnergyKernel().energy(m_mgG);
+
+		assertEquals(dblExpected, dblActual, DBL_RELATIVE_DELTA * Math.abs(dblExpected));
+
+		for (MetricComponent mc: MetricComponent.values())
+			for (int i = 0; i < N_SIZE; i++)
+			{
+				double dblExpectedFirst = mgReference.get(First, mc, i);
+				double dblExpectedSecond = mgReference.get(Second, mc, i);
+				assertEquals(dblExpectedFirst, m_mgG.get(First, mc, i), DBL_RELATIVE_DELTA * Math.abs(dblExpectedFirst));
+				assertEquals(dblExpectedSecond, m_mgG.get(Second, mc, i), DBL_RELATIVE_DELTA * Math.abs(dblExpectedSecond));
+			}
+	}
+
+	@Test
+	public void testEnergyChangeMatchesTheWholeEnergy()
+	{
+		double dblEnergy = new EnergyKernel().energy(m_mgG);
+		Move mvMove = new Move();
+
+		for (int nMove = 0; nMove < 200; nMove++)
+		{
+			MetricComponent mc = m_Random.nextBoolean() ? MetricComponent.A : MetricComponent.B;
+			mvMove.set(N_SIZE, m_Random.nextInt(N_SIZE), mc, 0.01 * m_Random.nextGaussian(), 1.0);
+			mvMove.apply(m_mgG);
+
+			dblEnergy += new EnergyKernel().energyChange(m_mgG, mvMove.getStencilFrom(), mvMove.getStencilTo(N_SIZE));
+
+			if (m_Random.nextBoolean())
+			{
+				mvMove.undo(m_mgG);
+				dblEnergy = new EnergyKernel().energy(m_mgG.copy());
+			}
+		}
+
+		double dblExpected = referenceEnergy(m_mgG.copy());
+		assertEquals(dblExpected, dblEnergy, 1.0E-9 * Math.abs(dblExpected));
+	}
+
+	@Test
+	public void testVectorEvaluatorMatchesTheScalarEvaluator()
+	{
+		EnergyEvaluator eeVector = EnergyEvaluator.create(EnergyEvaluator.Implementation.VECTOR);
+		EnergyEvaluator eeScalar = new EnergyKernel();
+
+		// The tests are run with the module jdk.incubator.vector, so the vectorised evaluator should be available
+		assertFalse(eeVector instanceof EnergyKernel);
+		assertEquals("", EnergyEvaluator.selfCheck(eeVector, eeScalar));
+
+		// The evaluator is loaded and checked once, and then shared
+		assertSame(eeVector, EnergyEvaluator.create(EnergyEvaluator.Implementation.VECTOR));
+
+		MetricGrid mgVector = m_mgG.copy();
+		double dblExpected = eeScalar.energy(m_mgG);
+		assertEquals(dblExpected, eeVector.energy(mgVector), DBL_RELATIVE_DELTA * Math.abs(dblExpected));
+
+		// Each energy term is calculated in the same way, lane by lane
+		assertArrayEquals(m_mgG.getEnergyTerms(), mgVector.getEnergyTerms(), 0.0);
+	}
+
+	/**
+	 * The energy as calculated by <code>SimulatedAnnealing.energy</code> before it used <code>EnergyKernel</code>.
+	 */
+	private double referenceEnergy(MetricGrid mgG)
+	{
+		int nSize = mgG.size();
+		Worker.calculateDifferentials(mgG, 0, nSize - 1);
+		double dblSumOfSquaresOfRicciTensorsOverAllR = 0.0;
+
+		for (int i = 0; i < nSize; i++)
+		{
+			DoubleMatrix2D dmRicci = Worker.calculateRicciTensorValues(mgG, i);
+			double dblSumOfSquaresOfRicciTensors = 0.0;
+
+			for (int j = 0; j < dmRicci.rows(); j++)
+			{
+				double dblRicciTensor = dmRicci.get(j, 0);
+				dblSumOfSquaresOfRicciTensors += dblRicciTensor * dblRicciTensor;
+			}
+
+			int nStart = i == 0 ? i : i - 1;
+			int nFinish = ((i == 0) || (i == nSize - 1)) ? nStart + 1 : nStart + 2;
+
+			dblSumOfSquaresOfRicciTensorsOverAllR +=
+			 dblSumOfSquaresOfRicciTensors * (mgG.getR(nFinish) - mgG.getR(nStart)) / (nFinish - nStart);
+		}
+
+		return dblSumOfSquaresOfRicciTensorsOverAllR;
+	}
+}
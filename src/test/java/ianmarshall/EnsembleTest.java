@@ -0,0 +1,92 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class EnsembleTest
+{
+	private static final long L_SEED = 20221218L;
+
+	// The parameters other than the required ones and the mode
+	private static final String[] AS_EXTRA_ARGS = {
+	 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, "100.0",
+	 StartParameters.S_ARG_NAME_SEED, Long.toString(L_SEED),
+	 StartParameters.S_ARG_NAME_REPLICAS, "3"};
+
+	@Test
+	public void testResultIsTheLowestEnergyWorker()
+	{
+		Ensemble ensemble = new Ensemble(TestParameters.startParameters(300, "ensemble", AS_EXTRA_ARGS));
+		ensemble.run();
+
+		WorkerResult[] awr = ensemble.getWorkerResults();
+		WorkerResult wrResult = ensemble.getWorkerResult();
+		double dblMinimum = Double.POSITIVE_INFINITY;
+
+		assertEquals(3, awr.length);
+
+		for (WorkerResult wr: awr)
+		{
+			assertEquals(Reason.COMPLETED, wr.getReason());
+			dblMinimum = Math.min(dblMinimum, wr.getEnergy());
+		}
+
+		assertEquals(dblMinimum, wrResult.getEnergy(), 0.0);
+		assertEquals(dblMinimum, ensemble.getSpread().getMinimum(), 0.0);
+		assertEquals(3, ensemble.getSpread().getCount());
+
+		// Each worker has its own seed, so their trajectories differ
+		assertNotEquals(awr[0].getEnergy(), awr[1].getEnergy(), 0.0);
+		assertTrue(ensemble.getSpread().getStandardDeviation() > 0.0);
+	}
+
+	@Test
+	public void testSameSeedGivesSameResults()
+	{
+		Ensemble ensemble1 = new Ensemble(TestParameters.startParameters(300, "ensemble", AS_EXTRA_ARGS));
+		ensemble1.run();
+		Ensemble ensemble2 = new Ensemble(TestParameters.startParameters(300, "ensemble", AS_EXTRA_ARGS));
+		ensemble2.run();
+
+		WorkerResult[] awr1 = ensemble1.getWorkerResults();
+		WorkerResult[] awr2 = ensemble2.getWorkerResults();
+
+		for (int i = 0; i < awr1.length; i++)
+			for (MetricComponent mc: MetricComponent.values())
+				assertArrayEquals(awr1[i].getMetricGrid().getValues(None, mc), awr2[i].getMetricGrid().getValues(None, mc),
+				 0.0);
+	}
+
+	@Test
+	public void testWorkersStartFromTheirOwnStates()
+	{
+		StartParameters sp = TestParameters.startParameters(1, "ensemble", AS_EXTRA_ARGS);
+		MetricGrid mgStart = Worker.initialiseMetricTensors(sp);
+		mgStart.getValues(None, MetricComponent.A)[100] = 1.5;
+
+		Ensemble ensemble = new Ensemble(sp, new MetricGrid[] {mgStart, null});
+		ensemble.run();
+		WorkerResult[] awr = ensemble.getWorkerResults();
+
+		// The kink in the first worker's values cannot be smoothed out by a single run, and its values were copied
+		assertTrue(awr[0].getEnergy() > awr[1].getEnergy());
+		assertEquals(awr[1].getEnergy(), ensemble.getWorkerResult().getEnergy(), 0.0);
+		assertEquals(1.5, mgStart.get(None, MetricComponent.A, 100), 0.0);
+	}
+
+	@Test
+	public void testSpreadIgnoresMissingEnergies()
+	{
+		Ensemble.Spread s = new Ensemble.Spread(new double[] {1.0, Double.NaN, 3.0});
+
+		assertEquals(2, s.getCount());
+		assertEquals(1.0, s.getMinimum(), 0.0);
+		assertEquals(3.0, s.getMaximum(), 0.0);
+		assertEquals(2.0, s.getMean(), 0.0);
+		assertEquals(1.0, s.getStandardDeviation(), 0.0);
+	}
+}
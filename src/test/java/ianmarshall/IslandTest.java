@@ -0,0 +1,151 @@
+package ianmarshall;
+
+import ianmarshall.Island.State;
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class IslandTest
+{
+	private static final long L_SEED = 20221225L;
+
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	@Test
+	public void testStateIsWrittenAndRead() throws IOException
+	{
+		Path pDirectory = m_tfFolder.getRoot().toPath();
+		MetricGrid mgG = Worker.initialiseMetricTensors(startParameters(pDirectory, 1, 100));
+		mgG.getValues(None, MetricComponent.B)[10] = -2.5;
+
+		Island.write(pDirectory.resolve("island-3.state"), new State(3, 1234, Reason.CONVERGED, 99L, 12.5, mgG));
+		State st = Island.read(pDirectory.resolve("island-3.state"));
+
+		assertEquals(3, st.getIslandId());
+		assertEquals(1234, st.getRun());
+		assertEquals(Reason.CONVERGED, st.getReason());
+		assertEquals(99L, st.getTimeMillis());
+		assertEquals(12.5, st.getEnergy(), 0.0);
+		assertArrayEquals(mgG.getRValues(), st.getMetricGrid().getRValues(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(mgG.getValues(None, mc), st.getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testCorruptStateIsSkipped() throws IOException
+	{
+		Path pDirectory = m_tfFolder.getRoot().toPath();
+		MetricGrid mgG = Worker.initialiseMetricTensors(startParameters(pDirectory, 1, 100));
+		Island.write(pDirectory.resolve("island-3.state"), new State(3, 10, null, 99L, 12.5, mgG));
+		Island.write(pDirectory.resolve("island-4.state"), new State(4, 10, Reason.STOPPED, 99L, 12.5, mgG));
+
+		// The reason follows the magic number, version, island and run number
+		byte[] ab = Files.readAllBytes(pDirectory.resolve("island-4.state"));
+		ab[19] = 99;
+		Files.write(pDirectory.resolve("island-4.state"), ab);
+
+		List<State> liStates = Island.readStates(pDirectory);
+		assertEquals(1, liStates.size());
+		assertEquals(3, liStates.get(0).getIslandId());
+		assertNull(liStates.get(0).getReason());
+	}
+
+	@Test
+	public void testIslandContinuesFromALowerEnergyPeer() throws IOException
+	{
+		Path pDirectory = m_tfFolder.getRoot().toPath();
+
+		StartParameters sp = startParameters(pDirectory, 0, 100);
+		MetricGrid mgPeer = Worker.initialiseMetricTensors(sp);
+		mgPeer.getValues(None, MetricComponent.A)[300] = 1.25;
+		double dblEnergyPeer = new EnergyKernel().energy(mgPeer.copy());
+
+		// A peer claiming an energy lower than any the island can reach, whose values the island then takes exactly
+		Island.write(pDirectory.resolve("island-1.state"), new State(1, 5000, null, 0L, -1.0E9, mgPeer));
+
+		// A file which cannot be read is skipped
+		Files.write(pDirectory.resolve("island-2.state"), new byte[] {1, 2, 3});
+
+		Island isIsland = new Island(sp);
+		Worker wIsland = new Worker(sp, 0, null, null);
+		wIsland.setReportTensorValues(false);
+		wIsland.setIsland(isIsland);
+		wIsland.run();
+		WorkerResult wr = wIsland.getWorkerResult();
+
+		// The island migrated at both exchanges, the last of which was at its last run
+		assertEquals(2, isIsland.getExchanges());
+		assertEquals(2, isIsland.getMigrations());
+		assertEquals(dblEnergyPeer, wr.getEnergy(), 1.0E-9 * Math.abs(dblEnergyPeer));
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(mgPeer.getValues(None, mc), wr.getMetricGrid().getValues(None, mc), 0.0);
+
+		// The island's final state is written with the reason it stopped
+		State st = Island.read(pDirectory.resolve("island-0.state"));
+		assertEquals(Reason.COMPLETED, st.getReason());
+		assertEquals(100, st.getRun());
+		assertEquals(wIsland.getWorkerResult().getEnergy(), st.getEnergy(), 0.0);
+
+		List<State> liStates = Island.readStates(pDirectory);
+		assertEquals(2, liStates.size());
+	}
+
+	@Test
+	public void testCoordinatorWritesTheGlobalBest() throws IOException, InterruptedException
+	{
+		Path pDirectory = m_tfFolder.getRoot().toPath();
+		MetricGrid mgG = Worker.initialiseMetricTensors(startParameters(pDirectory, 0, 100));
+		long lNow = System.currentTimeMillis();
+
+		Island.write(pDirectory.resolve("island-0.state"), new State(0, 500, Reason.COMPLETED, lNow, 5.0, mgG));
+		Island.write(pDirectory.resolve("island-1.state"), new State(1, 400, Reason.CONVERGED, lNow, 3.0, mgG));
+
+		IslandCoordinator icCoordinator = new IslandCoordinator(pDirectory, 2, 60000L);
+		WorkerResult wr = icCoordinator.execute();
+
+		assertEquals(Reason.CONVERGED, wr.getReason());
+		assertEquals(400, wr.getRun());
+		assertEquals(3.0, wr.getEnergy(), 0.0);
+		assertEquals(1, Island.read(pDirectory.resolve(Island.S_RESULT_FILE)).getIslandId());
+	}
+
+	@Test
+	public void testCoordinatorOutlivesADeadIsland() throws IOException, InterruptedException
+	{
+		File fDirectory = m_tfFolder.newFolder("islands");
+		Path pDirectory = fDirectory.toPath();
+		MetricGrid mgG = Worker.initialiseMetricTensors(startParameters(pDirectory, 0, 100));
+
+		// Island 1 stopped writing long ago, without completing its runs, and island 2 never wrote anything
+		Island.write(pDirectory.resolve("island-0.state"), new State(0, 500, Reason.COMPLETED, 0L, 5.0, mgG));
+		Island.write(pDirectory.resolve("island-1.state"), new State(1, 200, null, 0L, 4.0, mgG));
+
+		IslandCoordinator icCoordinator = new IslandCoordinator(pDirectory, 3, 50L);
+		icCoordinator.setPollMillis(10L);
+		WorkerResult wr = icCoordinator.execute();
+
+		assertEquals(Reason.STOPPED, wr.getReason());
+		assertEquals(4.0, wr.getEnergy(), 0.0);
+		assertEquals(1, icCoordinator.getBest().getIslandId());
+	}
+
+	private static StartParameters startParameters(Path pDirectory, int nIslandId, int nRuns)
+	{
+		return TestParameters.startParameters(nRuns, "island", "seed", Long.toString(L_SEED), "islandDirectory",
+		 pDirectory.toString(), "islandId", Integer.toString(nIslandId), "migrationInterval", "50");
+	}
+}
@@ -0,0 +1,74 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MetricGridTest
+{
+	private static final double[] M_ADBL_R = {1.01, 1.02, 1.04, 1.08, 1.16};
+	private static final double[] M_ADBL_A = {0.1, 0.2, 0.3, 0.4, 0.5};
+	private static final double[] M_ADBL_B = {-1.1, -1.2, -1.3, -1.4, -1.5};
+
+	private MetricGrid m_mgG = null;
+
+	public MetricGridTest()
+	{
+	}
+
+	@Before
+	public void setUp()
+	{
+		m_mgG = new MetricGrid(M_ADBL_R.clone(), M_ADBL_A.clone(), M_ADBL_B.clone());
+	}
+
+	@Test
+	public void testMetricComponentsRoundTrip()
+	{
+		List<MetricComponents> liG = m_mgG.toMetricComponents(None);
+		assertEquals(M_ADBL_R.length, liG.size());
+
+		for (int i = 0; i < liG.size(); i++)
+		{
+			assertEquals(M_ADBL_R[i], liG.get(i).getR(), 0.0);
+			assertEquals(M_ADBL_A[i], liG.get(i).getA(), 0.0);
+			assertEquals(M_ADBL_B[i], liG.get(i).getB(), 0.0);
+		}
+
+		List<MetricComponents> liGFirstDerivative = new ArrayList<>();
+		for (int i = 0; i < M_ADBL_R.length; i++)
+			liGFirstDerivative.add(new MetricComponents(M_ADBL_R[i], i, -i));
+
+		MetricGrid mgImported = MetricGrid.fromMetricComponents(liG, liGFirstDerivative, null);
+
+		for (int i = 0; i < M_ADBL_R.length; i++)
+		{
+			assertEquals(M_ADBL_A[i], mgImported.get(None, MetricComponent.A, i), 0.0);
+			assertEquals(M_ADBL_B[i], mgImported.get(None, MetricComponent.B, i), 0.0);
+			assertEquals(i, mgImported.get(First, MetricComponent.A, i), 0.0);
+			assertEquals(-i, mgImported.get(First, MetricComponent.B, i), 0.0);
+		}
+	}
+
+	@Test
+	public void testCopyIsDeep()
+	{
+		MetricGrid mgCopy = m_mgG.copy();
+		mgCopy.set(None, MetricComponent.A, 2, 99.0);
+		mgCopy.set(First, MetricComponent.B, 3, 42.0);
+
+		assertEquals(M_ADBL_A[2], m_mgG.get(None, MetricComponent.A, 2), 0.0);
+		assertEquals(0.0, m_mgG.get(First, MetricComponent.B, 3), 0.0);
+
+		m_mgG.copyFrom(mgCopy);
+		assertEquals(99.0, m_mgG.get(None, MetricComponent.A, 2), 0.0);
+		assertEquals(42.0, m_mgG.get(First, MetricComponent.B, 3), 0.0);
+	}
+}
@@ -0,0 +1,157 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class MoveJournalTest
+{
+	private static final int N_SIZE = 60;
+	private static final long L_SEED = 20221211L;
+
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	public MoveJournalTest()
+	{
+	}
+
+	@Test
+	public void testReplayRebuildsTheValuesAfterAnyRun() throws IOException
+	{
+		Random random = new Random(L_SEED);
+		double[] adblR = new double[N_SIZE];
+		double[] adblA = new double[N_SIZE];
+		double[] adblB = new double[N_SIZE];
+
+		for (int i = 0; i < N_SIZE; i++)
+		{
+			adblR[i] = 1.01 + (0.1 * i);
+			adblA[i] = 1.0;
+			adblB[i] = -1.0;
+		}
+
+		MetricGrid mgG = new MetricGrid(adblR, adblA.clone(), adblB.clone());
+		MetricGrid mgAtRun150 = null;
+		File fJournal = m_tfFolder.newFile("moves.journal");
+		Move mvMove = new Move();
+
+		// Start after 10 runs, as if resumed, with more moves than fit in the journal's buffer
+		try (MoveJournal mjJournal = new MoveJournal(fJournal.toPath()))
+		{
+			mjJournal.begin(10, mgG);
+
+			for (int nRun = 11; nRun <= 5010; nRun++)
+			{
+				MetricComponent mc = random.nextBoolean() ? MetricComponent.A : MetricComponent.B;
+				mvMove.set(N_SIZE, random.nextInt(N_SIZE), mc, 0.01 * random.nextGaussian(), 1.0);
+				mvMove.apply(mgG);
+
+				if (random.nextBoolean())
+					mjJournal.append(nRun, mvMove, nRun - 1.0, nRun);
+				else
+					mvMove.undo(mgG);
+
+				if (nRun == 150)
+					mgAtRun150 = mgG.copy();
+			}
+
+			// The header is only written once
+			mjJournal.begin(5010, mgG);
+		}
+
+		MoveJournal.Replay rpReplay = MoveJournal.replay(fJournal.toPath(), 150);
+		assertTrue(rpReplay.getRun() <= 150);
+		assertEquals(rpReplay.getRun(), rpReplay.getEnergy(), 0.0);
+		assertValuesEqual(mgAtRun150, rpReplay.getMetricGrid());
+
+		rpReplay = MoveJournal.replay(fJournal.toPath(), Integer.MAX_VALUE);
+		assertValuesEqual(mgG, rpReplay.getMetricGrid());
+
+		rpReplay = MoveJournal.replay(fJournal.toPath(), 10);
+		assertEquals(0, rpReplay.getMoves());
+		assertEquals(10, rpReplay.getRun());
+		assertArrayEquals(adblA, rpReplay.getMetricGrid().getValues(None, MetricComponent.A), 0.0);
+	}
+
+	@Test
+	public void testReplayFromTheKeyframesIsTheSameAsFromTheHeader() throws IOException
+	{
+		Random random = new Random(L_SEED);
+		double[] adblR = new double[N_SIZE];
+
+		for (int i = 0; i < N_SIZE; i++)
+			adblR[i] = 1.01 + (0.1 * i);
+
+		MetricGrid mgG = new MetricGrid(adblR, new double[N_SIZE], new double[N_SIZE]);
+		File fJournal = m_tfFolder.newFile("moves.journal");
+		Move mvMove = new Move();
+
+		try (MoveJournal mjJournal = new MoveJournal(fJournal.toPath()))
+		{
+			mjJournal.begin(0, mgG);
+
+			for (int nRun = 1; nRun <= 5000; nRun++)
+			{
+				MetricComponent mc = random.nextBoolean() ? MetricComponent.A : MetricComponent.B;
+				mvMove.set(N_SIZE, random.nextInt(N_SIZE), mc, 0.01 * random.nextGaussian(), 1.0);
+				mvMove.apply(mgG);
+
+				if (random.nextBoolean())
+					mjJournal.append(nRun, mvMove, nRun - 1.0, nRun);
+				else
+					mvMove.undo(mgG);
+
+				if ((nRun % 700) == 0)
+					mjJournal.keyframe(nRun, mgG);
+			}
+
+			// The moves up to the last keyframe are in the file before the journal is closed
+			MoveJournal.Replay rpReplay = MoveJournal.replay(fJournal.toPath(), 4900);
+			assertTrue(rpReplay.getRun() <= 4900);
+			assertTrue(rpReplay.getMoves() > 0);
+		}
+
+		for (int nRun: new int[] {0, 1, 699, 700, 701, 2345, 4900, 5000})
+		{
+			MoveJournal.Replay rpKeyframe = MoveJournal.replay(fJournal.toPath(), nRun);
+			File fKeyframes = MoveJournal.keyframesPath(fJournal.toPath()).toFile();
+			File fMoved = new File(fKeyframes.getPath() + ".moved");
+			assertTrue(fKeyframes.renameTo(fMoved));
+			MoveJournal.Replay rpHeader = MoveJournal.replay(fJournal.toPath(), nRun);
+			assertTrue(fMoved.renameTo(fKeyframes));
+
+			assertEquals(rpHeader.getRun(), rpKeyframe.getRun());
+			assertEquals(rpHeader.getMoves(), rpKeyframe.getMoves());
+			assertEquals(rpHeader.getEnergy(), rpKeyframe.getEnergy(), 0.0);
+			assertValuesEqual(rpHeader.getMetricGrid(), rpKeyframe.getMetricGrid());
+		}
+	}
+
+	@Test
+	public void testJournalIsOnlyForTheSingleMode()
+	{
+		for (String sMode: new String[] {"island", "ensemble", "multigrid"})
+		{
+			String sError = new StartParameters().parseArguments(TestParameters.arguments(400, sMode, "moveJournal",
+			 "a"));
+			assertTrue(sError.contains(StartParameters.S_ARG_NAME_MOVE_JOURNAL));
+		}
+	}
+
+	private void assertValuesEqual(MetricGrid mgExpected, MetricGrid mgActual)
+	{
+		assertArrayEquals(mgExpected.getRValues(), mgActual.getRValues(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(mgExpected.getValues(None, mc), mgActual.getValues(None, mc), 0.0);
+	}
+}
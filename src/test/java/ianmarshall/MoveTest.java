@@ -0,0 +1,99 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MoveTest
+{
+	private static final int N_SIZE = 40;
+
+	private MetricGrid m_mgG = null;
+
+	public MoveTest()
+	{
+	}
+
+	@Before
+	public void setUp()
+	{
+		double[] adblR = new double[N_SIZE];
+		double[] adblA = new double[N_SIZE];
+		double[] adblB = new double[N_SIZE];
+
+		for (int i = 0; i < N_SIZE; i++)
+		{
+			adblR[i] = 1.01 + (0.1 * i);
+			adblA[i] = 1.0 - (1.0 / adblR[i]);
+			adblB[i] = -1.0 / adblA[i];
+		}
+
+		m_mgG = new MetricGrid(adblR, adblA, adblB);
+
+		for (int i = 0; i < N_SIZE; i++)
+		{
+			m_mgG.set(First, MetricComponent.A, i, i);
+			m_mgG.set(Second, MetricComponent.B, i, -i);
+			m_mgG.getEnergyTerms()[i] = 0.5 * i;
+		}
+	}
+
+	@Test
+	public void testMoveIsTruncatedNearItsCentre()
+	{
+		Move mvMove = new Move();
+		mvMove.set(N_SIZE, 20, MetricComponent.A, 1.5, 1.0);
+
+		assertTrue(mvMove.getIndexFrom() > 10);
+		assertTrue(mvMove.getIndexTo() < 30);
+		assertEquals(mvMove.getIndexFrom() - 1, mvMove.getStencilFrom());
+		assertEquals(mvMove.getIndexTo() + 1, mvMove.getStencilTo(N_SIZE));
+
+		mvMove.set(N_SIZE, 1, MetricComponent.B, 1.5, 1.0);
+		assertEquals(0, mvMove.getStencilFrom());
+
+		mvMove.set(N_SIZE, N_SIZE - 3, MetricComponent.B, 1.5, 1.0);
+		assertEquals(N_SIZE - 1, mvMove.getStencilTo(N_SIZE));
+	}
+
+	@Test
+	public void testUndoRestoresTheGrid()
+	{
+		MetricGrid mgOriginal = m_mgG.copy();
+		Move mvMove = new Move();
+
+		for (int nIndexCentre: new int[] {0, 3, 20, N_SIZE - 1})
+		{
+			mvMove.set(N_SIZE, nIndexCentre, MetricComponent.B, -0.75, 1.0);
+			mvMove.apply(m_mgG);
+
+			assertEquals(mgOriginal.get(None, MetricComponent.B, nIndexCentre) - 0.75,
+			 m_mgG.get(None, MetricComponent.B, nIndexCentre), 1.0E-12);
+
+			// Simulate the recalculation of the derivatives and energy terms within the stencil
+			for (int i = mvMove.getStencilFrom(); i <= mvMove.getStencilTo(N_SIZE); i++)
+			{
+				m_mgG.set(First, MetricComponent.A, i, Double.NaN);
+				m_mgG.set(Second, MetricComponent.B, i, Double.NaN);
+				m_mgG.getEnergyTerms()[i] = Double.NaN;
+			}
+
+			mvMove.undo(m_mgG);
+			assertGridsEqual(mgOriginal, m_mgG);
+		}
+	}
+
+	private void assertGridsEqual(MetricGrid mgExpected, MetricGrid mgActual)
+	{
+		for (Worker.DerivativeLevel dl: Worker.DerivativeLevel.values())
+			for (MetricComponent mc: MetricComponent.values())
+				assertArrayEquals(mgExpected.getValues(dl, mc), mgActual.getValues(dl, mc), 0.0);
+
+		assertArrayEquals(mgExpected.getEnergyTerms(), mgActual.getEnergyTerms(), 0.0);
+	}
+}
@@ -0,0 +1,115 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class MultigridTest
+{
+	private static final long L_SEED = 20221218L;
+
+	@Test
+	public void testGridsAreCoarserAndShareTheRuns()
+	{
+		assertEquals(GridGeometry.logarithmic().size(), Multigrid.geometry(2, 3).size());
+
+		// Each coarser grid has about half as many radius values
+		for (int k = 1; k < 3; k++)
+		{
+			int nCoarse = Multigrid.geometry(k - 1, 3).size();
+			int nFine = Multigrid.geometry(k, 3).size();
+			assertTrue(Math.abs((2 * nCoarse) - nFine) <= 2);
+		}
+
+		assertArrayEquals(new int[] {250, 250, 501}, Multigrid.levelRuns(1001, 3, 0.5));
+		assertArrayEquals(new int[] {300, 300, 401}, Multigrid.levelRuns(1001, 3, 0.4));
+		assertArrayEquals(new int[] {0, 0, 1}, Multigrid.levelRuns(1, 3, 0.5));
+	}
+
+	@Test
+	public void testRunsEndOnTheFinestGrid()
+	{
+		Multigrid multigrid = new Multigrid(startParameters(600, "3"));
+		multigrid.run();
+		WorkerResult wr = multigrid.getWorkerResult();
+
+		assertEquals(Reason.COMPLETED, wr.getReason());
+		assertEquals(600, wr.getRun());
+		assertEquals(600, multigrid.getRunMetrics().getRun());
+		assertEquals(GridGeometry.logarithmic().size(), wr.getMetricGrid().size());
+		assertTrue(multigrid.getStopped());
+		assertSame(wr, multigrid.getCompletion().getNow(null));
+		assertFalse(Double.isNaN(wr.getEnergy()));
+
+		// The same seed gives the same result
+		Multigrid multigrid2 = new Multigrid(startParameters(600, "3"));
+		multigrid2.run();
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wr.getMetricGrid().getValues(None, mc),
+			 multigrid2.getWorkerResult().getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testEachGridDrawsItsOwnNumbers()
+	{
+		Multigrid multigrid = new Multigrid(startParameters(600, "3"));
+		multigrid.run();
+
+		// The run numbers of each grid start again from 1, so the grids would repeat each other's moves on one stream
+		for (int k = 0; k < 3; k++)
+		{
+			RandomStream rs = multigrid.getRandomStream(k);
+			assertTrue(rs.getCounter() > 0L);
+
+			for (int j = 0; j < k; j++)
+			{
+				RandomStream rsCoarser = multigrid.getRandomStream(j).copy();
+				RandomStream rsFiner = rs.copy();
+				rsCoarser.startBlock(1L);
+				rsFiner.startBlock(1L);
+				assertNotEquals(rsCoarser.nextLong(), rsFiner.nextLong());
+			}
+		}
+	}
+
+	@Test
+	public void testStopBeforeTheRunsGivesTheFinestGrid()
+	{
+		Multigrid multigrid = new Multigrid(startParameters(600, "2"));
+		multigrid.stopExecution();
+		multigrid.run();
+		WorkerResult wr = multigrid.getWorkerResult();
+
+		assertEquals(Reason.STOPPED, wr.getReason());
+		assertEquals(GridGeometry.logarithmic().size(), wr.getMetricGrid().size());
+		assertFalse(Double.isNaN(wr.getEnergy()));
+	}
+
+	@Test
+	public void testInvalidLevelsAreRejected()
+	{
+		for (String sLevels: new String[] {"1", Integer.toString(Multigrid.N_LEVELS_MAX + 1)})
+		{
+			StartParameters sp = new StartParameters();
+			String sError = sp.parseArguments(TestParameters.arguments(600, "multigrid", arguments(sLevels)));
+			assertTrue(sError.contains(StartParameters.S_ARG_NAME_MULTIGRID_LEVELS));
+		}
+	}
+
+	private static StartParameters startParameters(int nRuns, String sLevels)
+	{
+		return TestParameters.startParameters(nRuns, "multigrid", arguments(sLevels));
+	}
+
+	private static String[] arguments(String sLevels)
+	{
+		return new String[] {
+		 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, "100.0",
+		 StartParameters.S_ARG_NAME_SEED, Long.toString(L_SEED),
+		 StartParameters.S_ARG_NAME_MULTIGRID_LEVELS, sLevels};
+	}
+}
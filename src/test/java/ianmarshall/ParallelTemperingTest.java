@@ -0,0 +1,83 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ParallelTemperingTest
+{
+	private static final long L_SEED = 20221218L;
+
+	// The parameters other than the required ones and the mode
+	private static final String[] AS_EXTRA_ARGS = {
+	 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, "100.0",
+	 StartParameters.S_ARG_NAME_SEED, Long.toString(L_SEED),
+	 StartParameters.S_ARG_NAME_REPLICAS, "4",
+	 StartParameters.S_ARG_NAME_SWAP_INTERVAL, "100",
+	 StartParameters.S_ARG_NAME_MINIMUM_TEMPERATURE, "0.01"};
+
+	@Test
+	public void testTemperatureLadderIsGeometric()
+	{
+		double[] adblT = ParallelTempering.temperatureLadder(0.01, 100.0, 5);
+
+		assertEquals(5, adblT.length);
+		assertEquals(0.01, adblT[0], 1.0E-15);
+		assertEquals(100.0, adblT[4], 0.0);
+
+		for (int k = 1; k < adblT.length; k++)
+			assertEquals(10.0, adblT[k] / adblT[k - 1], 1.0E-9);
+	}
+
+	@Test
+	public void testSameSeedGivesSameResult()
+	{
+		ParallelTempering pt1 = new ParallelTempering(TestParameters.startParameters(600, "tempering", AS_EXTRA_ARGS));
+		pt1.run();
+		ParallelTempering pt2 = new ParallelTempering(TestParameters.startParameters(600, "tempering", AS_EXTRA_ARGS));
+		pt2.run();
+
+		WorkerResult wr1 = pt1.getWorkerResult();
+		WorkerResult wr2 = pt2.getWorkerResult();
+
+		assertEquals(Reason.COMPLETED, wr1.getReason());
+		assertEquals(600, wr1.getRun());
+		assertArrayEquals(pt1.getEnergies(), pt2.getEnergies(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wr1.getMetricGrid().getValues(None, mc), wr2.getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testResultIsTheLowestEnergyReplica()
+	{
+		ParallelTempering pt = new ParallelTempering(TestParameters.startParameters(600, "tempering", AS_EXTRA_ARGS));
+		pt.run();
+
+		double dblMinimum = Double.POSITIVE_INFINITY;
+
+		for (double dblEnergy: pt.getEnergies())
+			dblMinimum = Math.min(dblMinimum, dblEnergy);
+
+		assertEquals(dblMinimum, pt.getWorkerResult().getEnergy(), 0.0);
+	}
+
+	@Test
+	public void testSwapsAlternateBetweenPairs()
+	{
+		// 6 rounds of 100 runs: the pair (1, 2) is attempted in the odd rounds, and (0, 1) and (2, 3) in the even ones
+		ParallelTempering pt = new ParallelTempering(TestParameters.startParameters(600, "tempering", AS_EXTRA_ARGS));
+		pt.run();
+
+		long[] alAttempts = pt.getSwapAttempts();
+		long[] alAcceptances = pt.getSwapAcceptances();
+
+		assertArrayEquals(new long[] {3L, 3L, 3L}, alAttempts);
+
+		for (int i = 0; i < alAttempts.length; i++)
+			assertTrue((alAcceptances[i] >= 0L) && (alAcceptances[i] <= alAttempts[i]));
+	}
+}
@@ -0,0 +1,135 @@
+package ianmarshall;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ParameterSweepTest
+{
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	@Test
+	public void testValuesAreExpandedFromListsAndRanges()
+	{
+		assertEquals(Arrays.asList("quartic"), ParameterSweep.expandValues("quartic"));
+		assertEquals(Arrays.asList("1", "2", "5"), ParameterSweep.expandValues("1, 2,5"));
+		assertEquals(Arrays.asList("20000", "200000"), ParameterSweep.expandValues("20000:200000:180000"));
+
+		// The values of a range are exact, and include its end
+		assertEquals(Arrays.asList("0.1", "0.2", "0.3", "0.4", "0.5"), ParameterSweep.expandValues("0.1:0.5:0.1"));
+		assertEquals(Arrays.asList("-0.1", "-0.3", "-0.5"), ParameterSweep.expandValues("-0.1:-0.6:-0.2"));
+
+		for (String sValue: new String[] {"1:2:0", "1:2:-1", "1:2", ","})
+			try
+			{
+				ParameterSweep.expandValues(sValue);
+				fail(sValue);
+			}
+			catch (IllegalArgumentException e)
+			{
+				// Expected
+			}
+	}
+
+	@Test
+	public void testCellsAreTheCartesianProductOfTheValuesAndSeeds()
+	{
+		ParameterSweep psSweep = new ParameterSweep();
+		String sError = psSweep.parseArguments(arguments("results.csv", "energyCheckInterval", "100,200",
+		 "initialA", "0.1:0.3:0.2", "seed", "5", "sweepSeeds", "2"));
+
+		assertEquals("", sError);
+
+		List<String[]> liCells = psSweep.getCells();
+		assertEquals(8, liCells.size());
+		assertEquals(Arrays.asList(StartParameters.S_ARG_NAME_ENERGY_CHECK_INTERVAL, "100",
+		 StartParameters.S_ARG_NAME_INITIAL_A, "0.1", StartParameters.S_ARG_NAME_SEED, "6"),
+		 Arrays.asList(liCells.get(1)).subList(10, 16));
+		assertEquals(Arrays.asList("200", "0.3", "6"), Arrays.asList(liCells.get(7)[11], liCells.get(7)[13],
+		 liCells.get(7)[15]));
+	}
+
+	@Test
+	public void testInvalidArgumentsAreReported()
+	{
+		assertNotEquals("", new ParameterSweep().parseArguments(arguments("results.csv", "unknown", "1")));
+		assertNotEquals("", new ParameterSweep().parseArguments(arguments("results.csv", "moveJournal", "a")));
+		assertNotEquals("", new ParameterSweep().parseArguments(arguments("results.csv", "initialB", "-1:1:1")));
+		assertNotEquals("", new ParameterSweep().parseArguments(new String[] {"numberOfRuns", "1"}));
+	}
+
+	@Test
+	public void testSweepIsResumedWithoutRepeatingCompletedCells() throws IOException, InterruptedException
+	{
+		File fResults = m_tfFolder.newFile("results.csv");
+		ParameterSweep psSweep = new ParameterSweep();
+		assertEquals("", psSweep.parseArguments(arguments(fResults.getPath(), "initialA", "1.0,3.0")));
+		assertEquals(2, psSweep.execute());
+
+		List<String> lisLines = Files.readAllLines(fResults.toPath());
+		assertEquals(3, lisLines.size());
+		assertEquals("numberOfRuns,neighbourPeakScalingFactor,acceptanceProbabilityScalingFactor,temperatureScalingFactor,"
+		 + "temperatureDivisor,initialA,seed,energy,runs,reason,wallMillis", lisLines.get(0));
+
+		// The cells are written in the order in which they complete
+		List<String> lisCells = new ArrayList<>(lisLines.subList(1, 3));
+		Collections.sort(lisCells);
+		assertTrue(lisCells.get(0).startsWith("200,0.01,1.0,1.0,20000,1.0,1,"));
+		assertTrue(lisCells.get(1).startsWith("200,0.01,1.0,1.0,20000,3.0,1,"));
+		assertEquals(WorkerResult.Reason.COMPLETED.value(), lisCells.get(1).split(",")[9]);
+
+		// A crash while a line was being written leaves it incomplete
+		Files.write(fResults.toPath(), "200,0.01,1.0,1.0,20000,10.0,1,70".getBytes(StandardCharsets.UTF_8),
+		 StandardOpenOption.APPEND);
+
+		psSweep = new ParameterSweep();
+		assertEquals("", psSweep.parseArguments(arguments(fResults.getPath(), "initialA", "1.0,3.0,10.0")));
+		assertEquals(1, psSweep.execute());
+
+		List<String> lisResumed = Files.readAllLines(fResults.toPath());
+		assertEquals(4, lisResumed.size());
+		assertEquals(lisLines, lisResumed.subList(0, 3));
+		assertTrue(lisResumed.get(3).startsWith("200,0.01,1.0,1.0,20000,10.0,1,"));
+		assertEquals(11, lisResumed.get(3).split(",").length);
+
+		// A completed sweep has nothing left to execute
+		psSweep = new ParameterSweep();
+		assertEquals("", psSweep.parseArguments(arguments(fResults.getPath(), "initialA", "1.0,3.0,10.0")));
+		assertEquals(0, psSweep.execute());
+		assertEquals(lisResumed, Files.readAllLines(fResults.toPath()));
+	}
+
+	@Test(expected = IOException.class)
+	public void testTableOfOtherParametersIsNotResumed() throws IOException, InterruptedException
+	{
+		File fResults = m_tfFolder.newFile("results.csv");
+		Files.write(fResults.toPath(), Arrays.asList("initialB,seed,energy,runs,reason,wallMillis"));
+
+		ParameterSweep psSweep = new ParameterSweep();
+		assertEquals("", psSweep.parseArguments(arguments(fResults.getPath(), "initialA", "1.0")));
+		psSweep.execute();
+	}
+
+	private static String[] arguments(String sResults, String... asSwept)
+	{
+		String[] asResult = Arrays.copyOf(new String[] {
+		 "sweepResults", sResults, "sweepThreads", "2",
+		 "numberOfRuns", "200", "neighbourPeakScalingFactor", "0.01", "acceptanceProbabilityScalingFactor", "1.0",
+		 "temperatureScalingFactor", "1.0", "temperatureDivisor", "20000"}, 14 + asSwept.length);
+
+		System.arraycopy(asSwept, 0, asResult, 14, asSwept.length);
+		return asResult;
+	}
+}
@@ -0,0 +1,97 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.WorkerResult.Reason;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class PauseControlTest
+{
+	private static final long L_SEED = 20221226L;
+
+	@Test
+	public void testPausedRunsResumeWhereTheyPaused()
+	 throws InterruptedException, ExecutionException, TimeoutException
+	{
+		Worker wUninterrupted = worker();
+		wUninterrupted.run();
+
+		// The pause is requested before the runs start, so they pause after the first run
+		Worker wPaused = worker();
+		wPaused.pauseExecution();
+		Thread thread = new Thread(wPaused);
+		thread.start();
+		awaitPaused(wPaused);
+
+		assertFalse(wPaused.getCompletion().isDone());
+		wPaused.resumeExecution();
+		WorkerResult wr = wPaused.getCompletion().get(60, TimeUnit.SECONDS);
+		thread.join();
+
+		assertEquals(Reason.COMPLETED, wr.getReason());
+		assertFalse(wPaused.getPaused());
+		assertEquals(wUninterrupted.getWorkerResult().getEnergy(), wr.getEnergy(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wUninterrupted.getWorkerResult().getMetricGrid().getValues(None, mc),
+			 wr.getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testPausedRunsStop() throws InterruptedException, ExecutionException, TimeoutException
+	{
+		Worker wPaused = worker();
+		wPaused.pauseExecution();
+		Thread thread = new Thread(wPaused);
+		thread.start();
+		awaitPaused(wPaused);
+
+		// The completion is signalled as soon as the parked runs are stopped
+		wPaused.stopExecution();
+		WorkerResult wr = wPaused.getCompletion().get(60, TimeUnit.SECONDS);
+		thread.join();
+
+		assertEquals(Reason.STOPPED, wr.getReason());
+		assertEquals(1, wr.getRun());
+		assertTrue(wPaused.getStopped());
+	}
+
+	@Test
+	public void testResumeBeforeThePauseCancelsIt()
+	{
+		PauseControl pc = new PauseControl();
+		pc.pause();
+		assertTrue(pc.getPausing());
+		pc.resume();
+		assertFalse(pc.getPausing());
+
+		// The calling thread is not parked, since the pause was cancelled
+		pc.park(1, () -> false);
+		assertFalse(pc.getPaused());
+	}
+
+	private static void awaitPaused(Worker w) throws InterruptedException
+	{
+		long lDeadline = System.currentTimeMillis() + 60000L;
+
+		while (!w.getPaused())
+		{
+			assertTrue(System.currentTimeMillis() < lDeadline);
+			Thread.sleep(5L);
+		}
+	}
+
+	private static Worker worker()
+	{
+		StartParameters sp = TestParameters.startParameters(200, "single", "seed", Long.toString(L_SEED));
+		Worker wResult = new Worker(sp, 0, null, null);
+		wResult.setReportTensorValues(false);
+		return wResult;
+	}
+}
@@ -0,0 +1,106 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RandomStreamTest
+{
+	private static final long L_SEED = 20221218L;
+
+	// The parameters other than the required ones and the mode
+	private static final String[] AS_EXTRA_ARGS = {
+	 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, "100.0",
+	 StartParameters.S_ARG_NAME_SEED, Long.toString(L_SEED)};
+
+	public RandomStreamTest()
+	{
+	}
+
+	@Test
+	public void testTheSameSeedGivesTheSameNumbers()
+	{
+		RandomStream rs1 = new RandomStream(L_SEED);
+		RandomStream rs2 = new RandomStream(L_SEED);
+		RandomStream rsOther = new RandomStream(L_SEED + 1);
+		int nDifferent = 0;
+
+		for (int i = 0; i < 1000; i++)
+		{
+			long l = rs1.nextLong();
+			assertEquals(l, rs2.nextLong());
+
+			if (l != rsOther.nextLong())
+				nDifferent++;
+		}
+
+		assertEquals(1000, nDifferent);
+	}
+
+	@Test
+	public void testBlocksAndSplitStreamsAreIndependent()
+	{
+		RandomStream rs = new RandomStream(L_SEED);
+		rs.startBlock(7);
+		double dblFirst = rs.nextDouble();
+
+		// Drawing more numbers within a block does not change the next block
+		rs.startBlock(6);
+		for (int i = 0; i < 10; i++)
+			rs.nextDouble();
+		rs.startBlock(7);
+		assertEquals(dblFirst, rs.nextDouble(), 0.0);
+
+		long lCounter = rs.getCounter();
+		long lNext = rs.nextLong();
+		rs.setCounter(lCounter);
+		assertEquals(lNext, rs.nextLong());
+
+		RandomStream rsSplit1 = rs.split(1);
+		RandomStream rsSplit2 = new RandomStream(L_SEED).split(2);
+		assertEquals(new RandomStream(L_SEED).split(1).nextLong(), rsSplit1.nextLong());
+		assertNotEquals(rsSplit1.nextLong(), rsSplit2.nextLong());
+	}
+
+	@Test
+	public void testNumbersAreInRangeAndUniform()
+	{
+		RandomStream rs = new RandomStream(L_SEED);
+		int[] anCounts = new int[10];
+		double dblSum = 0.0;
+
+		for (int i = 0; i < 100000; i++)
+		{
+			double dbl = rs.nextDouble();
+			assertTrue((dbl >= 0.0) && (dbl < 1.0));
+			dblSum += dbl;
+			anCounts[rs.nextInt(anCounts.length)]++;
+		}
+
+		assertEquals(0.5, dblSum / 100000, 0.01);
+
+		for (int nCount: anCounts)
+			assertEquals(10000, nCount, 500);
+	}
+
+	@Test
+	public void testPausedRunsFollowTheSameTrajectory()
+	{
+		StartParameters spAll = TestParameters.startParameters(400, "single", AS_EXTRA_ARGS);
+		Worker worker = new Worker(spAll, 0, null, null);
+		worker.run();
+		MetricGrid mgExpected = worker.getWorkerResult().getMetricGrid();
+
+		// Stop after 150 runs, then resume from the state reached
+		Worker workerFirst = new Worker(TestParameters.startParameters(150, "single", AS_EXTRA_ARGS), 0, null, null);
+		workerFirst.run();
+		Worker workerSecond = new Worker(spAll, 150, workerFirst.getWorkerResult().getMetricGrid().copy(), null);
+		workerSecond.run();
+		MetricGrid mgActual = workerSecond.getWorkerResult().getMetricGrid();
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(mgExpected.getValues(None, mc), mgActual.getValues(None, mc), 0.0);
+	}
+}
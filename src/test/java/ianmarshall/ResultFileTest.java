@@ -0,0 +1,105 @@
+package ianmarshall;
+
+import cern.colt.matrix.DoubleMatrix2D;
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.ResultFile.Column;
+import static ianmarshall.Worker.DerivativeLevel.First;
+import static ianmarshall.Worker.DerivativeLevel.None;
+import static ianmarshall.Worker.DerivativeLevel.Second;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class ResultFileTest
+{
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	@Test
+	public void testResultIsWrittenAndReadInColumns() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.result");
+		MetricGrid mgG = grid();
+
+		ResultFile.write(pFile, 1234, 0.5, mgG);
+		ResultFile rf = ResultFile.read(pFile);
+
+		// The values written are those of a copy whose derivatives have been calculated
+		MetricGrid mgExpected = mgG.copy();
+		new EnergyKernel().energy(mgExpected);
+
+		assertEquals(mgG.size(), rf.size());
+		assertEquals(1234, rf.getRun());
+		assertEquals(0.5, rf.getEnergy(), 0.0);
+		assertEquals(mgG.size() - 1, rf.get(Column.INDEX, mgG.size() - 1), 0.0);
+		assertArrayEquals(mgG.getRValues(), array(rf.getColumn(Column.R)), 0.0);
+		assertArrayEquals(mgG.getValues(None, MetricComponent.A), array(rf.getColumn(Column.A)), 0.0);
+		assertArrayEquals(mgExpected.getValues(First, MetricComponent.B), array(rf.getColumn(Column.FIRST_B)), 0.0);
+		assertArrayEquals(mgExpected.getValues(Second, MetricComponent.A), array(rf.getColumn(Column.SECOND_A)), 0.0);
+
+		DoubleMatrix2D dvRicci = Worker.calculateRicciTensorValues(mgExpected, 100);
+		assertEquals(dvRicci.get(0, 0), rf.get(Column.R00, 100), 0.0);
+		assertEquals(dvRicci.get(1, 0), rf.get(Column.R11, 100), 0.0);
+		assertEquals(dvRicci.get(2, 0), rf.get(Column.R22, 100), 0.0);
+
+		// The format is little-endian, with the columns after a header of 32 bytes
+		ByteBuffer bb = ByteBuffer.wrap(Files.readAllBytes(pFile)).order(ByteOrder.LITTLE_ENDIAN);
+		assertEquals(32 + (Column.values().length * mgG.size() * Double.BYTES), bb.capacity());
+		assertEquals(mgG.getR(0), bb.getDouble(32 + (mgG.size() * Double.BYTES)), 0.0);
+	}
+
+	@Test
+	public void testResultIsAWarmStart() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.result");
+		MetricGrid mgG = grid();
+		ResultFile.write(pFile, 1, 0.0, mgG);
+
+		MetricGrid mgWarmStart = WarmStart.read(pFile);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(mgG.getValues(None, mc), mgWarmStart.getValues(None, mc), 0.0);
+	}
+
+	@Test(expected = IOException.class)
+	public void testTruncatedResultIsNotRead() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.result");
+		ResultFile.write(pFile, 1, 0.0, grid());
+
+		byte[] ab = Files.readAllBytes(pFile);
+		Files.write(pFile, Arrays.copyOf(ab, ab.length - Double.BYTES));
+
+		ResultFile.read(pFile);
+	}
+
+	private static MetricGrid grid()
+	{
+		MetricGrid mgG = Worker.initialiseMetricTensors(new StartParameters());
+
+		for (int i = 0; i < mgG.size(); i++)
+		{
+			mgG.set(None, MetricComponent.A, i, 1.0 - (1.1 / mgG.getR(i)));
+			mgG.set(None, MetricComponent.B, i, -1.0 / (1.0 - (0.9 / mgG.getR(i))));
+		}
+
+		return mgG;
+	}
+
+	private static double[] array(DoubleBuffer db)
+	{
+		double[] adblResult = new double[db.remaining()];
+		db.get(adblResult);
+		return adblResult;
+	}
+}
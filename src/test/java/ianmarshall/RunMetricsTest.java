@@ -0,0 +1,104 @@
+package ianmarshall;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.ServerSocket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RunMetricsTest
+{
+	private long m_lNanos = 0L;
+
+	public RunMetricsTest()
+	{
+	}
+
+	@Test
+	public void testRatesAreMeasuredOverIntervalsOfASecond()
+	{
+		RunMetrics rm = new RunMetrics(10000, 0, () -> m_lNanos);
+
+		m_lNanos = 500000000L;
+		rm.update(500, 100L, 400L, 3.0, 2.0, 0.5);
+
+		// Half a second is too short an interval to measure the rates
+		assertEquals(500, rm.getRun());
+		assertTrue(Double.isNaN(rm.getRunsPerSecond()));
+		assertEquals(-1L, rm.getEtaSeconds());
+
+		m_lNanos = 2000000000L;
+		rm.update(2000, 700L, 1300L, 1.0, 1.0, 0.25);
+
+		assertEquals(1000.0, rm.getRunsPerSecond(), 1.0E-9);
+		assertEquals(0.35, rm.getAcceptanceRate(), 1.0E-12);
+		assertEquals(8L, rm.getEtaSeconds());
+		assertEquals(1.0, rm.getBestEnergy(), 0.0);
+		assertEquals(0.25, rm.getTemperature(), 0.0);
+	}
+
+	@Test
+	public void testWorkerUpdatesItsMetrics()
+	{
+		StartParameters sp = TestParameters.startParameters(600, "single", "seed", "20221228");
+
+		Worker worker = new Worker(sp, 0, null, null);
+		worker.setReportTensorValues(false);
+		worker.run();
+
+		// The metrics are updated when the runs stop
+		RunMetricsMBean rm = worker.getRunMetrics();
+		assertEquals(600, rm.getRun());
+		assertEquals(600L, rm.getAcceptances() + rm.getRejections());
+		assertEquals(worker.getWorkerResult().getEnergy(), rm.getEnergy(), 1.0E-6);
+		assertTrue(rm.getBestEnergy() <= rm.getEnergy());
+	}
+
+	@Test
+	public void testMetricsAreServedOverJmxAndHttp() throws IOException, JMException
+	{
+		RunMetrics rm = new RunMetrics(100, 0, () -> m_lNanos);
+		rm.update(42, 10L, 32L, 1.5, 1.25, 0.125);
+
+		int nPort;
+
+		try (ServerSocket ss = new ServerSocket(0))
+		{
+			nPort = ss.getLocalPort();
+		}
+
+		try (MetricsEndpoint me = new MetricsEndpoint(rm, nPort))
+		{
+			assertEquals(nPort, me.getPort());
+			assertEquals(42, ManagementFactory.getPlatformMBeanServer().getAttribute(
+			 new ObjectName(MetricsEndpoint.S_OBJECT_NAME), "Run"));
+
+			HttpURLConnection huc = (HttpURLConnection)new URL(String.format("http://127.0.0.1:%d%s", nPort,
+			 MetricsEndpoint.S_PATH)).openConnection();
+			assertEquals(200, huc.getResponseCode());
+			assertTrue(huc.getContentType().startsWith("text/plain"));
+
+			String sBody;
+
+			try (InputStream is = huc.getInputStream())
+			{
+				sBody = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+			}
+
+			assertTrue(sBody.contains("# TYPE schwarzschild_runs_total counter\nschwarzschild_runs_total 42\n"));
+			assertTrue(sBody.contains("\nschwarzschild_energy 1.5\n"));
+			assertTrue(sBody.contains("\nschwarzschild_runs_per_second NaN\n"));
+			assertTrue(sBody.contains("\nschwarzschild_eta_seconds -1\n"));
+		}
+
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(new ObjectName(MetricsEndpoint.S_OBJECT_NAME)));
+	}
+}
@@ -0,0 +1,160 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import ianmarshall.SnapshotPublisher.Snapshot;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SnapshotPublisherTest
+{
+	private static final long L_SEED = 20221227L;
+
+	@Test
+	public void testSnapshotIsRefreshedEveryInterval()
+	{
+		SnapshotPublisher snp = new SnapshotPublisher(10);
+		MetricGrid mgG = grid(5.0);
+
+		assertNull(snp.read());
+		long lBefore = System.currentTimeMillis();
+		snp.publish(0, 5.0, mgG);
+		long lAfter = System.currentTimeMillis();
+
+		// The snapshot is a copy, which later changes to the values do not affect
+		Snapshot sn = snp.read();
+		mgG.getValues(None, MetricComponent.A)[0] = 6.0;
+		assertEquals(0, sn.getRun());
+		assertEquals(5.0, sn.getEnergy(), 0.0);
+		assertTrue((sn.getTimeMillis() >= lBefore) && (sn.getTimeMillis() <= lAfter));
+		assertEquals(5.0, sn.getMetricGrid().get(None, MetricComponent.A, 0), 0.0);
+
+		// The snapshot interval has not passed
+		assertFalse(snp.due(9));
+		assertTrue(snp.due(10));
+		snp.publish(10, 6.0, mgG);
+
+		// It is refreshed whether or not it has been read since
+		assertFalse(snp.due(19));
+		assertTrue(snp.due(20));
+		snp.publish(20, 7.0, mgG);
+		assertTrue(snp.due(30));
+		assertEquals(20, snp.read().getRun());
+		assertEquals(6.0, snp.read().getMetricGrid().get(None, MetricComponent.A, 0), 0.0);
+	}
+
+	@Test
+	public void testSnapshotsReadDuringRefreshesAreConsistent() throws InterruptedException
+	{
+		SnapshotPublisher snp = new SnapshotPublisher(1);
+		MetricGrid mgG = grid(0.0);
+		snp.publish(0, 0.0, mgG);
+
+		Thread thWriter = new Thread(() ->
+		{
+			for (int nRun = 1; nRun <= 20000; nRun++)
+			{
+				Arrays.fill(mgG.getValues(None, MetricComponent.A), nRun);
+				snp.publish(nRun, nRun, mgG);
+			}
+		});
+
+		thWriter.start();
+		int nRunLast = 0;
+
+		while (nRunLast < 20000)
+		{
+			// Every value of a snapshot was published at the same run, and the runs never go backwards
+			Snapshot sn = snp.read();
+			assertTrue(sn.getRun() >= nRunLast);
+			assertEquals(sn.getRun(), sn.getEnergy(), 0.0);
+
+			for (double dbl: sn.getMetricGrid().getValues(None, MetricComponent.A))
+				assertEquals(sn.getRun(), dbl, 0.0);
+
+			nRunLast = sn.getRun();
+		}
+
+		thWriter.join();
+	}
+
+	@Test
+	public void testReadingTheSnapshotDoesNotChangeTheRuns() throws InterruptedException
+	{
+		Worker wUnread = worker();
+		wUnread.run();
+
+		Worker wRead = worker();
+		Thread thread = new Thread(wRead);
+		int nSnapshots = 0;
+
+		// The runs are paused after the first, so that a snapshot is certainly read while they are in progress
+		wRead.pauseExecution();
+		thread.start();
+		awaitPaused(wRead);
+		Snapshot snPaused = wRead.getSnapshot();
+		assertEquals(0, snPaused.getRun());
+		assertFalse(wRead.getStopped());
+		nSnapshots++;
+		wRead.resumeExecution();
+
+		while (!wRead.getStopped())
+		{
+			Snapshot sn = wRead.getSnapshot();
+
+			if (sn != null)
+			{
+				assertTrue((sn.getRun() % 50 == 0) || (sn.getRun() == 400));
+				nSnapshots++;
+			}
+		}
+
+		thread.join();
+
+		// The last snapshot is of the final state
+		Snapshot sn = wRead.getSnapshot();
+		assertTrue(nSnapshots > 0);
+		assertEquals(400, sn.getRun());
+		assertEquals(wRead.getWorkerResult().getEnergy(), sn.getEnergy(), 0.0);
+		assertEquals(wUnread.getWorkerResult().getEnergy(), wRead.getWorkerResult().getEnergy(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wUnread.getWorkerResult().getMetricGrid().getValues(None, mc),
+			 sn.getMetricGrid().getValues(None, mc), 0.0);
+	}
+
+	private static void awaitPaused(Worker w) throws InterruptedException
+	{
+		long lDeadline = System.currentTimeMillis() + 60000L;
+
+		while (!w.getPaused())
+		{
+			assertTrue(System.currentTimeMillis() < lDeadline);
+			Thread.sleep(5L);
+		}
+	}
+
+	private static MetricGrid grid(double dblA)
+	{
+		double[] adblR = new double[100];
+
+		for (int i = 0; i < adblR.length; i++)
+			adblR[i] = 1.0 + i;
+
+		double[] adblA = new double[adblR.length];
+		Arrays.fill(adblA, dblA);
+		return new MetricGrid(adblR, adblA, new double[adblR.length]);
+	}
+
+	private static Worker worker()
+	{
+		StartParameters sp = TestParameters.startParameters(400, "single", "seed", Long.toString(L_SEED),
+		 "snapshotInterval", "50");
+		Worker wResult = new Worker(sp, 0, null, null);
+		wResult.setReportTensorValues(false);
+		return wResult;
+	}
+}
@@ -0,0 +1,51 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class SpeculationTest
+{
+	private static final long L_SEED = 20221218L;
+
+	@Test
+	public void testSpeculativeRunsFollowTheSerialTrajectory()
+	{
+		// A low temperature, so that most moves are rejected, and an energy check within the runs
+		assertSameTrajectory("incremental", "adaptive", "0.01");
+	}
+
+	@Test
+	public void testSpeculativeRunsFollowTheSerialTrajectoryWithFullEnergies()
+	{
+		assertSameTrajectory("full", "quartic", "100.0");
+	}
+
+	private void assertSameTrajectory(String sEnergyMode, String sSchedule, String sTemperatureScalingFactor)
+	{
+		String[] asExtraArgs = {
+		 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, sTemperatureScalingFactor,
+		 StartParameters.S_ARG_NAME_SEED, Long.toString(L_SEED),
+		 StartParameters.S_ARG_NAME_ENERGY_MODE, sEnergyMode,
+		 StartParameters.S_ARG_NAME_ENERGY_CHECK_INTERVAL, "97",
+		 StartParameters.S_ARG_NAME_SCHEDULE, sSchedule};
+
+		Worker workerSerial = new Worker(TestParameters.startParameters(500, "single", asExtraArgs), 0, null, null);
+		workerSerial.run();
+		Worker workerSpeculative = new Worker(TestParameters.startParameters(500, "single",
+		 TestParameters.join(asExtraArgs, StartParameters.S_ARG_NAME_SPECULATIVE_THREADS, "4")), 0, null, null);
+		workerSpeculative.run();
+
+		WorkerResult wrExpected = workerSerial.getWorkerResult();
+		WorkerResult wrActual = workerSpeculative.getWorkerResult();
+
+		assertEquals(wrExpected.getRun(), wrActual.getRun());
+		assertEquals(wrExpected.getEnergy(), wrActual.getEnergy(), 0.0);
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(wrExpected.getMetricGrid().getValues(None, mc), wrActual.getMetricGrid().getValues(None, mc),
+			 0.0);
+	}
+}
@@ -0,0 +1,53 @@
+package ianmarshall;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TelemetryTest
+{
+	private long m_lNanos = 0L;
+
+	public TelemetryTest()
+	{
+	}
+
+	@Test
+	public void testSamplesAreTakenEveryIntervalOfRuns()
+	{
+		Telemetry tTelemetry = new Telemetry(10, 0L, 0, () -> m_lNanos);
+		int nSamples = 0;
+
+		for (int nRun = 1; nRun <= 35; nRun++)
+			if (tTelemetry.record(nRun, (nRun % 3) == 0, 100.0 - nRun, 1.0))
+				nSamples++;
+
+		assertEquals(3, nSamples);
+		assertEquals(3, tTelemetry.getSamples());
+		assertEquals(11L, tTelemetry.getAcceptances());
+		assertEquals(24L, tTelemetry.getRejections());
+		assertEquals(65.0, tTelemetry.getBestEnergy(), 0.0);
+		assertEquals(35, tTelemetry.getBestRun());
+
+		// The runs since the last sample are summarised when flushed, and only once
+		tTelemetry.flush();
+		tTelemetry.flush();
+		assertEquals(4, tTelemetry.getSamples());
+	}
+
+	@Test
+	public void testSamplesAreTakenEveryIntervalOfTime()
+	{
+		// Sampling by time only, starting after 1000 runs have already been executed
+		Telemetry tTelemetry = new Telemetry(0, 5L, 1000, () -> m_lNanos);
+
+		for (int nRun = 1001; nRun <= 3000; nRun++)
+		{
+			m_lNanos += 10000L;    // 10 microseconds per run, so 500 runs per interval
+			tTelemetry.record(nRun, false, 1.0, 1.0);
+		}
+
+		// The clock is only read every 256 runs, so the samples are at runs 1536, 2048, 2560
+		assertEquals(3, tTelemetry.getSamples());
+		assertEquals(2000L, tTelemetry.getRejections());
+	}
+}
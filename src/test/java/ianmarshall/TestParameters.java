@@ -0,0 +1,101 @@
+package ianmarshall;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * The start parameters shared by the tests: the required parameters, with the values most tests use, and the mode,
+ * followed by any others a test needs, each a name followed by a value. A parameter given again replaces the value
+ * given before it, so a test can change a required parameter too.
+ */
+final class TestParameters
+{
+	private TestParameters()
+	{
+	}
+
+	/**
+	 * @param nRuns
+	 *   The number of runs.
+	 * @param sMode
+	 *   The mode.
+	 * @param asExtraArgs
+	 *   The other parameters, each a name followed by a value.
+	 * @return
+	 *   The parsed start parameters, which must be valid.
+	 */
+	static StartParameters startParameters(int nRuns, String sMode, String... asExtraArgs)
+	{
+		StartParameters spResult = new StartParameters();
+		String sError = spResult.parseArguments(arguments(nRuns, sMode, asExtraArgs));
+
+		assertEquals("", sError);
+		return spResult;
+	}
+
+	/**
+	 * @param nRuns
+	 *   The number of runs.
+	 * @param sMode
+	 *   The mode.
+	 * @param asExtraArgs
+	 *   The other parameters, each a name followed by a value.
+	 * @return
+	 *   The command line arguments, which are not parsed, so that a test can check that they are rejected.
+	 */
+	static String[] arguments(int nRuns, String sMode, String... asExtraArgs)
+	{
+		List<String> lisArgs = new ArrayList<>(Arrays.asList(
+		 StartParameters.S_ARG_NAME_NUMBER_OF_RUNS, Integer.toString(nRuns),
+		 StartParameters.S_ARG_NAME_NEIGHBOUR_PEAK_SCALING_FACTOR, "0.01",
+		 StartParameters.S_ARG_NAME_ACCEPTANCE_PROBILITY_SCALING_FACTOR, "1.0",
+		 StartParameters.S_ARG_NAME_TEMPERATURE_SCALING_FACTOR, "1.0",
+		 StartParameters.S_ARG_NAME_TEMPERATURE_DIVISOR, "20000",
+		 StartParameters.S_ARG_NAME_MODE, sMode));
+
+		for (int i = 0; i < asExtraArgs.length; i += 2)
+		{
+			int nIndexValue = indexOfValue(lisArgs, asExtraArgs[i]);
+
+			if (nIndexValue < 0)
+				lisArgs.addAll(Arrays.asList(asExtraArgs[i], asExtraArgs[i + 1]));
+			else
+				lisArgs.set(nIndexValue, asExtraArgs[i + 1]);
+		}
+
+		return lisArgs.toArray(new String[0]);
+	}
+
+	/**
+	 * @param asArgs
+	 *   Parameters, each a name followed by a value.
+	 * @param asMoreArgs
+	 *   More parameters, which replace any of the same names when the arguments are made.
+	 * @return
+	 *   All the parameters.
+	 */
+	static String[] join(String[] asArgs, String... asMoreArgs)
+	{
+		String[] asResult = Arrays.copyOf(asArgs, asArgs.length + asMoreArgs.length);
+		System.arraycopy(asMoreArgs, 0, asResult, asArgs.length, asMoreArgs.length);
+		return asResult;
+	}
+
+	/**
+	 * @return
+	 *   The index of the value of the parameter in the arguments, or -1 if it is not among them.
+	 */
+	private static int indexOfValue(List<String> lisArgs, String sArgName)
+	{
+		int nResult = -1;
+
+		for (int i = 0; (i < lisArgs.size()) && (nResult < 0); i += 2)
+			if (lisArgs.get(i).equals(sArgName))
+				nResult = i + 1;
+
+		return nResult;
+	}
+}
@@ -0,0 +1,198 @@
+package ianmarshall;
+
+import ianmarshall.TrajectoryStore.Bucket;
+import ianmarshall.TrajectoryStore.Trajectory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class TrajectoryStoreTest
+{
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	@Test
+	public void testBucketsAreRolledUp() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.trajectory");
+
+		try (TrajectoryStore ts = new TrajectoryStore(pFile, new int[] {10, 100, 1000}))
+		{
+			for (int nRun = 1; nRun <= 2500; nRun++)
+				ts.record(nRun, (nRun % 4) == 0, nRun, 1.0 / nRun);
+		}
+
+		Trajectory ty = TrajectoryStore.read(pFile);
+		assertArrayEquals(new int[] {10, 100, 1000}, ty.getBucketSizes());
+
+		List<Bucket> liSmall = ty.getBuckets(10);
+		assertEquals(250, liSmall.size());
+		assertBucket(liSmall.get(0), 1, 10, 2, 1.0, 5.5, 10.0);
+		assertEquals(0.1, liSmall.get(0).getMinimumTemperature(), 0.0);
+		assertEquals(1.0, liSmall.get(0).getMaximumTemperature(), 0.0);
+		assertBucket(liSmall.get(249), 2491, 10, 3, 2491.0, 2495.5, 2500.0);
+
+		List<Bucket> liMedium = ty.getBuckets(100);
+		assertEquals(25, liMedium.size());
+		assertBucket(liMedium.get(3), 301, 100, 25, 301.0, 350.5, 400.0);
+
+		// The last bucket was partly filled when the store was closed
+		List<Bucket> liLarge = ty.getBuckets(1000);
+		assertEquals(3, liLarge.size());
+		assertBucket(liLarge.get(1), 1001, 1000, 250, 1001.0, 1500.5, 2000.0);
+		assertBucket(liLarge.get(2), 2001, 500, 125, 2001.0, 2250.5, 2500.0);
+		assertEquals(0.25, liLarge.get(2).getAcceptanceRate(), 0.0);
+	}
+
+	@Test
+	public void testBucketsAreAlignedWhenTheRunsResume() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.trajectory");
+
+		try (TrajectoryStore ts = new TrajectoryStore(pFile, new int[] {10, 100}))
+		{
+			for (int nRun = 95; nRun <= 120; nRun++)
+				ts.record(nRun, true, 1.0, 1.0);
+		}
+
+		List<Bucket> liSmall = TrajectoryStore.read(pFile).getBuckets(10);
+		assertEquals(3, liSmall.size());
+		assertEquals(95, liSmall.get(0).getFirstRun());
+		assertEquals(6, liSmall.get(0).getRuns());
+		assertEquals(101, liSmall.get(1).getFirstRun());
+
+		List<Bucket> liLarge = TrajectoryStore.read(pFile).getBuckets(100);
+		assertEquals(2, liLarge.size());
+		assertEquals(6, liLarge.get(0).getRuns());
+		assertEquals(20, liLarge.get(1).getRuns());
+	}
+
+	@Test
+	public void testWorkerWritesItsTrajectory() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.trajectory");
+
+		Worker w = new Worker(startParameters(pFile), 0, null, null);
+		w.setReportTensorValues(false);
+		w.run();
+
+		List<Bucket> liBuckets = TrajectoryStore.read(pFile).getBuckets(50);
+		assertEquals(8, liBuckets.size());
+
+		for (Bucket bk: liBuckets)
+		{
+			assertEquals(50, bk.getRuns());
+			assertTrue(bk.getMinimumEnergy() <= bk.getMeanEnergy());
+			assertTrue(bk.getMeanEnergy() <= bk.getMaximumEnergy());
+		}
+
+		assertEquals(w.getRunMetrics().getAcceptances(), TrajectoryStore.read(pFile).getBuckets(200).stream()
+		 .mapToLong(Bucket::getAcceptances).sum());
+	}
+
+	@Test
+	public void testResumedRunsAreAppended() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.trajectory");
+
+		try (TrajectoryStore ts = new TrajectoryStore(pFile, new int[] {10, 100}))
+		{
+			for (int nRun = 1; nRun <= 25; nRun++)
+				ts.record(nRun, true, nRun, 1.0);
+		}
+
+		// A record which was being written when the runs were interrupted is dropped
+		Files.write(pFile, new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+		try (TrajectoryStore ts = new TrajectoryStore(pFile, new int[] {10, 100}, true))
+		{
+			for (int nRun = 26; nRun <= 40; nRun++)
+				ts.record(nRun, false, nRun, 1.0);
+		}
+
+		List<Bucket> liSmall = TrajectoryStore.read(pFile).getBuckets(10);
+		assertEquals(5, liSmall.size());
+		assertBucket(liSmall.get(0), 1, 10, 10, 1.0, 5.5, 10.0);
+		assertBucket(liSmall.get(2), 21, 5, 5, 21.0, 23.0, 25.0);
+		assertBucket(liSmall.get(3), 26, 5, 0, 26.0, 28.0, 30.0);
+		assertBucket(liSmall.get(4), 31, 10, 0, 31.0, 35.5, 40.0);
+		assertEquals(40, TrajectoryStore.read(pFile).getBuckets(100).stream().mapToInt(Bucket::getRuns).sum());
+
+		// A store of other bucket sizes is not appended to, nor changed
+		long lLength = Files.size(pFile);
+
+		try (TrajectoryStore ts = new TrajectoryStore(pFile, new int[] {10, 1000}, true))
+		{
+			fail();
+		}
+		catch (IOException e)
+		{
+			assertEquals(lLength, Files.size(pFile));
+		}
+	}
+
+	@Test
+	public void testResumedWorkerKeepsTheEarlierBuckets() throws IOException
+	{
+		Path pFile = m_tfFolder.getRoot().toPath().resolve("run.trajectory");
+		Path pCheckpoint = m_tfFolder.getRoot().toPath().resolve("run.checkpoint");
+
+		// The runs are ended after the first window by an acceptance rate floor which cannot be met
+		Worker wInterrupted = new Worker(startParameters(pFile, "schedule", "adaptive", "convergenceWindow", "200",
+		 "checkpointFile", pCheckpoint.toString(), "acceptanceRateFloor", "0.999"), 0, null, null);
+		wInterrupted.setReportTensorValues(false);
+		wInterrupted.run();
+		assertEquals(200, Checkpoint.read(pCheckpoint).getRun());
+		List<Bucket> liEarlier = TrajectoryStore.read(pFile).getBuckets(50);
+		assertEquals(4, liEarlier.size());
+
+		Worker wResumed = Worker.resume(startParameters(pFile, "schedule", "adaptive", "convergenceWindow", "200"),
+		 Checkpoint.read(pCheckpoint), null);
+		wResumed.setReportTensorValues(false);
+		wResumed.run();
+
+		List<Bucket> liBuckets = TrajectoryStore.read(pFile).getBuckets(50);
+		assertEquals(8, liBuckets.size());
+
+		for (int i = 0; i < liBuckets.size(); i++)
+		{
+			assertEquals((50 * i) + 1, liBuckets.get(i).getFirstRun());
+			assertEquals(50, liBuckets.get(i).getRuns());
+		}
+
+		for (int i = 0; i < liEarlier.size(); i++)
+			assertEquals(liEarlier.get(i).getMeanEnergy(), liBuckets.get(i).getMeanEnergy(), 0.0);
+	}
+
+	@Test
+	public void testBucketSizesMustBeMultiples()
+	{
+		assertNotEquals("", new StartParameters().parseArguments(TestParameters.arguments(400, "single",
+		 "trajectoryBuckets", "50,120")));
+	}
+
+	private static StartParameters startParameters(Path pFile, String... asExtraArgs)
+	{
+		return TestParameters.startParameters(400, "single", TestParameters.join(new String[] {"seed", "20221231",
+		 "trajectoryFile", pFile.toString(), "trajectoryBuckets", "50,200"}, asExtraArgs));
+	}
+
+	private static void assertBucket(Bucket bk, int nFirstRun, int nRuns, int nAcceptances, double dblMinimum,
+	 double dblMean, double dblMaximum)
+	{
+		assertEquals(nFirstRun, bk.getFirstRun());
+		assertEquals(nRuns, bk.getRuns());
+		assertEquals(nAcceptances, bk.getAcceptances());
+		assertEquals(dblMinimum, bk.getMinimumEnergy(), 0.0);
+		assertEquals(dblMean, bk.getMeanEnergy(), 1.0E-9);
+		assertEquals(dblMaximum, bk.getMaximumEnergy(), 0.0);
+	}
+}
@@ -0,0 +1,103 @@
+package ianmarshall;
+
+import ianmarshall.MetricComponents.MetricComponent;
+import static ianmarshall.Worker.DerivativeLevel.None;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+
+public class WarmStartTest
+{
+	@Rule
+	public TemporaryFolder m_tfFolder = new TemporaryFolder();
+
+	@Test
+	public void testLastReportedTableIsRead() throws IOException
+	{
+		Path pLog = m_tfFolder.getRoot().toPath().resolve("run.log");
+		List<String> liLines = new ArrayList<>();
+
+		// An earlier table, as of the initial values, which is not read
+		liLines.add("2022-12-30 10:00:00,000 INFO  Initialising the metric components (a selection is shown)...");
+		liLines.add("    0  1.010000000000  1.000000000000  -1.000000000000");
+		liLines.add("  100  4.080000000000  1.000000000000  -1.000000000000");
+		liLines.add("  200  16.480000000000  1.000000000000  -1.000000000000");
+		liLines.add("2022-12-30 11:00:00,000 INFO  The metric components (in the format \"index, r, A, B\") after the"
+		 + " final run are:");
+		liLines.add("      i                   R                   A                   B               dA/dR");
+		liLines.add("  -----  ------------------  ------------------  ------------------  ------------------");
+
+		for (int i = 0; i < 4; i++)
+			liLines.add(String.format("  %5d  %,18.12f  %,18.12f  %,18.12f  %,18.12f", i, 1.0 + i, 1000.5 * i, -0.25 * i,
+			 0.0));
+
+		liLines.add("2022-12-30 11:00:01,000 INFO  The runs have completed.");
+		Files.write(pLog, liLines);
+
+		MetricGrid mgG = WarmStart.read(pLog);
+
+		assertArrayEquals(new double[] {1.0, 2.0, 3.0, 4.0}, mgG.getRValues(), 0.0);
+		assertArrayEquals(new double[] {0.0, 1000.5, 2001.0, 3001.5}, mgG.getValues(None, MetricComponent.A), 0.0);
+		assertArrayEquals(new double[] {0.0, -0.25, -0.5, -0.75}, mgG.getValues(None, MetricComponent.B), 0.0);
+	}
+
+	@Test
+	public void testCsvIsInterpolatedOntoTheGrid() throws IOException
+	{
+		Path pCsv = m_tfFolder.getRoot().toPath().resolve("values.csv");
+		Files.write(pCsv, Arrays.asList("r,A,B", "2.0,4.0,-1.0", "10.0,20.0,-5.0", "50.0,100.0,-25.0"));
+
+		MetricGrid mgG = Worker.initialiseMetricTensors(TestParameters.startParameters(100, "single", "warmStart",
+		 pCsv.toString()));
+
+		for (int i = 0; i < mgG.size(); i++)
+		{
+			// A and B are linear in the radius within the range of the CSV file, and constant beyond it
+			double dblR = Math.min(Math.max(mgG.getR(i), 2.0), 50.0);
+			assertEquals(2.0 * dblR, mgG.get(None, MetricComponent.A, i), 1.0E-12);
+			assertEquals(-0.5 * dblR, mgG.get(None, MetricComponent.B, i), 1.0E-12);
+		}
+	}
+
+	@Test
+	public void testCheckpointOnTheSameGridIsTakenExactly() throws IOException
+	{
+		Path pCheckpoint = m_tfFolder.getRoot().toPath().resolve("run.checkpoint");
+		MetricGrid mgPrevious = Worker.initialiseMetricTensors(TestParameters.startParameters(100, "single"));
+
+		for (int i = 0; i < mgPrevious.size(); i++)
+		{
+			mgPrevious.set(None, MetricComponent.A, i, 1.0 - (1.0 / mgPrevious.getR(i)));
+			mgPrevious.set(None, MetricComponent.B, i, -1.0 / (1.0 - (1.0 / mgPrevious.getR(i))));
+		}
+
+		Checkpoint.write(pCheckpoint, new Checkpoint(10, 0.0, 1L, 1L, AnnealingSchedule.Type.QUARTIC, new double[0],
+		 new double[0], mgPrevious));
+		MetricGrid mgG = Worker.initialiseMetricTensors(TestParameters.startParameters(100, "single", "warmStart",
+		 pCheckpoint.toString()));
+
+		for (MetricComponent mc: MetricComponent.values())
+			assertArrayEquals(mgPrevious.getValues(None, mc), mgG.getValues(None, mc), 0.0);
+	}
+
+	@Test
+	public void testUnreadableFileIsRejected() throws IOException
+	{
+		Path pText = m_tfFolder.getRoot().toPath().resolve("notes.txt");
+		Files.write(pText, Arrays.asList("1.0 2.0 3.0", "no table here"));
+
+		assertNotEquals("", new StartParameters().parseArguments(TestParameters.arguments(100, "single", "warmStart",
+		 pText.toString())));
+		assertNotEquals("", new StartParameters().parseArguments(TestParameters.arguments(100, "single", "warmStart",
+		 pText.resolveSibling("none").toString())));
+	}
+}
@@ -0,0 +1,28 @@
+#!/bin/bash
+
+# Each value may be a list "a,b,c" or a range "from:to:step"
+numberOfRuns=10000000
+neighbourPeakScalingFactor=2.0
+acceptanceProbabilityScalingFactor=1.0
+temperatureScalingFactor=100.0
+temperatureDivisor=20000,200000
+initialA=0.1,0.3,1.0,3.0,10.0
+initialB=-0.1,-0.3,-1.0,-3.0
+sweepSeeds=3
+
+# executing the sweep again with the same results file resumes it
+sweepResults="logs/SchwarzschildSimulatedAnnealing-sweep.csv"
+
+mvn clean package
+
+java --add-modules jdk.incubator.vector -DlogSuffix="sweep" -cp target/SchwarzschildSimulatedAnnealing-1.0-SNAPSHOT-shaded.jar \
+    ianmarshall.ParameterSweep \
+    sweepResults "$sweepResults" \
+    sweepSeeds "$sweepSeeds" \
+    numberOfRuns "$numberOfRuns" \
+    neighbourPeakScalingFactor "$neighbourPeakScalingFactor" \
+    acceptanceProbabilityScalingFactor "$acceptanceProbabilityScalingFactor" \
+    temperatureScalingFactor "$temperatureScalingFactor" \
+    temperatureDivisor "$temperatureDivisor" \
+    initialA "$initialA" \
+    initialB "$initialB"